@@ -9,16 +9,19 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriUtils;
 import reactor.core.publisher.Mono;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * JWT Authentication Filter for API Gateway
@@ -33,7 +36,9 @@ import java.util.List;
  * 4. Add X-User-Id, X-User-Role, X-User-Email headers to the request
  * 5. Forward to downstream service
  *
- * Public endpoints (login, register) bypass this filter.
+ * Public endpoints (login, register, reading the catalog) don't require a token. A valid
+ * token sent to one still sets the user context headers; without one, client-supplied
+ * user context headers are removed, so a public route never carries a forged identity.
  *
  * @author API Avengers Team
  */
@@ -45,15 +50,23 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
     @Value("${jwt.secret}")
     private String jwtSecret;
 
-    // Public endpoints that don't require authentication
+    // Public endpoints that don't require authentication, with everything below them
     private static final List<String> PUBLIC_ENDPOINTS = List.of(
         "/api/auth/register",
         "/api/auth/login",
-        "/api/products",
         "/actuator/health",
         "/actuator/prometheus"
     );
 
+    // Public for GET and HEAD only: anyone may browse the catalog, but changing it takes an admin token
+    private static final List<String> PUBLIC_READ_ENDPOINTS = List.of("/api/products");
+
+    // Guest carts are public only at exactly these paths; the id charset matches Cart Service's
+    private static final Pattern GUEST_CART_ENDPOINT =
+        Pattern.compile("/api/cart/guest/[A-Za-z0-9-]+(/items/bulk)?");
+
+    private static final List<String> USER_CONTEXT_HEADERS = List.of("X-User-Id", "X-User-Role", "X-User-Email");
+
     public JwtAuthenticationFilter() {
         super(Config.class);
     }
@@ -65,9 +78,10 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
             String path = request.getPath().toString();
 
             // Check if the endpoint is public
-            if (isPublicEndpoint(path)) {
+            boolean publicEndpoint = isPublicEndpoint(request.getMethod(), request.getURI().getRawPath());
+            if (publicEndpoint && !hasBearerToken(request)) {
                 logger.debug("Public endpoint accessed: {}", path);
-                return chain.filter(exchange);
+                return chain.filter(exchange.mutate().request(anonymous(request)).build());
             }
 
             // Extract Authorization header
@@ -107,12 +121,31 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
                 return chain.filter(exchange.mutate().request(modifiedRequest).build());
 
             } catch (Exception e) {
+                if (publicEndpoint) {
+                    // A stale token must not lock anyone out of a public page
+                    logger.debug("Ignoring invalid JWT on public endpoint {}: {}", path, e.getMessage());
+                    return chain.filter(exchange.mutate().request(anonymous(request)).build());
+                }
                 logger.error("JWT validation failed: {}", e.getMessage());
                 return onError(exchange, "Invalid or expired JWT token", HttpStatus.UNAUTHORIZED);
             }
         };
     }
 
+    private static boolean hasBearerToken(ServerHttpRequest request) {
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return authHeader != null && authHeader.startsWith("Bearer ");
+    }
+
+    /**
+     * The request without any client-supplied user context headers
+     */
+    private static ServerHttpRequest anonymous(ServerHttpRequest request) {
+        return request.mutate()
+            .headers(headers -> USER_CONTEXT_HEADERS.forEach(headers::remove))
+            .build();
+    }
+
     /**
      * Validates the JWT token and extracts claims
      */
@@ -127,10 +160,35 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
     }
 
     /**
-     * Checks if the requested path is a public endpoint
+     * Checks if the request is to a public endpoint. The path is decoded first,
+     * and one with dot segments, empty segments, path parameters or backslashes is
+     * never public: a downstream service could resolve it to a protected route.
      */
-    private boolean isPublicEndpoint(String path) {
-        return PUBLIC_ENDPOINTS.stream().anyMatch(path::startsWith);
+    static boolean isPublicEndpoint(HttpMethod method, String rawPath) {
+        String path;
+        try {
+            path = UriUtils.decode(rawPath, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (path.contains("//") || path.contains(";") || path.contains("\\") || path.contains("%")) {
+            return false;
+        }
+        for (String segment : path.split("/")) {
+            if (segment.equals(".") || segment.equals("..")) {
+                return false;
+            }
+        }
+
+        if (GUEST_CART_ENDPOINT.matcher(path).matches() || matchesAny(PUBLIC_ENDPOINTS, path)) {
+            return true;
+        }
+        return (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method))
+            && matchesAny(PUBLIC_READ_ENDPOINTS, path);
+    }
+
+    private static boolean matchesAny(List<String> endpoints, String path) {
+        return endpoints.stream().anyMatch(endpoint -> path.equals(endpoint) || path.startsWith(endpoint + "/"));
     }
 
     /**
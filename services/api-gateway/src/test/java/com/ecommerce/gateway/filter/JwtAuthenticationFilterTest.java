@@ -0,0 +1,166 @@
+package com.ecommerce.gateway.filter;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JwtAuthenticationFilter
+ */
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hmac-sha256";
+
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "jwtSecret", SECRET);
+    }
+
+    private String adminToken() {
+        return Jwts.builder()
+            .subject("admin@example.com")
+            .claim("userId", "1")
+            .claim("role", "ADMIN")
+            .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+            .compact();
+    }
+
+    private ServerWebExchange forward(MockServerWebExchange exchange) {
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        filter.apply(new JwtAuthenticationFilter.Config()).filter(exchange, forwardedExchange -> {
+            forwarded.set(forwardedExchange);
+            return Mono.empty();
+        }).block();
+        return forwarded.get();
+    }
+
+    @Test
+    void testIsPublicEndpoint_GuestCartOnlyAtExactPaths() {
+        assertTrue(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/cart/guest/3f2a9c1e-77b0-4d2e"));
+        assertTrue(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/cart/guest/3f2a9c1e-77b0-4d2e/items/bulk"));
+
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/cart/guest/"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/cart/guest/abc/items"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/cart/guest/abc/items/bulk/extra"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/cart/merge/abc"));
+    }
+
+    @Test
+    void testIsPublicEndpoint_TraversalIsNeverPublic() {
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/cart/guest/../../orders"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/cart/guest/%2e%2e/%2e%2e/orders"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/products/../orders/1"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/products/%252e%252e/orders"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/products;x=1/../orders"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/products//orders"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/productsadmin"));
+
+        assertTrue(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/products"));
+        assertTrue(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.GET, "/api/products/42"));
+    }
+
+    @Test
+    void testIsPublicEndpoint_CatalogIsPublicOnlyForReading() {
+        assertTrue(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.HEAD, "/api/products/42"));
+        assertTrue(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.POST, "/api/auth/login"));
+
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.POST, "/api/products"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.PUT, "/api/products/42"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.DELETE, "/api/products/42"));
+        assertFalse(JwtAuthenticationFilter.isPublicEndpoint(HttpMethod.POST, "/api/products/import"));
+    }
+
+    @Test
+    void testApply_CatalogWriteWithAdminTokenCarriesUserHeaders() {
+        ServerWebExchange forwarded = forward(MockServerWebExchange.from(MockServerHttpRequest.post("/api/products/import")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken())));
+
+        assertNotNull(forwarded);
+        assertEquals("ADMIN", forwarded.getRequest().getHeaders().getFirst("X-User-Role"));
+        assertEquals("1", forwarded.getRequest().getHeaders().getFirst("X-User-Id"));
+    }
+
+    @Test
+    void testApply_CatalogWriteWithoutTokenIsRejected() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.delete("/api/products/42").header("X-User-Role", "ADMIN"));
+
+        assertNull(forward(exchange));
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testApply_TokenOnPublicRouteSetsUserHeaders() {
+        ServerWebExchange forwarded = forward(MockServerWebExchange.from(MockServerHttpRequest.get("/api/products")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken())
+            .header("X-User-Id", "99")));
+
+        assertNotNull(forwarded);
+        assertEquals("1", forwarded.getRequest().getHeaders().getFirst("X-User-Id"));
+        assertEquals("ADMIN", forwarded.getRequest().getHeaders().getFirst("X-User-Role"));
+    }
+
+    @Test
+    void testApply_InvalidTokenOnPublicRouteIsAnonymous() {
+        ServerWebExchange forwarded = forward(MockServerWebExchange.from(MockServerHttpRequest.get("/api/products")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-jwt")
+            .header("X-User-Role", "ADMIN")));
+
+        assertNotNull(forwarded);
+        assertFalse(forwarded.getRequest().getHeaders().containsKey("X-User-Role"));
+    }
+
+    @Test
+    void testApply_PublicRouteDropsClientUserHeaders() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/products/42")
+            .header("X-User-Id", "1")
+            .header("X-User-Role", "ADMIN")
+            .header("X-User-Email", "admin@example.com")
+            .header("Accept", "application/json"));
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        GatewayFilterChain chain = forwardedExchange -> {
+            forwarded.set(forwardedExchange);
+            return Mono.empty();
+        };
+
+        filter.apply(new JwtAuthenticationFilter.Config()).filter(exchange, chain).block();
+
+        assertNotNull(forwarded.get());
+        assertFalse(forwarded.get().getRequest().getHeaders().containsKey("X-User-Id"));
+        assertFalse(forwarded.get().getRequest().getHeaders().containsKey("X-User-Role"));
+        assertFalse(forwarded.get().getRequest().getHeaders().containsKey("X-User-Email"));
+        assertEquals("application/json", forwarded.get().getRequest().getHeaders().getFirst("Accept"));
+    }
+
+    @Test
+    void testApply_TraversalFromPublicPrefixNeedsToken() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/api/cart/guest/../../orders").header("X-User-Role", "ADMIN"));
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+        filter.apply(new JwtAuthenticationFilter.Config()).filter(exchange, forwardedExchange -> {
+            forwarded.set(forwardedExchange);
+            return Mono.empty();
+        }).block();
+
+        assertNull(forwarded.get());
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    }
+}
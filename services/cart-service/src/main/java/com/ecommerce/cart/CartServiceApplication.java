@@ -3,6 +3,8 @@ package com.ecommerce.cart;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Cart Service Application
@@ -14,6 +16,8 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  * - Update item quantities
  * - Clear cart
  * - Get cart contents
+ * - Adds checked against a local catalog snapshot kept current by RabbitMQ events
+ * - Background abandoned-cart analytics
  * - Redis integration for high performance
  * - Service discovery with Eureka
  * - Distributed tracing with Zipkin
@@ -24,6 +28,8 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  */
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableFeignClients
+@EnableScheduling
 public class CartServiceApplication {
 
     public static void main(String[] args) {
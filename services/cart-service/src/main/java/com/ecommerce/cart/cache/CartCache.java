@@ -0,0 +1,171 @@
+package com.ecommerce.cart.cache;
+
+import com.ecommerce.cart.codec.CartCodec;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.repository.CartRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Cart Cache
+ *
+ * Optional in-process cache of carts in front of Redis (cart.cache.enabled). Carts
+ * are held CartCodec-encoded, so callers always get their own copy and the cache is
+ * bounded by the bytes it holds (cart.cache.max-bytes). An entry is dropped when
+ * Redis publishes a keyspace notification for the cart hash, whichever instance
+ * changed it, and at the latest after cart.cache.max-staleness in case a
+ * notification is lost.
+ *
+ * A load only fills the cache if no invalidation for that user arrived while it was
+ * in flight, so a slow read cannot put back a cart that has already changed.
+ *
+ * Metrics: cache.gets/cache.evictions (tag cache=cart), cart.cache.hit.ratio,
+ * cart.cache.invalidations and cart.cache.invalidation.lag, the time from the start
+ * of a write on this instance to the notification that invalidates it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cart.cache", name = "enabled", havingValue = "true")
+public class CartCache {
+
+    public static final String KEYSPACE_CHANNEL_PATTERN = "__keyspace@*__:" + CartRepository.CART_KEY_PREFIX + "*";
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final int GENERATION_STRIPES = 1024;
+    private static final int MAX_PENDING_WRITES = 10_000;
+
+    private final CartCodec cartCodec;
+    private final Cache<Long, byte[]> carts;
+
+    // Bumped on every invalidation; a load that saw another value must not fill the cache
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    // Start of writes made here whose notification has not arrived yet
+    private final ConcurrentMap<Long, Long> pendingWrites = new ConcurrentHashMap<>();
+
+    private final Counter invalidations;
+    private final Timer invalidationLag;
+
+    public CartCache(CartCodec cartCodec, MeterRegistry meterRegistry,
+                     @Value("${cart.cache.max-bytes:67108864}") long maxBytes,
+                     @Value("${cart.cache.max-staleness:60s}") Duration maxStaleness) {
+        this.cartCodec = cartCodec;
+        this.carts = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((Long userId, byte[] cart) -> cart.length + ENTRY_OVERHEAD_BYTES)
+            .expireAfterWrite(maxStaleness)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, carts, "cart");
+        Gauge.builder("cart.cache.hit.ratio", carts, cache -> cache.stats().hitRate())
+            .description("Share of cart reads served from the in-process cache")
+            .register(meterRegistry);
+        this.invalidations = Counter.builder("cart.cache.invalidations")
+            .description("Cart cache invalidations, local and from keyspace notifications")
+            .register(meterRegistry);
+        this.invalidationLag = Timer.builder("cart.cache.invalidation.lag")
+            .description("Time from a cart write on this instance to its keyspace notification")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Cart of a user, from the cache or else from the loader
+     */
+    public Cart get(Long userId, Function<Long, Cart> loader) {
+        byte[] cached = carts.getIfPresent(userId);
+        if (cached != null) {
+            return cartCodec.decodeCart(cached);
+        }
+
+        int stripe = stripe(userId);
+        long generation = generations.get(stripe);
+        Cart cart = loader.apply(userId);
+        if (generations.get(stripe) == generation) {
+            carts.put(userId, cartCodec.encodeCart(cart));
+            // An invalidation may have slipped in between the check and the put
+            if (generations.get(stripe) != generation) {
+                carts.invalidate(userId);
+            }
+        }
+        return cart;
+    }
+
+    /**
+     * Note that this instance is about to change the user's cart, to time its notification
+     */
+    public void recordWrite(Long userId) {
+        if (pendingWrites.size() < MAX_PENDING_WRITES) {
+            pendingWrites.putIfAbsent(userId, System.nanoTime());
+        }
+    }
+
+    public void invalidate(Long userId) {
+        generations.incrementAndGet(stripe(userId));
+        carts.invalidate(userId);
+        invalidations.increment();
+    }
+
+    /**
+     * Handle a notification on __keyspace@{db}__:cart:items:{userId}, braces
+     * included, or on a cart hash that has not been moved to that key yet
+     */
+    public void onKeyspaceEvent(String channel) {
+        Long userId = parseUserId(channel);
+        if (userId == null) {
+            return;
+        }
+
+        invalidate(userId);
+        Long writeStartedAt = pendingWrites.remove(userId);
+        if (writeStartedAt != null) {
+            invalidationLag.record(System.nanoTime() - writeStartedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Drop every entry, e.g. after the notification subscription was interrupted
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        carts.invalidateAll();
+        pendingWrites.clear();
+    }
+
+    private static Long parseUserId(String channel) {
+        int start = channel.indexOf(CartRepository.CART_KEY_PREFIX);
+        if (start < 0) {
+            return null;
+        }
+        String userId = channel.substring(start + CartRepository.CART_KEY_PREFIX.length());
+        if (userId.startsWith("{") && userId.endsWith("}")) {
+            userId = userId.substring(1, userId.length() - 1);
+        }
+        try {
+            return Long.valueOf(userId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return Long.hashCode(userId) & (GENERATION_STRIPES - 1);
+    }
+}
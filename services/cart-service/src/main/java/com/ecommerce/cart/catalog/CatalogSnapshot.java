@@ -0,0 +1,181 @@
+package com.ecommerce.cart.catalog;
+
+import com.ecommerce.cart.client.ProductClient;
+import com.ecommerce.cart.event.CatalogReloadedEvent;
+import com.ecommerce.cart.event.ProductChangedEvent;
+import com.ecommerce.cart.model.BulkCartRequest;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.model.Money;
+import com.ecommerce.cart.model.ProductPrice;
+import com.ecommerce.cart.model.RepricedCart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog Snapshot
+ *
+ * In-memory copy of every product's price and active flag, so adds can be checked
+ * and carts repriced without calling Product Service. It is kept current by the
+ * product.changed events Product Service publishes, and rebuilt from
+ * GET /internal/products/prices every cart.catalog.resync-interval-ms to catch events
+ * missed while this instance was down or disconnected. A catalog import sends
+ * one catalog reload event instead of a change per product, and is picked up
+ * by resyncing straight away.
+ *
+ * Events and resync rows carry the product's updatedAt, and an entry is only
+ * replaced by a newer one, so a resync that raced an event cannot undo it.
+ *
+ * Until the first resync succeeds the snapshot knows nothing, and adds are
+ * accepted at the client's price as they were before.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cart.catalog", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    @Autowired
+    private ProductClient productClient;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    /**
+     * A product's price in cents, whether it can be bought, and the updatedAt
+     * (epoch millis) it was read at
+     */
+    record Entry(long priceCents, boolean active, long version) {
+
+        static Entry newer(Entry current, Entry candidate) {
+            return candidate.version >= current.version ? candidate : current;
+        }
+    }
+
+    @RabbitListener(queues = "#{productChangesQueue.name}")
+    public void onProductChanged(ProductChangedEvent event) {
+        logger.debug("Catalog change for product {}: price {}, active {}",
+            event.getProductId(), event.getPrice(), event.getActive());
+        put(event.getProductId(), event.getPrice(), event.getActive(), event.getUpdatedAt());
+    }
+
+    @RabbitListener(queues = "#{catalogReloadsQueue.name}")
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        logger.info("Catalog reloaded by an import started at {}, resyncing", event.getStartedAt());
+        resync();
+    }
+
+    @Scheduled(fixedDelayString = "${cart.catalog.resync-interval-ms:300000}",
+               initialDelayString = "${cart.catalog.initial-delay-ms:0}")
+    public void resync() {
+        try {
+            List<ProductPrice> prices = productClient.getAllPrices();
+            prices.forEach(price -> put(price.getId(), price.getPrice(), price.getActive(), price.getUpdatedAt()));
+            loaded = true;
+            logger.info("Catalog snapshot resynced: {} products", entries.size());
+        } catch (RuntimeException e) {
+            // Keep serving the current snapshot; the next run tries again
+            logger.error("Catalog snapshot resync failed: {}", e.getMessage());
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * The price to add a product at: the catalog price, whatever the client sent
+     *
+     * @throws IllegalArgumentException if the product is unknown or inactive
+     */
+    public BigDecimal checkPrice(Long productId, BigDecimal requestedPrice) {
+        if (!loaded) {
+            return requestedPrice;
+        }
+
+        Entry entry = entries.get(productId);
+        if (entry == null || !entry.active()) {
+            throw new IllegalArgumentException("Product " + productId + " is not available");
+        }
+        if (requestedPrice != null && Money.toCents(requestedPrice) != entry.priceCents()) {
+            logger.info("Product {} added at catalog price {} instead of {}",
+                productId, Money.fromCents(entry.priceCents()), requestedPrice);
+        }
+        return Money.fromCents(entry.priceCents());
+    }
+
+    /**
+     * Bulk operations with every ADD checked and set to the catalog price
+     */
+    public List<BulkCartRequest.Operation> checkOperations(List<BulkCartRequest.Operation> operations) {
+        if (!loaded) {
+            return operations;
+        }
+
+        List<BulkCartRequest.Operation> checked = new ArrayList<>(operations.size());
+        for (BulkCartRequest.Operation operation : operations) {
+            if (operation.getType() == BulkCartRequest.Type.ADD) {
+                BigDecimal price = checkPrice(operation.getProductId(), operation.getPrice());
+                operation = new BulkCartRequest.Operation(operation.getType(), operation.getProductId(),
+                    operation.getProductName(), price, operation.getQuantity());
+            }
+            checked.add(operation);
+        }
+        return checked;
+    }
+
+    /**
+     * The cart at current catalog prices, without products that can no longer be
+     * bought; one map lookup per item. The stored cart is not changed.
+     */
+    public RepricedCart reprice(Cart cart) {
+        Cart repriced = new Cart();
+        repriced.setUserId(cart.getUserId());
+        List<Long> repricedProducts = new ArrayList<>();
+        List<Long> unavailableProducts = new ArrayList<>();
+
+        for (CartItem item : cart.getItems()) {
+            Entry entry = loaded ? entries.get(item.getProductId()) : null;
+            if (loaded && (entry == null || !entry.active())) {
+                unavailableProducts.add(item.getProductId());
+                continue;
+            }
+
+            long priceCents = item.getPriceCents();
+            if (entry != null && entry.priceCents() != priceCents) {
+                priceCents = entry.priceCents();
+                repricedProducts.add(item.getProductId());
+            }
+            repriced.addItem(new CartItem(item.getProductId(), item.getProductName(), priceCents, item.getQuantity()));
+        }
+
+        return new RepricedCart(repriced, repricedProducts, unavailableProducts);
+    }
+
+    private void put(Long productId, BigDecimal price, Boolean active, LocalDateTime updatedAt) {
+        if (productId == null || price == null) {
+            return;
+        }
+        long version = updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+        Entry entry = new Entry(Money.toCents(price), Boolean.TRUE.equals(active), version);
+        entries.merge(productId, entry, Entry::newer);
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.cart.client;
+
+import com.ecommerce.cart.model.ProductPrice;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.List;
+
+/**
+ * Feign Client for Product Service
+ */
+@FeignClient(name = "product-service")
+public interface ProductClient {
+
+    @GetMapping("/internal/products/prices")
+    List<ProductPrice> getAllPrices();
+}
@@ -0,0 +1,241 @@
+package com.ecommerce.cart.codec;
+
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.model.Money;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cart Codec
+ *
+ * Compact binary encoding of cart data stored in Redis. Every value starts with a
+ * format version byte, followed by varint-encoded fields:
+ *
+ *   item details (v2): price in cents, name
+ *   cart (v2):         userId, item count, then per item productId, quantity, price in cents, name
+ *
+ * A name is its UTF-8 length and bytes, so no type metadata or computed totals are
+ * stored. Version 1 stored prices as a BigDecimal scale and unscaled bytes and is
+ * still decoded. Values starting with '{' are JSON written by earlier versions (the
+ * GenericJackson2JsonRedisSerializer cart document, or the JSON item details of the
+ * first hash layout) and are still decoded, so existing carts survive an upgrade.
+ */
+@Component
+public class CartCodec {
+
+    static final byte VERSION_1 = 1;
+    static final byte VERSION_2 = 2;
+    private static final byte JSON_START = '{';
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    /**
+     * Name and price of a cart item, the part that does not change with quantity
+     */
+    public byte[] encodeItemDetails(CartItem item) {
+        Writer writer = new Writer(16 + item.getProductName().length());
+        writer.writeByte(VERSION_2);
+        writer.writeVarLong(item.getPriceCents());
+        writer.writeString(item.getProductName());
+        return writer.toByteArray();
+    }
+
+    public CartItem decodeItemDetails(Long productId, byte[] details, int quantity) {
+        if (details.length > 0 && details[0] == JSON_START) {
+            JsonNode node = readJson(details);
+            return new CartItem(productId, node.path("productName").asText(),
+                new BigDecimal(node.path("price").asText()), quantity);
+        }
+
+        Reader reader = new Reader(details);
+        long priceCents = reader.readPriceCents(reader.readVersion());
+        String name = reader.readString();
+        return new CartItem(productId, name, priceCents, quantity);
+    }
+
+    public byte[] encodeCart(Cart cart) {
+        Writer writer = new Writer(16 + cart.getItems().size() * 32);
+        writer.writeByte(VERSION_2);
+        writer.writeVarLong(cart.getUserId());
+        writer.writeVarLong(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            writer.writeVarLong(item.getProductId());
+            writer.writeVarLong(item.getQuantity());
+            writer.writeVarLong(item.getPriceCents());
+            writer.writeString(item.getProductName());
+        }
+        return writer.toByteArray();
+    }
+
+    public Cart decodeCart(byte[] value) {
+        if (value.length > 0 && value[0] == JSON_START) {
+            return decodeJsonCart(readJson(value));
+        }
+
+        Reader reader = new Reader(value);
+        byte version = reader.readVersion();
+        Cart cart = new Cart();
+        cart.setUserId(reader.readVarLong());
+        int count = (int) reader.readVarLong();
+        for (int i = 0; i < count; i++) {
+            long productId = reader.readVarLong();
+            int quantity = (int) reader.readVarLong();
+            long priceCents = reader.readPriceCents(version);
+            cart.addItem(new CartItem(productId, reader.readString(), priceCents, quantity));
+        }
+        return cart;
+    }
+
+    /**
+     * The document GenericJackson2JsonRedisSerializer wrote: objects carry an @class
+     * property and non-final values are wrapped as ["java.math.BigDecimal", 9.99]
+     */
+    private Cart decodeJsonCart(JsonNode node) {
+        Cart cart = new Cart();
+        cart.setUserId(unwrap(node.path("userId")).asLong());
+
+        for (JsonNode item : unwrap(node.path("items"))) {
+            cart.addItem(new CartItem(
+                unwrap(item.path("productId")).asLong(),
+                unwrap(item.path("productName")).asText(),
+                new BigDecimal(unwrap(item.path("price")).asText()),
+                unwrap(item.path("quantity")).asInt()));
+        }
+        return cart;
+    }
+
+    private static JsonNode unwrap(JsonNode node) {
+        if (node.isArray() && node.size() == 2 && node.get(0).isTextual()) {
+            return node.get(1);
+        }
+        return node;
+    }
+
+    private JsonNode readJson(byte[] value) {
+        try {
+            return objectMapper.readTree(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed JSON cart value", e);
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        Writer(int initialCapacity) {
+            buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        /**
+         * Zigzag varint: small magnitudes take one byte whatever their sign
+         */
+        void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readVersion() {
+            byte version = readByte();
+            if (version != VERSION_1 && version != VERSION_2) {
+                throw new IllegalArgumentException("Unsupported cart encoding version: " + version);
+            }
+            return version;
+        }
+
+        long readPriceCents(byte version) {
+            if (version == VERSION_1) {
+                int scale = (int) readVarLong();
+                return Money.toCents(new BigDecimal(new BigInteger(readBytes()), scale));
+            }
+            return readVarLong();
+        }
+
+        byte readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated cart value");
+            }
+            return buffer[position++];
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in cart value");
+        }
+
+        byte[] readBytes() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated cart value");
+            }
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated cart value");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
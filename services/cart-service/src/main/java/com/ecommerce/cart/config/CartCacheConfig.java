@@ -0,0 +1,115 @@
+package com.ecommerce.cart.config;
+
+import com.ecommerce.cart.cache.CartCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Cart Cache Configuration
+ *
+ * Subscribes the in-process cart cache to keyspace notifications for cart hashes.
+ * Redis only publishes them when notify-keyspace-events includes K (keyspace
+ * channel), h (hash commands), g (DEL, EXPIRE), x (expired) and e (evicted); with
+ * cart.cache.configure-keyspace-events the missing flags are added at startup.
+ * Managed Redis offerings that block CONFIG SET must have them set by the operator.
+ *
+ * Keyspace notifications are only published by the node that holds the key, and
+ * the listener container subscribes to a single node, so the cache cannot be
+ * enabled against Redis Cluster.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cart.cache", name = "enabled", havingValue = "true")
+public class CartCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartCacheConfig.class);
+
+    static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+    static final String REQUIRED_FLAGS = "Khgxe";
+
+    @Value("${cart.cache.configure-keyspace-events:true}")
+    private boolean configureKeyspaceEvents = true;
+
+    @Bean
+    public RedisMessageListenerContainer cartCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    CartCache cartCache) {
+        if (connectionFactory instanceof LettuceConnectionFactory lettuce && lettuce.isClusterAware()) {
+            throw new IllegalStateException("cart.cache.enabled is not supported with Redis Cluster: "
+                + "keyspace notifications are node-local");
+        }
+        if (configureKeyspaceEvents) {
+            enableKeyspaceEvents(connectionFactory);
+        }
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(new InvalidationListener(cartCache), new PatternTopic(CartCache.KEYSPACE_CHANNEL_PATTERN));
+        return container;
+    }
+
+    private void enableKeyspaceEvents(RedisConnectionFactory connectionFactory) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Properties config = connection.serverCommands().getConfig(NOTIFY_KEYSPACE_EVENTS);
+            String current = config.getProperty(NOTIFY_KEYSPACE_EVENTS, "");
+            String merged = mergeFlags(current);
+            if (!merged.equals(current)) {
+                connection.serverCommands().setConfig(NOTIFY_KEYSPACE_EVENTS, merged);
+                logger.info("Set {} from '{}' to '{}' for the cart cache", NOTIFY_KEYSPACE_EVENTS, current, merged);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not enable keyspace notifications, cached carts may be stale for up to "
+                + "cart.cache.max-staleness: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add the flags the cache needs to the current setting; A stands for all event classes
+     */
+    static String mergeFlags(String current) {
+        StringBuilder merged = new StringBuilder(current);
+        for (char flag : REQUIRED_FLAGS.toCharArray()) {
+            boolean coveredByAll = flag != 'K' && current.indexOf('A') >= 0;
+            if (current.indexOf(flag) < 0 && !coveredByAll) {
+                merged.append(flag);
+            }
+        }
+        return merged.toString();
+    }
+
+    /**
+     * Invalidates on every notification, and drops the whole cache whenever the
+     * subscription is (re)established, since notifications may have been missed
+     */
+    static class InvalidationListener implements MessageListener, SubscriptionListener {
+
+        private final CartCache cartCache;
+
+        InvalidationListener(CartCache cartCache) {
+            this.cartCache = cartCache;
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            cartCache.onKeyspaceEvent(new String(message.getChannel(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void onPatternSubscribed(byte[] pattern, long count) {
+            cartCache.invalidateAll();
+        }
+    }
+}
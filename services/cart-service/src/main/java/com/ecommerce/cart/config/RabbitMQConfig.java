@@ -0,0 +1,82 @@
+package com.ecommerce.cart.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ Configuration
+ *
+ * Subscribes to catalog change and reload events for the local price snapshot.
+ * Every instance keeps its own snapshot, so each one binds its own exclusive,
+ * auto-deleted queues rather than sharing durable ones.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cart.catalog", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RabbitMQConfig {
+
+    public static final String PRODUCT_EXCHANGE = "product.exchange";
+    public static final String PRODUCT_CHANGED_ROUTING_KEY = "product.changed";
+    public static final String CATALOG_RELOADED_ROUTING_KEY = "product.catalog-reloaded";
+
+    /**
+     * Product exchange
+     */
+    @Bean
+    public TopicExchange productExchange() {
+        return new TopicExchange(PRODUCT_EXCHANGE);
+    }
+
+    /**
+     * This instance's queue of product changes
+     */
+    @Bean
+    public Queue productChangesQueue() {
+        return new AnonymousQueue();
+    }
+
+    /**
+     * Product changes binding
+     */
+    @Bean
+    public Binding productChangesBinding() {
+        return BindingBuilder
+            .bind(productChangesQueue())
+            .to(productExchange())
+            .with(PRODUCT_CHANGED_ROUTING_KEY);
+    }
+
+    /**
+     * This instance's queue of catalog reloads
+     */
+    @Bean
+    public Queue catalogReloadsQueue() {
+        return new AnonymousQueue();
+    }
+
+    /**
+     * Catalog reloads binding
+     */
+    @Bean
+    public Binding catalogReloadsBinding() {
+        return BindingBuilder
+            .bind(catalogReloadsQueue())
+            .to(productExchange())
+            .with(CATALOG_RELOADED_ROUTING_KEY);
+    }
+
+    /**
+     * JSON message converter
+     */
+    @Bean
+    public MessageConverter jsonMessageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
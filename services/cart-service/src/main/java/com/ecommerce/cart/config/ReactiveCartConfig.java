@@ -0,0 +1,54 @@
+package com.ecommerce.cart.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Reactive Cart Configuration
+ *
+ * Beans for the reactive mode, active when the application runs as a reactive web
+ * application (the reactive profile sets spring.main.web-application-type). Tomcat
+ * stays on the classpath for the servlet mode, so Netty is selected explicitly.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCartConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Converters for the Feign clients; Spring Boot only provides them to servlet
+     * applications
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public HttpMessageConverters feignHttpMessageConverters() {
+        return new HttpMessageConverters();
+    }
+
+    /**
+     * Reactive counterpart of cartRedisTemplate: string keys and hash fields,
+     * values passed through as bytes
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> reactiveCartRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+            .<String, byte[]>newSerializationContext(RedisSerializer.string())
+            .value(RedisSerializer.byteArray())
+            .hashKey(RedisSerializer.string())
+            .hashValue(RedisSerializer.byteArray())
+            .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+}
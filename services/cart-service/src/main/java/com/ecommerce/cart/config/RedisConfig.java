@@ -1,38 +1,81 @@
 package com.ecommerce.cart.config;
 
+import io.lettuce.core.ReadFrom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
  * Redis Configuration
  *
- * Configures Redis template for storing cart data.
+ * Configures Redis template for storing cart data, and the Lettuce settings that
+ * Spring Boot does not expose as properties:
+ *
+ * - cart.redis.read-from: which nodes serve reads (Lettuce ReadFrom name, e.g.
+ *   upstream, replicaPreferred, lowestLatency). Only cart reads are affected;
+ *   the cart scripts always run on the primary and return the cart they wrote,
+ *   so a replica that lags only delays what a plain GET /api/cart sees.
+ * - cart.redis.pipeline-flush-size: commands buffered before a pipeline is
+ *   flushed; 1 sends every command as soon as it is issued.
+ *
+ * Pooling and cluster topology refresh use the spring.data.redis.lettuce.*
+ * properties.
  */
 @Configuration
 public class RedisConfig {
 
     /**
-     * Configure Redis Template with JSON serialization
+     * Configure Redis Template for cart hashes. Keys and hash fields are strings;
+     * values are passed through as bytes, encoded by CartCodec.
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, Object> template = new RedisTemplate<>();
+    public RedisTemplate<String, byte[]> cartRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
         // Use String serializer for keys
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
 
-        // Use JSON serializer for values
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
-        template.setValueSerializer(serializer);
-        template.setHashValueSerializer(serializer);
+        // Values are already encoded
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
 
         template.afterPropertiesSet();
         return template;
     }
+
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer cartReadFromCustomizer(
+        @Value("${cart.redis.read-from:upstream}") String readFrom
+    ) {
+        return builder -> builder.readFrom(ReadFrom.valueOf(readFrom));
+    }
+
+    /**
+     * Applies cart.redis.pipeline-flush-size to the connection factory; static so
+     * that it is registered before the factory is created
+     */
+    @Bean
+    public static BeanPostProcessor cartPipeliningConfigurer(
+        @Value("${cart.redis.pipeline-flush-size:1}") int flushSize
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LettuceConnectionFactory factory && flushSize > 1) {
+                    factory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.buffered(flushSize));
+                }
+                return bean;
+            }
+        };
+    }
 }
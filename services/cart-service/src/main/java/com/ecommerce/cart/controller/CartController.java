@@ -1,12 +1,15 @@
 package com.ecommerce.cart.controller;
 
 import com.ecommerce.cart.model.AddToCartRequest;
+import com.ecommerce.cart.model.BulkCartRequest;
 import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.service.AbandonedCartScanner;
 import com.ecommerce.cart.service.CartService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,10 +20,12 @@ import java.util.Map;
 /**
  * Cart Controller
  *
- * REST API endpoints for shopping cart operations.
+ * REST API endpoints for shopping cart operations. Serves the servlet mode; the
+ * reactive profile replaces it with ReactiveCartController.
  */
 @RestController
 @RequestMapping("/api/cart")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CartController {
 
     private static final Logger logger = LoggerFactory.getLogger(CartController.class);
@@ -28,6 +33,9 @@ public class CartController {
     @Autowired
     private CartService cartService;
 
+    @Autowired(required = false)
+    private AbandonedCartScanner abandonedCartScanner;
+
     /**
      * Get cart for the authenticated user
      * The X-User-Id header is added by the API Gateway after JWT validation
@@ -43,6 +51,20 @@ public class CartController {
         }
     }
 
+    /**
+     * Get the cart at current catalog prices, listing products repriced or no
+     * longer available; the stored cart is not changed
+     */
+    @GetMapping("/repriced")
+    public ResponseEntity<?> getRepricedCart(@RequestHeader("X-User-Id") String userId) {
+        try {
+            return ResponseEntity.ok(cartService.repriceCart(Long.parseLong(userId)));
+        } catch (Exception e) {
+            logger.error("Failed to reprice cart: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Add item to cart
      */
@@ -95,6 +117,69 @@ public class CartController {
         }
     }
 
+    /**
+     * Apply many adds, quantity updates and removes in one request, all or nothing
+     */
+    @PostMapping("/items/bulk")
+    public ResponseEntity<?> applyBulk(
+        @RequestHeader("X-User-Id") String userId,
+        @Valid @RequestBody BulkCartRequest request
+    ) {
+        try {
+            Cart cart = cartService.applyBulk(Long.parseLong(userId), request);
+            return ResponseEntity.ok(cart);
+        } catch (Exception e) {
+            logger.error("Failed to apply bulk cart operations: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Merge a guest cart into the user's cart after sign-in
+     */
+    @PostMapping("/merge/{guestId}")
+    public ResponseEntity<?> mergeGuestCart(
+        @RequestHeader("X-User-Id") String userId,
+        @PathVariable String guestId
+    ) {
+        try {
+            Cart cart = cartService.mergeGuestCart(Long.parseLong(userId), guestId);
+            return ResponseEntity.ok(cart);
+        } catch (Exception e) {
+            logger.error("Failed to merge guest cart: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get a guest cart; no authentication, the guest id is the credential
+     */
+    @GetMapping("/guest/{guestId}")
+    public ResponseEntity<?> getGuestCart(@PathVariable String guestId) {
+        try {
+            return ResponseEntity.ok(cartService.getGuestCart(guestId));
+        } catch (Exception e) {
+            logger.error("Failed to get guest cart: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Apply many operations to a guest cart, like /items/bulk
+     */
+    @PostMapping("/guest/{guestId}/items/bulk")
+    public ResponseEntity<?> applyGuestBulk(
+        @PathVariable String guestId,
+        @Valid @RequestBody BulkCartRequest request
+    ) {
+        try {
+            return ResponseEntity.ok(cartService.applyGuestBulk(guestId, request));
+        } catch (Exception e) {
+            logger.error("Failed to apply bulk guest cart operations: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Clear cart
      */
@@ -112,6 +197,29 @@ public class CartController {
         }
     }
 
+    /**
+     * Abandoned-cart stats from the last background scan (admin only)
+     */
+    @GetMapping("/admin/abandoned")
+    public ResponseEntity<?> getAbandonedCartStats(
+        @RequestHeader(value = "X-User-Role", required = false) String userRole
+    ) {
+        // Check if user is admin (this header is set by API Gateway after JWT validation)
+        if (userRole == null || !userRole.equals("ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(errorResponse("Only administrators can view abandoned-cart stats"));
+        }
+        if (abandonedCartScanner == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(errorResponse("Abandoned-cart scanning is disabled"));
+        }
+
+        return abandonedCartScanner.getLatestStats()
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(errorResponse("No abandoned-cart scan has completed yet")));
+    }
+
     /**
      * Health check endpoint
      */
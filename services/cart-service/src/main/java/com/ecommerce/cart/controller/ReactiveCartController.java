@@ -0,0 +1,156 @@
+package com.ecommerce.cart.controller;
+
+import com.ecommerce.cart.model.AddToCartRequest;
+import com.ecommerce.cart.model.BulkCartRequest;
+import com.ecommerce.cart.service.AbandonedCartScanner;
+import com.ecommerce.cart.service.ReactiveCartService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Reactive Cart Controller
+ *
+ * The CartController REST API on WebFlux, for the reactive mode. Paths, request
+ * bodies, responses and error bodies are the same as CartController's.
+ */
+@RestController
+@RequestMapping("/api/cart")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCartController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCartController.class);
+
+    @Autowired
+    private ReactiveCartService cartService;
+
+    @Autowired(required = false)
+    private AbandonedCartScanner abandonedCartScanner;
+
+    @GetMapping
+    public Mono<ResponseEntity<?>> getCart(@RequestHeader("X-User-Id") String userId) {
+        return respond("get cart", () -> cartService.getCart(Long.parseLong(userId)));
+    }
+
+    @GetMapping("/repriced")
+    public Mono<ResponseEntity<?>> getRepricedCart(@RequestHeader("X-User-Id") String userId) {
+        return respond("reprice cart", () -> cartService.repriceCart(Long.parseLong(userId)));
+    }
+
+    @PostMapping("/add")
+    public Mono<ResponseEntity<?>> addToCart(
+        @RequestHeader("X-User-Id") String userId,
+        @Valid @RequestBody AddToCartRequest request
+    ) {
+        return respond("add to cart", () -> cartService.addToCart(Long.parseLong(userId), request));
+    }
+
+    @DeleteMapping("/remove/{productId}")
+    public Mono<ResponseEntity<?>> removeFromCart(
+        @RequestHeader("X-User-Id") String userId,
+        @PathVariable Long productId
+    ) {
+        return respond("remove from cart", () -> cartService.removeFromCart(Long.parseLong(userId), productId));
+    }
+
+    @PutMapping("/update/{productId}")
+    public Mono<ResponseEntity<?>> updateQuantity(
+        @RequestHeader("X-User-Id") String userId,
+        @PathVariable Long productId,
+        @RequestParam Integer quantity
+    ) {
+        return respond("update cart", () -> cartService.updateQuantity(Long.parseLong(userId), productId, quantity));
+    }
+
+    @PostMapping("/items/bulk")
+    public Mono<ResponseEntity<?>> applyBulk(
+        @RequestHeader("X-User-Id") String userId,
+        @Valid @RequestBody BulkCartRequest request
+    ) {
+        return respond("apply bulk cart operations", () -> cartService.applyBulk(Long.parseLong(userId), request));
+    }
+
+    @PostMapping("/merge/{guestId}")
+    public Mono<ResponseEntity<?>> mergeGuestCart(
+        @RequestHeader("X-User-Id") String userId,
+        @PathVariable String guestId
+    ) {
+        return respond("merge guest cart", () -> cartService.mergeGuestCart(Long.parseLong(userId), guestId));
+    }
+
+    @GetMapping("/guest/{guestId}")
+    public Mono<ResponseEntity<?>> getGuestCart(@PathVariable String guestId) {
+        return respond("get guest cart", () -> cartService.getGuestCart(guestId));
+    }
+
+    @PostMapping("/guest/{guestId}/items/bulk")
+    public Mono<ResponseEntity<?>> applyGuestBulk(
+        @PathVariable String guestId,
+        @Valid @RequestBody BulkCartRequest request
+    ) {
+        return respond("apply bulk guest cart operations", () -> cartService.applyGuestBulk(guestId, request));
+    }
+
+    @DeleteMapping("/clear")
+    public Mono<ResponseEntity<?>> clearCart(@RequestHeader("X-User-Id") String userId) {
+        return respond("clear cart", () -> cartService.clearCart(Long.parseLong(userId))
+            .then(Mono.fromSupplier(() -> Map.of("message", "Cart cleared successfully"))));
+    }
+
+    @GetMapping("/admin/abandoned")
+    public Mono<ResponseEntity<?>> getAbandonedCartStats(
+        @RequestHeader(value = "X-User-Role", required = false) String userRole
+    ) {
+        if (userRole == null || !userRole.equals("ADMIN")) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(errorResponse("Only administrators can view abandoned-cart stats")));
+        }
+        if (abandonedCartScanner == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(errorResponse("Abandoned-cart scanning is disabled")));
+        }
+
+        return Mono.just(abandonedCartScanner.getLatestStats()
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(errorResponse("No abandoned-cart scan has completed yet"))));
+    }
+
+    @GetMapping("/health")
+    public Mono<ResponseEntity<Map<String, String>>> health() {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "UP");
+        response.put("service", "cart-service");
+        return Mono.just(ResponseEntity.ok(response));
+    }
+
+    /**
+     * 200 with the result, or 400 with an error body like CartController's. The
+     * call is deferred so that exceptions thrown while building it (a malformed
+     * X-User-Id, say) are answered the same way.
+     */
+    private Mono<ResponseEntity<?>> respond(String action, Supplier<Mono<?>> call) {
+        return Mono.defer(call)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .onErrorResume(e -> {
+                logger.error("Failed to {}: {}", action, e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().body(errorResponse(e.getMessage())));
+            });
+    }
+
+    private Map<String, String> errorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return error;
+    }
+}
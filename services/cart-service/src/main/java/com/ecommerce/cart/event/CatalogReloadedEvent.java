@@ -0,0 +1,26 @@
+package com.ecommerce.cart.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Catalog Reloaded Event
+ *
+ * Event received from Product Service after a catalog import, in place of a
+ * ProductChangedEvent for every product it wrote.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogReloadedEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private LocalDateTime startedAt;
+    private Long inserted;
+    private Long updated;
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.cart.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Product Changed Event
+ *
+ * Event received from Product Service after a product is created, updated or
+ * deleted. updatedAt orders events for the same product.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangedEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long productId;
+    private BigDecimal price;
+    private Boolean active;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.cart.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Abandoned Cart Stats
+ *
+ * Result of one walk over all carts by AbandonedCartScanner: carts that have not
+ * been written for at least idleAfter, what they are worth, and the products
+ * most often left in them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AbandonedCartStats {
+
+    private Instant startedAt;
+    private Instant completedAt;
+    private Duration idleAfter;
+
+    private long scannedCarts;
+    private long abandonedCarts;
+    private long abandonedItems;
+    private BigDecimal abandonedValue;
+
+    private List<ProductStats> topProducts = new ArrayList<>();
+
+    /**
+     * Batches after which the scan paused longer because Redis was slow to answer
+     */
+    private long throttledBatches;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductStats {
+        private Long productId;
+        private String productName;
+        private long carts;
+        private long quantity;
+        private BigDecimal value;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.cart.model;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -24,6 +25,7 @@ public class AddToCartRequest {
     private String productName;
 
     @NotNull(message = "Price is required")
+    @Digits(integer = 12, fraction = 2, message = "Price must be a whole number of cents")
     private BigDecimal price;
 
     @NotNull(message = "Quantity is required")
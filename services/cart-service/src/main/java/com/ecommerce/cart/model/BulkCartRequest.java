@@ -0,0 +1,56 @@
+package com.ecommerce.cart.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk Cart Request DTO
+ *
+ * Adds, quantity updates and removes applied to a cart in order, all or nothing.
+ * ADD needs the product name, price and quantity; UPDATE needs the quantity (zero
+ * or less removes the item); REMOVE only the product id.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCartRequest {
+
+    public static final int MAX_OPERATIONS = 200;
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = MAX_OPERATIONS, message = "At most " + MAX_OPERATIONS + " operations per request")
+    private List<@Valid Operation> operations = new ArrayList<>();
+
+    public enum Type {
+        ADD, UPDATE, REMOVE
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation {
+
+        @NotNull(message = "Operation type is required")
+        private Type type;
+
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+
+        private String productName;
+
+        @Digits(integer = 12, fraction = 2, message = "Price must be a whole number of cents")
+        private BigDecimal price;
+
+        private Integer quantity;
+    }
+}
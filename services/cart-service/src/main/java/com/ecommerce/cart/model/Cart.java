@@ -1,5 +1,6 @@
 package com.ecommerce.cart.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,33 +13,48 @@ import java.util.List;
 /**
  * Cart Model
  *
- * Represents a user's shopping cart stored in Redis.
+ * Represents a user's shopping cart stored in Redis. Totals are running values
+ * in cents: Redis maintains them on every mutation, and carts built in memory
+ * update them in addItem, so reading them never walks the items.
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Cart implements Serializable {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     private Long userId;
     private List<CartItem> items = new ArrayList<>();
 
+    @JsonIgnore
+    private long totalPriceCents;
+
+    private int totalItems;
+
     /**
-     * Get total price of all items in cart
+     * Add an item and its subtotal to the running totals
      */
-    public BigDecimal getTotalPrice() {
-        return items.stream()
-            .map(CartItem::getSubtotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public void addItem(CartItem item) {
+        items.add(item);
+        totalPriceCents += item.getSubtotalCents();
+        totalItems += item.getQuantity();
+    }
+
+    /**
+     * Replace the items, recomputing the totals
+     */
+    public void setItems(List<CartItem> items) {
+        this.items = new ArrayList<>();
+        this.totalPriceCents = 0;
+        this.totalItems = 0;
+        items.forEach(this::addItem);
     }
 
     /**
-     * Get total number of items in cart
+     * Get total price of all items in cart
      */
-    public Integer getTotalItems() {
-        return items.stream()
-            .mapToInt(CartItem::getQuantity)
-            .sum();
+    public BigDecimal getTotalPrice() {
+        return Money.fromCents(totalPriceCents);
     }
 }
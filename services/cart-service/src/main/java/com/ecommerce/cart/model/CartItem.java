@@ -1,5 +1,6 @@
 package com.ecommerce.cart.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,24 +11,48 @@ import java.math.BigDecimal;
 /**
  * Cart Item Model
  *
- * Represents a single item in the shopping cart.
+ * Represents a single item in the shopping cart. The price is kept in cents;
+ * BigDecimal values are only produced for the API.
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class CartItem implements Serializable {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     private Long productId;
     private String productName;
-    private BigDecimal price;
+
+    @JsonIgnore
+    private long priceCents;
+
     private Integer quantity;
 
+    public CartItem(Long productId, String productName, BigDecimal price, Integer quantity) {
+        this(productId, productName, Money.toCents(price), quantity);
+    }
+
+    /**
+     * Get unit price of this cart item
+     */
+    public BigDecimal getPrice() {
+        return Money.fromCents(priceCents);
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.priceCents = Money.toCents(price);
+    }
+
+    @JsonIgnore
+    public long getSubtotalCents() {
+        return priceCents * quantity;
+    }
+
     /**
      * Get subtotal for this cart item
      */
     public BigDecimal getSubtotal() {
-        return price.multiply(BigDecimal.valueOf(quantity));
+        return Money.fromCents(getSubtotalCents());
     }
 }
@@ -0,0 +1,29 @@
+package com.ecommerce.cart.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions between API prices and the cents carts are kept in
+ */
+public final class Money {
+
+    private static final int CENT_SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Price in cents; fails for fractions of a cent rather than rounding
+     */
+    public static long toCents(BigDecimal price) {
+        try {
+            return price.movePointRight(CENT_SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price must be a whole number of cents: " + price);
+        }
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, CENT_SCALE);
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.cart.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Product Price DTO
+ *
+ * A product's price and active flag as listed by Product Service.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPrice {
+
+    private Long id;
+    private BigDecimal price;
+    private Boolean active;
+    private LocalDateTime updatedAt;
+}
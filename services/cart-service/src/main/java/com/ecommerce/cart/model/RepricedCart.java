@@ -0,0 +1,24 @@
+package com.ecommerce.cart.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repriced Cart DTO
+ *
+ * A cart at current catalog prices, without the products that can no longer be
+ * bought, and which products were affected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepricedCart {
+
+    private Cart cart;
+    private List<Long> repricedProducts = new ArrayList<>();
+    private List<Long> unavailableProducts = new ArrayList<>();
+}
@@ -0,0 +1,581 @@
+package com.ecommerce.cart.repository;
+
+import com.ecommerce.cart.codec.CartCodec;
+import com.ecommerce.cart.model.BulkCartRequest;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceClusterKeyCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Cart Repository
+ *
+ * Stores each cart as a Redis hash under cart:items:{userId}, braces included: the
+ * braces make the user id the hash tag, so in Redis Cluster every key of a cart,
+ * and the cart's scripts, stay on one slot. Every product has a
+ * quantity field named after its id, a details field ({productId}:d) with the name
+ * and price it was added at, in CartCodec's binary format, and its unit price in
+ * cents ({productId}:p). The #items and #cents fields hold running totals that the
+ * scripts adjust on every mutation, so totals are never summed on read. Numbers
+ * are decimal strings so HINCRBY can work on them.
+ *
+ * Mutations run as Lua scripts (src/main/resources/scripts) that change the item,
+ * refresh the TTL and return the whole hash, so each one is a single atomic round
+ * trip and concurrent requests from the same user cannot interleave. Scripts are
+ * sent by SHA with EVALSHA; the body only goes over the wire again after a Redis
+ * restart or SCRIPT FLUSH, when the NOSCRIPT reply makes Spring fall back to EVAL.
+ *
+ * On a standalone server, carts written in earlier layouts (one JSON document under
+ * cart:userId, or a hash under cart:items:userId without the braces) are moved to
+ * the hash the first time they are read or written. Those keys are on other slots,
+ * so cluster deployments, which start empty, turn this off with
+ * cart.redis.migrate-previous-layouts=false.
+ *
+ * Guest carts, kept for shoppers who have not signed in, use the same layout under
+ * cart:guest:{guestId} until they are merged into a user's cart.
+ */
+@Repository
+public class CartRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartRepository.class);
+
+    public static final String CART_KEY_PREFIX = "cart:items:";
+    static final String LEGACY_CART_KEY_PREFIX = "cart:";
+    static final String GUEST_CART_KEY_PREFIX = "cart:guest:";
+    static final String DETAILS_SUFFIX = ":d";
+    static final String PRICE_SUFFIX = ":p";
+    static final String TOTAL_ITEMS_FIELD = "#items";
+    static final String TOTAL_CENTS_FIELD = "#cents";
+    static final Duration CART_TTL = Duration.ofHours(24);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(10);
+
+    // Status codes returned by the mutation scripts
+    static final long APPLIED = 1;
+    static final long NOT_IN_CART = 0;
+    static final long LEGACY_CART = -1;
+    static final long MISSING_TOTALS = -2;
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> ADD_ITEM = script("scripts/cart-add-item.lua");
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> UPDATE_QUANTITY = script("scripts/cart-update-quantity.lua");
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> REMOVE_ITEM = script("scripts/cart-remove-item.lua");
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> APPLY_BULK = script("scripts/cart-apply-bulk.lua");
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> TAKE = script("scripts/cart-take.lua");
+
+    private static final RedisScript<Long> MOVE_HASH =
+        RedisScript.of(new ClassPathResource("scripts/cart-move-hash.lua"), Long.class);
+
+    private static final RedisScript<Long> REBUILD_TOTALS =
+        RedisScript.of(new ClassPathResource("scripts/cart-rebuild-totals.lua"), Long.class);
+
+    @Autowired
+    private RedisTemplate<String, byte[]> cartRedisTemplate;
+
+    @Autowired
+    private CartCodec cartCodec;
+
+    @Value("${cart.redis.migrate-previous-layouts:true}")
+    private boolean migratePreviousLayouts = true;
+
+    /**
+     * Current cart of a user; empty if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public Cart findByUserId(Long userId) {
+        List<String> keys = userKeys(userId);
+        if (keys.size() == 1) {
+            return toCart(userId, cartRedisTemplate.<String, byte[]>opsForHash().entries(cartKey(userId)));
+        }
+
+        List<Object> results = pipeline(connection -> {
+            connection.hashCommands().hGetAll(bytes(keys.get(0)));
+            connection.keyCommands().exists(keys.subList(1, keys.size()).stream()
+                .map(CartRepository::bytes)
+                .toArray(byte[][]::new));
+        });
+
+        Map<String, byte[]> fields = (Map<String, byte[]>) results.get(0);
+        if ((Long) results.get(1) > 0) {
+            migratePreviousLayouts(userId);
+        } else if (!fields.isEmpty() && !fields.containsKey(TOTAL_ITEMS_FIELD)) {
+            rebuildTotals(userId);
+        } else {
+            return toCart(userId, fields);
+        }
+        return toCart(userId, cartRedisTemplate.<String, byte[]>opsForHash().entries(cartKey(userId)));
+    }
+
+    /**
+     * Add the item's quantity to the cart. The first add of a product fixes its
+     * name and price; later adds only increase the quantity.
+     */
+    public Cart addItem(Long userId, CartItem item) {
+        return mutate(ADD_ITEM, userId, addItemArgs(item)).orElseThrow();
+    }
+
+    /**
+     * Set the quantity of a product in the cart, removing it when the quantity is
+     * zero or less. Empty if the product is not in the cart.
+     */
+    public Optional<Cart> updateQuantity(Long userId, Long productId, int quantity) {
+        return mutate(UPDATE_QUANTITY, userId, updateQuantityArgs(productId, quantity));
+    }
+
+    /**
+     * Remove a product from the cart; a no-op if it is not there
+     */
+    public Cart removeItem(Long userId, Long productId) {
+        return mutate(REMOVE_ITEM, userId, removeItemArgs(productId)).orElseThrow();
+    }
+
+    /**
+     * Apply a batch of operations to the cart in one script call. Empty, with the
+     * cart unchanged, if an update targets a product that is not in the cart.
+     */
+    public Optional<Cart> applyBulk(Long userId, List<BulkCartRequest.Operation> operations) {
+        return mutate(APPLY_BULK, userId, userKeys(userId), bulkArgs(operations));
+    }
+
+    /**
+     * Current guest cart; empty if there is none
+     */
+    public Cart findGuestCart(String guestId) {
+        return toCart(null, cartRedisTemplate.<String, byte[]>opsForHash().entries(guestCartKey(guestId)));
+    }
+
+    /**
+     * Apply a batch of operations to a guest cart, like applyBulk
+     */
+    public Optional<Cart> applyGuestBulk(String guestId, List<BulkCartRequest.Operation> operations) {
+        return mutate(APPLY_BULK, null, List.of(guestCartKey(guestId)), bulkArgs(operations));
+    }
+
+    /**
+     * Fold a guest cart into the user's cart and delete it. Quantities of products
+     * in both carts are added up. The two carts are on different slots, so the
+     * guest cart is claimed atomically first (a concurrent merge finds it empty)
+     * and then added in one bulk script; if that fails, it is put back.
+     */
+    public Cart mergeGuestCart(Long userId, String guestId) {
+        Map<String, byte[]> guest = takeGuestCart(guestId);
+        if (guest.isEmpty()) {
+            return findByUserId(userId);
+        }
+        try {
+            return mutate(APPLY_BULK, userId, userKeys(userId), mergeArgs(guest)).orElseThrow();
+        } catch (RuntimeException e) {
+            cartRedisTemplate.<String, byte[]>opsForHash().putAll(guestCartKey(guestId), guest);
+            cartRedisTemplate.expire(guestCartKey(guestId), CART_TTL);
+            throw e;
+        }
+    }
+
+    /**
+     * Delete the user's cart in any layout
+     */
+    public void deleteByUserId(Long userId) {
+        cartRedisTemplate.delete(userKeys(userId));
+    }
+
+    /**
+     * Walk every cart hash with SCAN, handing the keys to the consumer in batches
+     * of about batchSize. Each SCAN call does a bounded amount of work, unlike
+     * KEYS, so live commands are only ever queued behind one batch; on a cluster,
+     * each primary is scanned in turn. Carts created or deleted during the walk
+     * may or may not be seen.
+     */
+    public void scanCartKeys(int batchSize, Consumer<List<String>> batches) {
+        ScanOptions options = ScanOptions.scanOptions().match(CART_KEY_PREFIX + "{*}").count(batchSize).build();
+        cartRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            if (connection instanceof RedisClusterConnection cluster) {
+                LettuceClusterKeyCommands keyCommands = (LettuceClusterKeyCommands) cluster.keyCommands();
+                for (RedisClusterNode node : cluster.clusterGetNodes()) {
+                    if (node.isMaster()) {
+                        scan(keyCommands.scan(node, options), batchSize, batches);
+                    }
+                }
+            } else {
+                scan(connection.keyCommands().scan(options), batchSize, batches);
+            }
+            return null;
+        });
+    }
+
+    private static void scan(Cursor<byte[]> cursor, int batchSize, Consumer<List<String>> batches) {
+        try (cursor) {
+            List<String> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                batch.add(new String(cursor.next(), StandardCharsets.UTF_8));
+                if (batch.size() == batchSize) {
+                    batches.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.accept(batch);
+            }
+        }
+    }
+
+    /**
+     * Read a batch of carts found by scanCartKeys, with the time each has left to
+     * live. All the reads are sent before any reply is awaited, so the batch
+     * costs about one round trip (per node, on a cluster). Carts that expired
+     * since the scan are left out.
+     */
+    @SuppressWarnings("unchecked")
+    public List<StoredCart> readCarts(List<String> keys) {
+        return cartRedisTemplate.execute((RedisCallback<List<StoredCart>>) connection -> {
+            RedisClusterAsyncCommands<byte[], byte[]> commands =
+                (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+            List<RedisFuture<Long>> ttls = new ArrayList<>(keys.size());
+            List<RedisFuture<Map<byte[], byte[]>>> hashes = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                ttls.add(commands.pttl(bytes(key)));
+                hashes.add(commands.hgetall(bytes(key)));
+            }
+
+            List<StoredCart> carts = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                Long userId = userIdOf(keys.get(i));
+                Map<String, byte[]> fields = new LinkedHashMap<>();
+                await(hashes.get(i)).forEach((field, value) ->
+                    fields.put(new String(field, StandardCharsets.UTF_8), value));
+                long ttlMillis = await(ttls.get(i));
+                if (userId != null && !fields.isEmpty()) {
+                    carts.add(new StoredCart(toCart(userId, fields), Duration.ofMillis(Math.max(ttlMillis, 0))));
+                }
+            }
+            return carts;
+        });
+    }
+
+    private static <T> T await(RedisFuture<T> future) {
+        try {
+            return future.get(READ_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading carts", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to read carts: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A cart as stored, with the time left before it expires
+     */
+    public record StoredCart(Cart cart, Duration timeToLive) {
+
+        /**
+         * Time since the cart was last written; every write resets the TTL
+         */
+        public Duration idle() {
+            return CART_TTL.minus(timeToLive);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> takeGuestCart(String guestId) {
+        return toFieldMap(cartRedisTemplate.execute(TAKE, List.of(guestCartKey(guestId))));
+    }
+
+    /**
+     * Run a mutation script. A legacy cart is migrated, or missing totals rebuilt,
+     * and the script run again.
+     */
+    @SuppressWarnings("rawtypes")
+    private Optional<Cart> mutate(RedisScript<List> script, Long userId, byte[]... args) {
+        return mutate(script, userId, userKeys(userId), args);
+    }
+
+    /**
+     * Run a script on the given keys. Guest carts (no userId) are never in the
+     * legacy layout and always have totals.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Optional<Cart> mutate(RedisScript<List> script, Long userId, List<String> keys, byte[]... args) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            List<Object> result = cartRedisTemplate.execute(script, keys, (Object[]) args);
+            long status = (Long) result.get(0);
+            if (status == APPLIED) {
+                return Optional.of(toCart(userId, toFieldMap((List<byte[]>) result.get(1))));
+            }
+            if (status == NOT_IN_CART) {
+                return Optional.empty();
+            }
+            if (userId == null) {
+                break;
+            }
+            bringUpToDate(userId, status);
+        }
+        throw new IllegalStateException("Cart " + keys.get(0) + " could not be brought up to date");
+    }
+
+    /**
+     * Migrate a cart in an earlier layout, or rebuild missing totals, as a script
+     * status asks
+     */
+    void bringUpToDate(Long userId, long status) {
+        if (status == LEGACY_CART) {
+            migratePreviousLayouts(userId);
+        } else if (status == MISSING_TOTALS) {
+            rebuildTotals(userId);
+        }
+    }
+
+    /**
+     * Move a hash stored without the hash tag, fold a JSON document cart into the
+     * hash and rebuild the totals. For the document, fields already in the hash
+     * win; GETDEL makes sure only one caller migrates a given cart.
+     */
+    private void migratePreviousLayouts(Long userId) {
+        if (cartRedisTemplate.execute(MOVE_HASH, List.of(untaggedCartKey(userId), cartKey(userId))) > 0) {
+            logger.info("Moved cart of user {} to its hash-tagged key", userId);
+        }
+
+        byte[] legacy = cartRedisTemplate.opsForValue().getAndDelete(legacyCartKey(userId));
+        Cart legacyCart = legacy != null ? cartCodec.decodeCart(legacy) : null;
+        if (legacyCart == null || legacyCart.getItems().isEmpty()) {
+            rebuildTotals(userId);
+            return;
+        }
+
+        logger.info("Migrating cart of user {} to the hash layout ({} items)", userId, legacyCart.getItems().size());
+        byte[] key = bytes(cartKey(userId));
+        pipeline(connection -> {
+            for (CartItem item : legacyCart.getItems()) {
+                Long productId = item.getProductId();
+                connection.hashCommands().hSetNX(key, bytes(detailsField(productId)), cartCodec.encodeItemDetails(item));
+                connection.hashCommands().hSetNX(key, bytes(quantityField(productId)), bytes(item.getQuantity().toString()));
+            }
+            connection.keyCommands().expire(key, CART_TTL.getSeconds());
+        });
+        rebuildTotals(userId);
+    }
+
+    /**
+     * Recompute the running totals of a hash, taking unit prices from the item
+     * details for products that have none stored yet
+     */
+    private void rebuildTotals(Long userId) {
+        Map<String, byte[]> fields = cartRedisTemplate.<String, byte[]>opsForHash().entries(cartKey(userId));
+        List<Object> prices = new ArrayList<>();
+        for (CartItem item : decodeItems(fields)) {
+            prices.add(bytes(quantityField(item.getProductId())));
+            prices.add(bytes(Long.toString(item.getPriceCents())));
+        }
+        Long totalItems = cartRedisTemplate.execute(REBUILD_TOTALS, List.of(cartKey(userId)), prices.toArray());
+        logger.info("Rebuilt totals of cart for user {}: {} items", userId, totalItems);
+    }
+
+    byte[][] addItemArgs(CartItem item) {
+        return new byte[][] {
+            bytes(quantityField(item.getProductId())),
+            cartCodec.encodeItemDetails(item),
+            bytes(Long.toString(item.getPriceCents())),
+            bytes(item.getQuantity().toString()),
+            ttlSeconds()
+        };
+    }
+
+    static byte[][] updateQuantityArgs(Long productId, int quantity) {
+        return new byte[][] {bytes(quantityField(productId)), bytes(Integer.toString(quantity)), ttlSeconds()};
+    }
+
+    static byte[][] removeItemArgs(Long productId) {
+        return new byte[][] {bytes(quantityField(productId)), ttlSeconds()};
+    }
+
+    /**
+     * Bulk script arguments adding every item of a guest cart's hash fields
+     */
+    static byte[][] mergeArgs(Map<String, byte[]> guestFields) {
+        List<byte[]> args = new ArrayList<>();
+        args.add(ttlSeconds());
+        for (Map.Entry<String, byte[]> field : guestFields.entrySet()) {
+            String productId = field.getKey();
+            byte[] details = guestFields.get(productId + DETAILS_SUFFIX);
+            byte[] price = guestFields.get(productId + PRICE_SUFFIX);
+            if (productId.indexOf(':') >= 0 || productId.startsWith("#") || details == null || price == null) {
+                continue;
+            }
+            args.addAll(List.of(bytes("add"), bytes(productId), details, price, field.getValue()));
+        }
+        return args.toArray(new byte[0][]);
+    }
+
+    byte[][] bulkArgs(List<BulkCartRequest.Operation> operations) {
+        byte[] none = new byte[0];
+        List<byte[]> args = new ArrayList<>(1 + operations.size() * 5);
+        args.add(ttlSeconds());
+        for (BulkCartRequest.Operation operation : operations) {
+            byte[] productId = bytes(quantityField(operation.getProductId()));
+            switch (operation.getType()) {
+                case ADD -> {
+                    CartItem item = new CartItem(operation.getProductId(), operation.getProductName(),
+                        operation.getPrice(), operation.getQuantity());
+                    args.addAll(List.of(bytes("add"), productId, cartCodec.encodeItemDetails(item),
+                        bytes(Long.toString(item.getPriceCents())), bytes(item.getQuantity().toString())));
+                }
+                case UPDATE -> args.addAll(List.of(bytes("set"), productId, none, none,
+                    bytes(operation.getQuantity().toString())));
+                case REMOVE -> args.addAll(List.of(bytes("remove"), productId, none, none, none));
+            }
+        }
+        return args.toArray(new byte[0][]);
+    }
+
+    private List<Object> pipeline(Consumer<RedisConnection> commands) {
+        return cartRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            commands.accept(connection);
+            return null;
+        });
+    }
+
+    /**
+     * Rebuild a cart from its hash fields, taking the totals as stored
+     */
+    Cart toCart(Long userId, Map<String, byte[]> fields) {
+        if (fields == null || fields.isEmpty()) {
+            Cart cart = new Cart();
+            cart.setUserId(userId);
+            return cart;
+        }
+        return new Cart(userId, decodeItems(fields),
+            parseLong(fields.get(TOTAL_CENTS_FIELD)), (int) parseLong(fields.get(TOTAL_ITEMS_FIELD)));
+    }
+
+    /**
+     * Items of a cart hash in product id order. A quantity without details is a
+     * half-written item and is skipped.
+     */
+    private List<CartItem> decodeItems(Map<String, byte[]> fields) {
+        List<CartItem> items = new ArrayList<>();
+        for (Map.Entry<String, byte[]> field : fields.entrySet()) {
+            String name = field.getKey();
+            if (name.indexOf(':') >= 0 || name.startsWith("#")) {
+                continue;
+            }
+            byte[] details = fields.get(name + DETAILS_SUFFIX);
+            int quantity = (int) parseLong(field.getValue());
+            if (details == null || quantity <= 0) {
+                continue;
+            }
+            items.add(cartCodec.decodeItemDetails(Long.valueOf(name), details, quantity));
+        }
+        items.sort(Comparator.comparing(CartItem::getProductId));
+        return items;
+    }
+
+    private static long parseLong(byte[] value) {
+        return value != null ? Long.parseLong(new String(value, StandardCharsets.US_ASCII)) : 0;
+    }
+
+    /**
+     * HGETALL reply as returned from a script: field, value, field, value, ...
+     */
+    static Map<String, byte[]> toFieldMap(List<byte[]> flat) {
+        Map<String, byte[]> fields = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            fields.put(new String(flat.get(i), StandardCharsets.UTF_8), flat.get(i + 1));
+        }
+        return fields;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static RedisScript<List> script(String path) {
+        return RedisScript.of(new ClassPathResource(path), List.class);
+    }
+
+    static byte[] ttlSeconds() {
+        return bytes(Long.toString(CART_TTL.getSeconds()));
+    }
+
+    static String cartKey(Long userId) {
+        return CART_KEY_PREFIX + "{" + userId + "}";
+    }
+
+    /**
+     * User id of a cart:items:{userId} key; null for any other key
+     */
+    static Long userIdOf(String key) {
+        if (!key.startsWith(CART_KEY_PREFIX + "{") || !key.endsWith("}")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(key.substring(CART_KEY_PREFIX.length() + 1, key.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static String untaggedCartKey(Long userId) {
+        return CART_KEY_PREFIX + userId;
+    }
+
+    static String legacyCartKey(Long userId) {
+        return LEGACY_CART_KEY_PREFIX + userId;
+    }
+
+    static String guestCartKey(String guestId) {
+        return GUEST_CART_KEY_PREFIX + "{" + guestId + "}";
+    }
+
+    /**
+     * The cart hash, followed by the keys of earlier layouts while they are migrated
+     */
+    List<String> userKeys(Long userId) {
+        if (!migratePreviousLayouts) {
+            return List.of(cartKey(userId));
+        }
+        return List.of(cartKey(userId), untaggedCartKey(userId), legacyCartKey(userId));
+    }
+
+    static String quantityField(Long productId) {
+        return productId.toString();
+    }
+
+    private static String detailsField(Long productId) {
+        return productId + DETAILS_SUFFIX;
+    }
+
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,181 @@
+package com.ecommerce.cart.repository;
+
+import com.ecommerce.cart.model.BulkCartRequest;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static com.ecommerce.cart.repository.CartRepository.ADD_ITEM;
+import static com.ecommerce.cart.repository.CartRepository.APPLIED;
+import static com.ecommerce.cart.repository.CartRepository.APPLY_BULK;
+import static com.ecommerce.cart.repository.CartRepository.CART_TTL;
+import static com.ecommerce.cart.repository.CartRepository.NOT_IN_CART;
+import static com.ecommerce.cart.repository.CartRepository.REMOVE_ITEM;
+import static com.ecommerce.cart.repository.CartRepository.TAKE;
+import static com.ecommerce.cart.repository.CartRepository.TOTAL_ITEMS_FIELD;
+import static com.ecommerce.cart.repository.CartRepository.UPDATE_QUANTITY;
+import static com.ecommerce.cart.repository.CartRepository.cartKey;
+import static com.ecommerce.cart.repository.CartRepository.guestCartKey;
+import static com.ecommerce.cart.repository.CartRepository.mergeArgs;
+import static com.ecommerce.cart.repository.CartRepository.removeItemArgs;
+import static com.ecommerce.cart.repository.CartRepository.toFieldMap;
+import static com.ecommerce.cart.repository.CartRepository.updateQuantityArgs;
+
+/**
+ * Reactive Cart Repository
+ *
+ * Non-blocking counterpart of CartRepository for the reactive mode: the same hash
+ * layout and the same scripts, run through ReactiveRedisTemplate. Migrating a cart
+ * from an earlier layout and rebuilding missing totals happen at most once per
+ * cart, so they are delegated to CartRepository on the bounded elastic scheduler
+ * rather than written twice.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCartRepository {
+
+    @Autowired
+    private ReactiveRedisTemplate<String, byte[]> reactiveCartRedisTemplate;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    /**
+     * Current cart of a user; empty if there is none
+     */
+    public Mono<Cart> findByUserId(Long userId) {
+        List<String> keys = cartRepository.userKeys(userId);
+        Mono<Map<String, byte[]>> fields = entries(cartKey(userId));
+        if (keys.size() == 1) {
+            return fields.map(hash -> cartRepository.toCart(userId, hash));
+        }
+
+        // Both commands go out on the shared connection without waiting for each other
+        Mono<Long> previousLayouts = reactiveCartRedisTemplate.countExistingKeys(keys.subList(1, keys.size()));
+        return Mono.zip(fields, previousLayouts).flatMap(results -> {
+            if (results.getT2() > 0 || (!results.getT1().isEmpty() && !results.getT1().containsKey(TOTAL_ITEMS_FIELD))) {
+                return blocking(() -> cartRepository.findByUserId(userId));
+            }
+            return Mono.just(cartRepository.toCart(userId, results.getT1()));
+        });
+    }
+
+    public Mono<Cart> addItem(Long userId, CartItem item) {
+        return mutate(ADD_ITEM, userId, cartRepository.userKeys(userId), cartRepository.addItemArgs(item));
+    }
+
+    /**
+     * Empty if the product is not in the cart
+     */
+    public Mono<Cart> updateQuantity(Long userId, Long productId, int quantity) {
+        return mutate(UPDATE_QUANTITY, userId, cartRepository.userKeys(userId), updateQuantityArgs(productId, quantity));
+    }
+
+    public Mono<Cart> removeItem(Long userId, Long productId) {
+        return mutate(REMOVE_ITEM, userId, cartRepository.userKeys(userId), removeItemArgs(productId));
+    }
+
+    /**
+     * Empty, with the cart unchanged, if an update targets a product that is not in the cart
+     */
+    public Mono<Cart> applyBulk(Long userId, List<BulkCartRequest.Operation> operations) {
+        return mutate(APPLY_BULK, userId, cartRepository.userKeys(userId), cartRepository.bulkArgs(operations));
+    }
+
+    public Mono<Cart> findGuestCart(String guestId) {
+        return entries(guestCartKey(guestId)).map(fields -> cartRepository.toCart(null, fields));
+    }
+
+    public Mono<Cart> applyGuestBulk(String guestId, List<BulkCartRequest.Operation> operations) {
+        return mutate(APPLY_BULK, null, List.of(guestCartKey(guestId)), cartRepository.bulkArgs(operations));
+    }
+
+    /**
+     * Claim the guest cart, then add it to the user's cart; see CartRepository
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Mono<Cart> mergeGuestCart(Long userId, String guestId) {
+        String guestKey = guestCartKey(guestId);
+        return reactiveCartRedisTemplate.execute(TAKE, List.of(guestKey), List.of())
+            .cast(Object.class)
+            .collectList()
+            .map(reply -> toFieldMap((List) scriptResult(reply)))
+            .flatMap(guest -> {
+                if (guest.isEmpty()) {
+                    return findByUserId(userId);
+                }
+                return mutate(APPLY_BULK, userId, cartRepository.userKeys(userId), mergeArgs(guest))
+                    .onErrorResume(e -> reactiveCartRedisTemplate.<String, byte[]>opsForHash().putAll(guestKey, guest)
+                        .then(reactiveCartRedisTemplate.expire(guestKey, CART_TTL))
+                        .then(Mono.error(e)));
+            });
+    }
+
+    public Mono<Void> deleteByUserId(Long userId) {
+        return reactiveCartRedisTemplate.delete(cartRepository.userKeys(userId).toArray(new String[0])).then();
+    }
+
+    private Mono<Map<String, byte[]>> entries(String key) {
+        return reactiveCartRedisTemplate.<String, byte[]>opsForHash().entries(key)
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    /**
+     * Run a script; a legacy cart is migrated, or missing totals rebuilt, and the
+     * script run again. Empty for NOT_IN_CART.
+     */
+    @SuppressWarnings("rawtypes")
+    private Mono<Cart> mutate(RedisScript<List> script, Long userId, List<String> keys, byte[]... args) {
+        return mutate(script, userId, keys, List.of((Object[]) args), 0);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Mono<Cart> mutate(RedisScript<List> script, Long userId, List<String> keys, List<Object> args, int attempt) {
+        return reactiveCartRedisTemplate.execute(script, keys, args)
+            .cast(Object.class)
+            .collectList()
+            .flatMap(reply -> {
+                List<Object> result = scriptResult(reply);
+                long status = (Long) result.get(0);
+                if (status == APPLIED) {
+                    return Mono.just(cartRepository.toCart(userId, toFieldMap((List<byte[]>) result.get(1))));
+                }
+                if (status == NOT_IN_CART) {
+                    return Mono.empty();
+                }
+                if (userId == null || attempt >= 2) {
+                    return Mono.error(new IllegalStateException("Cart " + keys.get(0) + " could not be brought up to date"));
+                }
+                return blocking(() -> {
+                    cartRepository.bringUpToDate(userId, status);
+                    return Boolean.TRUE;
+                }).then(Mono.defer(() -> mutate(script, userId, keys, args, attempt + 1)));
+            });
+    }
+
+    /**
+     * Lettuce emits the elements of a multi-bulk script reply one by one; accept
+     * the reply as a single list too
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object> scriptResult(List<Object> reply) {
+        if (reply.size() == 1 && reply.get(0) instanceof List) {
+            return (List<Object>) reply.get(0);
+        }
+        return reply;
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,247 @@
+package com.ecommerce.cart.service;
+
+import com.ecommerce.cart.model.AbandonedCartStats;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.model.Money;
+import com.ecommerce.cart.repository.CartRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Abandoned Cart Scanner
+ *
+ * Carts expire CART_TTL after their last write, and every write resets the TTL,
+ * so a cart's idle time is CART_TTL minus the TTL it has left. This job walks all
+ * carts in the background and reports those idle for at least
+ * cart.abandoned.idle-after: how many, their value, and the products most often
+ * left behind.
+ *
+ * The walk uses SCAN in batches of cart.abandoned.batch-size and reads each batch
+ * in one pipelined round trip, so it never holds Redis for long. It also backs off
+ * when Redis slows down: after a batch whose reads took longer than
+ * cart.abandoned.max-batch-latency, the pause before the next batch doubles (up to
+ * max-pause), and it halves again (down to min-pause) once batches are fast.
+ *
+ * Every instance runs its own scan; enable it on one.
+ */
+@Service
+@ConditionalOnProperty(prefix = "cart.abandoned", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AbandonedCartScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbandonedCartScanner.class);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cart.abandoned.idle-after:2h}")
+    private Duration idleAfter = Duration.ofHours(2);
+
+    @Value("${cart.abandoned.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${cart.abandoned.top-products:10}")
+    private int topProducts = 10;
+
+    @Value("${cart.abandoned.max-batch-latency:20ms}")
+    private Duration maxBatchLatency = Duration.ofMillis(20);
+
+    @Value("${cart.abandoned.min-pause:5ms}")
+    private Duration minPause = Duration.ofMillis(5);
+
+    @Value("${cart.abandoned.max-pause:2s}")
+    private Duration maxPause = Duration.ofSeconds(2);
+
+    private volatile AbandonedCartStats latest;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("cart.abandoned.carts", this,
+                scanner -> scanner.latestValue(AbandonedCartStats::getAbandonedCarts))
+            .description("Carts idle for at least cart.abandoned.idle-after, as of the last scan")
+            .register(meterRegistry);
+        Gauge.builder("cart.abandoned.value", this,
+                scanner -> scanner.latestValue(stats -> stats.getAbandonedValue().doubleValue()))
+            .description("Total value of abandoned carts, as of the last scan")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.abandoned.interval-ms:900000}",
+               initialDelayString = "${cart.abandoned.initial-delay-ms:60000}")
+    public void scanAbandonedCarts() {
+        try {
+            latest = scan();
+            logger.info("Abandoned-cart scan: {} of {} carts idle for {}, worth {} ({} throttled batches)",
+                latest.getAbandonedCarts(), latest.getScannedCarts(), idleAfter,
+                latest.getAbandonedValue(), latest.getThrottledBatches());
+        } catch (RuntimeException e) {
+            // Keep the previous results; the next run starts over
+            logger.error("Abandoned-cart scan failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Results of the last completed scan, if any
+     */
+    public Optional<AbandonedCartStats> getLatestStats() {
+        return Optional.ofNullable(latest);
+    }
+
+    /**
+     * Walk all carts once and tally the abandoned ones
+     */
+    AbandonedCartStats scan() {
+        Tally tally = new Tally(idleAfter);
+        Throttle throttle = new Throttle(maxBatchLatency, minPause, maxPause);
+
+        cartRepository.scanCartKeys(batchSize, keys -> {
+            long start = System.nanoTime();
+            List<CartRepository.StoredCart> carts = cartRepository.readCarts(keys);
+            long pauseMillis = throttle.pauseAfter(System.nanoTime() - start);
+
+            carts.forEach(tally::add);
+            pause(pauseMillis);
+        });
+
+        return tally.toStats(topProducts, throttle.getThrottledBatches());
+    }
+
+    private double latestValue(ToDoubleFunction<AbandonedCartStats> value) {
+        AbandonedCartStats stats = latest;
+        return stats != null ? value.applyAsDouble(stats) : 0;
+    }
+
+    private static void pause(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Abandoned-cart scan interrupted", e);
+        }
+    }
+
+    /**
+     * Running totals of one scan
+     */
+    static class Tally {
+
+        private final Duration idleAfter;
+        private final Instant startedAt = Instant.now();
+        private final Map<Long, ProductTally> products = new HashMap<>();
+
+        private long scannedCarts;
+        private long abandonedCarts;
+        private long abandonedItems;
+        private long abandonedCents;
+
+        Tally(Duration idleAfter) {
+            this.idleAfter = idleAfter;
+        }
+
+        void add(CartRepository.StoredCart stored) {
+            scannedCarts++;
+            if (stored.idle().compareTo(idleAfter) < 0 || stored.cart().getItems().isEmpty()) {
+                return;
+            }
+
+            abandonedCarts++;
+            abandonedItems += stored.cart().getTotalItems();
+            abandonedCents += stored.cart().getTotalPriceCents();
+            for (CartItem item : stored.cart().getItems()) {
+                ProductTally product = products.computeIfAbsent(item.getProductId(),
+                    id -> new ProductTally(id, item.getProductName()));
+                product.carts++;
+                product.quantity += item.getQuantity();
+                product.cents += item.getSubtotalCents();
+            }
+        }
+
+        /**
+         * The totals, with the products left in the most carts first
+         */
+        AbandonedCartStats toStats(int topProducts, long throttledBatches) {
+            List<AbandonedCartStats.ProductStats> top = products.values().stream()
+                .sorted(Comparator.comparingLong((ProductTally product) -> product.carts).reversed()
+                    .thenComparing(Comparator.comparingLong((ProductTally product) -> product.cents).reversed())
+                    .thenComparingLong(product -> product.productId))
+                .limit(topProducts)
+                .map(product -> new AbandonedCartStats.ProductStats(product.productId, product.productName,
+                    product.carts, product.quantity, Money.fromCents(product.cents)))
+                .toList();
+
+            return new AbandonedCartStats(startedAt, Instant.now(), idleAfter, scannedCarts, abandonedCarts,
+                abandonedItems, Money.fromCents(abandonedCents), top, throttledBatches);
+        }
+    }
+
+    private static class ProductTally {
+
+        private final Long productId;
+        private final String productName;
+        private long carts;
+        private long quantity;
+        private long cents;
+
+        ProductTally(Long productId, String productName) {
+            this.productId = productId;
+            this.productName = productName;
+        }
+    }
+
+    /**
+     * Pause between batches, doubled after a slow batch and halved after a fast one
+     */
+    static class Throttle {
+
+        private final long maxBatchNanos;
+        private final long minPauseMillis;
+        private final long maxPauseMillis;
+
+        private long pauseMillis;
+        private long throttledBatches;
+
+        Throttle(Duration maxBatchLatency, Duration minPause, Duration maxPause) {
+            this.maxBatchNanos = maxBatchLatency.toNanos();
+            this.minPauseMillis = minPause.toMillis();
+            this.maxPauseMillis = Math.max(maxPause.toMillis(), minPauseMillis);
+            this.pauseMillis = minPauseMillis;
+        }
+
+        /**
+         * Pause to take after a batch whose reads took batchNanos
+         */
+        long pauseAfter(long batchNanos) {
+            if (batchNanos > maxBatchNanos) {
+                throttledBatches++;
+                pauseMillis = Math.min(maxPauseMillis, Math.max(1, pauseMillis) * 2);
+            } else {
+                pauseMillis = Math.max(minPauseMillis, pauseMillis / 2);
+            }
+            return pauseMillis;
+        }
+
+        long getThrottledBatches() {
+            return throttledBatches;
+        }
+    }
+}
@@ -1,30 +1,48 @@
 package com.ecommerce.cart.service;
 
+import com.ecommerce.cart.cache.CartCache;
+import com.ecommerce.cart.catalog.CatalogSnapshot;
 import com.ecommerce.cart.model.AddToCartRequest;
+import com.ecommerce.cart.model.BulkCartRequest;
 import com.ecommerce.cart.model.Cart;
 import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.model.RepricedCart;
+import com.ecommerce.cart.repository.CartRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * Cart Service
  *
- * Business logic for shopping cart operations using Redis.
+ * Business logic for shopping cart operations using Redis. Each operation is a
+ * single atomic call into CartRepository, which stores carts as Redis hashes.
+ * When the optional CartCache is enabled, reads go through it and every write
+ * invalidates the user's entry. When the CatalogSnapshot is enabled, every add is
+ * checked against it and made at the catalog price.
  */
 @Service
 public class CartService {
 
     private static final Logger logger = LoggerFactory.getLogger(CartService.class);
-    private static final String CART_KEY_PREFIX = "cart:";
-    private static final long CART_TTL_HOURS = 24; // Cart expires after 24 hours
+
+    // Guest ids are generated by the client (e.g. a UUID) and must be hard to guess
+    private static final Pattern GUEST_ID = Pattern.compile("[A-Za-z0-9-]{16,64}");
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private CartRepository cartRepository;
+
+    @Autowired(required = false)
+    private CartCache cartCache;
+
+    @Autowired(required = false)
+    private CatalogSnapshot catalogSnapshot;
 
     /**
      * Get cart for a user
@@ -32,16 +50,10 @@ public class CartService {
     public Cart getCart(Long userId) {
         logger.info("Fetching cart for user: {}", userId);
 
-        String key = getCartKey(userId);
-        Cart cart = (Cart) redisTemplate.opsForValue().get(key);
-
-        if (cart == null) {
-            logger.info("Creating new cart for user: {}", userId);
-            cart = new Cart();
-            cart.setUserId(userId);
+        if (cartCache != null) {
+            return cartCache.get(userId, cartRepository::findByUserId);
         }
-
-        return cart;
+        return cartRepository.findByUserId(userId);
     }
 
     /**
@@ -50,32 +62,13 @@ public class CartService {
     public Cart addToCart(Long userId, AddToCartRequest request) {
         logger.info("Adding product {} to cart for user {}", request.getProductId(), userId);
 
-        Cart cart = getCart(userId);
-
-        // Check if item already exists in cart
-        CartItem existingItem = cart.getItems().stream()
-            .filter(item -> item.getProductId().equals(request.getProductId()))
-            .findFirst()
-            .orElse(null);
-
-        if (existingItem != null) {
-            // Update quantity if item already exists
-            existingItem.setQuantity(existingItem.getQuantity() + request.getQuantity());
-            logger.info("Updated quantity for product {} to {}", request.getProductId(), existingItem.getQuantity());
-        } else {
-            // Add new item to cart
-            CartItem newItem = new CartItem(
-                request.getProductId(),
-                request.getProductName(),
-                request.getPrice(),
-                request.getQuantity()
-            );
-            cart.getItems().add(newItem);
-            logger.info("Added new product {} to cart", request.getProductId());
-        }
-
-        saveCart(cart);
-        return cart;
+        CartItem item = new CartItem(
+            request.getProductId(),
+            request.getProductName(),
+            catalogPrice(request.getProductId(), request.getPrice()),
+            request.getQuantity()
+        );
+        return write(userId, () -> cartRepository.addItem(userId, item));
     }
 
     /**
@@ -83,14 +76,7 @@ public class CartService {
      */
     public Cart removeFromCart(Long userId, Long productId) {
         logger.info("Removing product {} from cart for user {}", productId, userId);
-
-        Cart cart = getCart(userId);
-
-        cart.getItems().removeIf(item -> item.getProductId().equals(productId));
-        logger.info("Removed product {} from cart", productId);
-
-        saveCart(cart);
-        return cart;
+        return write(userId, () -> cartRepository.removeItem(userId, productId));
     }
 
     /**
@@ -99,23 +85,62 @@ public class CartService {
     public Cart updateQuantity(Long userId, Long productId, Integer quantity) {
         logger.info("Updating quantity for product {} to {} for user {}", productId, quantity, userId);
 
-        Cart cart = getCart(userId);
+        if (quantity <= 0) {
+            logger.info("Removing product {} from cart (quantity set to 0)", productId);
+        }
+        return write(userId, () -> cartRepository.updateQuantity(userId, productId, quantity))
+            .orElseThrow(() -> new RuntimeException("Product not found in cart"));
+    }
 
-        CartItem item = cart.getItems().stream()
-            .filter(cartItem -> cartItem.getProductId().equals(productId))
-            .findFirst()
+    /**
+     * Apply many adds, updates and removes to a cart in one atomic call
+     */
+    public Cart applyBulk(Long userId, BulkCartRequest request) {
+        List<BulkCartRequest.Operation> operations = catalogChecked(validate(request));
+        logger.info("Applying {} cart operations for user {}", operations.size(), userId);
+
+        return write(userId, () -> cartRepository.applyBulk(userId, operations))
             .orElseThrow(() -> new RuntimeException("Product not found in cart"));
+    }
 
-        if (quantity <= 0) {
-            cart.getItems().remove(item);
-            logger.info("Removed product {} from cart (quantity set to 0)", productId);
-        } else {
-            item.setQuantity(quantity);
-            logger.info("Updated quantity for product {} to {}", productId, quantity);
-        }
+    /**
+     * Get the cart of a shopper who has not signed in
+     */
+    public Cart getGuestCart(String guestId) {
+        logger.info("Fetching guest cart {}", guestId);
+        return cartRepository.findGuestCart(validGuestId(guestId));
+    }
+
+    /**
+     * Apply many adds, updates and removes to a guest cart in one atomic call
+     */
+    public Cart applyGuestBulk(String guestId, BulkCartRequest request) {
+        List<BulkCartRequest.Operation> operations = catalogChecked(validate(request));
+        logger.info("Applying {} cart operations for guest cart {}", operations.size(), guestId);
+
+        return cartRepository.applyGuestBulk(validGuestId(guestId), operations)
+            .orElseThrow(() -> new RuntimeException("Product not found in cart"));
+    }
 
-        saveCart(cart);
-        return cart;
+    /**
+     * Fold a guest cart into the user's cart after sign-in; the guest cart is deleted
+     */
+    public Cart mergeGuestCart(Long userId, String guestId) {
+        logger.info("Merging guest cart {} into cart for user {}", guestId, userId);
+        String validGuestId = validGuestId(guestId);
+        return write(userId, () -> cartRepository.mergeGuestCart(userId, validGuestId));
+    }
+
+    /**
+     * The user's cart at current catalog prices, without products that can no
+     * longer be bought; the stored cart is left as it is
+     */
+    public RepricedCart repriceCart(Long userId) {
+        Cart cart = getCart(userId);
+        if (catalogSnapshot == null) {
+            return new RepricedCart(cart, List.of(), List.of());
+        }
+        return catalogSnapshot.reprice(cart);
     }
 
     /**
@@ -124,25 +149,63 @@ public class CartService {
     public void clearCart(Long userId) {
         logger.info("Clearing cart for user: {}", userId);
 
-        String key = getCartKey(userId);
-        redisTemplate.delete(key);
+        write(userId, () -> {
+            cartRepository.deleteByUserId(userId);
+            return null;
+        });
 
         logger.info("Cart cleared for user: {}", userId);
     }
 
     /**
-     * Save cart to Redis with TTL
+     * Check the fields each operation type needs; bean validation only covers
+     * the ones they all share
      */
-    private void saveCart(Cart cart) {
-        String key = getCartKey(cart.getUserId());
-        redisTemplate.opsForValue().set(key, cart, CART_TTL_HOURS, TimeUnit.HOURS);
-        logger.debug("Cart saved to Redis for user: {}", cart.getUserId());
+    static List<BulkCartRequest.Operation> validate(BulkCartRequest request) {
+        for (BulkCartRequest.Operation operation : request.getOperations()) {
+            Long productId = operation.getProductId();
+            if (operation.getType() == BulkCartRequest.Type.ADD) {
+                if (operation.getProductName() == null || operation.getProductName().isBlank() || operation.getPrice() == null) {
+                    throw new IllegalArgumentException("Product name and price are required to add product " + productId);
+                }
+                if (operation.getQuantity() == null || operation.getQuantity() < 1) {
+                    throw new IllegalArgumentException("Quantity must be at least 1 to add product " + productId);
+                }
+            } else if (operation.getType() == BulkCartRequest.Type.UPDATE && operation.getQuantity() == null) {
+                throw new IllegalArgumentException("Quantity is required to update product " + productId);
+            }
+        }
+        return request.getOperations();
+    }
+
+    static String validGuestId(String guestId) {
+        if (guestId == null || !GUEST_ID.matcher(guestId).matches()) {
+            throw new IllegalArgumentException("Invalid guest cart id");
+        }
+        return guestId;
+    }
+
+    private BigDecimal catalogPrice(Long productId, BigDecimal requestedPrice) {
+        return catalogSnapshot != null ? catalogSnapshot.checkPrice(productId, requestedPrice) : requestedPrice;
+    }
+
+    private List<BulkCartRequest.Operation> catalogChecked(List<BulkCartRequest.Operation> operations) {
+        return catalogSnapshot != null ? catalogSnapshot.checkOperations(operations) : operations;
     }
 
     /**
-     * Generate Redis key for user cart
+     * Run a cart write, keeping the cache (if enabled) from serving the old cart
      */
-    private String getCartKey(Long userId) {
-        return CART_KEY_PREFIX + userId;
+    private <T> T write(Long userId, Supplier<T> mutation) {
+        if (cartCache == null) {
+            return mutation.get();
+        }
+
+        cartCache.recordWrite(userId);
+        try {
+            return mutation.get();
+        } finally {
+            cartCache.invalidate(userId);
+        }
     }
 }
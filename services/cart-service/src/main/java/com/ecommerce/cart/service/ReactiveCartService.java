@@ -0,0 +1,109 @@
+package com.ecommerce.cart.service;
+
+import com.ecommerce.cart.catalog.CatalogSnapshot;
+import com.ecommerce.cart.model.AddToCartRequest;
+import com.ecommerce.cart.model.BulkCartRequest;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.model.RepricedCart;
+import com.ecommerce.cart.repository.ReactiveCartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive Cart Service
+ *
+ * CartService for the reactive mode, on ReactiveCartRepository, with the same
+ * validation and error messages. CartCache is not used: its loader would block an
+ * event loop thread, and a hash read is a single non-blocking round trip anyway.
+ * CatalogSnapshot checks are in-memory lookups, so they run inline.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCartService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCartService.class);
+
+    @Autowired
+    private ReactiveCartRepository cartRepository;
+
+    @Autowired(required = false)
+    private CatalogSnapshot catalogSnapshot;
+
+    public Mono<Cart> getCart(Long userId) {
+        logger.info("Fetching cart for user: {}", userId);
+        return cartRepository.findByUserId(userId);
+    }
+
+    public Mono<Cart> addToCart(Long userId, AddToCartRequest request) {
+        logger.info("Adding product {} to cart for user {}", request.getProductId(), userId);
+
+        return Mono.fromCallable(() -> new CartItem(
+            request.getProductId(),
+            request.getProductName(),
+            catalogSnapshot != null
+                ? catalogSnapshot.checkPrice(request.getProductId(), request.getPrice())
+                : request.getPrice(),
+            request.getQuantity()
+        )).flatMap(item -> cartRepository.addItem(userId, item));
+    }
+
+    public Mono<Cart> removeFromCart(Long userId, Long productId) {
+        logger.info("Removing product {} from cart for user {}", productId, userId);
+        return cartRepository.removeItem(userId, productId);
+    }
+
+    public Mono<Cart> updateQuantity(Long userId, Long productId, Integer quantity) {
+        logger.info("Updating quantity for product {} to {} for user {}", productId, quantity, userId);
+        return cartRepository.updateQuantity(userId, productId, quantity)
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("Product not found in cart")));
+    }
+
+    public Mono<Cart> applyBulk(Long userId, BulkCartRequest request) {
+        return Mono.fromCallable(() -> catalogChecked(CartService.validate(request))).flatMap(operations -> {
+            logger.info("Applying {} cart operations for user {}", operations.size(), userId);
+            return cartRepository.applyBulk(userId, operations)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Product not found in cart")));
+        });
+    }
+
+    public Mono<Cart> getGuestCart(String guestId) {
+        logger.info("Fetching guest cart {}", guestId);
+        return Mono.fromCallable(() -> CartService.validGuestId(guestId)).flatMap(cartRepository::findGuestCart);
+    }
+
+    public Mono<Cart> applyGuestBulk(String guestId, BulkCartRequest request) {
+        return Mono.fromCallable(() -> catalogChecked(CartService.validate(request))).flatMap(operations -> {
+            logger.info("Applying {} cart operations for guest cart {}", operations.size(), guestId);
+            return cartRepository.applyGuestBulk(CartService.validGuestId(guestId), operations)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Product not found in cart")));
+        });
+    }
+
+    public Mono<Cart> mergeGuestCart(Long userId, String guestId) {
+        logger.info("Merging guest cart {} into cart for user {}", guestId, userId);
+        return Mono.fromCallable(() -> CartService.validGuestId(guestId))
+            .flatMap(validGuestId -> cartRepository.mergeGuestCart(userId, validGuestId));
+    }
+
+    public Mono<RepricedCart> repriceCart(Long userId) {
+        return cartRepository.findByUserId(userId).map(cart -> catalogSnapshot != null
+            ? catalogSnapshot.reprice(cart)
+            : new RepricedCart(cart, List.of(), List.of()));
+    }
+
+    public Mono<Void> clearCart(Long userId) {
+        logger.info("Clearing cart for user: {}", userId);
+        return cartRepository.deleteByUserId(userId);
+    }
+
+    private List<BulkCartRequest.Operation> catalogChecked(List<BulkCartRequest.Operation> operations) {
+        return catalogSnapshot != null ? catalogSnapshot.checkOperations(operations) : operations;
+    }
+}
@@ -0,0 +1,30 @@
+-- Add to the quantity of a cart item, update the running totals, refresh the
+-- TTL and return the cart. The first add of a product stores its details and
+-- unit price; later adds keep them.
+--
+-- KEYS[1] cart hash, KEYS[2..] (standalone Redis only) keys of earlier layouts
+-- ARGV[1] product id, ARGV[2] details, ARGV[3] unit price in cents,
+-- ARGV[4] quantity to add, ARGV[5] TTL in seconds
+--
+-- Returns {1, HGETALL of the cart}, {-1} if a cart in an earlier layout has to
+-- be migrated first, or {-2} if the hash predates running totals and they must
+-- be rebuilt.
+for i = 2, #KEYS do
+    if redis.call('EXISTS', KEYS[i]) == 1 then
+        return {-1}
+    end
+end
+if redis.call('EXISTS', KEYS[1]) == 1 and redis.call('HEXISTS', KEYS[1], '#items') == 0 then
+    return {-2}
+end
+
+local quantity = tonumber(ARGV[4])
+redis.call('HSETNX', KEYS[1], ARGV[1] .. ':d', ARGV[2])
+redis.call('HSETNX', KEYS[1], ARGV[1] .. ':p', ARGV[3])
+local price = tonumber(redis.call('HGET', KEYS[1], ARGV[1] .. ':p'))
+
+redis.call('HINCRBY', KEYS[1], ARGV[1], quantity)
+redis.call('HINCRBY', KEYS[1], '#items', quantity)
+redis.call('HINCRBY', KEYS[1], '#cents', string.format('%d', quantity * price))
+redis.call('EXPIRE', KEYS[1], ARGV[5])
+return {1, redis.call('HGETALL', KEYS[1])}
@@ -0,0 +1,88 @@
+-- Apply a batch of adds, quantity updates and removes to a cart in order,
+-- update the running totals, refresh the TTL and return the cart. Nothing is
+-- changed unless every update targets a product that is in the cart by then.
+--
+-- KEYS[1] cart hash, KEYS[2..] (standalone Redis only) keys of earlier layouts
+-- of user carts
+-- ARGV[1] TTL in seconds, then five arguments per operation:
+--   'add', product id, details, unit price in cents, quantity to add
+--   'set', product id, '', '', new quantity
+--   'remove', product id, '', '', ''
+--
+-- Returns {1, HGETALL of the cart}, {0} if an update targets a product that is
+-- not in the cart, {-1} if a cart in an earlier layout has to be migrated first,
+-- or {-2} if the hash predates running totals and they must be rebuilt.
+for i = 2, #KEYS do
+    if redis.call('EXISTS', KEYS[i]) == 1 then
+        return {-1}
+    end
+end
+if redis.call('EXISTS', KEYS[1]) == 1 and redis.call('HEXISTS', KEYS[1], '#items') == 0 then
+    return {-2}
+end
+
+-- Check the updates first, tracking what earlier operations add and remove
+local present = {}
+for i = 2, #ARGV, 5 do
+    local op, product = ARGV[i], ARGV[i + 1]
+    if op == 'add' then
+        present[product] = true
+    elseif op == 'remove' then
+        present[product] = false
+    else
+        if present[product] == nil then
+            present[product] = redis.call('HEXISTS', KEYS[1], product .. ':d') == 1
+        end
+        if not present[product] then
+            return {0}
+        end
+        if tonumber(ARGV[i + 4]) <= 0 then
+            present[product] = false
+        end
+    end
+end
+
+local items, cents = 0, 0
+
+local function set_quantity(product, quantity)
+    local old = tonumber(redis.call('HGET', KEYS[1], product)) or 0
+    local price = tonumber(redis.call('HGET', KEYS[1], product .. ':p')) or 0
+    if quantity <= 0 then
+        quantity = 0
+        redis.call('HDEL', KEYS[1], product, product .. ':d', product .. ':p')
+    else
+        redis.call('HSET', KEYS[1], product, quantity)
+    end
+    items = items + quantity - old
+    cents = cents + (quantity - old) * price
+end
+
+for i = 2, #ARGV, 5 do
+    local op, product = ARGV[i], ARGV[i + 1]
+    if op == 'add' then
+        redis.call('HSETNX', KEYS[1], product .. ':d', ARGV[i + 2])
+        redis.call('HSETNX', KEYS[1], product .. ':p', ARGV[i + 3])
+        local price = tonumber(redis.call('HGET', KEYS[1], product .. ':p'))
+        local quantity = tonumber(ARGV[i + 4])
+        redis.call('HINCRBY', KEYS[1], product, quantity)
+        items = items + quantity
+        cents = cents + quantity * price
+    elseif op == 'set' then
+        set_quantity(product, tonumber(ARGV[i + 4]))
+    else
+        set_quantity(product, 0)
+    end
+end
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return {1, {}}
+end
+redis.call('HINCRBY', KEYS[1], '#items', string.format('%d', items))
+redis.call('HINCRBY', KEYS[1], '#cents', string.format('%d', cents))
+
+if tonumber(redis.call('HGET', KEYS[1], '#items')) <= 0 then
+    redis.call('DEL', KEYS[1])
+else
+    redis.call('EXPIRE', KEYS[1], ARGV[1])
+end
+return {1, redis.call('HGETALL', KEYS[1])}
@@ -0,0 +1,28 @@
+-- Move a cart hash to a new key name, folding it into the hash already there
+-- if there is one: quantities are added up, and details and prices already in
+-- the new hash win. The running totals of a folded hash are dropped for the
+-- caller to rebuild.
+--
+-- KEYS[1] old hash, KEYS[2] new hash (same Redis server)
+--
+-- Returns 1 if there was a hash to move, 0 otherwise.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+if redis.call('EXISTS', KEYS[2]) == 0 then
+    redis.call('RENAME', KEYS[1], KEYS[2])
+    return 1
+end
+
+local fields = redis.call('HGETALL', KEYS[1])
+for i = 1, #fields, 2 do
+    local field = fields[i]
+    if not string.find(field, '[:#]') then
+        redis.call('HINCRBY', KEYS[2], field, fields[i + 1])
+    elseif string.find(field, ':') then
+        redis.call('HSETNX', KEYS[2], field, fields[i + 1])
+    end
+end
+redis.call('DEL', KEYS[1])
+redis.call('HDEL', KEYS[2], '#items', '#cents')
+return 1
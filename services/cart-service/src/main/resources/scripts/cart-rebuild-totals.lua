@@ -0,0 +1,30 @@
+-- Store unit prices for the given products (keeping any already stored) and
+-- recompute the running totals of the cart from its quantity fields. Used
+-- for hashes written before running totals existed, and after migrating a
+-- cart from an earlier layout.
+--
+-- KEYS[1] cart hash
+-- ARGV product id, unit price in cents, product id, unit price in cents, ...
+--
+-- Returns the number of items in the cart.
+for i = 1, #ARGV, 2 do
+    redis.call('HSETNX', KEYS[1], ARGV[i] .. ':p', ARGV[i + 1])
+end
+
+local fields = redis.call('HGETALL', KEYS[1])
+local items, cents = 0, 0
+for i = 1, #fields, 2 do
+    local field = fields[i]
+    -- Quantity fields are the bare product ids
+    if not string.find(field, '[:#]') then
+        local quantity = tonumber(fields[i + 1])
+        local price = tonumber(redis.call('HGET', KEYS[1], field .. ':p')) or 0
+        items = items + quantity
+        cents = cents + quantity * price
+    end
+end
+
+if #fields > 0 then
+    redis.call('HSET', KEYS[1], '#items', string.format('%d', items), '#cents', string.format('%d', cents))
+end
+return items
@@ -0,0 +1,34 @@
+-- Remove an item from the cart, update the running totals, refresh the TTL
+-- and return the cart. The hash is deleted once its last item is gone.
+--
+-- KEYS[1] cart hash, KEYS[2..] (standalone Redis only) keys of earlier layouts
+-- ARGV[1] product id, ARGV[2] TTL in seconds
+--
+-- Returns {1, HGETALL of the cart}, {-1} if a cart in an earlier layout has to
+-- be migrated first, or {-2} if the hash predates running totals and they must
+-- be rebuilt.
+for i = 2, #KEYS do
+    if redis.call('EXISTS', KEYS[i]) == 1 then
+        return {-1}
+    end
+end
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return {1, {}}
+end
+if redis.call('HEXISTS', KEYS[1], '#items') == 0 then
+    return {-2}
+end
+
+local old = tonumber(redis.call('HGET', KEYS[1], ARGV[1])) or 0
+local price = tonumber(redis.call('HGET', KEYS[1], ARGV[1] .. ':p')) or 0
+
+redis.call('HDEL', KEYS[1], ARGV[1], ARGV[1] .. ':d', ARGV[1] .. ':p')
+redis.call('HINCRBY', KEYS[1], '#items', -old)
+redis.call('HINCRBY', KEYS[1], '#cents', string.format('%d', -old * price))
+
+if tonumber(redis.call('HGET', KEYS[1], '#items')) <= 0 then
+    redis.call('DEL', KEYS[1])
+else
+    redis.call('EXPIRE', KEYS[1], ARGV[2])
+end
+return {1, redis.call('HGETALL', KEYS[1])}
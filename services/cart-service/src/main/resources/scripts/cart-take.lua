@@ -0,0 +1,10 @@
+-- Read and delete a hash in one step, so that only one caller gets its fields.
+-- Used to claim a guest cart before folding it into a user's cart, which may
+-- live on another cluster node.
+--
+-- KEYS[1] hash
+--
+-- Returns HGETALL of the hash as it was.
+local fields = redis.call('HGETALL', KEYS[1])
+redis.call('DEL', KEYS[1])
+return fields
@@ -0,0 +1,126 @@
+package com.ecommerce.cart.cache;
+
+import com.ecommerce.cart.codec.CartCodec;
+import com.ecommerce.cart.config.CartCacheConfig;
+import com.ecommerce.cart.config.RedisConfig;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.repository.CartRepository;
+import com.ecommerce.cart.support.LocalRedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests CartCache invalidation through keyspace notifications of a local
+ * redis-server, or a Redis container when none is installed
+ */
+class CartCacheRedisTest {
+
+    private LocalRedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private CartCache cartCache;
+    private CartRepository cartRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Keyspace notifications are off by default; the configuration has to turn them on
+        redis = LocalRedisServer.start();
+        connectionFactory = redis.connectionFactory();
+
+        cartRepository = new CartRepository();
+        ReflectionTestUtils.setField(cartRepository, "cartRedisTemplate", new RedisConfig().cartRedisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(cartRepository, "cartCodec", new CartCodec());
+
+        cartCache = new CartCache(new CartCodec(), meterRegistry, 1 << 20, Duration.ofMinutes(10));
+        listenerContainer = new CartCacheConfig().cartCacheListenerContainer(connectionFactory, cartCache);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        awaitSubscribed();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redis != null) {
+            redis.close();
+        }
+    }
+
+    private Cart read(Long userId) {
+        return cartCache.get(userId, id -> {
+            loads.incrementAndGet();
+            return cartRepository.findByUserId(id);
+        });
+    }
+
+    private void awaitSubscribed() throws InterruptedException {
+        // Subscribing is asynchronous; probe with a write until its notification arrives
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            cartCache.recordWrite(0L);
+            cartRepository.addItem(0L, new CartItem(1L, "Probe", BigDecimal.ONE, 1));
+            Thread.sleep(20);
+            if (meterRegistry.get("cart.cache.invalidation.lag").timer().count() > 0) {
+                return;
+            }
+        }
+        fail("No keyspace notification received");
+    }
+
+    private void awaitLoads(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            read(1L);
+            if (loads.get() >= expected) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void testWriteByAnotherInstance_InvalidatesLocalCopy() throws Exception {
+        cartRepository.addItem(1L, new CartItem(101L, "Laptop", new BigDecimal("999.99"), 1));
+        assertEquals(1, read(1L).getTotalItems());
+        assertEquals(1, read(1L).getTotalItems());
+        assertEquals(1, loads.get());
+
+        // Bypasses the cache, as a write through another cart-service instance would
+        cartRepository.addItem(1L, new CartItem(101L, "Laptop", new BigDecimal("999.99"), 2));
+        awaitLoads(2);
+
+        assertEquals(3, read(1L).getTotalItems());
+    }
+
+    @Test
+    void testDelete_InvalidatesLocalCopy() throws Exception {
+        cartRepository.addItem(1L, new CartItem(101L, "Laptop", new BigDecimal("999.99"), 1));
+        read(1L);
+
+        cartRepository.deleteByUserId(1L);
+        awaitLoads(2);
+
+        assertTrue(read(1L).getItems().isEmpty());
+    }
+}
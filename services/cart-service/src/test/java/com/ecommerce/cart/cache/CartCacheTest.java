@@ -0,0 +1,90 @@
+package com.ecommerce.cart.cache;
+
+import com.ecommerce.cart.codec.CartCodec;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CartCache
+ */
+class CartCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CartCache cartCache = new CartCache(new CartCodec(), meterRegistry, 1 << 20, Duration.ofMinutes(1));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Cart load(Long userId) {
+        loads.incrementAndGet();
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        cart.addItem(new CartItem(101L, "Product 101", new BigDecimal("10.00"), loads.get()));
+        return cart;
+    }
+
+    @Test
+    void testGet_ServesRepeatReadsLocally() {
+        Cart first = cartCache.get(1L, this::load);
+        Cart second = cartCache.get(1L, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertEquals(0.5, meterRegistry.get("cart.cache.hit.ratio").gauge().value(), 0.001);
+    }
+
+    @Test
+    void testKeyspaceEvent_InvalidatesAndRecordsLag() {
+        cartCache.get(1L, this::load);
+        cartCache.recordWrite(1L);
+
+        cartCache.onKeyspaceEvent("__keyspace@0__:cart:items:{1}");
+        Cart reloaded = cartCache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(2, reloaded.getItems().get(0).getQuantity());
+        assertEquals(1, meterRegistry.get("cart.cache.invalidation.lag").timer().count());
+    }
+
+    @Test
+    void testKeyspaceEvent_IgnoresOtherKeys() {
+        cartCache.get(1L, this::load);
+
+        cartCache.onKeyspaceEvent("__keyspace@0__:cart:1");
+        cartCache.get(1L, this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGet_DoesNotCacheLoadRacingAnInvalidation() {
+        cartCache.get(1L, userId -> {
+            Cart cart = load(userId);
+            // The cart changes while it is being read
+            cartCache.onKeyspaceEvent("__keyspace@0__:cart:items:{1}");
+            return cart;
+        });
+        cartCache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidateAll() {
+        cartCache.get(1L, this::load);
+        cartCache.get(2L, this::load);
+
+        cartCache.invalidateAll();
+        cartCache.get(1L, this::load);
+        cartCache.get(2L, this::load);
+
+        assertEquals(4, loads.get());
+    }
+}
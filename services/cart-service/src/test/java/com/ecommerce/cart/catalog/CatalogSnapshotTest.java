@@ -0,0 +1,133 @@
+package com.ecommerce.cart.catalog;
+
+import com.ecommerce.cart.client.ProductClient;
+import com.ecommerce.cart.event.CatalogReloadedEvent;
+import com.ecommerce.cart.event.ProductChangedEvent;
+import com.ecommerce.cart.model.BulkCartRequest;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.model.ProductPrice;
+import com.ecommerce.cart.model.RepricedCart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogSnapshot
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private ProductClient productClient;
+
+    @InjectMocks
+    private CatalogSnapshot catalogSnapshot;
+
+    private ProductPrice price(Long id, String price, boolean active, LocalDateTime updatedAt) {
+        return new ProductPrice(id, new BigDecimal(price), active, updatedAt);
+    }
+
+    private void load(ProductPrice... prices) {
+        when(productClient.getAllPrices()).thenReturn(List.of(prices));
+        catalogSnapshot.resync();
+    }
+
+    @Test
+    void testCheckPrice_AcceptsClientPriceUntilLoaded() {
+        assertFalse(catalogSnapshot.isLoaded());
+        assertEquals(new BigDecimal("1.00"), catalogSnapshot.checkPrice(999L, new BigDecimal("1.00")));
+    }
+
+    @Test
+    void testCheckPrice_CatalogPriceWins() {
+        load(price(101L, "10.00", true, T0), price(102L, "5.00", false, T0));
+
+        assertTrue(catalogSnapshot.isLoaded());
+        assertEquals(new BigDecimal("10.00"), catalogSnapshot.checkPrice(101L, new BigDecimal("0.01")));
+        assertThrows(IllegalArgumentException.class, () -> catalogSnapshot.checkPrice(102L, new BigDecimal("5.00")));
+        assertThrows(IllegalArgumentException.class, () -> catalogSnapshot.checkPrice(999L, new BigDecimal("5.00")));
+    }
+
+    @Test
+    void testOnProductChanged_IgnoresOlderEvents() {
+        load(price(101L, "10.00", true, T0));
+
+        catalogSnapshot.onProductChanged(new ProductChangedEvent(101L, new BigDecimal("12.00"), true, T0.plusMinutes(2)));
+        catalogSnapshot.onProductChanged(new ProductChangedEvent(101L, new BigDecimal("11.00"), true, T0.plusMinutes(1)));
+
+        assertEquals(new BigDecimal("12.00"), catalogSnapshot.checkPrice(101L, null));
+    }
+
+    @Test
+    void testResync_KeepsNewerEventsAndSurvivesFailure() {
+        load(price(101L, "10.00", true, T0));
+        catalogSnapshot.onProductChanged(new ProductChangedEvent(101L, new BigDecimal("12.00"), false, T0.plusMinutes(2)));
+
+        // A resync that read the product before the change must not undo it
+        load(price(101L, "10.00", true, T0), price(102L, "3.00", true, T0));
+        assertThrows(IllegalArgumentException.class, () -> catalogSnapshot.checkPrice(101L, null));
+        assertEquals(new BigDecimal("3.00"), catalogSnapshot.checkPrice(102L, null));
+
+        when(productClient.getAllPrices()).thenThrow(new RuntimeException("product-service unavailable"));
+        catalogSnapshot.resync();
+        assertEquals(2, catalogSnapshot.size());
+    }
+
+    @Test
+    void testOnCatalogReloaded_ResyncsAtOnce() {
+        load(price(101L, "10.00", true, T0));
+        when(productClient.getAllPrices()).thenReturn(List.of(
+            price(101L, "8.00", true, T0.plusMinutes(5)), price(102L, "4.00", true, T0.plusMinutes(5))));
+
+        catalogSnapshot.onCatalogReloaded(new CatalogReloadedEvent(T0.plusMinutes(4), 1L, 1L));
+
+        assertEquals(new BigDecimal("8.00"), catalogSnapshot.checkPrice(101L, null));
+        assertEquals(new BigDecimal("4.00"), catalogSnapshot.checkPrice(102L, null));
+        verify(productClient, times(2)).getAllPrices();
+    }
+
+    @Test
+    void testCheckOperations_RepricesAddsOnly() {
+        load(price(101L, "10.00", true, T0));
+        List<BulkCartRequest.Operation> operations = List.of(
+            new BulkCartRequest.Operation(BulkCartRequest.Type.ADD, 101L, "Product 101", new BigDecimal("1.00"), 2),
+            new BulkCartRequest.Operation(BulkCartRequest.Type.REMOVE, 999L, null, null, null));
+
+        List<BulkCartRequest.Operation> checked = catalogSnapshot.checkOperations(operations);
+
+        assertEquals(new BigDecimal("10.00"), checked.get(0).getPrice());
+        assertSame(operations.get(1), checked.get(1));
+        assertEquals(new BigDecimal("1.00"), operations.get(0).getPrice());
+    }
+
+    @Test
+    void testReprice() {
+        load(price(101L, "10.00", true, T0), price(102L, "6.00", true, T0), price(103L, "1.00", false, T0));
+        Cart cart = new Cart();
+        cart.setUserId(1L);
+        cart.addItem(new CartItem(101L, "Product 101", new BigDecimal("10.00"), 2));
+        cart.addItem(new CartItem(102L, "Product 102", new BigDecimal("5.00"), 1));
+        cart.addItem(new CartItem(103L, "Product 103", new BigDecimal("1.00"), 1));
+        cart.addItem(new CartItem(104L, "Product 104", new BigDecimal("1.00"), 1));
+
+        RepricedCart repriced = catalogSnapshot.reprice(cart);
+
+        assertEquals(List.of(102L), repriced.getRepricedProducts());
+        assertEquals(List.of(103L, 104L), repriced.getUnavailableProducts());
+        assertEquals(2, repriced.getCart().getItems().size());
+        assertEquals(2600, repriced.getCart().getTotalPriceCents());
+        assertEquals(2700, cart.getTotalPriceCents());
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecommerce.cart.codec;
+
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of CartCodec against GenericJackson2JsonRedisSerializer
+ *
+ * Measures encode and decode ns/op for carts of 10, 50 and 200 items. Before the
+ * benchmarks run, main() prints the bytes per cart of both encodings, and of the
+ * item details as the hash layout stores them.
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.ecommerce.cart.codec.CartCodecBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartCodecBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int itemCount;
+
+    private final CartCodec cartCodec = new CartCodec();
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+    private Cart cart;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cart = cart(itemCount);
+        json = jsonSerializer.serialize(cart);
+        binary = cartCodec.encodeCart(cart);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return jsonSerializer.serialize(cart);
+    }
+
+    @Benchmark
+    public Object jsonDecode() {
+        return jsonSerializer.deserialize(json);
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        return cartCodec.encodeCart(cart);
+    }
+
+    @Benchmark
+    public Cart codecDecode() {
+        return cartCodec.decodeCart(binary);
+    }
+
+    static Cart cart(int itemCount) {
+        Cart cart = new Cart();
+        cart.setUserId(1_000_000L + itemCount);
+        for (long productId = 1; productId <= itemCount; productId++) {
+            cart.addItem(new CartItem(10_000 + productId, "Wireless Mouse Model " + productId,
+                new BigDecimal("29.99"), (int) (productId % 3) + 1));
+        }
+        return cart;
+    }
+
+    private static void printSizes() {
+        CartCodec cartCodec = new CartCodec();
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+        System.out.printf("%-6s %14s %14s %16s%n", "items", "json bytes", "codec bytes", "hash details");
+        for (int itemCount : new int[] {10, 50, 200}) {
+            Cart cart = cart(itemCount);
+            int details = cart.getItems().stream()
+                .mapToInt(item -> cartCodec.encodeItemDetails(item).length)
+                .sum();
+            System.out.printf("%-6d %14d %14d %16d%n", itemCount,
+                jsonSerializer.serialize(cart).length, cartCodec.encodeCart(cart).length, details);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        printSizes();
+        new Runner(new OptionsBuilder()
+            .include(CartCodecBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
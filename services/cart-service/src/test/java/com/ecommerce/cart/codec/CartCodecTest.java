@@ -0,0 +1,108 @@
+package com.ecommerce.cart.codec;
+
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CartCodec
+ */
+class CartCodecTest {
+
+    private final CartCodec cartCodec = new CartCodec();
+
+    private Cart cart() {
+        Cart cart = new Cart();
+        cart.setUserId(42L);
+        cart.addItem(new CartItem(101L, "Laptop", new BigDecimal("999.99"), 1));
+        cart.addItem(new CartItem(102L, "Café crème mug", new BigDecimal("12.5"), 3));
+        cart.addItem(new CartItem(103L, "Gift card", new BigDecimal("-5.00"), 1));
+        return cart;
+    }
+
+    @Test
+    void testCart_RoundTrip() {
+        Cart cart = cart();
+
+        Cart decoded = cartCodec.decodeCart(cartCodec.encodeCart(cart));
+
+        assertEquals(cart, decoded);
+        assertEquals(new BigDecimal("12.50"), decoded.getItems().get(1).getPrice());
+        assertEquals(103249, decoded.getTotalPriceCents());
+        assertEquals(5, decoded.getTotalItems());
+    }
+
+    @Test
+    void testItemDetails_RoundTrip() {
+        CartItem item = new CartItem(102L, "Café crème mug", new BigDecimal("12.50"), 3);
+
+        byte[] details = cartCodec.encodeItemDetails(item);
+
+        assertEquals(CartCodec.VERSION_2, details[0]);
+        assertEquals(item, cartCodec.decodeItemDetails(102L, details, 3));
+    }
+
+    @Test
+    void testDecodeItemDetails_ReadsVersion1() {
+        // Version 1: price as BigDecimal scale (2) and unscaled bytes (1250), then the name
+        byte[] details = {1, 4, 4, 0x04, (byte) 0xE2, 6, 'M', 'u', 'g'};
+
+        CartItem item = cartCodec.decodeItemDetails(102L, details, 2);
+
+        assertEquals(1250, item.getPriceCents());
+        assertEquals("Mug", item.getProductName());
+        assertEquals(2500, item.getSubtotalCents());
+    }
+
+    @Test
+    void testBinaryCart_IsSmallerThanJsonDocument() {
+        Cart cart = cart();
+
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(cart);
+        byte[] binary = cartCodec.encodeCart(cart);
+
+        assertTrue(binary.length * 4 < json.length, binary.length + " vs " + json.length);
+    }
+
+    @Test
+    void testDecodeCart_ReadsGenericJacksonDocument() {
+        Cart cart = cart();
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(cart);
+
+        Cart decoded = cartCodec.decodeCart(json);
+
+        assertEquals(42L, decoded.getUserId());
+        assertEquals(3, decoded.getItems().size());
+        assertEquals(0, cart.getTotalPrice().compareTo(decoded.getTotalPrice()));
+        assertEquals("Café crème mug", decoded.getItems().get(1).getProductName());
+    }
+
+    @Test
+    void testDecodeItemDetails_ReadsJson() {
+        byte[] json = "{\"productName\":\"Laptop\",\"price\":999.99}".getBytes(StandardCharsets.UTF_8);
+
+        CartItem item = cartCodec.decodeItemDetails(101L, json, 2);
+
+        assertEquals("Laptop", item.getProductName());
+        assertEquals(new BigDecimal("999.99"), item.getPrice());
+        assertEquals(2, item.getQuantity());
+    }
+
+    @Test
+    void testDecode_RejectsUnknownVersionAndTruncatedValues() {
+        byte[] encoded = cartCodec.encodeCart(cart());
+        byte[] unknownVersion = encoded.clone();
+        unknownVersion[0] = 9;
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+
+        assertThrows(IllegalArgumentException.class, () -> cartCodec.decodeCart(unknownVersion));
+        assertThrows(IllegalArgumentException.class, () -> cartCodec.decodeCart(truncated));
+    }
+}
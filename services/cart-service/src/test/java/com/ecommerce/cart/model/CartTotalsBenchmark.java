@@ -0,0 +1,158 @@
+package com.ecommerce.cart.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of cart totals: BigDecimal sums over the items on every read, as
+ * Cart computed them before, against the running totals in cents Cart keeps now
+ *
+ * Measures reading the total price and serializing the cart to JSON (which reads
+ * both totals) for carts of 5, 20 and 50 items.
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.ecommerce.cart.model.CartTotalsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartTotalsBenchmark {
+
+    @Param({"5", "20", "50"})
+    public int itemCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SummingCart summingCart;
+    private Cart cart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        summingCart = new SummingCart();
+        cart = new Cart();
+        summingCart.setUserId(1L);
+        cart.setUserId(1L);
+        for (long productId = 1; productId <= itemCount; productId++) {
+            BigDecimal price = new BigDecimal("19.99").add(BigDecimal.valueOf(productId));
+            int quantity = (int) (productId % 3) + 1;
+            summingCart.getItems().add(new SummingCartItem(productId, "Product " + productId, price, quantity));
+            cart.addItem(new CartItem(productId, "Product " + productId, price, quantity));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal summingTotalPrice() {
+        return summingCart.getTotalPrice();
+    }
+
+    @Benchmark
+    public BigDecimal runningTotalPrice() {
+        return cart.getTotalPrice();
+    }
+
+    @Benchmark
+    public byte[] summingToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summingCart);
+    }
+
+    @Benchmark
+    public byte[] runningToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    /**
+     * Cart as it was before running totals
+     */
+    public static class SummingCart {
+        private Long userId;
+        private final List<SummingCartItem> items = new ArrayList<>();
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(Long userId) {
+            this.userId = userId;
+        }
+
+        public List<SummingCartItem> getItems() {
+            return items;
+        }
+
+        public BigDecimal getTotalPrice() {
+            return items.stream()
+                .map(SummingCartItem::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        public Integer getTotalItems() {
+            return items.stream()
+                .mapToInt(SummingCartItem::getQuantity)
+                .sum();
+        }
+    }
+
+    public static class SummingCartItem {
+        private final Long productId;
+        private final String productName;
+        private final BigDecimal price;
+        private final Integer quantity;
+
+        SummingCartItem(Long productId, String productName, BigDecimal price, Integer quantity) {
+            this.productId = productId;
+            this.productName = productName;
+            this.price = price;
+            this.quantity = quantity;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public String getProductName() {
+            return productName;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public BigDecimal getSubtotal() {
+            return price.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(CartTotalsBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
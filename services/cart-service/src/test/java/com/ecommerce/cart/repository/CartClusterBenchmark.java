@@ -0,0 +1,100 @@
+package com.ecommerce.cart.repository;
+
+import com.ecommerce.cart.codec.CartCodec;
+import com.ecommerce.cart.config.RedisConfig;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.support.LocalRedisCluster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of cart throughput as Redis Cluster shards are added
+ *
+ * Runs the cart traffic mix of the k6 cart test, three reads per add over
+ * 10,000 users, from 32 threads against a local cluster of 1, 2 or 3 primaries.
+ * The shards are processes on this machine, so throughput stops scaling once
+ * they and the benchmark threads run out of cores; pin them with taskset, or
+ * compare on a machine with a core per shard to spare.
+ *
+ * Needs redis-server on the PATH, or Docker. Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.ecommerce.cart.repository.CartClusterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class CartClusterBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int PRODUCTS = 50;
+
+    @Param({"1", "2", "3"})
+    public int shards;
+
+    private LocalRedisCluster cluster;
+    private LettuceConnectionFactory connectionFactory;
+    private CartRepository cartRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        cluster = LocalRedisCluster.start(shards, 0);
+        connectionFactory = cluster.connectionFactory();
+
+        cartRepository = new CartRepository();
+        ReflectionTestUtils.setField(cartRepository, "cartRedisTemplate",
+            new RedisConfig().cartRedisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(cartRepository, "cartCodec", new CartCodec());
+        ReflectionTestUtils.setField(cartRepository, "migratePreviousLayouts", false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionFactory.destroy();
+        cluster.close();
+    }
+
+    @Benchmark
+    public Cart mixedReadAdd() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long userId = (long) random.nextInt(USERS) + 1;
+        if (random.nextInt(4) > 0) {
+            return cartRepository.findByUserId(userId);
+        }
+
+        long productId = random.nextInt(PRODUCTS) + 1;
+        return cartRepository.addItem(userId,
+            new CartItem(productId, "Product " + productId, new BigDecimal("19.99"), 1));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(CartClusterBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
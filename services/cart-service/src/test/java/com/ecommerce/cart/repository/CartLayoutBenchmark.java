@@ -0,0 +1,132 @@
+package com.ecommerce.cart.repository;
+
+import com.ecommerce.cart.codec.CartCodec;
+import com.ecommerce.cart.config.RedisConfig;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.support.LocalRedisServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of cart mutations: whole JSON document vs hash per cart
+ *
+ * The document layout is what CartService did before the hash layout: GET the
+ * cart, edit it in Java, SET it back with the TTL. The hash layout is
+ * CartRepository.addItem. Both add one unit of an existing product to a cart
+ * of 10, 50 or 200 items and return the updated cart.
+ *
+ * Needs redis-server on the PATH, or Docker. Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.ecommerce.cart.repository.CartLayoutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartLayoutBenchmark {
+
+    private static final Long USER_ID = 1L;
+
+    @Param({"10", "50", "200"})
+    public int itemCount;
+
+    private LocalRedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, Object> redisTemplate;
+    private CartRepository cartRepository;
+    private CartItem addedItem;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redis = LocalRedisServer.start();
+        connectionFactory = redis.connectionFactory();
+        RedisTemplate<String, byte[]> cartRedisTemplate = new RedisConfig().cartRedisTemplate(connectionFactory);
+        redisTemplate = documentTemplate(connectionFactory);
+
+        cartRepository = new CartRepository();
+        ReflectionTestUtils.setField(cartRepository, "cartRedisTemplate", cartRedisTemplate);
+        ReflectionTestUtils.setField(cartRepository, "cartCodec", new CartCodec());
+
+        // The document cart lives under another user so the hash layout never migrates it
+        Cart document = new Cart();
+        document.setUserId(USER_ID + 1);
+        for (long productId = 1; productId <= itemCount; productId++) {
+            CartItem item = new CartItem(productId, "Product " + productId, new BigDecimal("19.99"), 1);
+            document.addItem(item);
+            cartRepository.addItem(USER_ID, item);
+        }
+        redisTemplate.opsForValue().set(documentKey(), document, 24, TimeUnit.HOURS);
+
+        addedItem = new CartItem((long) itemCount, "Product " + itemCount, new BigDecimal("19.99"), 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionFactory.destroy();
+        redis.close();
+    }
+
+    @Benchmark
+    public Cart documentLayoutAdd() {
+        Cart cart = (Cart) redisTemplate.opsForValue().get(documentKey());
+        for (CartItem item : cart.getItems()) {
+            if (item.getProductId().equals(addedItem.getProductId())) {
+                item.setQuantity(item.getQuantity() + addedItem.getQuantity());
+            }
+        }
+        redisTemplate.opsForValue().set(documentKey(), cart, 24, TimeUnit.HOURS);
+        return cart;
+    }
+
+    @Benchmark
+    public Cart hashLayoutAdd() {
+        return cartRepository.addItem(USER_ID, addedItem);
+    }
+
+    /**
+     * The JSON document template CartService used before the hash layout
+     */
+    private static RedisTemplate<String, Object> documentTemplate(LettuceConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    private String documentKey() {
+        return "cart:" + (USER_ID + 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(CartLayoutBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package com.ecommerce.cart.repository;
+
+import com.ecommerce.cart.codec.CartCodec;
+import com.ecommerce.cart.config.RedisConfig;
+import com.ecommerce.cart.model.BulkCartRequest;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.support.LocalRedisCluster;
+import io.lettuce.core.ReadFrom;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CartRepository against a local three-shard Redis Cluster with one
+ * replica per shard, run in Docker when redis-server is not installed
+ */
+class CartRepositoryClusterTest {
+
+    private static LocalRedisCluster cluster;
+    private static LettuceConnectionFactory connectionFactory;
+    private static LettuceConnectionFactory replicaConnectionFactory;
+
+    private RedisTemplate<String, byte[]> cartRedisTemplate;
+    private CartRepository cartRepository;
+    private CartRepository replicaCartRepository;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = LocalRedisCluster.start(3, 1);
+        connectionFactory = cluster.connectionFactory();
+        replicaConnectionFactory = cluster.connectionFactory(ReadFrom.REPLICA_PREFERRED);
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        if (replicaConnectionFactory != null) {
+            replicaConnectionFactory.destroy();
+        }
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (cluster != null) {
+            cluster.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        cartRedisTemplate = new RedisConfig().cartRedisTemplate(connectionFactory);
+        cartRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+
+        cartRepository = repository(cartRedisTemplate);
+        replicaCartRepository = repository(new RedisConfig().cartRedisTemplate(replicaConnectionFactory));
+    }
+
+    private static CartRepository repository(RedisTemplate<String, byte[]> template) {
+        CartRepository repository = new CartRepository();
+        ReflectionTestUtils.setField(repository, "cartRedisTemplate", template);
+        ReflectionTestUtils.setField(repository, "cartCodec", new CartCodec());
+        ReflectionTestUtils.setField(repository, "migratePreviousLayouts", false);
+        return repository;
+    }
+
+    private CartItem item(Long productId, String price, int quantity) {
+        return new CartItem(productId, "Product " + productId, new BigDecimal(price), quantity);
+    }
+
+    private BulkCartRequest.Operation add(Long productId, String price, int quantity) {
+        return new BulkCartRequest.Operation(BulkCartRequest.Type.ADD, productId, "Product " + productId, new BigDecimal(price), quantity);
+    }
+
+    @Test
+    void testCartOperations_SpreadOverShards() {
+        Set<String> nodes = new HashSet<>();
+        for (long userId = 1; userId <= 30; userId++) {
+            cartRepository.addItem(userId, item(101L, "10.00", 1));
+            cartRepository.applyBulk(userId, List.of(add(102L, "2.50", 2))).orElseThrow();
+            Cart cart = cartRepository.updateQuantity(userId, 101L, 3).orElseThrow();
+
+            assertEquals(5, cart.getTotalItems());
+            assertEquals(3500, cart.getTotalPriceCents());
+            assertEquals(cart, cartRepository.findByUserId(userId));
+            nodes.add(nodeFor(CartRepository.cartKey(userId)));
+        }
+
+        assertEquals(3, nodes.size());
+    }
+
+    @Test
+    void testMergeGuestCart_AcrossSlots() {
+        String guestId = "0f8e2c1a-guest-cart";
+        String guestNode = nodeFor(CartRepository.guestCartKey(guestId));
+        Long userId = 1L;
+        while (nodeFor(CartRepository.cartKey(userId)).equals(guestNode)) {
+            userId++;
+        }
+        cartRepository.addItem(userId, item(101L, "10.00", 1));
+        cartRepository.applyGuestBulk(guestId, List.of(add(101L, "9.00", 2), add(102L, "20.00", 1)));
+
+        Cart cart = cartRepository.mergeGuestCart(userId, guestId);
+
+        assertEquals(3, cart.getItems().get(0).getQuantity());
+        assertEquals(5000, cart.getTotalPriceCents());
+        assertTrue(cartRepository.findGuestCart(guestId).getItems().isEmpty());
+
+        cartRepository.deleteByUserId(userId);
+        assertTrue(cartRepository.findByUserId(userId).getItems().isEmpty());
+    }
+
+    @Test
+    void testReplicaRead_EventuallySeesWrite() throws Exception {
+        Long userId = 3L;
+        Cart written = cartRepository.addItem(userId, item(101L, "10.00", 2));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Cart read = replicaCartRepository.findByUserId(userId);
+        while (!written.equals(read) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            read = replicaCartRepository.findByUserId(userId);
+        }
+
+        assertEquals(written, read);
+    }
+
+    private String nodeFor(String key) {
+        return cartRedisTemplate.execute((RedisCallback<String>) connection -> {
+            RedisClusterConnection clusterConnection = (RedisClusterConnection) connection;
+            return clusterConnection.clusterGetNodeForKey(key.getBytes()).getId();
+        });
+    }
+}
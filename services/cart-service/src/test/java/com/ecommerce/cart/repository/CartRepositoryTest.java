@@ -0,0 +1,293 @@
+package com.ecommerce.cart.repository;
+
+import com.ecommerce.cart.codec.CartCodec;
+import com.ecommerce.cart.config.RedisConfig;
+import com.ecommerce.cart.model.BulkCartRequest;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.support.LocalRedisServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CartRepository against a local redis-server, or a Redis container when none is installed
+ */
+class CartRepositoryTest {
+
+    private static LocalRedisServer redis;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private RedisTemplate<String, byte[]> cartRedisTemplate;
+    private CartRepository cartRepository;
+
+    private final Long userId = 1L;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = LocalRedisServer.start();
+        connectionFactory = redis.connectionFactory();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redis != null) {
+            redis.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        cartRedisTemplate = new RedisConfig().cartRedisTemplate(connectionFactory);
+        cartRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+
+        cartRepository = new CartRepository();
+        ReflectionTestUtils.setField(cartRepository, "cartRedisTemplate", cartRedisTemplate);
+        ReflectionTestUtils.setField(cartRepository, "cartCodec", new CartCodec());
+    }
+
+    private CartItem item(Long productId, String price, int quantity) {
+        return new CartItem(productId, "Product " + productId, new BigDecimal(price), quantity);
+    }
+
+    @Test
+    void testAddItem_IncrementsAndKeepsFirstPrice() {
+        cartRepository.addItem(userId, item(101L, "99.99", 2));
+        Cart cart = cartRepository.addItem(userId, item(101L, "79.99", 3));
+
+        assertEquals(1, cart.getItems().size());
+        assertEquals(5, cart.getItems().get(0).getQuantity());
+        assertEquals(0, new BigDecimal("99.99").compareTo(cart.getItems().get(0).getPrice()));
+        assertEquals(0, new BigDecimal("499.95").compareTo(cart.getTotalPrice()));
+
+        Long ttl = cartRedisTemplate.getExpire("cart:items:{" + userId + "}");
+        assertTrue(ttl != null && ttl > 0 && ttl <= CartRepository.CART_TTL.getSeconds());
+    }
+
+    @Test
+    void testUpdateQuantityAndRemoveItem() {
+        cartRepository.addItem(userId, item(101L, "10.00", 1));
+        cartRepository.addItem(userId, item(102L, "20.00", 1));
+
+        Cart updated = cartRepository.updateQuantity(userId, 102L, 4).orElseThrow();
+        assertEquals(4, updated.getItems().get(1).getQuantity());
+        assertEquals(5, updated.getTotalItems());
+        assertEquals(9000, updated.getTotalPriceCents());
+
+        Cart removed = cartRepository.removeItem(userId, 101L);
+        assertEquals(1, removed.getItems().size());
+        assertEquals(102L, removed.getItems().get(0).getProductId());
+        assertEquals(8000, removed.getTotalPriceCents());
+
+        assertTrue(cartRepository.updateQuantity(userId, 101L, 3).isEmpty());
+        assertTrue(cartRepository.updateQuantity(userId, 102L, 0).orElseThrow().getItems().isEmpty());
+        assertEquals(Boolean.FALSE, cartRedisTemplate.hasKey("cart:items:{" + userId + "}"));
+    }
+
+    @Test
+    void testScripts_AreReloadedAfterScriptFlush() {
+        cartRepository.addItem(userId, item(101L, "10.00", 1));
+        cartRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+
+        Cart cart = cartRepository.addItem(userId, item(101L, "10.00", 1));
+
+        assertEquals(2, cart.getItems().get(0).getQuantity());
+    }
+
+    @Test
+    void testConcurrentAdds_AreNotLost() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Cart>> adds = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                adds.add(pool.submit(() -> cartRepository.addItem(userId, item(101L, "1.00", 1))));
+            }
+            for (Future<Cart> add : adds) {
+                add.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(200, cartRepository.findByUserId(userId).getTotalItems());
+    }
+
+    @Test
+    void testLegacyCart_IsFoldedIntoHashOnFirstWrite() {
+        Cart legacy = new Cart();
+        legacy.setUserId(userId);
+        legacy.addItem(item(101L, "10.00", 2));
+        legacy.addItem(item(102L, "20.00", 1));
+        cartRedisTemplate.opsForValue().set("cart:" + userId, new GenericJackson2JsonRedisSerializer().serialize(legacy));
+
+        Cart cart = cartRepository.addItem(userId, item(101L, "10.00", 3));
+
+        assertEquals(2, cart.getItems().size());
+        assertEquals(5, cart.getItems().get(0).getQuantity());
+        assertEquals(1, cart.getItems().get(1).getQuantity());
+        assertEquals(0, new BigDecimal("70.00").compareTo(cart.getTotalPrice()));
+        assertEquals(Boolean.FALSE, cartRedisTemplate.hasKey("cart:" + userId));
+    }
+
+    @Test
+    void testUntaggedHash_IsMovedToHashTaggedKey() {
+        String untagged = "cart:items:" + userId;
+        CartCodec codec = new CartCodec();
+        cartRedisTemplate.opsForHash().put(untagged, "101", "2".getBytes(StandardCharsets.US_ASCII));
+        cartRedisTemplate.opsForHash().put(untagged, "101:d", codec.encodeItemDetails(item(101L, "10.00", 1)));
+        cartRedisTemplate.opsForHash().put(untagged, "101:p", "1000".getBytes(StandardCharsets.US_ASCII));
+
+        Cart cart = cartRepository.addItem(userId, item(101L, "10.00", 1));
+
+        assertEquals(3, cart.getItems().get(0).getQuantity());
+        assertEquals(3000, cart.getTotalPriceCents());
+        assertEquals(Boolean.FALSE, cartRedisTemplate.hasKey(untagged));
+        assertEquals(cart, cartRepository.findByUserId(userId));
+    }
+
+    @Test
+    void testJsonItemDetails_AreStillRead() {
+        String key = "cart:items:{" + userId + "}";
+        cartRedisTemplate.opsForHash().put(key, "101", "2".getBytes(StandardCharsets.US_ASCII));
+        cartRedisTemplate.opsForHash().put(key, "101:d",
+            "{\"productName\":\"Product 101\",\"price\":99.99}".getBytes(StandardCharsets.UTF_8));
+
+        Cart cart = cartRepository.addItem(userId, item(102L, "5.00", 1));
+
+        assertEquals(2, cart.getItems().size());
+        assertEquals("Product 101", cart.getItems().get(0).getProductName());
+        assertEquals(new BigDecimal("99.99"), cart.getItems().get(0).getPrice());
+        assertEquals(2, cart.getItems().get(0).getQuantity());
+        assertEquals(3, cart.getTotalItems());
+        assertEquals(20498, cart.getTotalPriceCents());
+    }
+
+    @Test
+    void testHashWithoutTotals_IsRebuiltOnRead() {
+        String key = "cart:items:{" + userId + "}";
+        cartRedisTemplate.opsForHash().put(key, "101", "3".getBytes(StandardCharsets.US_ASCII));
+        cartRedisTemplate.opsForHash().put(key, "101:d", new CartCodec().encodeItemDetails(item(101L, "2.50", 1)));
+
+        Cart cart = cartRepository.findByUserId(userId);
+
+        assertEquals(3, cart.getTotalItems());
+        assertEquals(750, cart.getTotalPriceCents());
+        assertNotNull(cartRedisTemplate.opsForHash().get(key, "#cents"));
+    }
+
+    private BulkCartRequest.Operation add(Long productId, String price, int quantity) {
+        return new BulkCartRequest.Operation(BulkCartRequest.Type.ADD, productId, "Product " + productId, new BigDecimal(price), quantity);
+    }
+
+    private BulkCartRequest.Operation update(Long productId, int quantity) {
+        return new BulkCartRequest.Operation(BulkCartRequest.Type.UPDATE, productId, null, null, quantity);
+    }
+
+    private BulkCartRequest.Operation remove(Long productId) {
+        return new BulkCartRequest.Operation(BulkCartRequest.Type.REMOVE, productId, null, null, null);
+    }
+
+    @Test
+    void testApplyBulk_AppliesOperationsInOrder() {
+        cartRepository.addItem(userId, item(101L, "10.00", 1));
+
+        Cart cart = cartRepository.applyBulk(userId, List.of(
+            add(102L, "20.00", 2),
+            update(102L, 3),
+            add(103L, "5.00", 1),
+            remove(101L),
+            update(103L, 0),
+            add(104L, "1.50", 2))).orElseThrow();
+
+        assertEquals(List.of(102L, 104L), cart.getItems().stream().map(CartItem::getProductId).toList());
+        assertEquals(5, cart.getTotalItems());
+        assertEquals(6300, cart.getTotalPriceCents());
+        assertEquals(cart, cartRepository.findByUserId(userId));
+    }
+
+    @Test
+    void testApplyBulk_UpdateOfMissingProductChangesNothing() {
+        cartRepository.addItem(userId, item(101L, "10.00", 1));
+
+        assertTrue(cartRepository.applyBulk(userId, List.of(add(102L, "20.00", 1), update(103L, 2))).isEmpty());
+        assertTrue(cartRepository.applyBulk(userId, List.of(remove(101L), update(101L, 2))).isEmpty());
+
+        Cart cart = cartRepository.findByUserId(userId);
+        assertEquals(1, cart.getItems().size());
+        assertEquals(1000, cart.getTotalPriceCents());
+    }
+
+    @Test
+    void testMergeGuestCart_AddsQuantitiesAndDeletesGuestCart() {
+        String guestId = "0f8e2c1a-guest-cart";
+        cartRepository.addItem(userId, item(101L, "10.00", 1));
+        cartRepository.applyGuestBulk(guestId, List.of(add(101L, "9.00", 2), add(102L, "20.00", 1)));
+
+        Cart cart = cartRepository.mergeGuestCart(userId, guestId);
+
+        assertEquals(2, cart.getItems().size());
+        assertEquals(3, cart.getItems().get(0).getQuantity());
+        assertEquals(0, new BigDecimal("10.00").compareTo(cart.getItems().get(0).getPrice()));
+        assertEquals(5000, cart.getTotalPriceCents());
+        assertTrue(cartRepository.findGuestCart(guestId).getItems().isEmpty());
+        assertEquals(cart.getItems(), cartRepository.mergeGuestCart(userId, guestId).getItems());
+    }
+
+    @Test
+    void testScanCartKeysAndReadCarts() {
+        for (long id = 1; id <= 25; id++) {
+            cartRepository.addItem(id, item(101L, "1.00", (int) id));
+        }
+        cartRepository.applyGuestBulk("0f8e2c1a-guest-cart", List.of(add(101L, "1.00", 1)));
+        cartRedisTemplate.expire("cart:items:{7}", Duration.ofHours(21));
+
+        List<CartRepository.StoredCart> carts = new ArrayList<>();
+        cartRepository.scanCartKeys(10, keys -> {
+            assertTrue(keys.size() <= 10);
+            carts.addAll(cartRepository.readCarts(keys));
+        });
+
+        assertEquals(25, carts.size());
+        assertEquals(325, carts.stream().mapToLong(stored -> stored.cart().getTotalItems()).sum());
+        CartRepository.StoredCart idle = carts.stream()
+            .filter(stored -> stored.cart().getUserId() == 7L)
+            .findFirst().orElseThrow();
+        assertEquals(7, idle.cart().getTotalItems());
+        assertTrue(idle.idle().compareTo(Duration.ofHours(3)) >= 0);
+    }
+
+    @Test
+    void testDeleteByUserId() {
+        cartRepository.addItem(userId, item(101L, "10.00", 1));
+
+        cartRepository.deleteByUserId(userId);
+
+        assertTrue(cartRepository.findByUserId(userId).getItems().isEmpty());
+    }
+}
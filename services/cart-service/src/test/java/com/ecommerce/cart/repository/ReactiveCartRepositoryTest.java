@@ -0,0 +1,119 @@
+package com.ecommerce.cart.repository;
+
+import com.ecommerce.cart.codec.CartCodec;
+import com.ecommerce.cart.config.ReactiveCartConfig;
+import com.ecommerce.cart.config.RedisConfig;
+import com.ecommerce.cart.model.BulkCartRequest;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.support.LocalRedisServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ReactiveCartRepository against a local redis-server, or a Redis container when none is installed
+ */
+class ReactiveCartRepositoryTest {
+
+    private static LocalRedisServer redis;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private RedisTemplate<String, byte[]> cartRedisTemplate;
+    private CartRepository cartRepository;
+    private ReactiveCartRepository reactiveCartRepository;
+
+    private final Long userId = 1L;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = LocalRedisServer.start();
+        connectionFactory = redis.connectionFactory();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redis != null) {
+            redis.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        cartRedisTemplate = new RedisConfig().cartRedisTemplate(connectionFactory);
+        cartRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+
+        cartRepository = new CartRepository();
+        ReflectionTestUtils.setField(cartRepository, "cartRedisTemplate", cartRedisTemplate);
+        ReflectionTestUtils.setField(cartRepository, "cartCodec", new CartCodec());
+
+        reactiveCartRepository = new ReactiveCartRepository();
+        ReflectionTestUtils.setField(reactiveCartRepository, "reactiveCartRedisTemplate",
+            new ReactiveCartConfig().reactiveCartRedisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(reactiveCartRepository, "cartRepository", cartRepository);
+    }
+
+    private CartItem item(Long productId, String price, int quantity) {
+        return new CartItem(productId, "Product " + productId, new BigDecimal(price), quantity);
+    }
+
+    @Test
+    void testMutations_MatchBlockingRepository() {
+        reactiveCartRepository.addItem(userId, item(101L, "10.00", 2)).block();
+        reactiveCartRepository.addItem(userId, item(102L, "20.00", 1)).block();
+        Cart updated = reactiveCartRepository.updateQuantity(userId, 102L, 3).block();
+
+        assertNotNull(updated);
+        assertEquals(5, updated.getTotalItems());
+        assertEquals(8000, updated.getTotalPriceCents());
+        assertEquals(cartRepository.findByUserId(userId), updated);
+        assertEquals(updated, reactiveCartRepository.findByUserId(userId).block());
+
+        assertNull(reactiveCartRepository.updateQuantity(userId, 999L, 1).block());
+        Cart removed = reactiveCartRepository.removeItem(userId, 101L).block();
+        assertEquals(List.of(102L), removed.getItems().stream().map(CartItem::getProductId).toList());
+    }
+
+    @Test
+    void testApplyBulkAndDelete() {
+        Cart cart = reactiveCartRepository.applyBulk(userId, List.of(
+            new BulkCartRequest.Operation(BulkCartRequest.Type.ADD, 101L, "Product 101", new BigDecimal("1.25"), 4),
+            new BulkCartRequest.Operation(BulkCartRequest.Type.UPDATE, 101L, null, null, 2))).block();
+
+        assertEquals(250, cart.getTotalPriceCents());
+
+        reactiveCartRepository.deleteByUserId(userId).block();
+        assertTrue(reactiveCartRepository.findByUserId(userId).block().getItems().isEmpty());
+    }
+
+    @Test
+    void testLegacyCart_IsMigratedOnReactiveWrite() {
+        Cart legacy = new Cart();
+        legacy.setUserId(userId);
+        legacy.addItem(item(101L, "10.00", 2));
+        cartRedisTemplate.opsForValue().set("cart:" + userId, new GenericJackson2JsonRedisSerializer().serialize(legacy));
+
+        Cart cart = reactiveCartRepository.addItem(userId, item(101L, "10.00", 1)).block();
+
+        assertEquals(3, cart.getItems().get(0).getQuantity());
+        assertEquals(3000, cart.getTotalPriceCents());
+        assertEquals(Boolean.FALSE, cartRedisTemplate.hasKey("cart:" + userId));
+    }
+}
@@ -0,0 +1,118 @@
+package com.ecommerce.cart.service;
+
+import com.ecommerce.cart.model.AbandonedCartStats;
+import com.ecommerce.cart.model.Cart;
+import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AbandonedCartScanner
+ */
+@ExtendWith(MockitoExtension.class)
+class AbandonedCartScannerTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @InjectMocks
+    private AbandonedCartScanner abandonedCartScanner;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(abandonedCartScanner, "idleAfter", Duration.ofHours(2));
+        ReflectionTestUtils.setField(abandonedCartScanner, "batchSize", 2);
+        ReflectionTestUtils.setField(abandonedCartScanner, "topProducts", 2);
+        ReflectionTestUtils.setField(abandonedCartScanner, "minPause", Duration.ZERO);
+    }
+
+    private CartRepository.StoredCart storedCart(Long userId, Duration idle, CartItem... items) {
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        for (CartItem item : items) {
+            cart.addItem(item);
+        }
+        return new CartRepository.StoredCart(cart, Duration.ofHours(24).minus(idle));
+    }
+
+    private CartItem item(Long productId, String price, int quantity) {
+        return new CartItem(productId, "Product " + productId, new BigDecimal(price), quantity);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testScan_TalliesOnlyIdleCarts() {
+        List<String> firstBatch = List.of("cart:items:{1}", "cart:items:{2}");
+        List<String> secondBatch = List.of("cart:items:{3}");
+        doAnswer(invocation -> {
+            Consumer<List<String>> batches = invocation.getArgument(1);
+            batches.accept(firstBatch);
+            batches.accept(secondBatch);
+            return null;
+        }).when(cartRepository).scanCartKeys(eq(2), any(Consumer.class));
+        when(cartRepository.readCarts(firstBatch)).thenReturn(List.of(
+            storedCart(1L, Duration.ofHours(3), item(101L, "10.00", 2), item(102L, "5.00", 1)),
+            storedCart(2L, Duration.ofMinutes(10), item(101L, "10.00", 9))));
+        when(cartRepository.readCarts(secondBatch)).thenReturn(List.of(
+            storedCart(3L, Duration.ofHours(20), item(101L, "10.00", 1), item(103L, "50.00", 1))));
+
+        AbandonedCartStats stats = abandonedCartScanner.scan();
+
+        assertEquals(3, stats.getScannedCarts());
+        assertEquals(2, stats.getAbandonedCarts());
+        assertEquals(5, stats.getAbandonedItems());
+        assertEquals(new BigDecimal("85.00"), stats.getAbandonedValue());
+
+        assertEquals(List.of(101L, 103L), stats.getTopProducts().stream()
+            .map(AbandonedCartStats.ProductStats::getProductId).toList());
+        AbandonedCartStats.ProductStats top = stats.getTopProducts().get(0);
+        assertEquals(2, top.getCarts());
+        assertEquals(3, top.getQuantity());
+        assertEquals(new BigDecimal("30.00"), top.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testScanAbandonedCarts_KeepsPreviousStatsOnFailure() {
+        doNothing().when(cartRepository).scanCartKeys(anyInt(), any(Consumer.class));
+        abandonedCartScanner.scanAbandonedCarts();
+        AbandonedCartStats first = abandonedCartScanner.getLatestStats().orElseThrow();
+
+        doThrow(new IllegalStateException("Redis unavailable"))
+            .when(cartRepository).scanCartKeys(anyInt(), any(Consumer.class));
+        abandonedCartScanner.scanAbandonedCarts();
+
+        assertSame(first, abandonedCartScanner.getLatestStats().orElseThrow());
+    }
+
+    @Test
+    void testThrottle_BacksOffWhileBatchesAreSlow() {
+        AbandonedCartScanner.Throttle throttle = new AbandonedCartScanner.Throttle(
+            Duration.ofMillis(20), Duration.ofMillis(5), Duration.ofMillis(30));
+        long slow = Duration.ofMillis(50).toNanos();
+        long fast = Duration.ofMillis(1).toNanos();
+
+        assertEquals(10, throttle.pauseAfter(slow));
+        assertEquals(20, throttle.pauseAfter(slow));
+        assertEquals(30, throttle.pauseAfter(slow));
+        assertEquals(15, throttle.pauseAfter(fast));
+        assertEquals(7, throttle.pauseAfter(fast));
+        assertEquals(5, throttle.pauseAfter(fast));
+        assertEquals(3, throttle.getThrottledBatches());
+    }
+}
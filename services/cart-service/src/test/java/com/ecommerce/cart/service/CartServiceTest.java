@@ -1,19 +1,24 @@
 package com.ecommerce.cart.service;
 
+import com.ecommerce.cart.cache.CartCache;
+import com.ecommerce.cart.catalog.CatalogSnapshot;
 import com.ecommerce.cart.model.AddToCartRequest;
+import com.ecommerce.cart.model.BulkCartRequest;
 import com.ecommerce.cart.model.Cart;
 import com.ecommerce.cart.model.CartItem;
+import com.ecommerce.cart.repository.CartRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -26,10 +31,7 @@ import static org.mockito.Mockito.*;
 class CartServiceTest {
 
     @Mock
-    private RedisTemplate<String, Object> redisTemplate;
-
-    @Mock
-    private ValueOperations<String, Object> valueOperations;
+    private CartRepository cartRepository;
 
     @InjectMocks
     private CartService cartService;
@@ -40,8 +42,6 @@ class CartServiceTest {
 
     @BeforeEach
     void setUp() {
-        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-
         testCart = new Cart();
         testCart.setUserId(userId);
 
@@ -55,7 +55,8 @@ class CartServiceTest {
     @Test
     void testGetCart_ExistingCart() {
         // Arrange
-        when(valueOperations.get(anyString())).thenReturn(testCart);
+        testCart.addItem(new CartItem(101L, "Product 1", new BigDecimal("99.99"), 2));
+        when(cartRepository.findByUserId(userId)).thenReturn(testCart);
 
         // Act
         Cart result = cartService.getCart(userId);
@@ -63,13 +64,14 @@ class CartServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(userId, result.getUserId());
-        verify(valueOperations, times(1)).get("cart:" + userId);
+        assertEquals(1, result.getItems().size());
+        verify(cartRepository, times(1)).findByUserId(userId);
     }
 
     @Test
     void testGetCart_NewCart() {
         // Arrange
-        when(valueOperations.get(anyString())).thenReturn(null);
+        when(cartRepository.findByUserId(userId)).thenReturn(testCart);
 
         // Act
         Cart result = cartService.getCart(userId);
@@ -78,132 +80,87 @@ class CartServiceTest {
         assertNotNull(result);
         assertEquals(userId, result.getUserId());
         assertTrue(result.getItems().isEmpty());
-        verify(valueOperations, times(1)).get("cart:" + userId);
-    }
-
-    @Test
-    void testAddToCart_NewItem() {
-        // Arrange
-        when(valueOperations.get(anyString())).thenReturn(testCart);
-
-        // Act
-        Cart result = cartService.addToCart(userId, addToCartRequest);
-
-        // Assert
-        assertNotNull(result);
-        assertEquals(1, result.getItems().size());
-        CartItem item = result.getItems().get(0);
-        assertEquals(addToCartRequest.getProductId(), item.getProductId());
-        assertEquals(addToCartRequest.getQuantity(), item.getQuantity());
-        verify(valueOperations, times(1)).set(eq("cart:" + userId), any(Cart.class), eq(24L), eq(TimeUnit.HOURS));
     }
 
     @Test
-    void testAddToCart_ExistingItem() {
+    void testAddToCart_IsSingleRepositoryCall() {
         // Arrange
-        CartItem existingItem = new CartItem(101L, "Test Product", new BigDecimal("99.99"), 3);
-        testCart.getItems().add(existingItem);
-        when(valueOperations.get(anyString())).thenReturn(testCart);
+        testCart.addItem(new CartItem(101L, "Test Product", new BigDecimal("99.99"), 2));
+        when(cartRepository.addItem(eq(userId), any(CartItem.class))).thenReturn(testCart);
 
         // Act
         Cart result = cartService.addToCart(userId, addToCartRequest);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.getItems().size());
-        CartItem item = result.getItems().get(0);
-        assertEquals(101L, item.getProductId());
-        assertEquals(5, item.getQuantity()); // 3 + 2
-        verify(valueOperations, times(1)).set(eq("cart:" + userId), any(Cart.class), eq(24L), eq(TimeUnit.HOURS));
+        assertSame(testCart, result);
+        ArgumentCaptor<CartItem> captor = ArgumentCaptor.forClass(CartItem.class);
+        verify(cartRepository, times(1)).addItem(eq(userId), captor.capture());
+        assertEquals(101L, captor.getValue().getProductId());
+        assertEquals("Test Product", captor.getValue().getProductName());
+        assertEquals(new BigDecimal("99.99"), captor.getValue().getPrice());
+        assertEquals(2, captor.getValue().getQuantity());
+        verify(cartRepository, never()).findByUserId(anyLong());
     }
 
     @Test
     void testRemoveFromCart_Success() {
         // Arrange
-        CartItem item1 = new CartItem(101L, "Product 1", new BigDecimal("99.99"), 2);
-        CartItem item2 = new CartItem(102L, "Product 2", new BigDecimal("49.99"), 1);
-        testCart.getItems().add(item1);
-        testCart.getItems().add(item2);
-        when(valueOperations.get(anyString())).thenReturn(testCart);
+        testCart.addItem(new CartItem(102L, "Product 2", new BigDecimal("49.99"), 1));
+        when(cartRepository.removeItem(userId, 101L)).thenReturn(testCart);
 
         // Act
         Cart result = cartService.removeFromCart(userId, 101L);
 
         // Assert
-        assertNotNull(result);
         assertEquals(1, result.getItems().size());
         assertEquals(102L, result.getItems().get(0).getProductId());
-        verify(valueOperations, times(1)).set(eq("cart:" + userId), any(Cart.class), eq(24L), eq(TimeUnit.HOURS));
-    }
-
-    @Test
-    void testRemoveFromCart_NonExistentItem() {
-        // Arrange
-        CartItem item1 = new CartItem(101L, "Product 1", new BigDecimal("99.99"), 2);
-        testCart.getItems().add(item1);
-        when(valueOperations.get(anyString())).thenReturn(testCart);
-
-        // Act
-        Cart result = cartService.removeFromCart(userId, 999L);
-
-        // Assert
-        assertNotNull(result);
-        assertEquals(1, result.getItems().size()); // No change
-        assertEquals(101L, result.getItems().get(0).getProductId());
+        verify(cartRepository, times(1)).removeItem(userId, 101L);
     }
 
     @Test
     void testUpdateQuantity_Success() {
         // Arrange
-        CartItem item = new CartItem(101L, "Product 1", new BigDecimal("99.99"), 2);
-        testCart.getItems().add(item);
-        when(valueOperations.get(anyString())).thenReturn(testCart);
+        testCart.addItem(new CartItem(101L, "Product 1", new BigDecimal("99.99"), 5));
+        when(cartRepository.updateQuantity(userId, 101L, 5)).thenReturn(Optional.of(testCart));
 
         // Act
         Cart result = cartService.updateQuantity(userId, 101L, 5);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.getItems().size());
         assertEquals(5, result.getItems().get(0).getQuantity());
-        verify(valueOperations, times(1)).set(eq("cart:" + userId), any(Cart.class), eq(24L), eq(TimeUnit.HOURS));
+        verify(cartRepository, times(1)).updateQuantity(userId, 101L, 5);
     }
 
     @Test
     void testUpdateQuantity_RemoveWhenZero() {
         // Arrange
-        CartItem item = new CartItem(101L, "Product 1", new BigDecimal("99.99"), 2);
-        testCart.getItems().add(item);
-        when(valueOperations.get(anyString())).thenReturn(testCart);
+        when(cartRepository.updateQuantity(userId, 101L, 0)).thenReturn(Optional.of(testCart));
 
         // Act
         Cart result = cartService.updateQuantity(userId, 101L, 0);
 
         // Assert
-        assertNotNull(result);
         assertTrue(result.getItems().isEmpty());
-        verify(valueOperations, times(1)).set(eq("cart:" + userId), any(Cart.class), eq(24L), eq(TimeUnit.HOURS));
+        verify(cartRepository, never()).removeItem(anyLong(), anyLong());
     }
 
     @Test
     void testUpdateQuantity_RemoveWhenNegative() {
         // Arrange
-        CartItem item = new CartItem(101L, "Product 1", new BigDecimal("99.99"), 2);
-        testCart.getItems().add(item);
-        when(valueOperations.get(anyString())).thenReturn(testCart);
+        when(cartRepository.updateQuantity(userId, 101L, -1)).thenReturn(Optional.of(testCart));
 
         // Act
         Cart result = cartService.updateQuantity(userId, 101L, -1);
 
         // Assert
-        assertNotNull(result);
         assertTrue(result.getItems().isEmpty());
+        verify(cartRepository, times(1)).updateQuantity(userId, 101L, -1);
     }
 
     @Test
     void testUpdateQuantity_ProductNotFound() {
         // Arrange
-        when(valueOperations.get(anyString())).thenReturn(testCart);
+        when(cartRepository.updateQuantity(userId, 999L, 5)).thenReturn(Optional.empty());
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -215,38 +172,118 @@ class CartServiceTest {
 
     @Test
     void testClearCart_Success() {
+        // Act
+        cartService.clearCart(userId);
+
+        // Assert
+        verify(cartRepository, times(1)).deleteByUserId(userId);
+    }
+
+    @Test
+    void testCartTotalPrice() {
         // Arrange
-        CartItem item = new CartItem(101L, "Product 1", new BigDecimal("99.99"), 2);
-        testCart.getItems().add(item);
+        testCart.addItem(new CartItem(101L, "Product 1", new BigDecimal("100.00"), 2));
+        testCart.addItem(new CartItem(102L, "Product 2", new BigDecimal("50.00"), 3));
+        when(cartRepository.findByUserId(userId)).thenReturn(testCart);
 
         // Act
+        Cart result = cartService.getCart(userId);
+
+        // Assert
+        assertEquals(0, new BigDecimal("350.00").compareTo(result.getTotalPrice()));
+        assertEquals(5, result.getTotalItems());
+    }
+
+    @Test
+    void testWrites_InvalidateCacheWhenEnabled() {
+        // Arrange
+        CartCache cartCache = mock(CartCache.class);
+        ReflectionTestUtils.setField(cartService, "cartCache", cartCache);
+        when(cartRepository.addItem(eq(userId), any(CartItem.class))).thenReturn(testCart);
+
+        // Act
+        cartService.addToCart(userId, addToCartRequest);
         cartService.clearCart(userId);
 
         // Assert
-        verify(redisTemplate, times(1)).delete("cart:" + userId);
+        verify(cartCache, times(2)).recordWrite(userId);
+        verify(cartCache, times(2)).invalidate(userId);
     }
 
     @Test
-    void testCartTotalPrice() {
+    void testApplyBulk_RejectsIncompleteOperationsBeforeWriting() {
+        // Arrange
+        BulkCartRequest request = new BulkCartRequest(List.of(
+            new BulkCartRequest.Operation(BulkCartRequest.Type.REMOVE, 101L, null, null, null),
+            new BulkCartRequest.Operation(BulkCartRequest.Type.ADD, 102L, "Product 2", null, 1)));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> cartService.applyBulk(userId, request));
+        assertTrue(exception.getMessage().contains("102"));
+        verifyNoInteractions(cartRepository);
+    }
+
+    @Test
+    void testApplyBulk_UpdateOfMissingProduct() {
         // Arrange
-        when(valueOperations.get(anyString())).thenReturn(testCart);
-        AddToCartRequest request1 = new AddToCartRequest();
-        request1.setProductId(101L);
-        request1.setProductName("Product 1");
-        request1.setPrice(new BigDecimal("100.00"));
-        request1.setQuantity(2);
-
-        AddToCartRequest request2 = new AddToCartRequest();
-        request2.setProductId(102L);
-        request2.setProductName("Product 2");
-        request2.setPrice(new BigDecimal("50.00"));
-        request2.setQuantity(3);
+        BulkCartRequest request = new BulkCartRequest(List.of(
+            new BulkCartRequest.Operation(BulkCartRequest.Type.UPDATE, 999L, null, null, 2)));
+        when(cartRepository.applyBulk(userId, request.getOperations())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> cartService.applyBulk(userId, request));
+    }
+
+    @Test
+    void testMergeGuestCart_RejectsGuessableIds() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> cartService.mergeGuestCart(userId, "42"));
+        assertThrows(IllegalArgumentException.class, () -> cartService.getGuestCart("../../cart:items:1"));
+        verifyNoInteractions(cartRepository);
+    }
+
+    @Test
+    void testMergeGuestCart() {
+        // Arrange
+        String guestId = "3b1f5c0e-8a47-4d2b";
+        when(cartRepository.mergeGuestCart(userId, guestId)).thenReturn(testCart);
 
         // Act
-        cartService.addToCart(userId, request1);
-        cartService.addToCart(userId, request2);
+        Cart result = cartService.mergeGuestCart(userId, guestId);
 
         // Assert
-        verify(valueOperations, times(2)).set(eq("cart:" + userId), any(Cart.class), eq(24L), eq(TimeUnit.HOURS));
+        assertEquals(testCart, result);
+        verify(cartRepository, times(1)).mergeGuestCart(userId, guestId);
+    }
+
+    @Test
+    void testAddToCart_UsesCatalogPriceWhenSnapshotEnabled() {
+        // Arrange
+        CatalogSnapshot catalogSnapshot = mock(CatalogSnapshot.class);
+        ReflectionTestUtils.setField(cartService, "catalogSnapshot", catalogSnapshot);
+        when(catalogSnapshot.checkPrice(101L, new BigDecimal("99.99"))).thenReturn(new BigDecimal("89.99"));
+        when(cartRepository.addItem(eq(userId), any(CartItem.class))).thenReturn(testCart);
+
+        // Act
+        cartService.addToCart(userId, addToCartRequest);
+
+        // Assert
+        ArgumentCaptor<CartItem> captor = ArgumentCaptor.forClass(CartItem.class);
+        verify(cartRepository).addItem(eq(userId), captor.capture());
+        assertEquals(8999, captor.getValue().getPriceCents());
+    }
+
+    @Test
+    void testAddToCart_UnavailableProductIsNotWritten() {
+        // Arrange
+        CatalogSnapshot catalogSnapshot = mock(CatalogSnapshot.class);
+        ReflectionTestUtils.setField(cartService, "catalogSnapshot", catalogSnapshot);
+        when(catalogSnapshot.checkPrice(eq(101L), any()))
+            .thenThrow(new IllegalArgumentException("Product 101 is not available"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> cartService.addToCart(userId, addToCartRequest));
+        verifyNoInteractions(cartRepository);
     }
 }
@@ -0,0 +1,249 @@
+package com.ecommerce.cart.support;
+
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.PortBinding;
+import com.github.dockerjava.api.model.Ports;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.testcontainers.containers.GenericContainer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Throwaway Redis Cluster for integration tests and benchmarks
+ *
+ * Starts one primary per shard, with the 16384 slots split evenly between them,
+ * and optionally replicas of each primary. Nodes are local redis-server
+ * processes, or, like LocalRedisServer, run in Docker when the binary is
+ * missing. All container nodes share one container and publish their ports
+ * unchanged, so the 127.0.0.1 addresses the nodes announce to each other are
+ * also the ones the client reaches them on.
+ */
+public final class LocalRedisCluster implements AutoCloseable {
+
+    private static final int SLOTS = 16384;
+    // The cluster bus listens on the data port + 10000
+    private static final int MAX_PORT = 65535 - 10000;
+
+    private final List<Integer> primaries = new ArrayList<>();
+    private final List<Integer> replicas = new ArrayList<>();
+    private final List<LocalRedisServer> processes = new ArrayList<>();
+    private final List<Path> directories = new ArrayList<>();
+    private GenericContainer<?> container;
+
+    private LocalRedisCluster() {
+    }
+
+    /**
+     * Start a cluster of shards primaries, each with replicasPerShard replicas
+     */
+    public static LocalRedisCluster start(int shards, int replicasPerShard) throws IOException {
+        LocalRedisCluster cluster = new LocalRedisCluster();
+        try {
+            for (int i = 0; i < shards; i++) {
+                cluster.primaries.add(clusterPort());
+            }
+            for (int i = 0; i < shards * replicasPerShard; i++) {
+                cluster.replicas.add(clusterPort());
+            }
+            if (LocalRedisServer.isAvailable()) {
+                cluster.startProcesses();
+            } else {
+                cluster.startContainer();
+            }
+            cluster.form();
+            return cluster;
+        } catch (IOException | RuntimeException e) {
+            cluster.close();
+            throw e;
+        }
+    }
+
+    public List<Integer> getPrimaryPorts() {
+        return List.copyOf(primaries);
+    }
+
+    /**
+     * A started cluster connection factory reading from the primaries; the caller
+     * destroys it
+     */
+    public LettuceConnectionFactory connectionFactory() {
+        return connectionFactory(ReadFrom.UPSTREAM);
+    }
+
+    /**
+     * A started cluster connection factory with the given read routing; the caller
+     * destroys it
+     */
+    public LettuceConnectionFactory connectionFactory(ReadFrom readFrom) {
+        List<String> nodes = getPrimaryPorts().stream().map(port -> "127.0.0.1:" + port).toList();
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+            .readFrom(readFrom)
+            .build();
+        LettuceConnectionFactory factory =
+            new LettuceConnectionFactory(new RedisClusterConfiguration(nodes), clientConfiguration);
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    @Override
+    public void close() {
+        processes.forEach(LocalRedisServer::close);
+        if (container != null) {
+            container.stop();
+        }
+        for (Path directory : directories) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                // Left for the OS to clean up
+            }
+        }
+    }
+
+    private List<Integer> nodePorts() {
+        List<Integer> ports = new ArrayList<>(primaries);
+        ports.addAll(replicas);
+        return ports;
+    }
+
+    private void startProcesses() throws IOException {
+        for (int port : nodePorts()) {
+            Path directory = Files.createTempDirectory("redis-cluster");
+            directories.add(directory);
+            processes.add(LocalRedisServer.start(port,
+                "--cluster-enabled", "yes",
+                "--cluster-config-file", "nodes.conf",
+                "--cluster-node-timeout", "5000",
+                "--dir", directory.toString()));
+        }
+    }
+
+    private void startContainer() throws IOException {
+        List<Integer> ports = nodePorts();
+        StringBuilder script = new StringBuilder();
+        for (int port : ports) {
+            script.append("redis-server --port ").append(port)
+                .append(" --cluster-enabled yes --cluster-config-file nodes-").append(port).append(".conf")
+                .append(" --cluster-node-timeout 5000 --cluster-announce-ip 127.0.0.1")
+                .append(" --save '' --appendonly no --daemonize yes && ");
+        }
+        script.append("exec sleep infinity");
+
+        container = new GenericContainer<>(LocalRedisServer.IMAGE)
+            .withCommand("sh", "-c", script.toString())
+            .withCreateContainerCmdModifier(cmd -> {
+                cmd.withExposedPorts(ports.stream().map(ExposedPort::tcp).toList());
+                cmd.getHostConfig().withPortBindings(new Ports(ports.stream()
+                    .map(port -> PortBinding.parse(port + ":" + port))
+                    .toArray(PortBinding[]::new)));
+            });
+        container.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (int port : ports) {
+            while (!LocalRedisServer.ping("127.0.0.1", port)) {
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("Redis cluster node did not start on port " + port);
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while starting the Redis cluster", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Assign the slots, introduce the nodes to each other, attach the replicas,
+     * and wait until every node reports the cluster as ok
+     */
+    private void form() throws IOException {
+        List<Integer> nodes = nodePorts();
+
+        RedisClient client = RedisClient.create();
+        List<StatefulRedisConnection<String, String>> connections = new ArrayList<>();
+        try {
+            List<RedisCommands<String, String>> commands = new ArrayList<>();
+            for (int port : nodes) {
+                StatefulRedisConnection<String, String> connection =
+                    client.connect(RedisURI.create("127.0.0.1", port));
+                connections.add(connection);
+                commands.add(connection.sync());
+            }
+
+            int shards = primaries.size();
+            for (int i = 0; i < shards; i++) {
+                int from = SLOTS * i / shards;
+                int to = SLOTS * (i + 1) / shards;
+                commands.get(i).clusterAddSlots(IntStream.range(from, to).toArray());
+            }
+            for (int i = 1; i < nodes.size(); i++) {
+                commands.get(0).clusterMeet("127.0.0.1", nodes.get(i));
+            }
+            String knownNodes = "cluster_known_nodes:" + nodes.size();
+            for (RedisCommands<String, String> node : commands) {
+                await(node, RedisCommands::clusterInfo, info -> info.contains(knownNodes));
+            }
+
+            for (int i = 0; i < replicas.size(); i++) {
+                String primaryId = commands.get(i % shards).clusterMyId();
+                commands.get(shards + i).clusterReplicate(primaryId);
+            }
+            for (RedisCommands<String, String> node : commands) {
+                await(node, RedisCommands::clusterInfo, info -> info.contains("cluster_state:ok"));
+            }
+            for (int i = shards; i < commands.size(); i++) {
+                await(commands.get(i), c -> c.info("replication"), info -> info.contains("master_link_status:up"));
+            }
+        } finally {
+            connections.forEach(StatefulRedisConnection::close);
+            client.shutdown();
+        }
+    }
+
+    private static void await(RedisCommands<String, String> node,
+                              Function<RedisCommands<String, String>, String> query,
+                              Predicate<String> condition) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            if (condition.test(query.apply(node))) {
+                return;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IOException("Redis cluster did not form: " + query.apply(node));
+    }
+
+    private static int clusterPort() throws IOException {
+        int port = LocalRedisServer.freePort();
+        while (port > MAX_PORT) {
+            port = LocalRedisServer.freePort();
+        }
+        return port;
+    }
+}
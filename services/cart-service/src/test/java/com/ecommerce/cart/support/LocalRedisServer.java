@@ -0,0 +1,176 @@
+package com.ecommerce.cart.support;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throwaway redis-server for integration tests and benchmarks
+ *
+ * Starts the redis-server binary found on the PATH (or at -Dredis.server) on a
+ * free port with persistence disabled. Without the binary, the server runs in a
+ * Docker container through Testcontainers instead. With neither, start() throws,
+ * so the Redis-backed tests fail rather than silently not running.
+ */
+public final class LocalRedisServer implements AutoCloseable {
+
+    private static final String EXECUTABLE = System.getProperty("redis.server", "redis-server");
+    static final DockerImageName IMAGE = DockerImageName.parse(System.getProperty("redis.image", "redis:7.2-alpine"));
+    private static final int CONTAINER_PORT = 6379;
+
+    private final Process process;
+    private final GenericContainer<?> container;
+    private final String host;
+    private final int port;
+
+    private LocalRedisServer(Process process, GenericContainer<?> container, String host, int port) {
+        this.process = process;
+        this.container = container;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Whether a redis-server binary can be started on this machine; if not, servers run in Docker
+     */
+    public static boolean isAvailable() {
+        try {
+            Process version = new ProcessBuilder(EXECUTABLE, "--version").redirectErrorStream(true).start();
+            return version.waitFor(5, TimeUnit.SECONDS) && version.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Start a server with extra configuration directives, e.g. "--notify-keyspace-events", "Kh"
+     */
+    public static LocalRedisServer start(String... extraArgs) throws IOException {
+        return isAvailable() ? start(freePort(), extraArgs) : startContainer(extraArgs);
+    }
+
+    /**
+     * Start the local binary on the given port
+     */
+    static LocalRedisServer start(int port, String... extraArgs) throws IOException {
+        List<String> command = new ArrayList<>(List.of(EXECUTABLE, "--port", Integer.toString(port),
+            "--save", "", "--appendonly", "no"));
+        command.addAll(Arrays.asList(extraArgs));
+
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        LocalRedisServer server = new LocalRedisServer(process, null, "localhost", port);
+        server.awaitReady();
+        return server;
+    }
+
+    private static LocalRedisServer startContainer(String... extraArgs) throws IOException {
+        List<String> command = new ArrayList<>(List.of("redis-server", "--save", "", "--appendonly", "no"));
+        command.addAll(Arrays.asList(extraArgs));
+
+        GenericContainer<?> container = new GenericContainer<>(IMAGE)
+            .withExposedPorts(CONTAINER_PORT)
+            .withCommand(command.toArray(String[]::new));
+        container.start();
+        LocalRedisServer server = new LocalRedisServer(null, container,
+            container.getHost(), container.getMappedPort(CONTAINER_PORT));
+        server.awaitReady();
+        return server;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * A started connection factory for this server; the caller destroys it
+     */
+    public LettuceConnectionFactory connectionFactory() {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    @Override
+    public void close() {
+        if (container != null) {
+            container.stop();
+            return;
+        }
+        process.destroy();
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitReady() throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (process != null && !process.isAlive()) {
+                throw new IOException("redis-server exited with code " + process.exitValue());
+            }
+            if (ping(host, port)) {
+                return;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        close();
+        throw new IOException("redis-server did not start on port " + port);
+    }
+
+    /**
+     * Whether a server at host:port answers PING
+     */
+    static boolean ping(String host, int port) {
+        try (Socket socket = new Socket(host, port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write("PING\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] reply = new byte[7];
+            return in.read(reply) > 0 && new String(reply, StandardCharsets.US_ASCII).startsWith("+PONG");
+        } catch (IOException e) {
+            // Not listening yet
+            return false;
+        }
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        }
+    }
+}
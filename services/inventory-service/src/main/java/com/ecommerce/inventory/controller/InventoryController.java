@@ -1,6 +1,7 @@
 package com.ecommerce.inventory.controller;
 
 import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.OrderReservationRequest;
 import com.ecommerce.inventory.dto.ReserveStockRequest;
 import com.ecommerce.inventory.service.InventoryService;
 import jakarta.validation.Valid;
@@ -90,6 +91,20 @@ public class InventoryController {
         }
     }
 
+    /**
+     * Reserve stock for many orders at once (called by Order Service bulk checkout)
+     * Returns one result per order; a short order does not fail the others
+     */
+    @PostMapping("/reserve/batch")
+    public ResponseEntity<?> reserveStockBatch(@RequestBody List<OrderReservationRequest> orders) {
+        try {
+            return ResponseEntity.ok(inventoryService.reserveStockBatch(orders));
+        } catch (Exception e) {
+            logger.error("Failed to reserve stock batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Release stock (called by Order Service on cancellation)
      */
@@ -110,6 +125,44 @@ public class InventoryController {
         }
     }
 
+    /**
+     * Release everything the given orders hold (called by Order Service on cancellation)
+     */
+    @PostMapping("/release/orders")
+    public ResponseEntity<?> releaseOrderReservations(@RequestBody List<Long> orderIds) {
+        try {
+            int released = inventoryService.releaseOrderReservations(orderIds);
+
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Order reservations released");
+            response.put("orders", String.valueOf(released));
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Failed to release order reservations: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Confirm everything the given orders hold (called by Order Service after successful payment)
+     */
+    @PostMapping("/confirm/orders")
+    public ResponseEntity<?> confirmOrderReservations(@RequestBody List<Long> orderIds) {
+        try {
+            int confirmed = inventoryService.confirmOrderReservations(orderIds);
+
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Order reservations confirmed");
+            response.put("orders", String.valueOf(confirmed));
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Failed to confirm order reservations: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Confirm stock reservation (called by Order Service after successful payment)
      */
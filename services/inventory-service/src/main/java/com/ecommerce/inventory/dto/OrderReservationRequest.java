@@ -0,0 +1,21 @@
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order Reservation Request DTO
+ *
+ * All items of one order, reserved together or not at all.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReservationRequest {
+    private Long orderId;
+    private List<ReserveStockRequest> items = new ArrayList<>();
+}
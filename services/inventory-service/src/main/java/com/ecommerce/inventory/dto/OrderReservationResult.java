@@ -0,0 +1,17 @@
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Order Reservation Result DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReservationResult {
+    private Long orderId;
+    private boolean reserved;
+    private String message;
+}
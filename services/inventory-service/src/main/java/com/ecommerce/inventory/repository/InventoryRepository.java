@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,6 +24,12 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<Inventory> findByProductId(Long productId);
 
+    /**
+     * Lock inventory rows for several products, always in product id order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Inventory> findByProductIdInOrderByProductId(Collection<Long> productIds);
+
     /**
      * Check if inventory exists for a product
      */
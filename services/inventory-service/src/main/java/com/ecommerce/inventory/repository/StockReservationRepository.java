@@ -0,0 +1,26 @@
+package com.ecommerce.inventory.repository;
+
+import com.ecommerce.inventory.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stock Reservation Repository
+ *
+ * Data access layer for per-order stock reservations.
+ */
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    /**
+     * Lock the reservations held by any of the given orders, so two releases of
+     * the same order cannot both return its stock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<StockReservation> findByOrderIdInOrderById(Collection<Long> orderIds);
+}
@@ -1,21 +1,35 @@
 package com.ecommerce.inventory.service;
 
 import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.OrderReservationRequest;
+import com.ecommerce.inventory.dto.OrderReservationResult;
+import com.ecommerce.inventory.dto.ReserveStockRequest;
 import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.StockReservation;
 import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.StockReservationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
  * Inventory Service
  *
  * Business logic for inventory management with reserve/release operations.
+ * Reservations made per order are also recorded as StockReservation rows, so
+ * confirming or releasing an order moves exactly the units it holds.
  */
 @Service
 public class InventoryService {
@@ -25,6 +39,9 @@ public class InventoryService {
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
     /**
      * Get all inventory records
      */
@@ -119,6 +136,146 @@ public class InventoryService {
         logger.info("Successfully released {} units of product {}", quantity, productId);
     }
 
+    /**
+     * Reserve stock for many orders in one transaction.
+     * Every product involved is locked once, in product id order, and orders are
+     * then reserved in the given sequence. Each order is all-or-nothing: if any of
+     * its items is short, none are reserved and the next order is tried.
+     * An order that already holds a reservation is reported as reserved again,
+     * so a caller may safely retry after an ambiguous failure.
+     */
+    @Transactional
+    public List<OrderReservationResult> reserveStockBatch(List<OrderReservationRequest> orders) {
+        Set<Long> productIds = new TreeSet<>();
+        Set<Long> orderIds = new HashSet<>();
+        for (OrderReservationRequest order : orders) {
+            if (order.getOrderId() == null) {
+                throw new RuntimeException("Each order reservation needs an order ID");
+            }
+            orderIds.add(order.getOrderId());
+            for (ReserveStockRequest item : order.getItems()) {
+                if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() < 1) {
+                    throw new RuntimeException("Each reservation needs a product ID and a quantity of at least 1");
+                }
+                productIds.add(item.getProductId());
+            }
+        }
+        logger.info("Reserving stock for {} orders across {} products", orders.size(), productIds.size());
+
+        // Reservations are locked before inventory, the same order a release takes them in
+        Set<Long> reservedOrders = new HashSet<>();
+        for (StockReservation reservation : reservationRepository.findByOrderIdInOrderById(orderIds)) {
+            reservedOrders.add(reservation.getOrderId());
+        }
+
+        Map<Long, Inventory> inventories = new HashMap<>();
+        for (Inventory inventory : inventoryRepository.findByProductIdInOrderByProductId(productIds)) {
+            inventories.put(inventory.getProductId(), inventory);
+        }
+
+        List<OrderReservationResult> results = new ArrayList<>(orders.size());
+        List<StockReservation> reservations = new ArrayList<>();
+        for (OrderReservationRequest order : orders) {
+            if (!reservedOrders.add(order.getOrderId())) {
+                results.add(new OrderReservationResult(order.getOrderId(), true, "Already reserved"));
+                continue;
+            }
+
+            Map<Long, Integer> quantities = new TreeMap<>();
+            for (ReserveStockRequest item : order.getItems()) {
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+
+            String shortage = null;
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                Inventory inventory = inventories.get(entry.getKey());
+                if (inventory == null) {
+                    shortage = "Inventory not found for product ID: " + entry.getKey();
+                    break;
+                }
+                if (inventory.getAvailableQuantity() < entry.getValue()) {
+                    shortage = String.format("Insufficient stock for product %d. Available: %d, Requested: %d",
+                        entry.getKey(), inventory.getAvailableQuantity(), entry.getValue());
+                    break;
+                }
+            }
+
+            if (shortage != null) {
+                reservedOrders.remove(order.getOrderId());
+                results.add(new OrderReservationResult(order.getOrderId(), false, shortage));
+                continue;
+            }
+
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                Inventory inventory = inventories.get(entry.getKey());
+                inventory.setAvailableQuantity(inventory.getAvailableQuantity() - entry.getValue());
+                inventory.setReservedQuantity(inventory.getReservedQuantity() + entry.getValue());
+                reservations.add(new StockReservation(order.getOrderId(), entry.getKey(), entry.getValue()));
+            }
+            results.add(new OrderReservationResult(order.getOrderId(), true, null));
+        }
+
+        inventoryRepository.saveAll(inventories.values());
+        reservationRepository.saveAll(reservations);
+        logger.info("Reserved stock for {} of {} orders",
+            results.stream().filter(OrderReservationResult::isReserved).count(), orders.size());
+        return results;
+    }
+
+    /**
+     * Release everything the given orders still hold back to available stock.
+     * Orders that were already confirmed or released hold nothing, so releasing
+     * twice is harmless. Returns how many orders had stock released.
+     */
+    @Transactional
+    public int releaseOrderReservations(List<Long> orderIds) {
+        return settleOrderReservations(orderIds, true);
+    }
+
+    /**
+     * Confirm everything the given orders hold (stock is now sold)
+     */
+    @Transactional
+    public int confirmOrderReservations(List<Long> orderIds) {
+        return settleOrderReservations(orderIds, false);
+    }
+
+    private int settleOrderReservations(List<Long> orderIds, boolean release) {
+        List<StockReservation> reservations = reservationRepository.findByOrderIdInOrderById(orderIds);
+        if (reservations.isEmpty()) {
+            logger.info("No reservations held by orders {}", orderIds);
+            return 0;
+        }
+
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Set<Long> settledOrders = new HashSet<>();
+        for (StockReservation reservation : reservations) {
+            quantities.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+            settledOrders.add(reservation.getOrderId());
+        }
+
+        List<Inventory> inventories = inventoryRepository.findByProductIdInOrderByProductId(quantities.keySet());
+        for (Inventory inventory : inventories) {
+            int quantity = quantities.get(inventory.getProductId());
+            if (inventory.getReservedQuantity() < quantity) {
+                // Only possible if stock was moved through the per-product endpoints meanwhile
+                logger.error("Product {} has {} units reserved but its order reservations hold {}",
+                    inventory.getProductId(), inventory.getReservedQuantity(), quantity);
+                quantity = inventory.getReservedQuantity();
+            }
+            inventory.setReservedQuantity(inventory.getReservedQuantity() - quantity);
+            if (release) {
+                inventory.setAvailableQuantity(inventory.getAvailableQuantity() + quantity);
+            }
+        }
+
+        inventoryRepository.saveAll(inventories);
+        reservationRepository.deleteAll(reservations);
+        logger.info("{} stock for {} orders across {} products",
+            release ? "Released" : "Confirmed", settledOrders.size(), quantities.size());
+        return settledOrders.size();
+    }
+
     /**
      * Confirm stock reservation (on successful payment - remove from reserved)
      */
@@ -0,0 +1,189 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.OrderReservationRequest;
+import com.ecommerce.inventory.dto.OrderReservationResult;
+import com.ecommerce.inventory.dto.ReserveStockRequest;
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.StockReservation;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.StockReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for InventoryService order reservations
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryServiceTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private StockReservationRepository reservationRepository;
+
+    @InjectMocks
+    private InventoryService inventoryService;
+
+    private Inventory inventory(Long productId, int available, int reserved) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setAvailableQuantity(available);
+        inventory.setReservedQuantity(reserved);
+        return inventory;
+    }
+
+    private OrderReservationRequest order(Long orderId, ReserveStockRequest... items) {
+        return new OrderReservationRequest(orderId, List.of(items));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StockReservation> savedReservations() {
+        ArgumentCaptor<List<StockReservation>> captor = ArgumentCaptor.forClass(List.class);
+        verify(reservationRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void testReserveStockBatch_EachOrderIsAllOrNothing() {
+        Inventory laptop = inventory(101L, 10, 0);
+        Inventory cable = inventory(102L, 3, 0);
+        when(reservationRepository.findByOrderIdInOrderById(Set.of(1L, 2L))).thenReturn(Collections.emptyList());
+        when(inventoryRepository.findByProductIdInOrderByProductId(Set.of(101L, 102L)))
+            .thenReturn(List.of(laptop, cable));
+
+        List<OrderReservationResult> results = inventoryService.reserveStockBatch(List.of(
+            order(1L, new ReserveStockRequest(101L, 2), new ReserveStockRequest(102L, 5)),
+            order(2L, new ReserveStockRequest(101L, 4), new ReserveStockRequest(101L, 1))
+        ));
+
+        assertFalse(results.get(0).isReserved());
+        assertEquals("Insufficient stock for product 102. Available: 3, Requested: 5", results.get(0).getMessage());
+        assertTrue(results.get(1).isReserved());
+
+        // Nothing of order 1 is held, and order 2's lines for the same product are merged
+        assertEquals(5, laptop.getAvailableQuantity());
+        assertEquals(5, laptop.getReservedQuantity());
+        assertEquals(3, cable.getAvailableQuantity());
+        assertEquals(0, cable.getReservedQuantity());
+
+        List<StockReservation> reservations = savedReservations();
+        assertEquals(1, reservations.size());
+        assertEquals(2L, reservations.get(0).getOrderId());
+        assertEquals(101L, reservations.get(0).getProductId());
+        assertEquals(5, reservations.get(0).getQuantity());
+    }
+
+    @Test
+    void testReserveStockBatch_UnknownProductIsRejected() {
+        when(reservationRepository.findByOrderIdInOrderById(Set.of(1L))).thenReturn(Collections.emptyList());
+        when(inventoryRepository.findByProductIdInOrderByProductId(Set.of(999L))).thenReturn(Collections.emptyList());
+
+        List<OrderReservationResult> results = inventoryService.reserveStockBatch(List.of(
+            order(1L, new ReserveStockRequest(999L, 1))));
+
+        assertFalse(results.get(0).isReserved());
+        assertEquals("Inventory not found for product ID: 999", results.get(0).getMessage());
+        assertTrue(savedReservations().isEmpty());
+    }
+
+    @Test
+    void testReserveStockBatch_RetryOfReservedOrderTakesNoMoreStock() {
+        Inventory laptop = inventory(101L, 8, 2);
+        when(reservationRepository.findByOrderIdInOrderById(Set.of(1L)))
+            .thenReturn(List.of(new StockReservation(1L, 101L, 2)));
+        when(inventoryRepository.findByProductIdInOrderByProductId(Set.of(101L))).thenReturn(List.of(laptop));
+
+        List<OrderReservationResult> results = inventoryService.reserveStockBatch(List.of(
+            order(1L, new ReserveStockRequest(101L, 2))));
+
+        assertTrue(results.get(0).isReserved());
+        assertEquals("Already reserved", results.get(0).getMessage());
+        assertEquals(8, laptop.getAvailableQuantity());
+        assertEquals(2, laptop.getReservedQuantity());
+        assertTrue(savedReservations().isEmpty());
+    }
+
+    @Test
+    void testReserveStockBatch_InvalidQuantityRejectsWholeBatch() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            inventoryService.reserveStockBatch(List.of(order(1L, new ReserveStockRequest(101L, 0)))));
+
+        assertTrue(exception.getMessage().contains("quantity of at least 1"));
+        verifyNoInteractions(inventoryRepository, reservationRepository);
+    }
+
+    @Test
+    void testReleaseOrderReservations_ReturnsOnlyWhatTheOrdersHold() {
+        // Product 101 also has 4 units reserved by an order that is not being released
+        Inventory laptop = inventory(101L, 5, 9);
+        Inventory cable = inventory(102L, 0, 1);
+        List<StockReservation> held = List.of(
+            new StockReservation(1L, 101L, 2),
+            new StockReservation(1L, 102L, 1),
+            new StockReservation(2L, 101L, 3));
+        when(reservationRepository.findByOrderIdInOrderById(List.of(1L, 2L))).thenReturn(held);
+        when(inventoryRepository.findByProductIdInOrderByProductId(Set.of(101L, 102L)))
+            .thenReturn(List.of(laptop, cable));
+
+        int released = inventoryService.releaseOrderReservations(List.of(1L, 2L));
+
+        assertEquals(2, released);
+        assertEquals(10, laptop.getAvailableQuantity());
+        assertEquals(4, laptop.getReservedQuantity());
+        assertEquals(1, cable.getAvailableQuantity());
+        assertEquals(0, cable.getReservedQuantity());
+        verify(reservationRepository, times(1)).deleteAll(held);
+    }
+
+    @Test
+    void testReleaseOrderReservations_NothingHeldChangesNothing() {
+        when(reservationRepository.findByOrderIdInOrderById(List.of(1L))).thenReturn(Collections.emptyList());
+
+        assertEquals(0, inventoryService.releaseOrderReservations(List.of(1L)));
+
+        verifyNoInteractions(inventoryRepository);
+        verify(reservationRepository, never()).deleteAll(anyList());
+    }
+
+    @Test
+    void testConfirmOrderReservations_RemovesFromReservedOnly() {
+        Inventory laptop = inventory(101L, 5, 6);
+        List<StockReservation> held = List.of(new StockReservation(1L, 101L, 2));
+        when(reservationRepository.findByOrderIdInOrderById(List.of(1L))).thenReturn(held);
+        when(inventoryRepository.findByProductIdInOrderByProductId(Set.of(101L))).thenReturn(List.of(laptop));
+
+        int confirmed = inventoryService.confirmOrderReservations(List.of(1L));
+
+        assertEquals(1, confirmed);
+        assertEquals(5, laptop.getAvailableQuantity());
+        assertEquals(4, laptop.getReservedQuantity());
+        verify(reservationRepository, times(1)).deleteAll(held);
+    }
+
+    @Test
+    void testReleaseOrderReservations_ClampsToReservedQuantity() {
+        // Reserved stock was moved through the per-product endpoints meanwhile
+        Inventory laptop = inventory(101L, 5, 1);
+        when(reservationRepository.findByOrderIdInOrderById(List.of(1L)))
+            .thenReturn(List.of(new StockReservation(1L, 101L, 2)));
+        when(inventoryRepository.findByProductIdInOrderByProductId(Set.of(101L))).thenReturn(List.of(laptop));
+
+        inventoryService.releaseOrderReservations(List.of(1L));
+
+        assertEquals(6, laptop.getAvailableQuantity());
+        assertEquals(0, laptop.getReservedQuantity());
+    }
+}
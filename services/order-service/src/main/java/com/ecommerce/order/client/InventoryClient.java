@@ -1,10 +1,14 @@
 package com.ecommerce.order.client;
 
+import com.ecommerce.order.dto.OrderReservationRequest;
+import com.ecommerce.order.dto.OrderReservationResult;
 import com.ecommerce.order.dto.ReserveStockRequest;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 /**
  * Feign Client for Inventory Service
  */
@@ -14,9 +18,18 @@ public interface InventoryClient {
     @PostMapping("/api/inventory/reserve")
     void reserveStock(@RequestBody ReserveStockRequest request);
 
+    @PostMapping("/api/inventory/reserve/batch")
+    List<OrderReservationResult> reserveStockBatch(@RequestBody List<OrderReservationRequest> orders);
+
     @PostMapping("/api/inventory/release")
     void releaseStock(@RequestBody ReserveStockRequest request);
 
+    @PostMapping("/api/inventory/release/orders")
+    void releaseOrders(@RequestBody List<Long> orderIds);
+
+    @PostMapping("/api/inventory/confirm/orders")
+    void confirmOrders(@RequestBody List<Long> orderIds);
+
     @PostMapping("/api/inventory/confirm")
     void confirmReservation(@RequestBody ReserveStockRequest request);
 }
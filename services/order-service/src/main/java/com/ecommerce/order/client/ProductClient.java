@@ -0,0 +1,18 @@
+package com.ecommerce.order.client;
+
+import com.ecommerce.order.dto.ProductDTO;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
+
+/**
+ * Feign Client for Product Service
+ */
+@FeignClient(name = "product-service")
+public interface ProductClient {
+
+    @PostMapping("/internal/products/batch")
+    List<ProductDTO> getProductsByIds(@RequestBody List<Long> ids);
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.order.config;
+
+import com.ecommerce.order.id.NodeIdLease;
+import com.ecommerce.order.id.SnowflakeIdGenerator;
+import com.ecommerce.order.id.SnowflakeIdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * ID Generator Configuration
+ *
+ * Order and OrderItem ids come from a Snowflake generator. The node id is
+ * taken from order.id.node-id when set (>= 0), otherwise leased from the
+ * database so every replica gets a distinct one. If the lease is lost, a
+ * generator for the newly leased node id replaces the installed one.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    @Bean(destroyMethod = "release")
+    @ConditionalOnProperty(prefix = "order.id", name = "node-id", havingValue = "-1", matchIfMissing = true)
+    public NodeIdLease nodeIdLease(JdbcTemplate jdbcTemplate,
+                                   @Value("${order.id.lease-ttl:5m}") Duration leaseTtl) {
+        return new NodeIdLease(jdbcTemplate, leaseTtl);
+    }
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(ObjectProvider<NodeIdLease> nodeIdLease,
+                                                     @Value("${order.id.node-id:-1}") int configuredNodeId,
+                                                     @Value("${order.id.max-clock-backward-ms:2000}") long maxBackwardMillis) {
+        NodeIdLease lease = nodeIdLease.getIfAvailable();
+        int nodeId = lease != null ? lease.acquire() : configuredNodeId;
+
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(nodeId, maxBackwardMillis);
+        SnowflakeIdentifierGenerator.install(generator);
+        logger.info("Snowflake id generator ready on node {}", nodeId);
+
+        if (lease != null) {
+            lease.onReacquired(renewedNodeId -> {
+                SnowflakeIdentifierGenerator.install(new SnowflakeIdGenerator(renewedNodeId, maxBackwardMillis));
+                logger.info("Snowflake id generator moved to node {}", renewedNodeId);
+            });
+        }
+        return generator;
+    }
+}
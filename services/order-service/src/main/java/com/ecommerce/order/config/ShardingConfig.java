@@ -0,0 +1,74 @@
+package com.ecommerce.order.config;
+
+import com.ecommerce.order.sharding.ShardRouter;
+import com.ecommerce.order.sharding.ShardRoutingDataSource;
+import com.ecommerce.order.sharding.ShardSchemaInitializer;
+import com.ecommerce.order.sharding.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sharding Configuration
+ *
+ * When order.sharding.enabled=true, replaces the single DataSource with a
+ * routing DataSource over one pool per shard. Orders are placed on a shard by
+ * userId hash. With sharding disabled the router reports a single shard and
+ * the regular Spring Boot DataSource is used.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        int shardCount = properties.isEnabled() ? properties.getShards().size() : 1;
+        return new ShardRouter(shardCount, properties.getFanOutThreads());
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "order.sharding", name = "enabled", havingValue = "true")
+    public DataSource dataSource(ShardingProperties properties) {
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("order.sharding.enabled is true but no order.sharding.shards are configured");
+        }
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(shard.getUrl())
+                .username(shard.getUsername())
+                .password(shard.getPassword())
+                .build();
+            dataSource.setPoolName("order-shard-" + i);
+            dataSource.setMaximumPoolSize(properties.getPoolSize());
+
+            ShardSchemaInitializer.initialize(dataSource);
+            targets.put(i, dataSource);
+            logger.info("Initialized order shard {} at {}", i, shard.getUrl());
+        }
+
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(targets.get(0));
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+}
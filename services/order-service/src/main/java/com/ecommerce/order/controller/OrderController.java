@@ -1,14 +1,25 @@
 package com.ecommerce.order.controller;
 
+import com.ecommerce.order.dto.BulkOrderRequest;
 import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.service.BulkCheckoutService;
+import com.ecommerce.order.service.IdempotencyService;
+import com.ecommerce.order.service.OrderExportService;
 import com.ecommerce.order.service.OrderService;
+import com.ecommerce.order.sharding.ShardRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,24 +38,85 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BulkCheckoutService bulkCheckoutService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
     /**
      * Create order from cart
      * Requires authentication - user ID and email come from JWT headers
+     * An optional Idempotency-Key header makes retries return the original order
      */
     @PostMapping
     public ResponseEntity<?> createOrder(
         @RequestHeader("X-User-Id") String userId,
-        @RequestHeader("X-User-Email") String userEmail
+        @RequestHeader("X-User-Email") String userEmail,
+        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
         try {
-            OrderResponse order = orderService.createOrder(Long.parseLong(userId), userEmail);
-            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+            Long id = Long.parseLong(userId);
+
+            if (idempotencyKey == null) {
+                OrderResponse order = shardRouter.onShardForUser(id, () -> orderService.createOrder(id, userEmail));
+                return ResponseEntity.status(HttpStatus.CREATED).body(order);
+            }
+
+            IdempotencyService.Result result = idempotencyService.execute(id, idempotencyKey,
+                onOrderCreated -> shardRouter.onShardForUser(id,
+                    () -> orderService.createOrder(id, userEmail, onOrderCreated)));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(result.isReplayed()))
+                .body(result.getResponse());
+        } catch (IdempotencyService.RequestInProgressException e) {
+            logger.warn("Duplicate order request still in progress: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse(e.getMessage()));
         } catch (Exception e) {
             logger.error("Failed to create order: {}", e.getMessage());
             return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
         }
     }
 
+    /**
+     * Place many orders in one call (B2B / batch placement)
+     * Streams one NDJSON result line per order as each order finishes
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createOrdersBulk(
+        @RequestHeader("X-User-Id") String userId,
+        @RequestHeader("X-User-Email") String userEmail,
+        @RequestBody BulkOrderRequest request
+    ) {
+        Long id;
+        try {
+            id = Long.parseLong(userId);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(errorResponse("Invalid user ID"));
+        }
+
+        List<BulkOrderRequest.OrderPayload> orders = request.getOrders();
+        if (orders == null || orders.isEmpty()) {
+            return ResponseEntity.badRequest().body(errorResponse("At least one order is required"));
+        }
+        if (orders.size() > bulkCheckoutService.getMaxOrders()) {
+            return ResponseEntity.badRequest()
+                .body(errorResponse("At most " + bulkCheckoutService.getMaxOrders() + " orders per request"));
+        }
+
+        StreamingResponseBody body = out -> bulkCheckoutService.placeOrders(id, userEmail, orders, out);
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
     /**
      * Get order by ID
      */
@@ -54,10 +126,12 @@ public class OrderController {
         @RequestHeader("X-User-Id") String userId
     ) {
         try {
-            OrderResponse order = orderService.getOrderById(orderId);
+            // The order id names the shard the order was written to
+            Long id = Long.parseLong(userId);
+            OrderResponse order = shardRouter.onShardForOrder(orderId, () -> orderService.getOrderById(orderId));
 
             // Verify order belongs to user
-            if (!order.getUserId().equals(Long.parseLong(userId))) {
+            if (!order.getUserId().equals(id)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body(errorResponse("Unauthorized to view this order"));
             }
@@ -75,7 +149,8 @@ public class OrderController {
     @GetMapping
     public ResponseEntity<?> getUserOrders(@RequestHeader("X-User-Id") String userId) {
         try {
-            List<OrderResponse> orders = orderService.getUserOrders(Long.parseLong(userId));
+            Long id = Long.parseLong(userId);
+            List<OrderResponse> orders = shardRouter.onShardForUser(id, () -> orderService.getUserOrders(id));
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             logger.error("Failed to get user orders: {}", e.getMessage());
@@ -92,7 +167,8 @@ public class OrderController {
         @RequestHeader("X-User-Id") String userId
     ) {
         try {
-            OrderResponse order = orderService.cancelOrder(orderId, Long.parseLong(userId));
+            Long id = Long.parseLong(userId);
+            OrderResponse order = shardRouter.onShardForOrder(orderId, () -> orderService.cancelOrder(orderId, id));
             return ResponseEntity.ok(order);
         } catch (Exception e) {
             logger.error("Failed to cancel order: {}", e.getMessage());
@@ -100,6 +176,65 @@ public class OrderController {
         }
     }
 
+    /**
+     * Orders that were paid after being cancelled and need a refund (admin only)
+     */
+    @GetMapping("/admin/payment-conflicts")
+    public ResponseEntity<?> getPaymentConflicts(
+        @RequestHeader(value = "X-User-Role", required = false) String userRole
+    ) {
+        if (userRole == null || !userRole.equals("ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(errorResponse("Only administrators can view payment conflicts"));
+        }
+
+        List<OrderResponse> orders = shardRouter.fanOut(
+                shard -> orderService.getOrdersByStatus(Order.OrderStatus.PAYMENT_CONFLICT))
+            .stream()
+            .flatMap(List::stream)
+            .toList();
+        return ResponseEntity.ok(orders);
+    }
+
+    /**
+     * Export orders and items for a date range (admin only)
+     * Streams NDJSON (one order per line) or CSV (one item per line) without buffering
+     */
+    @GetMapping("/admin/export")
+    public ResponseEntity<?> exportOrders(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(defaultValue = "ndjson") String format,
+        @RequestHeader(value = "X-User-Role", required = false) String userRole
+    ) {
+        // Check if user is admin (this header is set by API Gateway after JWT validation)
+        if (userRole == null || !userRole.equals("ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(errorResponse("Only administrators can export orders"));
+        }
+
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().body(errorResponse("'to' must not be before 'from'"));
+        }
+
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(errorResponse("Unsupported export format: " + format));
+        }
+
+        boolean csv = exportFormat == OrderExportService.Format.CSV;
+        String filename = "orders-" + from + "-" + to + (csv ? ".csv" : ".ndjson");
+
+        StreamingResponseBody body = out -> orderExportService.exportOrders(from, to, exportFormat, out);
+
+        return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv") : MediaType.parseMediaType("application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(body);
+    }
+
     /**
      * Health check endpoint
      */
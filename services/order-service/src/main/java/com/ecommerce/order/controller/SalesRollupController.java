@@ -0,0 +1,95 @@
+package com.ecommerce.order.controller;
+
+import com.ecommerce.order.dto.ProductSalesResponse;
+import com.ecommerce.order.dto.SalesRollupResponse;
+import com.ecommerce.order.entity.RollupGranularity;
+import com.ecommerce.order.service.SalesRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sales Rollup Controller
+ *
+ * Admin dashboard endpoints served from pre-aggregated rollup tables.
+ */
+@RestController
+@RequestMapping("/api/orders/admin/rollups")
+public class SalesRollupController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupController.class);
+
+    private static final int MAX_TOP_PRODUCTS = 100;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    /**
+     * Revenue, completed/cancelled counts and success rate per time bucket
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<?> getSalesRollup(
+        @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestHeader(value = "X-User-Role", required = false) String userRole
+    ) {
+        if (userRole == null || !userRole.equals("ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(errorResponse("Only administrators can view sales rollups"));
+        }
+
+        try {
+            List<SalesRollupResponse> buckets = salesRollupService.getSalesRollup(granularity, from, to);
+            return ResponseEntity.ok(buckets);
+        } catch (Exception e) {
+            logger.error("Failed to get sales rollup: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Units sold and revenue per product, best sellers first
+     */
+    @GetMapping("/products")
+    public ResponseEntity<?> getTopProducts(
+        @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(defaultValue = "20") int limit,
+        @RequestHeader(value = "X-User-Role", required = false) String userRole
+    ) {
+        if (userRole == null || !userRole.equals("ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(errorResponse("Only administrators can view sales rollups"));
+        }
+
+        try {
+            int boundedLimit = Math.max(1, Math.min(limit, MAX_TOP_PRODUCTS));
+            List<ProductSalesResponse> products =
+                salesRollupService.getTopProducts(granularity, from, to, boundedLimit);
+            return ResponseEntity.ok(products);
+        } catch (Exception e) {
+            logger.error("Failed to get product sales rollup: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Helper method to create error response
+     */
+    private Map<String, String> errorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return error;
+    }
+}
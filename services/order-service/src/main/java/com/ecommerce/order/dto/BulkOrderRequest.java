@@ -0,0 +1,42 @@
+package com.ecommerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk Order Request DTO
+ *
+ * Many orders placed in one call. Each order is validated and processed on
+ * its own, so one bad payload does not reject the rest.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderRequest {
+
+    private List<OrderPayload> orders = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderPayload {
+        // Caller's own identifier, echoed back in the result
+        private String reference;
+        private List<ItemPayload> items = new ArrayList<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemPayload {
+        private Long productId;
+        private String productName;
+        private BigDecimal price;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.order.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Bulk Order Result DTO
+ *
+ * Outcome of one order from a bulk request, streamed as soon as it is known.
+ * index is the order's position in the request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderResult {
+    private int index;
+    private String reference;
+    // A string, like OrderResponse.id
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long orderId;
+    private String status;
+    private BigDecimal totalAmount;
+    private String paymentId;
+    private String error;
+}
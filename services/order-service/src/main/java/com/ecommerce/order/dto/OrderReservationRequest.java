@@ -0,0 +1,19 @@
+package com.ecommerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order Reservation Request DTO (to Inventory Service)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReservationRequest {
+    private Long orderId;
+    private List<ReserveStockRequest> items = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Order Reservation Result DTO (from Inventory Service)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReservationResult {
+    private Long orderId;
+    private boolean reserved;
+    private String message;
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.order.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.ecommerce.order.entity.Order;
 import com.ecommerce.order.entity.OrderItem;
 import lombok.AllArgsConstructor;
@@ -19,6 +21,8 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class OrderResponse {
 
+    // Snowflake ids exceed 2^53, so send them as strings that JavaScript clients read exactly
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     private Long userId;
     private String status;
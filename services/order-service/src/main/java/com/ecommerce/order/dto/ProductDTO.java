@@ -0,0 +1,21 @@
+package com.ecommerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Product DTO (from Product Service)
+ * Only the fields checkout needs; the rest of the response is ignored
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDTO {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private Boolean active;
+}
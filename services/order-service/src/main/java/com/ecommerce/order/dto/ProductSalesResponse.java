@@ -0,0 +1,20 @@
+package com.ecommerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Product Sales Response DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesResponse {
+    private Long productId;
+    private Long unitsSold;
+    private Long orderCount;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sales Rollup Response DTO
+ *
+ * Order outcomes and revenue for a single time bucket.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupResponse {
+    private LocalDateTime bucketStart;
+    private Long completedOrders;
+    private Long cancelledOrders;
+    private BigDecimal revenue;
+    private Double successRate;
+}
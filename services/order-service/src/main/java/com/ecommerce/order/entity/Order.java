@@ -1,5 +1,6 @@
 package com.ecommerce.order.entity;
 
+import com.ecommerce.order.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,17 +16,23 @@ import java.util.List;
 /**
  * Order Entity
  *
- * Represents a customer order.
+ * Represents a customer order. PAYMENT_CONFLICT marks an order that was
+ * cancelled while its payment went through: the customer was charged, and the
+ * payment (paymentId) has to be refunded.
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_created_at_id", columnList = "createdAt, id"),
+    @Index(name = "idx_orders_user_id", columnList = "userId"),
+    @Index(name = "idx_orders_status_updated_at", columnList = "status, updatedAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(nullable = false)
@@ -57,7 +64,8 @@ public class Order {
         PAYMENT_PROCESSING,
         PAYMENT_FAILED,
         COMPLETED,
-        CANCELLED
+        CANCELLED,
+        PAYMENT_CONFLICT
     }
 
     /**
@@ -0,0 +1,45 @@
+package com.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order Status Rollup Entity
+ *
+ * Pre-aggregated order count and amount per time bucket and final status.
+ * Rows are upserted as orders reach COMPLETED or CANCELLED.
+ */
+@Entity
+@Table(name = "order_status_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_order_status_rollup", columnNames = {"granularity", "bucket_start", "status"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, length = 32)
+    private String status;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount;
+}
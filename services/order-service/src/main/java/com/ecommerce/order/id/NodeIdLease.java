@@ -0,0 +1,127 @@
+package com.ecommerce.order.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * Node ID Lease
+ *
+ * Assigns each order-service replica a unique Snowflake node id by leasing a
+ * row in id_node_leases. The lease is kept alive by a heartbeat and taken
+ * over by another replica only once it has been stale for the lease TTL.
+ * Timestamps come from the database clock so replica clock skew does not matter.
+ * A replica that loses its lease stops issuing ids and leases a new node id on
+ * the next heartbeat, handing it to the listener set with onReacquired.
+ */
+public class NodeIdLease {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeIdLease.class);
+
+    private static final String CREATE_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS id_node_leases (" +
+        "node_id INTEGER PRIMARY KEY, " +
+        "instance_id VARCHAR(64) NOT NULL, " +
+        "heartbeat_at TIMESTAMP(6) NOT NULL)";
+
+    private static final String CLAIM_SQL =
+        "INSERT INTO id_node_leases (node_id, instance_id, heartbeat_at) VALUES (?, ?, CURRENT_TIMESTAMP) " +
+        "ON CONFLICT (node_id) DO UPDATE SET instance_id = EXCLUDED.instance_id, heartbeat_at = EXCLUDED.heartbeat_at " +
+        "WHERE id_node_leases.heartbeat_at < CURRENT_TIMESTAMP - ? * INTERVAL '1 second'";
+
+    private static final String HEARTBEAT_SQL =
+        "UPDATE id_node_leases SET heartbeat_at = CURRENT_TIMESTAMP WHERE node_id = ? AND instance_id = ?";
+
+    private static final String RELEASE_SQL =
+        "DELETE FROM id_node_leases WHERE node_id = ? AND instance_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration leaseTtl;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile int nodeId = -1;
+    private volatile boolean lost;
+    private volatile IntConsumer reacquiredListener = nodeId -> { };
+
+    public NodeIdLease(JdbcTemplate jdbcTemplate, Duration leaseTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseTtl = leaseTtl;
+    }
+
+    /**
+     * Claim a free or expired node id, starting from a random slot to avoid
+     * replicas racing for the same ids at startup
+     */
+    public int acquire() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+
+        int slots = SnowflakeIdGenerator.MAX_NODE_ID + 1;
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            int candidate = (start + i) % slots;
+            if (jdbcTemplate.update(CLAIM_SQL, candidate, instanceId, leaseTtl.toSeconds()) == 1) {
+                nodeId = candidate;
+                logger.info("Leased Snowflake node id {}", candidate);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("All " + slots + " Snowflake node ids are leased");
+    }
+
+    /**
+     * Called with the new node id whenever a lost lease has been replaced
+     */
+    public void onReacquired(IntConsumer listener) {
+        this.reacquiredListener = listener;
+    }
+
+    /**
+     * Keep the lease alive; if it was lost, stop issuing ids from this node
+     * and lease another node id
+     */
+    @Scheduled(fixedDelayString = "${order.id.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        if (lost) {
+            reacquire();
+            return;
+        }
+        if (nodeId < 0) {
+            return;
+        }
+        if (jdbcTemplate.update(HEARTBEAT_SQL, nodeId, instanceId) == 0) {
+            logger.error("Lost lease on Snowflake node id {}; id generation is paused until a new one is leased",
+                nodeId);
+            SnowflakeIdentifierGenerator.uninstall();
+            nodeId = -1;
+            lost = true;
+            reacquire();
+        }
+    }
+
+    private void reacquire() {
+        int acquired;
+        try {
+            acquired = acquire();
+        } catch (RuntimeException e) {
+            logger.error("Could not lease a new Snowflake node id, retrying on next heartbeat: {}", e.getMessage());
+            return;
+        }
+        lost = false;
+        reacquiredListener.accept(acquired);
+    }
+
+    public void release() {
+        lost = false;
+        if (nodeId >= 0) {
+            jdbcTemplate.update(RELEASE_SQL, nodeId, instanceId);
+            logger.info("Released Snowflake node id {}", nodeId);
+            nodeId = -1;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.order.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake ID Generator
+ *
+ * Time-ordered 64-bit ids assigned without a database round trip:
+ *
+ *   | 1 bit unused | 41 bits ms since EPOCH | 6 bits node id | 4 bits shard | 12 bits sequence |
+ *
+ * Up to 4096 ids per millisecond per node, for about 69 years from EPOCH.
+ * The shard bits record which order shard the row was written to, so an
+ * order can be found from its id alone (see ShardRouter.shardForOrder).
+ * State is a single packed (timestamp, sequence) word updated by CAS, so
+ * concurrent callers never block each other.
+ *
+ * Clock skew: if the wall clock steps back by at most maxBackwardMillis, ids
+ * keep being issued from the last timestamp (sequence permitting) until the
+ * clock catches up. A larger step back fails fast rather than risk duplicates.
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * Custom epoch: 2024-01-01T00:00:00Z
+     */
+    public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    public static final int NODE_BITS = 6;
+    public static final int SHARD_BITS = 4;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    public static final int MAX_SHARD_ID = (1 << SHARD_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int SHARD_SHIFT = SEQUENCE_BITS;
+    private static final int NODE_SHIFT = SEQUENCE_BITS + SHARD_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + SHARD_BITS + NODE_BITS;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final long maxBackwardMillis;
+
+    // (timestamp << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId, long maxBackwardMillis) {
+        this(nodeId, System::currentTimeMillis, maxBackwardMillis);
+    }
+
+    public SnowflakeIdGenerator(int nodeId, LongSupplier clock, long maxBackwardMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        this.maxBackwardMillis = maxBackwardMillis;
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+
+    public long nextId() {
+        return nextId(0);
+    }
+
+    /**
+     * Next id for a row stored on the given shard
+     */
+    public long nextId(int shard) {
+        if (shard < 0 || shard > MAX_SHARD_ID) {
+            throw new IllegalArgumentException("Shard must be between 0 and " + MAX_SHARD_ID + ": " + shard);
+        }
+        while (true) {
+            long now = clock.getAsLong() - EPOCH;
+            long last = state.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // Same millisecond, or the clock stepped back
+                long behind = lastTimestamp - now;
+                if (behind > maxBackwardMillis) {
+                    throw new IllegalStateException(
+                        "Clock moved backwards by " + behind + " ms; refusing to generate ids");
+                }
+                if ((last & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                    // Sequence exhausted for this millisecond; wait for the clock to advance
+                    Thread.onSpinWait();
+                    continue;
+                }
+                next = last + 1;
+            }
+
+            if (state.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                    | (nodeId << NODE_SHIFT)
+                    | ((long) shard << SHARD_SHIFT)
+                    | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Wall-clock millis at which the given id was generated
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    public static int nodeIdOf(long id) {
+        return (int) ((id >>> NODE_SHIFT) & MAX_NODE_ID);
+    }
+
+    public static int shardOf(long id) {
+        return (int) ((id >>> SHARD_SHIFT) & MAX_SHARD_ID);
+    }
+
+    public static int sequenceOf(long id) {
+        return (int) (id & SEQUENCE_MASK);
+    }
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.order.id;
+
+import com.ecommerce.order.sharding.ShardContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate identifier generator backed by the node's SnowflakeIdGenerator
+ *
+ * Hibernate instantiates generators itself, so the Spring-configured generator
+ * is installed here once this node's id is known (see IdGeneratorConfig).
+ * Ids carry the shard bound to the inserting thread, which is where the row is written.
+ */
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+
+    private static volatile SnowflakeIdGenerator generator;
+
+    public static void install(SnowflakeIdGenerator snowflakeIdGenerator) {
+        generator = snowflakeIdGenerator;
+    }
+
+    public static void uninstall() {
+        generator = null;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        SnowflakeIdGenerator current = generator;
+        if (current == null) {
+            throw new IllegalStateException("No Snowflake node id is assigned to this instance");
+        }
+        Integer shard = ShardContext.current();
+        return current.nextId(shard != null ? shard : 0);
+    }
+}
@@ -0,0 +1,106 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency Record Repository
+ *
+ * Each method runs in its own short transaction so claims and completions are
+ * visible to other replicas immediately, independent of the order saga.
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Atomically claim a key; returns 1 if this caller inserted it, 0 if it already existed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys " +
+                   "(idempotency_key, user_id, status, claim_id, claimed_at, created_at, expires_at) " +
+                   "VALUES (:key, :userId, 'IN_PROGRESS', :claimId, :now, :now, :expiresAt) " +
+                   "ON CONFLICT (idempotency_key) DO NOTHING",
+           nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("userId") Long userId,
+              @Param("claimId") String claimId,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Take over an IN_PROGRESS key whose owner stopped refreshing it before staleBefore;
+     * returns 1 if this caller now owns it
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.claimId = :claimId, r.claimedAt = :now, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :key " +
+           "AND r.status = com.ecommerce.order.entity.IdempotencyRecord.Status.IN_PROGRESS " +
+           "AND r.claimedAt < :staleBefore")
+    int takeOverStale(@Param("key") String key,
+                      @Param("claimId") String claimId,
+                      @Param("now") LocalDateTime now,
+                      @Param("staleBefore") LocalDateTime staleBefore,
+                      @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Refresh a claim that is still running; returns 0 if the claim was lost
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.claimedAt = :now " +
+           "WHERE r.idempotencyKey = :key AND r.claimId = :claimId")
+    int heartbeat(@Param("key") String key, @Param("claimId") String claimId, @Param("now") LocalDateTime now);
+
+    /**
+     * Record the order a claim is working on before it is paid, if the claim is still held
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.orderId = :orderId " +
+           "WHERE r.idempotencyKey = :key AND r.claimId = :claimId " +
+           "AND r.status = com.ecommerce.order.entity.IdempotencyRecord.Status.IN_PROGRESS")
+    int attachOrder(@Param("key") String key, @Param("claimId") String claimId, @Param("orderId") Long orderId);
+
+    /**
+     * Mark a key COMPLETED with its order, if the claim is still held or the key is still
+     * attached to that order (a replica that took the claim over left it to this order)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.ecommerce.order.entity.IdempotencyRecord.Status.COMPLETED, " +
+           "r.orderId = :orderId WHERE r.idempotencyKey = :key AND (r.claimId = :claimId OR r.orderId = :orderId)")
+    int complete(@Param("key") String key, @Param("claimId") String claimId, @Param("orderId") Long orderId);
+
+    /**
+     * Release a claimed key after a failed attempt, if the claim is still held
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.claimId = :claimId")
+    int release(@Param("key") String key, @Param("claimId") String claimId);
+
+    /**
+     * Remove a key whose TTL has passed, so it can be claimed again
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    /**
+     * Purge all keys whose TTL has passed
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
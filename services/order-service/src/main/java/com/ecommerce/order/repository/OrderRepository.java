@@ -1,9 +1,20 @@
 package com.ecommerce.order.repository;
 
 import com.ecommerce.order.entity.Order;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -23,4 +34,30 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * Find orders by status
      */
     List<Order> findByStatus(Order.OrderStatus status);
+
+    /**
+     * Claim orders in the given statuses not updated since the cutoff, oldest first.
+     * Rows are locked FOR UPDATE SKIP LOCKED (lock timeout -2), so replicas
+     * sweeping concurrently each claim a disjoint batch instead of waiting.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order o WHERE o.status IN :statuses AND o.updatedAt < :cutoff ORDER BY o.updatedAt")
+    List<Order> claimStuckOrders(@Param("statuses") Collection<Order.OrderStatus> statuses,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 Pageable pageable);
+
+    /**
+     * Move an order to a new status only if it is still in the expected one;
+     * returns 0 if someone else (e.g. the StuckOrderSweeper) changed it first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.status = :status, o.paymentId = :paymentId, o.updatedAt = :updatedAt " +
+           "WHERE o.id = :id AND o.status = :expected")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("expected") Order.OrderStatus expected,
+                         @Param("status") Order.OrderStatus status,
+                         @Param("paymentId") String paymentId,
+                         @Param("updatedAt") LocalDateTime updatedAt);
 }
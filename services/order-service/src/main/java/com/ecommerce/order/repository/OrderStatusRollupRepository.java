@@ -0,0 +1,25 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.entity.OrderStatusRollup;
+import com.ecommerce.order.entity.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order Status Rollup Repository
+ *
+ * Read access to pre-aggregated order counts per status.
+ * Writes are upserts issued by SalesRollupService.
+ */
+@Repository
+public interface OrderStatusRollupRepository extends JpaRepository<OrderStatusRollup, Long> {
+
+    /**
+     * Find rollup rows for buckets starting in [from, to)
+     */
+    List<OrderStatusRollup> findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+        RollupGranularity granularity, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.dto.ProductSalesResponse;
+import com.ecommerce.order.entity.ProductSalesRollup;
+import com.ecommerce.order.entity.RollupGranularity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Product Sales Rollup Repository
+ *
+ * Read access to pre-aggregated product sales.
+ * Writes are upserts issued by SalesRollupService.
+ */
+@Repository
+public interface ProductSalesRollupRepository extends JpaRepository<ProductSalesRollup, Long> {
+
+    /**
+     * Sum product sales over buckets starting in [from, to), best sellers first
+     */
+    @Query("SELECT new com.ecommerce.order.dto.ProductSalesResponse(" +
+           "r.productId, SUM(r.unitsSold), SUM(r.orderCount), SUM(r.revenue)) " +
+           "FROM ProductSalesRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY r.productId ORDER BY SUM(r.revenue) DESC")
+    List<ProductSalesResponse> findTopProducts(
+        @Param("granularity") RollupGranularity granularity,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        Pageable pageable);
+}
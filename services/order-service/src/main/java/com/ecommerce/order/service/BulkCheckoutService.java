@@ -0,0 +1,458 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.client.InventoryClient;
+import com.ecommerce.order.client.PaymentClient;
+import com.ecommerce.order.dto.BulkOrderRequest;
+import com.ecommerce.order.dto.BulkOrderResult;
+import com.ecommerce.order.dto.OrderReservationRequest;
+import com.ecommerce.order.dto.OrderReservationResult;
+import com.ecommerce.order.dto.PaymentRequest;
+import com.ecommerce.order.dto.PaymentResponse;
+import com.ecommerce.order.dto.ProductDTO;
+import com.ecommerce.order.dto.ReserveStockRequest;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.repository.OrderRepository;
+import com.ecommerce.order.sharding.ShardRouter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk Checkout Service
+ *
+ * Places many orders for one user in a single request. Instead of running the
+ * serial saga once per order, the pipeline is:
+ * 1. validate every payload, verify all prices in one catalog lookup, and
+ *    insert the accepted orders as PENDING in one batch
+ * 2. reserve inventory for all of them in one call to Inventory Service
+ * 3. run payments on a shared pool capped at order.bulk.payment-concurrency
+ *
+ * The result for each order is written as one NDJSON line as soon as it is
+ * known, so callers see early failures without waiting for the whole batch.
+ */
+@Service
+public class BulkCheckoutService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkCheckoutService.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InventoryClient inventoryClient;
+
+    @Autowired
+    private PaymentClient paymentClient;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private CatalogPriceService catalogPriceService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${order.bulk.max-orders:500}")
+    private int maxOrders = 500;
+
+    // Shared by every bulk request, so the cap holds across concurrent callers
+    private final ExecutorService paymentExecutor;
+
+    public BulkCheckoutService(@Value("${order.bulk.payment-concurrency:8}") int paymentConcurrency) {
+        AtomicInteger counter = new AtomicInteger();
+        this.paymentExecutor = Executors.newFixedThreadPool(Math.max(1, paymentConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "order-bulk-payment-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getMaxOrders() {
+        return maxOrders;
+    }
+
+    /**
+     * Place every order in the payload list and stream one result line per order
+     */
+    public void placeOrders(Long userId, String userEmail, List<BulkOrderRequest.OrderPayload> payloads,
+                            OutputStream out) throws IOException {
+        try {
+            // Runs on the response-streaming thread, so bind the user's shard here
+            shardRouter.onShardForUser(userId, () -> {
+                try {
+                    placeOrdersOnShard(userId, userEmail, payloads, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            // Client disconnected; orders already submitted still finish their saga
+            throw e.getCause();
+        }
+    }
+
+    private void placeOrdersOnShard(Long userId, String userEmail, List<BulkOrderRequest.OrderPayload> payloads,
+                                    OutputStream out) throws IOException {
+        logger.info("Processing bulk checkout of {} orders for user: {}", payloads.size(), userId);
+        ResultWriter writer = new ResultWriter(out);
+
+        // Step 1: validate, verify prices for all orders in one catalog lookup,
+        // and insert every accepted order in one batch
+        List<Integer> wellFormed = new ArrayList<>();
+        for (int i = 0; i < payloads.size(); i++) {
+            String error = validate(payloads.get(i));
+            if (error != null) {
+                writer.write(rejected(i, payloads.get(i), error));
+            } else {
+                wellFormed.add(i);
+            }
+        }
+
+        Map<Long, ProductDTO> catalog = Map.of();
+        String catalogError = null;
+        if (!wellFormed.isEmpty()) {
+            Set<Long> productIds = new HashSet<>();
+            wellFormed.forEach(i -> payloads.get(i).getItems().forEach(item -> productIds.add(item.getProductId())));
+            try {
+                catalog = catalogPriceService.lookup(productIds);
+            } catch (Exception e) {
+                logger.error("Catalog lookup for bulk checkout failed: {}", e.getMessage());
+                catalogError = "Price verification unavailable: " + e.getMessage();
+            }
+        }
+
+        List<BulkOrder> accepted = new ArrayList<>();
+        for (int i : wellFormed) {
+            BulkOrderRequest.OrderPayload payload = payloads.get(i);
+            String error = catalogError != null ? catalogError : findPriceProblem(catalog, payload);
+            if (error != null) {
+                writer.write(rejected(i, payload, error));
+            } else {
+                accepted.add(new BulkOrder(i, payload.getReference(), toOrder(userId, payload)));
+            }
+        }
+        if (accepted.isEmpty()) {
+            writer.flush();
+            return;
+        }
+
+        List<Order> saved = orderRepository.saveAll(accepted.stream().map(b -> b.order).collect(Collectors.toList()));
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).order = saved.get(i);
+        }
+        logger.info("Created {} pending orders for user: {}", accepted.size(), userId);
+
+        // Step 2: reserve inventory for every order in one round trip
+        List<BulkOrder> reserved = reserveInventory(accepted, writer);
+
+        // Step 3: pay with bounded concurrency, streaming results as they complete
+        CompletionService<BulkOrderResult> payments = new ExecutorCompletionService<>(paymentExecutor);
+        for (BulkOrder bulkOrder : reserved) {
+            payments.submit(() -> shardRouter.onShardForUser(userId, () -> pay(bulkOrder, userId, userEmail)));
+        }
+
+        for (int i = 0; i < reserved.size(); i++) {
+            try {
+                writer.write(payments.take().get());
+            } catch (ExecutionException e) {
+                // pay() turns saga failures into results, so only errors escape it
+                throw new IllegalStateException("Bulk payment task failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for payments");
+            }
+        }
+
+        writer.flush();
+        logger.info("Bulk checkout finished for user {}: {} orders", userId, payloads.size());
+    }
+
+    private List<BulkOrder> reserveInventory(List<BulkOrder> accepted, ResultWriter writer) throws IOException {
+        List<OrderReservationRequest> requests = new ArrayList<>(accepted.size());
+        for (BulkOrder bulkOrder : accepted) {
+            requests.add(new OrderReservationRequest(bulkOrder.order.getId(), stockRequests(bulkOrder.order)));
+        }
+
+        Map<Long, OrderReservationResult> outcomes = new HashMap<>();
+        try {
+            for (OrderReservationResult result : inventoryClient.reserveStockBatch(requests)) {
+                outcomes.put(result.getOrderId(), result);
+            }
+        } catch (Exception e) {
+            // Unknown which orders were reserved; releasing by order id frees only what they hold
+            logger.error("Bulk inventory reservation failed: {}", e.getMessage());
+            try {
+                inventoryClient.releaseOrders(requests.stream().map(OrderReservationRequest::getOrderId).toList());
+            } catch (Exception ex) {
+                logger.error("Failed to release inventory: {}", ex.getMessage());
+            }
+            cancelAll(accepted, "Inventory reservation failed: " + e.getMessage(), writer);
+            return List.of();
+        }
+
+        List<BulkOrder> reserved = new ArrayList<>();
+        List<BulkOrder> rejected = new ArrayList<>();
+        for (BulkOrder bulkOrder : accepted) {
+            OrderReservationResult outcome = outcomes.get(bulkOrder.order.getId());
+            if (outcome != null && outcome.isReserved()) {
+                reserved.add(bulkOrder);
+            } else {
+                bulkOrder.error = outcome == null ? "No reservation result" : outcome.getMessage();
+                rejected.add(bulkOrder);
+            }
+        }
+
+        if (!rejected.isEmpty()) {
+            cancelAll(rejected, null, writer);
+        }
+        return reserved;
+    }
+
+    private void cancelAll(List<BulkOrder> bulkOrders, String error, ResultWriter writer) throws IOException {
+        for (BulkOrder bulkOrder : bulkOrders) {
+            if (error != null) {
+                bulkOrder.error = error;
+            }
+        }
+        List<Order> orders = bulkOrders.stream().map(b -> b.order).collect(Collectors.toList());
+        saveFinalStatus(orders, Order.OrderStatus.CANCELLED);
+
+        for (BulkOrder bulkOrder : bulkOrders) {
+            writer.write(result(bulkOrder));
+        }
+    }
+
+    /**
+     * Payment step of the saga for one reserved order; never throws
+     */
+    private BulkOrderResult pay(BulkOrder bulkOrder, Long userId, String userEmail) {
+        Order order = bulkOrder.order;
+        try {
+            if (orderRepository.transitionStatus(order.getId(), Order.OrderStatus.PENDING,
+                    Order.OrderStatus.PAYMENT_PROCESSING, null, LocalDateTime.now()) == 0) {
+                throw new RuntimeException("Order is no longer " + Order.OrderStatus.PENDING);
+            }
+            order.setStatus(Order.OrderStatus.PAYMENT_PROCESSING);
+
+            PaymentResponse paymentResponse = paymentClient.processPayment(
+                new PaymentRequest(order.getId(), userId, order.getTotalAmount()));
+
+            if (!"SUCCESS".equals(paymentResponse.getStatus())) {
+                throw new RuntimeException("Payment failed: " + paymentResponse.getMessage());
+            }
+
+            order.setPaymentId(paymentResponse.getPaymentId());
+            saveFinalStatus(List.of(order), Order.OrderStatus.COMPLETED);
+            if (order.getStatus() != Order.OrderStatus.COMPLETED) {
+                orderService.recordPaymentConflict(order.getId(), Order.OrderStatus.CANCELLED,
+                    paymentResponse.getPaymentId());
+                throw new RuntimeException("Order was cancelled while payment was processing; "
+                    + "the payment will be refunded");
+            }
+        } catch (Exception e) {
+            logger.error("Bulk order {} failed: {}", order.getId(), e.getMessage());
+            bulkOrder.error = e.getMessage();
+            saveFinalStatus(List.of(order), Order.OrderStatus.CANCELLED);
+
+            try {
+                inventoryClient.releaseOrders(List.of(order.getId()));
+            } catch (Exception ex) {
+                logger.error("Failed to release inventory: {}", ex.getMessage());
+            }
+            return result(bulkOrder);
+        }
+
+        // Paid and COMPLETED, so a failing follow-up step must not cancel the order
+        try {
+            inventoryClient.confirmOrders(List.of(order.getId()));
+            orderService.publishOrderEvent(order, userEmail);
+        } catch (Exception e) {
+            logger.error("Bulk order {} completed but a follow-up step failed: {}", order.getId(), e.getMessage());
+        }
+        return result(bulkOrder);
+    }
+
+    /**
+     * Move orders to a final status together with their rollup entries. Each
+     * update only applies if the order is still in the status last seen here, so
+     * an order the StuckOrderSweeper cancelled meanwhile stays CANCELLED.
+     */
+    private void saveFinalStatus(List<Order> orders, Order.OrderStatus status) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (Order order : orders) {
+                if (order.getStatus() == status) {
+                    continue;
+                }
+                if (orderRepository.transitionStatus(order.getId(), order.getStatus(), status,
+                        order.getPaymentId(), now) == 1) {
+                    order.setStatus(status);
+                    salesRollupService.recordOrderOutcome(order, now);
+                } else {
+                    // Only a cancellation moves an order out of a saga status, and it recorded its own rollup
+                    order.setStatus(Order.OrderStatus.CANCELLED);
+                }
+            }
+        });
+    }
+
+    private String findPriceProblem(Map<Long, ProductDTO> catalog, BulkOrderRequest.OrderPayload payload) {
+        for (BulkOrderRequest.ItemPayload item : payload.getItems()) {
+            String problem = catalogPriceService.findPriceProblem(catalog, item.getProductId(), item.getPrice());
+            if (problem != null) {
+                return problem;
+            }
+        }
+        return null;
+    }
+
+    private static BulkOrderResult rejected(int index, BulkOrderRequest.OrderPayload payload, String error) {
+        return new BulkOrderResult(index, payload == null ? null : payload.getReference(),
+            null, "REJECTED", null, null, error);
+    }
+
+    private static String validate(BulkOrderRequest.OrderPayload payload) {
+        if (payload == null || payload.getItems() == null || payload.getItems().isEmpty()) {
+            return "Order has no items";
+        }
+        for (BulkOrderRequest.ItemPayload item : payload.getItems()) {
+            if (item == null || item.getProductId() == null) {
+                return "Product ID is required";
+            }
+            if (item.getProductName() == null || item.getProductName().isBlank()) {
+                return "Product name is required for product " + item.getProductId();
+            }
+            if (item.getPrice() == null || item.getPrice().signum() < 0) {
+                return "Invalid price for product " + item.getProductId();
+            }
+            if (item.getQuantity() == null || item.getQuantity() < 1) {
+                return "Quantity must be at least 1 for product " + item.getProductId();
+            }
+        }
+        return null;
+    }
+
+    private static Order toOrder(Long userId, BulkOrderRequest.OrderPayload payload) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setStatus(Order.OrderStatus.PENDING);
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (BulkOrderRequest.ItemPayload item : payload.getItems()) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProductId(item.getProductId());
+            orderItem.setProductName(item.getProductName());
+            orderItem.setPrice(item.getPrice());
+            orderItem.setQuantity(item.getQuantity());
+            orderItem.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            order.addItem(orderItem);
+            total = total.add(orderItem.getSubtotal());
+        }
+        order.setTotalAmount(total);
+        return order;
+    }
+
+    /**
+     * One stock request per product of the order
+     */
+    private static List<ReserveStockRequest> stockRequests(Order order) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        List<ReserveStockRequest> requests = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> requests.add(new ReserveStockRequest(productId, quantity)));
+        return requests;
+    }
+
+    private static BulkOrderResult result(BulkOrder bulkOrder) {
+        Order order = bulkOrder.order;
+        return new BulkOrderResult(bulkOrder.index, bulkOrder.reference, order.getId(), order.getStatus().name(),
+            order.getTotalAmount(), order.getPaymentId(), bulkOrder.error);
+    }
+
+    @Override
+    public void destroy() {
+        paymentExecutor.shutdown();
+    }
+
+    /**
+     * An accepted order and where it came from in the request
+     */
+    private static class BulkOrder {
+        private final int index;
+        private final String reference;
+        private Order order;
+        private String error;
+
+        BulkOrder(int index, String reference, Order order) {
+            this.index = index;
+            this.reference = reference;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Writes one JSON result per line and flushes it right away
+     */
+    private class ResultWriter {
+
+        private final JsonGenerator generator;
+
+        ResultWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        void write(BulkOrderResult result) throws IOException {
+            objectMapper.writeValue(generator, result);
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+
+        void flush() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.client.ProductClient;
+import com.ecommerce.order.dto.ProductDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Catalog Price Service
+ *
+ * Verifies order lines against Product Service instead of trusting the prices
+ * stored in the cart. All products of a checkout are fetched in one bulk call,
+ * and results are cached locally for a short TTL, so hot products are usually
+ * verified without any round trip. A price change therefore takes at most
+ * order.pricing.cache-ttl to be enforced.
+ */
+@Service
+public class CatalogPriceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogPriceService.class);
+
+    @Autowired
+    private ProductClient productClient;
+
+    @Value("${order.pricing.cache-ttl:30s}")
+    private Duration cacheTtl = Duration.ofSeconds(30);
+
+    @Value("${order.pricing.max-cached-products:10000}")
+    private int maxCachedProducts = 10000;
+
+    private final ConcurrentMap<Long, CachedProduct> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Catalog entries for the given products; every cache miss is fetched in a single call.
+     * Products unknown to the catalog are absent from the result.
+     */
+    public Map<Long, ProductDTO> lookup(Collection<Long> productIds) {
+        long now = System.nanoTime();
+        Map<Long, ProductDTO> products = new HashMap<>();
+        Set<Long> misses = new LinkedHashSet<>();
+
+        for (Long productId : productIds) {
+            CachedProduct cached = cache.get(productId);
+            if (cached != null && now - cached.expiresAt < 0) {
+                products.put(productId, cached.product);
+            } else {
+                misses.add(productId);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            logger.debug("Fetching {} products from catalog ({} cached)", misses.size(), products.size());
+            List<ProductDTO> fetched = productClient.getProductsByIds(new ArrayList<>(misses));
+
+            long expiresAt = System.nanoTime() + cacheTtl.toNanos();
+            evictIfFull(fetched.size());
+            for (ProductDTO product : fetched) {
+                products.put(product.getId(), product);
+                cache.put(product.getId(), new CachedProduct(product, expiresAt));
+            }
+        }
+
+        return products;
+    }
+
+    /**
+     * Why a line at the given price cannot be ordered, or null if it matches the catalog
+     */
+    public String findPriceProblem(Map<Long, ProductDTO> catalog, Long productId, BigDecimal price) {
+        ProductDTO product = catalog.get(productId);
+        if (product == null) {
+            return "Product not found with ID: " + productId;
+        }
+        if (!Boolean.TRUE.equals(product.getActive())) {
+            return "Product " + productId + " is no longer available";
+        }
+        if (price == null || product.getPrice().compareTo(price) != 0) {
+            return String.format("Price of product %d changed from %s to %s, please refresh your cart",
+                productId, price, product.getPrice());
+        }
+        return null;
+    }
+
+    private void evictIfFull(int incoming) {
+        if (cache.size() + incoming <= maxCachedProducts) {
+            return;
+        }
+        long now = System.nanoTime();
+        cache.values().removeIf(cached -> now - cached.expiresAt >= 0);
+        if (cache.size() + incoming > maxCachedProducts) {
+            // Still full of live entries; start over rather than track recency
+            cache.clear();
+        }
+    }
+
+    private static class CachedProduct {
+        private final ProductDTO product;
+        private final long expiresAt;
+
+        CachedProduct(ProductDTO product, long expiresAt) {
+            this.product = product;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
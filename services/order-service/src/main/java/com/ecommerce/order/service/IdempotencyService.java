@@ -0,0 +1,318 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.entity.IdempotencyRecord;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.repository.IdempotencyRecordRepository;
+import com.ecommerce.order.sharding.ShardRouter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Idempotency Service
+ *
+ * Makes POST /api/orders safe to retry. The first request with a given
+ * Idempotency-Key runs the saga; duplicates arriving while it runs wait for
+ * its outcome, and later duplicates get the stored order back until the key's
+ * TTL expires. A failed attempt releases the key, since its order was cancelled.
+ *
+ * A running request refreshes its claim every heartbeat and records its order
+ * on the claim as soon as the order is saved, before anything is paid. If a
+ * replica dies or stalls mid-saga its claim goes stale after
+ * order.idempotency.stale-claim-after, and the next duplicate takes the key
+ * over: it replays the recorded order if that completed, answers "in progress"
+ * while it may still be paid, and only runs the saga again once it was
+ * cancelled (or no order was recorded). Idempotency keys live on shard 0, apart
+ * from the orders, so recording the order is a separate write right after the
+ * order is saved; a crash in between leaves an unpaid PENDING order for the
+ * StuckOrderSweeper.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.idempotency.ttl:24h}")
+    private Duration ttl = Duration.ofHours(24);
+
+    @Value("${order.idempotency.wait-timeout:30s}")
+    private Duration waitTimeout = Duration.ofSeconds(30);
+
+    @Value("${order.idempotency.poll-interval:100ms}")
+    private Duration pollInterval = Duration.ofMillis(100);
+
+    @Value("${order.idempotency.stale-claim-after:2m}")
+    private Duration staleClaimAfter = Duration.ofMinutes(2);
+
+    // Executions running on this replica; duplicates join the same future
+    private final ConcurrentMap<String, CompletableFuture<OrderResponse>> inFlight = new ConcurrentHashMap<>();
+
+    // Claim id of every key this replica holds in the shared store, refreshed by heartbeat()
+    private final ConcurrentMap<String, String> heldClaims = new ConcurrentHashMap<>();
+
+    /**
+     * Run the action once per (user, key) and return its result to every duplicate
+     */
+    public Result execute(Long userId, String idempotencyKey, Function<LongConsumer, OrderResponse> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scopedKey = userId + ":" + idempotencyKey;
+
+        CompletableFuture<OrderResponse> mine = new CompletableFuture<>();
+        CompletableFuture<OrderResponse> running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            logger.info("Waiting on in-flight request for Idempotency-Key {}", scopedKey);
+            return new Result(await(running), true);
+        }
+
+        try {
+            Result result = executeClaimed(userId, scopedKey, action);
+            mine.complete(result.getResponse());
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+
+    private Result executeClaimed(Long userId, String scopedKey, Function<LongConsumer, OrderResponse> action) {
+        String claimId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+
+        boolean tookOver = false;
+        if (!claim(scopedKey, userId, claimId, now)) {
+            // Another replica owns the key (or already finished with it)
+            if (!takeOverStale(scopedKey, claimId, now)) {
+                OrderResponse stored = awaitStored(userId, scopedKey, claimId);
+                if (stored != null) {
+                    return new Result(stored, true);
+                }
+            }
+            logger.warn("Took over stale claim on Idempotency-Key {}", scopedKey);
+            tookOver = true;
+        }
+
+        heldClaims.put(scopedKey, claimId);
+        try {
+            if (tookOver) {
+                OrderResponse resumed = resumeTakenOver(userId, scopedKey, claimId);
+                if (resumed != null) {
+                    return new Result(resumed, true);
+                }
+            }
+
+            OrderResponse response;
+            try {
+                response = action.apply(orderId -> attachOrder(scopedKey, claimId, orderId));
+            } catch (RuntimeException e) {
+                // The failed saga cancelled its order, so let a retry run it again
+                idempotencyRecordRepository.release(scopedKey, claimId);
+                throw e;
+            }
+
+            if (idempotencyRecordRepository.complete(scopedKey, claimId, response.getId()) == 0) {
+                // The key stands for another order now, so this one is a paid duplicate
+                logger.error("Claim on Idempotency-Key {} was taken over before order {} completed",
+                    scopedKey, response.getId());
+                shardRouter.onShardForUser(userId, () -> {
+                    orderService.recordPaymentConflict(response.getId(), Order.OrderStatus.COMPLETED,
+                        response.getPaymentId());
+                    return null;
+                });
+                throw new RuntimeException("Request with this Idempotency-Key was taken over by a retry; "
+                    + "this duplicate order will be refunded");
+            }
+            return new Result(response, false);
+        } finally {
+            heldClaims.remove(scopedKey, claimId);
+        }
+    }
+
+    private boolean claim(String scopedKey, Long userId, String claimId, LocalDateTime now) {
+        if (idempotencyRecordRepository.claim(scopedKey, userId, claimId, now, now.plus(ttl)) == 1) {
+            return true;
+        }
+        // An expired key counts as absent
+        if (idempotencyRecordRepository.deleteIfExpired(scopedKey, now) == 1) {
+            return idempotencyRecordRepository.claim(scopedKey, userId, claimId, now, now.plus(ttl)) == 1;
+        }
+        return false;
+    }
+
+    /**
+     * Record the saga's order on the claim before it is paid. Throwing here makes the
+     * saga cancel the order, so a request that lost its claim never charges the customer.
+     */
+    private void attachOrder(String scopedKey, String claimId, long orderId) {
+        // The saga runs on the user's shard, but idempotency keys live on shard 0
+        int attached = shardRouter.onShard(0, () -> idempotencyRecordRepository.attachOrder(scopedKey, claimId, orderId));
+        if (attached == 0) {
+            throw new RuntimeException("Request with this Idempotency-Key was taken over by a retry");
+        }
+    }
+
+    /**
+     * Pick up the order the previous owner of a taken-over claim recorded.
+     * Returns it if it completed, or null if the saga has to run (again).
+     */
+    private OrderResponse resumeTakenOver(Long userId, String scopedKey, String claimId) {
+        Long orderId = idempotencyRecordRepository.findById(scopedKey)
+            .map(IdempotencyRecord::getOrderId)
+            .orElse(null);
+        if (orderId == null) {
+            // The previous owner never got as far as saving an order
+            return null;
+        }
+
+        OrderResponse order = shardRouter.onShardForUser(userId, () -> orderService.getOrderById(orderId));
+        Order.OrderStatus status = Order.OrderStatus.valueOf(order.getStatus());
+        if (status == Order.OrderStatus.COMPLETED) {
+            idempotencyRecordRepository.complete(scopedKey, claimId, orderId);
+            return order;
+        }
+        if (status == Order.OrderStatus.PENDING || status == Order.OrderStatus.CONFIRMED
+                || status == Order.OrderStatus.PAYMENT_PROCESSING) {
+            // The stalled owner may still be paying for it; the sweeper cancels it if not
+            logger.warn("Order {} of Idempotency-Key {} is still {}", orderId, scopedKey, status);
+            throw new RequestInProgressException();
+        }
+        logger.info("Order {} of Idempotency-Key {} ended {}; placing the order again", orderId, scopedKey, status);
+        return null;
+    }
+
+    private boolean takeOverStale(String scopedKey, String claimId, LocalDateTime now) {
+        return idempotencyRecordRepository.takeOverStale(
+            scopedKey, claimId, now, now.minus(staleClaimAfter), now.plus(ttl)) == 1;
+    }
+
+    /**
+     * Poll the shared store until the owning replica completes or releases the key.
+     * Returns null if the owner stopped heartbeating and this caller took the key over.
+     */
+    private OrderResponse awaitStored(Long userId, String scopedKey, String claimId) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+            Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(scopedKey);
+
+            if (record.isEmpty()) {
+                throw new RuntimeException("Request with this Idempotency-Key failed, please retry");
+            }
+            if (record.get().getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                Long orderId = record.get().getOrderId();
+                return shardRouter.onShardForUser(userId, () -> orderService.getOrderById(orderId));
+            }
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime claimedAt = record.get().getClaimedAt();
+            if (claimedAt != null && claimedAt.isBefore(now.minus(staleClaimAfter))
+                    && takeOverStale(scopedKey, claimId, now)) {
+                return null;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new RequestInProgressException();
+            }
+
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RequestInProgressException();
+            }
+        }
+    }
+
+    private OrderResponse await(CompletableFuture<OrderResponse> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (TimeoutException e) {
+            throw new RequestInProgressException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestInProgressException();
+        }
+    }
+
+    /**
+     * Refresh every claim held by a request still running on this replica
+     */
+    @Scheduled(fixedDelayString = "${order.idempotency.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        heldClaims.forEach((scopedKey, claimId) -> {
+            if (idempotencyRecordRepository.heartbeat(scopedKey, claimId, now) == 0) {
+                logger.warn("Lost claim on Idempotency-Key {} while its request is still running", scopedKey);
+            }
+        });
+    }
+
+    /**
+     * Purge keys whose TTL has passed
+     */
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:600000}")
+    public void purgeExpiredKeys() {
+        int purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * Outcome of an idempotent execution
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final OrderResponse response;
+        private final boolean replayed;
+    }
+
+    /**
+     * Thrown when a duplicate gives up waiting for the original request
+     */
+    public static class RequestInProgressException extends RuntimeException {
+        public RequestInProgressException() {
+            super("A request with this Idempotency-Key is still in progress");
+        }
+    }
+}
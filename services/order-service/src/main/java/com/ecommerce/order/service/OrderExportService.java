@@ -0,0 +1,280 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.sharding.ShardRouter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * Order Export Service
+ *
+ * Streams orders and their items for a date range straight from a server-side
+ * JDBC cursor to the response body. Rows are written as they are fetched, so
+ * memory stays constant regardless of how many orders are exported. Shards are
+ * streamed one after another, since the single response stream is the bottleneck.
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportService.class);
+
+    private static final String EXPORT_SQL =
+        "SELECT o.id, o.user_id, o.status, o.total_amount, o.payment_id, o.created_at, o.updated_at, " +
+        "i.product_id, i.product_name, i.price, i.quantity, i.subtotal " +
+        "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id " +
+        "WHERE o.created_at >= ? AND o.created_at < ? " +
+        // Matches idx_orders_created_at_id, so the range is read in index order without a sort
+        "ORDER BY o.created_at, o.id";
+
+    private static final String CSV_HEADER =
+        "order_id,user_id,status,total_amount,payment_id,created_at,updated_at," +
+        "product_id,product_name,price,quantity,subtotal\n";
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    public OrderExportService(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${order.export.fetch-size:1000}") int fetchSize) {
+        // A positive fetch size inside a transaction makes the PostgreSQL driver
+        // use a server-side cursor instead of buffering the whole result set
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Export orders created in [from, to] (inclusive dates) to the given stream
+     */
+    public void exportOrders(LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        logger.info("Exporting orders from {} to {} as {}", from, to, format);
+
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+
+        ExportRowHandler handler = format == Format.CSV
+            ? new CsvRowHandler(out)
+            : new NdjsonRowHandler(out);
+
+        try {
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                // Each shard's cursor lives in its own read-only transaction so it is not auto-committed away
+                shardRouter.onShard(shard, () -> readOnlyTransaction.execute(status -> {
+                    jdbcTemplate.query(EXPORT_SQL, handler, start, end);
+                    return null;
+                }));
+            }
+            handler.finish();
+        } catch (UncheckedIOException e) {
+            // Client disconnected or the socket failed mid-stream
+            throw e.getCause();
+        }
+
+        logger.info("Exported {} orders from {} to {}", handler.getOrderCount(), from, to);
+    }
+
+    /**
+     * Row handler that writes each cursor row as soon as it is read
+     */
+    private abstract static class ExportRowHandler implements RowCallbackHandler {
+
+        private long orderCount;
+
+        long getOrderCount() {
+            return orderCount;
+        }
+
+        void countOrder() {
+            orderCount++;
+        }
+
+        abstract void finish() throws IOException;
+    }
+
+    /**
+     * One JSON object per order, with its items nested. Rows arrive grouped by
+     * order, so only the order currently being written is open at any time.
+     */
+    private class NdjsonRowHandler extends ExportRowHandler {
+
+        private final JsonGenerator generator;
+        private Long currentOrderId;
+
+        NdjsonRowHandler(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are terminated explicitly instead of space-separated root values
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                long orderId = rs.getLong("id");
+                if (currentOrderId == null || currentOrderId != orderId) {
+                    closeCurrentOrder();
+                    openOrder(rs, orderId);
+                }
+
+                long productId = rs.getLong("product_id");
+                if (!rs.wasNull()) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("productId", productId);
+                    generator.writeStringField("productName", rs.getString("product_name"));
+                    writeDecimal("price", rs.getBigDecimal("price"));
+                    generator.writeNumberField("quantity", rs.getInt("quantity"));
+                    writeDecimal("subtotal", rs.getBigDecimal("subtotal"));
+                    generator.writeEndObject();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void openOrder(ResultSet rs, long orderId) throws SQLException, IOException {
+            currentOrderId = orderId;
+            countOrder();
+
+            generator.writeStartObject();
+            // As a string, like OrderResponse.id, so JSON tools that parse numbers as doubles keep it exact
+            generator.writeStringField("id", Long.toString(orderId));
+            generator.writeNumberField("userId", rs.getLong("user_id"));
+            generator.writeStringField("status", rs.getString("status"));
+            writeDecimal("totalAmount", rs.getBigDecimal("total_amount"));
+            generator.writeStringField("paymentId", rs.getString("payment_id"));
+            writeTimestamp("createdAt", rs.getTimestamp("created_at"));
+            writeTimestamp("updatedAt", rs.getTimestamp("updated_at"));
+            generator.writeArrayFieldStart("items");
+        }
+
+        private void closeCurrentOrder() throws IOException {
+            if (currentOrderId != null) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+
+        private void writeDecimal(String field, BigDecimal value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeNumberField(field, value);
+            }
+        }
+
+        private void writeTimestamp(String field, Timestamp value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeStringField(field, value.toLocalDateTime().toString());
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            closeCurrentOrder();
+            generator.flush();
+        }
+    }
+
+    /**
+     * One CSV line per order item, with the order columns repeated.
+     * Orders without items are written once with empty item columns.
+     */
+    private static class CsvRowHandler extends ExportRowHandler {
+
+        private final Writer writer;
+        private Long currentOrderId;
+
+        CsvRowHandler(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                long orderId = rs.getLong("id");
+                if (currentOrderId == null || currentOrderId != orderId) {
+                    currentOrderId = orderId;
+                    countOrder();
+                }
+
+                writer.write(Long.toString(orderId));
+                writeField(rs.getString("user_id"));
+                writeField(rs.getString("status"));
+                writeField(rs.getString("total_amount"));
+                writeField(rs.getString("payment_id"));
+                writeField(toIsoString(rs.getTimestamp("created_at")));
+                writeField(toIsoString(rs.getTimestamp("updated_at")));
+                writeField(rs.getString("product_id"));
+                writeField(rs.getString("product_name"));
+                writeField(rs.getString("price"));
+                writeField(rs.getString("quantity"));
+                writeField(rs.getString("subtotal"));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeField(String value) throws IOException {
+            writer.write(',');
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+
+        private static String toIsoString(Timestamp value) {
+            return value == null ? null : value.toLocalDateTime().toString();
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -16,9 +16,15 @@ import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -46,13 +52,37 @@ public class OrderService {
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private CatalogPriceService catalogPriceService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Create order from user's cart
      * Uses Circuit Breaker for payment service calls
+     *
+     * Not transactional: each status change commits as the saga advances, so an
+     * order left behind by a crash stays visible to the StuckOrderSweeper. Every
+     * status change is conditional on the status the saga last saw, so it never
+     * overwrites the sweeper's CANCELLED, and the final status commits together
+     * with its sales rollup entry.
      */
-    @Transactional
     @CircuitBreaker(name = "orderService", fallbackMethod = "createOrderFallback")
     public OrderResponse createOrder(Long userId, String userEmail) {
+        return createOrder(userId, userEmail, orderId -> { });
+    }
+
+    /**
+     * Create order from user's cart, reporting the order id to onOrderCreated
+     * once the PENDING order is saved and before anything is reserved or paid.
+     * If onOrderCreated throws, the order is cancelled and nothing is charged.
+     */
+    @CircuitBreaker(name = "orderService", fallbackMethod = "createOrderFallback")
+    public OrderResponse createOrder(Long userId, String userEmail, LongConsumer onOrderCreated) {
         logger.info("Processing order creation for user: {}", userId);
 
         // Step 1: Get cart items
@@ -62,40 +92,52 @@ public class OrderService {
             throw new RuntimeException("Cart is empty");
         }
 
+        // Cart prices come from the client, so check every line against the catalog in one lookup
+        Map<Long, ProductDTO> catalog = catalogPriceService.lookup(cart.getItems().stream()
+            .map(CartDTO.CartItemDTO::getProductId)
+            .collect(Collectors.toSet()));
+        for (CartDTO.CartItemDTO cartItem : cart.getItems()) {
+            String problem = catalogPriceService.findPriceProblem(catalog, cartItem.getProductId(), cartItem.getPrice());
+            if (problem != null) {
+                throw new RuntimeException(problem);
+            }
+        }
+
         // Step 2: Create order entity
         Order order = new Order();
         order.setUserId(userId);
         order.setStatus(Order.OrderStatus.PENDING);
-        order.setTotalAmount(cart.getTotalPrice());
 
-        // Add items to order
+        // Add items to order, totalling from the verified prices rather than the cart's own sums
+        BigDecimal totalAmount = BigDecimal.ZERO;
         for (CartDTO.CartItemDTO cartItem : cart.getItems()) {
             OrderItem orderItem = new OrderItem();
             orderItem.setProductId(cartItem.getProductId());
             orderItem.setProductName(cartItem.getProductName());
             orderItem.setPrice(cartItem.getPrice());
             orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setSubtotal(cartItem.getSubtotal());
+            orderItem.setSubtotal(cartItem.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())));
             order.addItem(orderItem);
+            totalAmount = totalAmount.add(orderItem.getSubtotal());
         }
+        order.setTotalAmount(totalAmount);
 
         order = orderRepository.save(order);
         logger.info("Order created with ID: {}", order.getId());
 
         try {
-            // Step 3: Reserve inventory for all items
+            onOrderCreated.accept(order.getId());
+
+            // Step 3: Reserve inventory for all items, all or nothing
             logger.info("Reserving inventory for order: {}", order.getId());
-            for (OrderItem item : order.getItems()) {
-                ReserveStockRequest reserveRequest = new ReserveStockRequest(
-                    item.getProductId(),
-                    item.getQuantity()
-                );
-                inventoryClient.reserveStock(reserveRequest);
+            OrderReservationResult reservation = inventoryClient.reserveStockBatch(
+                List.of(new OrderReservationRequest(order.getId(), stockRequests(order)))).get(0);
+            if (!reservation.isReserved()) {
+                throw new RuntimeException(reservation.getMessage());
             }
 
             // Step 4: Process payment
-            order.setStatus(Order.OrderStatus.PAYMENT_PROCESSING);
-            orderRepository.save(order);
+            advanceStatus(order, Order.OrderStatus.PAYMENT_PROCESSING);
 
             logger.info("Processing payment for order: {}", order.getId());
             PaymentRequest paymentRequest = new PaymentRequest(
@@ -108,31 +150,17 @@ public class OrderService {
 
             if ("SUCCESS".equals(paymentResponse.getStatus())) {
                 // Payment successful
-                order.setStatus(Order.OrderStatus.COMPLETED);
                 order.setPaymentId(paymentResponse.getPaymentId());
-                orderRepository.save(order);
-
-                // Confirm inventory reservation (remove from reserved)
-                for (OrderItem item : order.getItems()) {
-                    ReserveStockRequest confirmRequest = new ReserveStockRequest(
-                        item.getProductId(),
-                        item.getQuantity()
-                    );
-                    inventoryClient.confirmReservation(confirmRequest);
+                if (!saveFinalStatus(order, Order.OrderStatus.COMPLETED)) {
+                    // The StuckOrderSweeper gave up on the order while payment was running
+                    recordPaymentConflict(order.getId(), Order.OrderStatus.CANCELLED, paymentResponse.getPaymentId());
+                    throw new RuntimeException("Order was cancelled while payment was processing; "
+                        + "the payment will be refunded");
                 }
-
-                // Clear user's cart
-                cartClient.clearCart(userId.toString());
-
-                // Publish order placed event
-                publishOrderEvent(order, userEmail);
-
-                logger.info("Order completed successfully: {}", order.getId());
             } else {
                 // Payment failed
                 logger.error("Payment failed for order: {}", order.getId());
-                order.setStatus(Order.OrderStatus.PAYMENT_FAILED);
-                orderRepository.save(order);
+                advanceStatus(order, Order.OrderStatus.PAYMENT_FAILED);
 
                 // Throw exception - inventory will be released in catch block
                 throw new RuntimeException("Payment failed: " + paymentResponse.getMessage());
@@ -141,8 +169,7 @@ public class OrderService {
         } catch (Exception e) {
             // If any step fails, rollback inventory and update order status
             logger.error("Error creating order: {}", e.getMessage());
-            order.setStatus(Order.OrderStatus.CANCELLED);
-            orderRepository.save(order);
+            saveFinalStatus(order, Order.OrderStatus.CANCELLED);
 
             // Attempt to release inventory
             try {
@@ -154,6 +181,21 @@ public class OrderService {
             throw new RuntimeException("Failed to create order: " + e.getMessage());
         }
 
+        // The order is paid and COMPLETED, so a failing follow-up step must not cancel it
+        try {
+            // Confirm inventory reservation (remove from reserved)
+            inventoryClient.confirmOrders(List.of(order.getId()));
+
+            // Clear user's cart
+            cartClient.clearCart(userId.toString());
+
+            // Publish order placed event
+            publishOrderEvent(order, userEmail);
+        } catch (Exception e) {
+            logger.error("Order {} completed but a follow-up step failed: {}", order.getId(), e.getMessage());
+        }
+
+        logger.info("Order completed successfully: {}", order.getId());
         return OrderResponse.fromEntity(order);
     }
 
@@ -165,28 +207,86 @@ public class OrderService {
         throw new RuntimeException("Order service is temporarily unavailable. Please try again later.");
     }
 
+    public OrderResponse createOrderFallback(Long userId, String userEmail, LongConsumer onOrderCreated, Exception e) {
+        return createOrderFallback(userId, userEmail, e);
+    }
+
+    /**
+     * Move the order on to its next saga step, unless someone else changed its status first
+     */
+    private void advanceStatus(Order order, Order.OrderStatus status) {
+        if (orderRepository.transitionStatus(order.getId(), order.getStatus(), status,
+                order.getPaymentId(), LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Order " + order.getId() + " is no longer " + order.getStatus());
+        }
+        order.setStatus(status);
+    }
+
+    /**
+     * Move the order to COMPLETED or CANCELLED and record it in the sales rollups,
+     * in one transaction so neither commits without the other. The update only
+     * applies if the order is still in the status this saga last saw, so it never
+     * overwrites a cancellation by the StuckOrderSweeper; returns false if it did not apply.
+     */
+    boolean saveFinalStatus(Order order, Order.OrderStatus status) {
+        Boolean saved = transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (orderRepository.transitionStatus(order.getId(), order.getStatus(), status,
+                    order.getPaymentId(), now) == 0) {
+                return false;
+            }
+            order.setStatus(status);
+            salesRollupService.recordOrderOutcome(order, now);
+            return true;
+        });
+        return Boolean.TRUE.equals(saved);
+    }
+
+    /**
+     * Hold a paid order that must not stand as PAYMENT_CONFLICT, with the payment id,
+     * so it can be found and refunded (see GET /api/orders/admin/payment-conflicts).
+     * Used for an order the StuckOrderSweeper cancelled while its payment succeeded,
+     * whose stock the sweeper already released, and for a duplicate order that lost
+     * its Idempotency-Key. Rollups keep the outcome they recorded for the order.
+     */
+    public void recordPaymentConflict(Long orderId, Order.OrderStatus from, String paymentId) {
+        if (orderRepository.transitionStatus(orderId, from,
+                Order.OrderStatus.PAYMENT_CONFLICT, paymentId, LocalDateTime.now()) == 1) {
+            logger.error("Order {} paid with {} was {}; held as {} for a refund",
+                orderId, paymentId, from, Order.OrderStatus.PAYMENT_CONFLICT);
+        } else {
+            logger.error("Payment {} for order {} needs a refund, but the order is no longer {}",
+                paymentId, orderId, from);
+        }
+    }
+
+    /**
+     * One stock request per product of the order
+     */
+    private static List<ReserveStockRequest> stockRequests(Order order) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        List<ReserveStockRequest> requests = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> requests.add(new ReserveStockRequest(productId, quantity)));
+        return requests;
+    }
+
     /**
      * Release reserved inventory (compensating transaction)
+     * Inventory Service only returns what this order still holds, so repeating it is harmless
      */
     private void releaseInventory(Order order) {
         logger.info("Releasing inventory for order: {}", order.getId());
-        for (OrderItem item : order.getItems()) {
-            try {
-                ReserveStockRequest releaseRequest = new ReserveStockRequest(
-                    item.getProductId(),
-                    item.getQuantity()
-                );
-                inventoryClient.releaseStock(releaseRequest);
-            } catch (Exception e) {
-                logger.error("Failed to release stock for product {}: {}", item.getProductId(), e.getMessage());
-            }
-        }
+        inventoryClient.releaseOrders(List.of(order.getId()));
     }
 
     /**
      * Publish order event to RabbitMQ
      */
-    private void publishOrderEvent(Order order, String userEmail) {
+    void publishOrderEvent(Order order, String userEmail) {
         OrderEvent event = new OrderEvent(
             order.getId(),
             order.getUserId(),
@@ -208,6 +308,7 @@ public class OrderService {
     /**
      * Get order by ID
      */
+    @Transactional(readOnly = true)
     public OrderResponse getOrderById(Long orderId) {
         Order order = orderRepository.findById(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
@@ -218,6 +319,7 @@ public class OrderService {
     /**
      * Get all orders for a user
      */
+    @Transactional(readOnly = true)
     public List<OrderResponse> getUserOrders(Long userId) {
         logger.info("Fetching orders for user: {}", userId);
 
@@ -227,6 +329,17 @@ public class OrderService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Get all orders in a status
+     */
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getOrdersByStatus(Order.OrderStatus status) {
+        return orderRepository.findByStatus(status)
+            .stream()
+            .map(OrderResponse::fromEntity)
+            .collect(Collectors.toList());
+    }
+
     /**
      * Cancel order
      */
@@ -248,8 +361,14 @@ public class OrderService {
             throw new RuntimeException("Cannot cancel order with status: " + order.getStatus());
         }
 
+        // Conditional, so an order the StuckOrderSweeper cancelled meanwhile is not counted twice
+        LocalDateTime now = LocalDateTime.now();
+        if (orderRepository.transitionStatus(orderId, order.getStatus(), Order.OrderStatus.CANCELLED,
+                order.getPaymentId(), now) == 0) {
+            throw new RuntimeException("Order status changed, please retry");
+        }
         order.setStatus(Order.OrderStatus.CANCELLED);
-        orderRepository.save(order);
+        salesRollupService.recordOrderOutcome(order, now);
 
         // Release inventory if it was reserved
         releaseInventory(order);
@@ -0,0 +1,233 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.ProductSalesResponse;
+import com.ecommerce.order.dto.SalesRollupResponse;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatusRollup;
+import com.ecommerce.order.entity.RollupGranularity;
+import com.ecommerce.order.repository.OrderStatusRollupRepository;
+import com.ecommerce.order.repository.ProductSalesRollupRepository;
+import com.ecommerce.order.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Sales Rollup Service
+ *
+ * Incrementally maintains per-minute/hour/day rollups of order outcomes and
+ * product sales, and answers dashboard queries from them without scanning orders.
+ * Each shard holds the rollups of its own orders; queries fan out and merge.
+ * Minute buckets are only kept for order.rollups.minute-retention, since the
+ * hour and day buckets already carry the same totals.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final String UPSERT_STATUS_SQL =
+        "INSERT INTO order_status_rollups (granularity, bucket_start, status, order_count, total_amount) " +
+        "VALUES (?, ?, ?, 1, ?) " +
+        "ON CONFLICT (granularity, bucket_start, status) DO UPDATE SET " +
+        "order_count = order_status_rollups.order_count + 1, " +
+        "total_amount = order_status_rollups.total_amount + EXCLUDED.total_amount";
+
+    private static final String UPSERT_PRODUCT_SQL =
+        "INSERT INTO product_sales_rollups (granularity, bucket_start, product_id, units_sold, order_count, revenue) " +
+        "VALUES (?, ?, ?, ?, 1, ?) " +
+        "ON CONFLICT (granularity, bucket_start, product_id) DO UPDATE SET " +
+        "units_sold = product_sales_rollups.units_sold + EXCLUDED.units_sold, " +
+        "order_count = product_sales_rollups.order_count + 1, " +
+        "revenue = product_sales_rollups.revenue + EXCLUDED.revenue";
+
+    private static final String PURGE_STATUS_SQL =
+        "DELETE FROM order_status_rollups WHERE granularity = ? AND bucket_start < ?";
+
+    private static final String PURGE_PRODUCT_SQL =
+        "DELETE FROM product_sales_rollups WHERE granularity = ? AND bucket_start < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderStatusRollupRepository statusRollupRepository;
+
+    @Autowired
+    private ProductSalesRollupRepository productRollupRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${order.rollups.minute-retention:7d}")
+    private Duration minuteRetention = Duration.ofDays(7);
+
+    /**
+     * Add an order that just reached a final status to every rollup bucket
+     * Joins the caller's transaction, if any, so rollups commit or roll back with the order
+     */
+    @Transactional
+    public void recordOrderOutcome(Order order, LocalDateTime outcomeTime) {
+        Order.OrderStatus status = order.getStatus();
+        if (status != Order.OrderStatus.COMPLETED && status != Order.OrderStatus.CANCELLED) {
+            return;
+        }
+
+        BigDecimal amount = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+
+        List<Object[]> statusRows = new ArrayList<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            statusRows.add(new Object[] {
+                granularity.name(),
+                Timestamp.valueOf(granularity.truncate(outcomeTime)),
+                status.name(),
+                amount
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_STATUS_SQL, statusRows);
+
+        if (status == Order.OrderStatus.COMPLETED) {
+            recordProductSales(order, outcomeTime);
+        }
+
+        logger.debug("Recorded {} outcome for order {} in sales rollups", status, order.getId());
+    }
+
+    private void recordProductSales(Order order, LocalDateTime outcomeTime) {
+        // Merge lines per product and upsert in product id order so concurrent
+        // orders always lock rollup rows in the same sequence
+        Map<Long, OrderItem> itemsByProduct = new TreeMap<>();
+        for (OrderItem item : order.getItems()) {
+            itemsByProduct.merge(item.getProductId(), copyOf(item), (existing, next) -> {
+                existing.setQuantity(existing.getQuantity() + next.getQuantity());
+                existing.setSubtotal(existing.getSubtotal().add(next.getSubtotal()));
+                return existing;
+            });
+        }
+
+        List<Object[]> productRows = new ArrayList<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Timestamp bucketStart = Timestamp.valueOf(granularity.truncate(outcomeTime));
+            for (OrderItem item : itemsByProduct.values()) {
+                productRows.add(new Object[] {
+                    granularity.name(),
+                    bucketStart,
+                    item.getProductId(),
+                    item.getQuantity(),
+                    item.getSubtotal()
+                });
+            }
+        }
+        if (!productRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_PRODUCT_SQL, productRows);
+        }
+    }
+
+    /**
+     * Purge minute buckets older than the retention on every shard
+     */
+    @Scheduled(fixedDelayString = "${order.rollups.purge-interval-ms:3600000}")
+    public void purgeExpiredMinuteBuckets() {
+        int purged = purgeMinuteBucketsBefore(LocalDateTime.now().minus(minuteRetention));
+        if (purged > 0) {
+            logger.info("Purged {} minute rollup rows older than {}", purged, minuteRetention);
+        }
+    }
+
+    int purgeMinuteBucketsBefore(LocalDateTime cutoff) {
+        Timestamp bucketStart = Timestamp.valueOf(RollupGranularity.MINUTE.truncate(cutoff));
+        List<Integer> perShard = shardRouter.fanOut(shard ->
+            jdbcTemplate.update(PURGE_STATUS_SQL, RollupGranularity.MINUTE.name(), bucketStart)
+                + jdbcTemplate.update(PURGE_PRODUCT_SQL, RollupGranularity.MINUTE.name(), bucketStart));
+        return perShard.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private static OrderItem copyOf(OrderItem item) {
+        OrderItem copy = new OrderItem();
+        copy.setProductId(item.getProductId());
+        copy.setQuantity(item.getQuantity());
+        copy.setSubtotal(item.getSubtotal() != null ? item.getSubtotal() : BigDecimal.ZERO);
+        return copy;
+    }
+
+    /**
+     * Completed/cancelled counts, revenue and success rate per bucket in [from, to)
+     */
+    public List<SalesRollupResponse> getSalesRollup(RollupGranularity granularity,
+                                                    LocalDateTime from, LocalDateTime to) {
+        List<List<OrderStatusRollup>> rowsPerShard = shardRouter.fanOut(shard -> statusRollupRepository
+            .findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                granularity, from, to));
+
+        // Rows for the same bucket and status from different shards simply add up
+        Map<LocalDateTime, SalesRollupResponse> buckets = new TreeMap<>();
+        for (OrderStatusRollup row : rowsPerShard.stream().flatMap(List::stream).collect(Collectors.toList())) {
+            SalesRollupResponse bucket = buckets.computeIfAbsent(row.getBucketStart(),
+                start -> new SalesRollupResponse(start, 0L, 0L, BigDecimal.ZERO, null));
+
+            if (Order.OrderStatus.COMPLETED.name().equals(row.getStatus())) {
+                bucket.setCompletedOrders(bucket.getCompletedOrders() + row.getOrderCount());
+                bucket.setRevenue(bucket.getRevenue().add(row.getTotalAmount()));
+            } else if (Order.OrderStatus.CANCELLED.name().equals(row.getStatus())) {
+                bucket.setCancelledOrders(bucket.getCancelledOrders() + row.getOrderCount());
+            }
+        }
+
+        for (SalesRollupResponse bucket : buckets.values()) {
+            long finished = bucket.getCompletedOrders() + bucket.getCancelledOrders();
+            bucket.setSuccessRate(finished == 0 ? null : (double) bucket.getCompletedOrders() / finished);
+        }
+
+        return new ArrayList<>(buckets.values());
+    }
+
+    /**
+     * Best-selling products by revenue over buckets in [from, to)
+     */
+    public List<ProductSalesResponse> getTopProducts(RollupGranularity granularity,
+                                                     LocalDateTime from, LocalDateTime to, int limit) {
+        if (shardRouter.getShardCount() == 1) {
+            return productRollupRepository.findTopProducts(granularity, from, to, PageRequest.of(0, limit));
+        }
+
+        // A per-shard top N is not the global top N, so merge full per-product totals
+        List<List<ProductSalesResponse>> perShard = shardRouter.fanOut(shard ->
+            productRollupRepository.findTopProducts(granularity, from, to, Pageable.unpaged()));
+
+        Map<Long, ProductSalesResponse> merged = new HashMap<>();
+        for (List<ProductSalesResponse> shardProducts : perShard) {
+            for (ProductSalesResponse product : shardProducts) {
+                merged.merge(product.getProductId(), product, (a, b) -> new ProductSalesResponse(
+                    a.getProductId(),
+                    a.getUnitsSold() + b.getUnitsSold(),
+                    a.getOrderCount() + b.getOrderCount(),
+                    a.getRevenue().add(b.getRevenue())));
+            }
+        }
+
+        return merged.values().stream()
+            .sorted(Comparator.comparing(ProductSalesResponse::getRevenue).reversed())
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+}
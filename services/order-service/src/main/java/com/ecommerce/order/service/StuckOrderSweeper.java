@@ -0,0 +1,137 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.client.InventoryClient;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.repository.OrderRepository;
+import com.ecommerce.order.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stuck Order Sweeper
+ *
+ * Compensates orders whose saga died mid-flight (e.g. the replica crashed)
+ * and so never reached the catch block in OrderService.createOrder. Orders
+ * still PENDING or PAYMENT_PROCESSING after the timeout get their inventory
+ * released and are moved to CANCELLED.
+ *
+ * Each batch is claimed with SELECT ... FOR UPDATE SKIP LOCKED, so replicas
+ * running the sweep at the same time pick disjoint orders without any leader
+ * election. The inventory release for the whole batch is a single call that
+ * frees only what inventory-service holds for these orders, and the batch's
+ * status changes commit only if it succeeded; a failed batch stays stuck and
+ * is retried on the next run. Orders whose saga is still alive cannot then
+ * overwrite CANCELLED, since the saga only changes status conditionally.
+ */
+@Service
+@ConditionalOnProperty(prefix = "order.sweeper", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StuckOrderSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(StuckOrderSweeper.class);
+
+    static final Set<Order.OrderStatus> STUCK_STATUSES =
+        EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.PAYMENT_PROCESSING);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InventoryClient inventoryClient;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${order.sweeper.stuck-after:15m}")
+    private Duration stuckAfter = Duration.ofMinutes(15);
+
+    @Value("${order.sweeper.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${order.sweeper.max-batches-per-run:50}")
+    private int maxBatchesPerRun = 50;
+
+    @Scheduled(fixedDelayString = "${order.sweeper.interval-ms:60000}",
+               initialDelayString = "${order.sweeper.interval-ms:60000}")
+    public void sweepStuckOrders() {
+        sweep(LocalDateTime.now().minus(stuckAfter));
+    }
+
+    /**
+     * Sweep every shard for orders last updated before the cutoff; returns how many were cancelled
+     */
+    int sweep(LocalDateTime cutoff) {
+        int total = 0;
+
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            try {
+                total += shardRouter.onShard(shard, () -> sweepShard(cutoff));
+            } catch (RuntimeException e) {
+                // Leave this shard for the next run rather than skipping the others
+                logger.error("Stuck-order sweep failed on shard {}: {}", shard, e.getMessage());
+            }
+        }
+
+        if (total > 0) {
+            logger.info("Cancelled {} stuck orders last updated before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private int sweepShard(LocalDateTime cutoff) {
+        int swept = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer cancelled = transactionTemplate.execute(status -> sweepBatch(cutoff));
+            if (cancelled == null || cancelled == 0) {
+                break;
+            }
+            swept += cancelled;
+            if (cancelled < batchSize) {
+                break;
+            }
+        }
+        return swept;
+    }
+
+    /**
+     * Claim one batch, release its inventory and cancel it, all in the caller's transaction
+     */
+    private int sweepBatch(LocalDateTime cutoff) {
+        List<Order> stuck = orderRepository.claimStuckOrders(STUCK_STATUSES, cutoff, PageRequest.of(0, batchSize));
+        if (stuck.isEmpty()) {
+            return 0;
+        }
+
+        inventoryClient.releaseOrders(stuck.stream().map(Order::getId).toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Order order : stuck) {
+            logger.warn("Cancelling order {} stuck in {} since {}", order.getId(), order.getStatus(), order.getUpdatedAt());
+            order.setStatus(Order.OrderStatus.CANCELLED);
+        }
+        orderRepository.saveAll(stuck);
+
+        for (Order order : stuck) {
+            salesRollupService.recordOrderOutcome(order, now);
+        }
+        return stuck.size();
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.order.sharding;
+
+/**
+ * Shard Context
+ *
+ * Holds the shard the current thread's database work is routed to.
+ * Must be set before a transaction starts, because the routing DataSource
+ * picks the physical database when the connection is acquired.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    // Shard of the latest connection the routing DataSource handed this thread
+    private static final ThreadLocal<Integer> CONNECTED = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Shard bound to this thread, or null when none is bound
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Shard of the latest connection acquired on this thread. A transaction acquires its
+     * connection when it begins and reuses it until it ends, so while one is active this is
+     * the shard all of its work goes to, whatever current() says. Null if none was acquired.
+     */
+    public static Integer connected() {
+        return CONNECTED.get();
+    }
+
+    static void setConnected(int shard) {
+        CONNECTED.set(shard);
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
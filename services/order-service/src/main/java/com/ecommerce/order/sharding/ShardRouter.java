@@ -0,0 +1,167 @@
+package com.ecommerce.order.sharding;
+
+import com.ecommerce.order.id.SnowflakeIdGenerator;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Shard Router
+ *
+ * Maps users to shards and runs work on a shard, or on every shard in parallel.
+ * With a single shard (sharding disabled) everything runs inline on shard 0.
+ */
+public class ShardRouter implements DisposableBean {
+
+    // Shard of work with no shard bound; the routing DataSource's default target
+    public static final int DEFAULT_SHARD = 0;
+
+    private final int shardCount;
+    private final ExecutorService fanOutExecutor;
+
+    public ShardRouter(int shardCount, int fanOutThreads) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (shardCount > SnowflakeIdGenerator.MAX_SHARD_ID + 1) {
+            // Order ids record their shard in SHARD_BITS bits
+            throw new IllegalArgumentException(
+                "At most " + (SnowflakeIdGenerator.MAX_SHARD_ID + 1) + " shards are supported");
+        }
+        this.shardCount = shardCount;
+        this.fanOutExecutor = shardCount == 1 ? null : Executors.newFixedThreadPool(
+            Math.max(1, Math.min(fanOutThreads, shardCount)), daemonThreadFactory());
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Shard owning all orders of the given user
+     */
+    public int shardForUser(Long userId) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        return (int) Math.floorMod(mix(userId), (long) shardCount);
+    }
+
+    public <T> T onShardForUser(Long userId, Supplier<T> work) {
+        return onShard(shardForUser(userId), work);
+    }
+
+    /**
+     * Shard holding the given order, read from the shard bits of its Snowflake id
+     */
+    public int shardForOrder(Long orderId) {
+        int shard = SnowflakeIdGenerator.shardOf(orderId);
+        if (shard >= shardCount) {
+            throw new RuntimeException("Order not found with ID: " + orderId);
+        }
+        return shard;
+    }
+
+    public <T> T onShardForOrder(Long orderId, Supplier<T> work) {
+        return onShard(shardForOrder(orderId), work);
+    }
+
+    /**
+     * Run work with its database access routed to the given shard.
+     * Inside a transaction only the shard of the transaction's connection is allowed.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The open transaction is pinned to its connection, so switching here would silently do nothing
+            Integer bound = ShardContext.connected();
+            if (bound == null) {
+                bound = ShardContext.current() != null ? ShardContext.current() : DEFAULT_SHARD;
+            }
+            if (bound != shard) {
+                throw new IllegalStateException(
+                    "Cannot switch to shard " + shard + " inside a transaction on shard " + bound);
+            }
+        }
+
+        Integer previous = ShardContext.current();
+        ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    /**
+     * Run work on every shard in parallel; results are returned in shard order
+     */
+    public <T> List<T> fanOut(IntFunction<T> work) {
+        List<T> results = new ArrayList<>(shardCount);
+        if (fanOutExecutor == null) {
+            results.add(onShard(0, () -> work.apply(0)));
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(fanOutExecutor.submit(() -> onShard(target, () -> work.apply(target))));
+        }
+
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Shard query failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while querying shards", e);
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * MurmurHash3 finalizer, so sequential user ids spread evenly across shards
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "order-shard-fanout-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.order.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Shard Routing DataSource
+ *
+ * Routes each connection request to the shard bound in ShardContext.
+ * Work with no shard bound (schema management, idempotency keys) goes to shard 0.
+ * Records the shard of each connection in ShardContext, so ShardRouter knows which
+ * shard an open transaction is pinned to.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        ShardContext.setConnected(shard == null ? ShardRouter.DEFAULT_SHARD : shard);
+        return shard;
+    }
+
+    /**
+     * Close the per-shard pools on shutdown
+     */
+    public void close() throws Exception {
+        for (DataSource shard : getResolvedDataSources().values()) {
+            if (shard instanceof AutoCloseable) {
+                ((AutoCloseable) shard).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.order.sharding;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+/**
+ * Shard Schema Initializer
+ *
+ * Creates the order tables on a shard. Hibernate's ddl-auto only ever sees
+ * shard 0, so every shard is initialized from this script instead.
+ * All statements are idempotent.
+ */
+public final class ShardSchemaInitializer {
+
+    private static final String SCHEMA_SCRIPT = "db/shard-schema.sql";
+
+    private ShardSchemaInitializer() {
+    }
+
+    public static void initialize(DataSource dataSource) {
+        new ResourceDatabasePopulator(new ClassPathResource(SCHEMA_SCRIPT)).execute(dataSource);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.order.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sharding Properties
+ *
+ * Shard databases for orders. The number of shards is fixed once data is
+ * written, because the userId hash routing depends on it.
+ */
+@Data
+@ConfigurationProperties(prefix = "order.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Maximum connections per shard pool
+     */
+    private int poolSize = 10;
+
+    /**
+     * Threads used to query all shards in parallel
+     */
+    private int fanOutThreads = 8;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
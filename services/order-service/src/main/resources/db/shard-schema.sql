@@ -0,0 +1,68 @@
+-- Order shard schema
+-- Applied to every shard at startup when order.sharding.enabled=true.
+-- Order and item ids are Snowflake ids assigned by the application, so they
+-- are globally unique across shards without any per-shard sequence, and
+-- their shard bits name the shard they were written to.
+
+CREATE TABLE IF NOT EXISTS orders (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    total_amount NUMERIC(10, 2) NOT NULL,
+    payment_id VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_orders_created_at_id ON orders (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_orders_user_id ON orders (user_id);
+CREATE INDEX IF NOT EXISTS idx_orders_status_updated_at ON orders (status, updated_at);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id BIGINT PRIMARY KEY,
+    order_id BIGINT NOT NULL REFERENCES orders (id),
+    product_id BIGINT NOT NULL,
+    product_name VARCHAR(255) NOT NULL,
+    price NUMERIC(10, 2) NOT NULL,
+    quantity INTEGER NOT NULL,
+    subtotal NUMERIC(10, 2) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
+
+-- Rollups are maintained in the same transaction as the order, so each shard
+-- holds rollups for its own orders and admin queries merge across shards
+CREATE TABLE IF NOT EXISTS order_status_rollups (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    granularity VARCHAR(16) NOT NULL,
+    bucket_start TIMESTAMP(6) NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    order_count BIGINT NOT NULL,
+    total_amount NUMERIC(14, 2) NOT NULL,
+    CONSTRAINT uk_order_status_rollup UNIQUE (granularity, bucket_start, status)
+);
+
+CREATE TABLE IF NOT EXISTS product_sales_rollups (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    granularity VARCHAR(16) NOT NULL,
+    bucket_start TIMESTAMP(6) NOT NULL,
+    product_id BIGINT NOT NULL,
+    units_sold BIGINT NOT NULL,
+    order_count BIGINT NOT NULL,
+    revenue NUMERIC(14, 2) NOT NULL,
+    CONSTRAINT uk_product_sales_rollup UNIQUE (granularity, bucket_start, product_id)
+);
+
+-- Only used on shard 0, where work with no shard bound is routed
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(300) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    order_id BIGINT,
+    claim_id VARCHAR(36),
+    claimed_at TIMESTAMP(6),
+    created_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,63 @@
+package com.ecommerce.order.id;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NodeIdLease
+ */
+@ExtendWith(MockitoExtension.class)
+class NodeIdLeaseTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testHeartbeat_LostLeaseIsReplacedWithANewNodeId() {
+        NodeIdLease lease = new NodeIdLease(jdbcTemplate, Duration.ofMinutes(5));
+        List<Integer> reacquired = new ArrayList<>();
+        lease.onReacquired(reacquired::add);
+
+        when(jdbcTemplate.update(startsWith("INSERT"), anyInt(), anyString(), anyLong())).thenReturn(1);
+        lease.acquire();
+
+        // Another replica took the node id over while this one was paused
+        when(jdbcTemplate.update(startsWith("UPDATE"), anyInt(), anyString())).thenReturn(0);
+        lease.heartbeat();
+
+        assertEquals(1, reacquired.size());
+        verify(jdbcTemplate, times(2)).update(startsWith("INSERT"), anyInt(), anyString(), anyLong());
+    }
+
+    @Test
+    void testHeartbeat_RetriesWhileNoNodeIdIsFree() {
+        NodeIdLease lease = new NodeIdLease(jdbcTemplate, Duration.ofMinutes(5));
+        List<Integer> reacquired = new ArrayList<>();
+        lease.onReacquired(reacquired::add);
+
+        when(jdbcTemplate.update(startsWith("INSERT"), anyInt(), anyString(), anyLong())).thenReturn(1);
+        lease.acquire();
+        when(jdbcTemplate.update(startsWith("UPDATE"), anyInt(), anyString())).thenReturn(0);
+        when(jdbcTemplate.update(startsWith("INSERT"), anyInt(), anyString(), anyLong())).thenReturn(0);
+
+        lease.heartbeat();
+        assertTrue(reacquired.isEmpty());
+
+        when(jdbcTemplate.update(startsWith("INSERT"), anyInt(), anyString(), anyLong())).thenReturn(1);
+        lease.heartbeat();
+        assertEquals(1, reacquired.size());
+        // The lost lease is not heartbeated again while a replacement is pending
+        verify(jdbcTemplate, times(1)).update(startsWith("UPDATE"), anyInt(), anyString());
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.order.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SnowflakeIdGenerator
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH + 1_000_000L;
+
+    @Test
+    void testIdLayout() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(37, () -> NOW, 0);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(first));
+        assertEquals(37, SnowflakeIdGenerator.nodeIdOf(first));
+        assertEquals(0, SnowflakeIdGenerator.sequenceOf(first));
+        assertEquals(1, SnowflakeIdGenerator.sequenceOf(second));
+        assertTrue(first > 0);
+
+        long onShard = generator.nextId(SnowflakeIdGenerator.MAX_SHARD_ID);
+        assertEquals(SnowflakeIdGenerator.MAX_SHARD_ID, SnowflakeIdGenerator.shardOf(onShard));
+        assertEquals(37, SnowflakeIdGenerator.nodeIdOf(onShard));
+        assertEquals(0, SnowflakeIdGenerator.shardOf(first));
+        assertThrows(IllegalArgumentException.class, () -> generator.nextId(SnowflakeIdGenerator.MAX_SHARD_ID + 1));
+    }
+
+    @Test
+    void testIdsIncreaseAcrossMilliseconds() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get, 0);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 100 == 0) {
+                clock.incrementAndGet();
+            }
+            long next = generator.nextId();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testSequenceExhaustionWaitsForNextMillisecond() {
+        AtomicLong clock = new AtomicLong(NOW);
+        AtomicLong reads = new AtomicLong();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> {
+            // Advance the clock only once the generator starts spinning
+            if (reads.incrementAndGet() > 4096 + 10) {
+                return clock.get() + 1;
+            }
+            return clock.get();
+        }, 0);
+
+        long last = 0;
+        for (int i = 0; i < 4097; i++) {
+            last = generator.nextId();
+        }
+
+        assertEquals(NOW + 1, SnowflakeIdGenerator.timestampOf(last));
+        assertEquals(0, SnowflakeIdGenerator.sequenceOf(last));
+    }
+
+    @Test
+    void testSmallClockStepBackKeepsIdsMonotonic() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get, 50);
+
+        long before = generator.nextId();
+        clock.addAndGet(-20);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(after));
+    }
+
+    @Test
+    void testLargeClockStepBackFails() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get, 50);
+
+        generator.nextId();
+        clock.addAndGet(-5_000);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void testRejectsOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1, 0));
+    }
+
+    @Test
+    void testConcurrentCallersNeverGetDuplicates() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, 0);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 50_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    Set<Long> local = new HashSet<>();
+                    for (int i = 0; i < perThread; i++) {
+                        local.add(generator.nextId());
+                    }
+                    ids.addAll(local);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, ids.size());
+    }
+}
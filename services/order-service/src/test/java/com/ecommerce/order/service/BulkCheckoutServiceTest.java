@@ -0,0 +1,262 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.client.InventoryClient;
+import com.ecommerce.order.client.PaymentClient;
+import com.ecommerce.order.dto.BulkOrderRequest;
+import com.ecommerce.order.dto.OrderReservationRequest;
+import com.ecommerce.order.dto.OrderReservationResult;
+import com.ecommerce.order.dto.PaymentRequest;
+import com.ecommerce.order.dto.PaymentResponse;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.repository.OrderRepository;
+import com.ecommerce.order.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BulkCheckoutService
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkCheckoutServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private InventoryClient inventoryClient;
+
+    @Mock
+    private PaymentClient paymentClient;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private CatalogPriceService catalogPriceService;
+
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(1, 1);
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private BulkCheckoutService bulkCheckoutService = new BulkCheckoutService(2);
+
+    private final Long userId = 1L;
+    private final String userEmail = "buyer@example.com";
+    private final AtomicLong nextId = new AtomicLong(100);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // Assign ids the way the Snowflake generator would on insert
+        lenient().when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            orders.stream().filter(order -> order.getId() == null).forEach(order -> order.setId(nextId.getAndIncrement()));
+            return orders;
+        });
+        lenient().when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(orderRepository.transitionStatus(any(), any(), any(), any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkCheckoutService.destroy();
+    }
+
+    private BulkOrderRequest.OrderPayload payload(String reference, Long productId, int quantity) {
+        return new BulkOrderRequest.OrderPayload(reference, new ArrayList<>(Collections.singletonList(
+            new BulkOrderRequest.ItemPayload(productId, "Product " + productId, new BigDecimal("10.00"), quantity))));
+    }
+
+    private Map<String, JsonNode> place(List<BulkOrderRequest.OrderPayload> payloads) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkCheckoutService.placeOrders(userId, userEmail, payloads, out);
+
+        Map<String, JsonNode> results = new HashMap<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode result = objectMapper.readTree(line);
+            results.put(result.get("reference").asText(), result);
+        }
+        return results;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPlaceOrders_ReservesOnceAndStreamsOneResultPerOrder() throws Exception {
+        when(inventoryClient.reserveStockBatch(anyList())).thenAnswer(invocation -> {
+            List<OrderReservationRequest> requests = invocation.getArgument(0);
+            List<OrderReservationResult> results = new ArrayList<>();
+            for (OrderReservationRequest request : requests) {
+                // Product 2 is out of stock
+                boolean reserved = request.getItems().get(0).getProductId() != 2L;
+                results.add(new OrderReservationResult(request.getOrderId(), reserved, reserved ? null : "Insufficient stock"));
+            }
+            return results;
+        });
+        when(paymentClient.processPayment(any(PaymentRequest.class))).thenAnswer(invocation -> {
+            PaymentRequest request = invocation.getArgument(0);
+            return new PaymentResponse("PAY-" + request.getOrderId(), "SUCCESS", "Payment processed successfully");
+        });
+
+        Map<String, JsonNode> results = place(Arrays.asList(
+            payload("A", 1L, 2),
+            payload("B", 2L, 1),
+            payload("C", 3L, 1),
+            new BulkOrderRequest.OrderPayload("D", new ArrayList<>())
+        ));
+
+        assertEquals(4, results.size());
+        assertEquals("COMPLETED", results.get("A").get("status").asText());
+        assertEquals(0, new BigDecimal("20.00").compareTo(results.get("A").get("totalAmount").decimalValue()));
+        assertEquals("CANCELLED", results.get("B").get("status").asText());
+        assertEquals("Insufficient stock", results.get("B").get("error").asText());
+        assertEquals("COMPLETED", results.get("C").get("status").asText());
+        assertEquals("REJECTED", results.get("D").get("status").asText());
+        assertEquals(3, results.get("D").get("index").asInt());
+
+        verify(inventoryClient, times(1)).reserveStockBatch(argThat(requests -> requests.size() == 3));
+        verify(paymentClient, times(2)).processPayment(any(PaymentRequest.class));
+        verify(inventoryClient, times(2)).confirmOrders(anyList());
+        verify(orderService, times(2)).publishOrderEvent(any(Order.class), eq(userEmail));
+        verify(salesRollupService, times(3)).recordOrderOutcome(any(Order.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testPlaceOrders_PaymentFailureReleasesThatOrderOnly() throws Exception {
+        when(inventoryClient.reserveStockBatch(anyList())).thenAnswer(invocation -> {
+            List<OrderReservationRequest> requests = invocation.getArgument(0);
+            List<OrderReservationResult> results = new ArrayList<>();
+            requests.forEach(request -> results.add(new OrderReservationResult(request.getOrderId(), true, null)));
+            return results;
+        });
+        when(paymentClient.processPayment(any(PaymentRequest.class))).thenAnswer(invocation -> {
+            PaymentRequest request = invocation.getArgument(0);
+            boolean success = request.getAmount().compareTo(new BigDecimal("50.00")) < 0;
+            return success
+                ? new PaymentResponse("PAY-" + request.getOrderId(), "SUCCESS", "Payment processed successfully")
+                : new PaymentResponse(null, "FAILED", "Card declined");
+        });
+
+        Map<String, JsonNode> results = place(Arrays.asList(
+            payload("small", 1L, 1),
+            payload("large", 1L, 10)
+        ));
+
+        assertEquals("COMPLETED", results.get("small").get("status").asText());
+        assertEquals("CANCELLED", results.get("large").get("status").asText());
+        assertTrue(results.get("large").get("error").asText().contains("Card declined"));
+        verify(inventoryClient, times(1)).releaseOrders(List.of(results.get("large").get("orderId").asLong()));
+        verify(inventoryClient, times(1)).confirmOrders(anyList());
+    }
+
+    @Test
+    void testPlaceOrders_SweeperCancellationIsNotOverwritten() throws Exception {
+        when(inventoryClient.reserveStockBatch(anyList())).thenAnswer(invocation -> {
+            List<OrderReservationRequest> requests = invocation.getArgument(0);
+            List<OrderReservationResult> results = new ArrayList<>();
+            requests.forEach(request -> results.add(new OrderReservationResult(request.getOrderId(), true, null)));
+            return results;
+        });
+        when(paymentClient.processPayment(any(PaymentRequest.class)))
+            .thenReturn(new PaymentResponse("PAY-1", "SUCCESS", "Payment processed successfully"));
+        // The sweeper cancelled the order while its payment was running
+        when(orderRepository.transitionStatus(any(), eq(Order.OrderStatus.PAYMENT_PROCESSING), any(), any(), any()))
+            .thenReturn(0);
+
+        Map<String, JsonNode> results = place(Collections.singletonList(payload("A", 1L, 1)));
+
+        assertEquals("CANCELLED", results.get("A").get("status").asText());
+        assertTrue(results.get("A").get("error").asText().contains("cancelled while payment was processing"));
+        verify(inventoryClient, never()).confirmOrders(anyList());
+        verify(orderService, times(1)).recordPaymentConflict(
+            results.get("A").get("orderId").asLong(), Order.OrderStatus.CANCELLED, "PAY-1");
+        verifyNoMoreInteractions(orderService);
+        verifyNoInteractions(salesRollupService);
+    }
+
+    @Test
+    void testPlaceOrders_InventoryOutageCancelsAll() throws Exception {
+        when(inventoryClient.reserveStockBatch(anyList())).thenThrow(new RuntimeException("Connection refused"));
+
+        Map<String, JsonNode> results = place(Arrays.asList(
+            payload("A", 1L, 1),
+            payload("B", 2L, 1)
+        ));
+
+        assertEquals("CANCELLED", results.get("A").get("status").asText());
+        assertEquals("CANCELLED", results.get("B").get("status").asText());
+        assertTrue(results.get("A").get("error").asText().contains("Connection refused"));
+        // Released by order id, so stock reserved by other orders is never touched
+        verify(inventoryClient, times(1)).releaseOrders(List.of(
+            results.get("A").get("orderId").asLong(), results.get("B").get("orderId").asLong()));
+        verifyNoInteractions(paymentClient);
+    }
+
+    @Test
+    void testPlaceOrders_VerifiesAllPricesInOneLookup() throws Exception {
+        when(catalogPriceService.findPriceProblem(any(), eq(2L), any()))
+            .thenReturn("Price of product 2 changed from 10.00 to 12.00, please refresh your cart");
+        when(inventoryClient.reserveStockBatch(anyList())).thenAnswer(invocation -> {
+            List<OrderReservationRequest> requests = invocation.getArgument(0);
+            List<OrderReservationResult> results = new ArrayList<>();
+            requests.forEach(request -> results.add(new OrderReservationResult(request.getOrderId(), true, null)));
+            return results;
+        });
+        when(paymentClient.processPayment(any(PaymentRequest.class)))
+            .thenReturn(new PaymentResponse("PAY-1", "SUCCESS", "Payment processed successfully"));
+
+        Map<String, JsonNode> results = place(Arrays.asList(
+            payload("A", 1L, 1),
+            payload("B", 2L, 1)
+        ));
+
+        assertEquals("COMPLETED", results.get("A").get("status").asText());
+        assertEquals("REJECTED", results.get("B").get("status").asText());
+        assertTrue(results.get("B").get("error").asText().contains("Price of product 2 changed"));
+        verify(catalogPriceService, times(1)).lookup(argThat(ids -> ids.size() == 2));
+        verify(inventoryClient, times(1)).reserveStockBatch(argThat(requests -> requests.size() == 1));
+    }
+
+    @Test
+    void testPlaceOrders_AllInvalidWritesNothingToDatabase() throws Exception {
+        Map<String, JsonNode> results = place(Collections.singletonList(payload("A", 1L, 0)));
+
+        assertEquals("REJECTED", results.get("A").get("status").asText());
+        verify(orderRepository, never()).saveAll(anyList());
+        verifyNoInteractions(inventoryClient, paymentClient);
+    }
+}
@@ -0,0 +1,87 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.client.ProductClient;
+import com.ecommerce.order.dto.ProductDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogPriceService
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogPriceServiceTest {
+
+    @Mock
+    private ProductClient productClient;
+
+    @InjectMocks
+    private CatalogPriceService catalogPriceService;
+
+    private final ProductDTO laptop = new ProductDTO(1L, "Laptop", new BigDecimal("999.99"), true);
+    private final ProductDTO mouse = new ProductDTO(2L, "Mouse", new BigDecimal("29.99"), true);
+
+    @Test
+    void testLookup_FetchesOnlyMissesInOneCall() {
+        when(productClient.getProductsByIds(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(laptop, mouse));
+        when(productClient.getProductsByIds(Collections.singletonList(3L))).thenReturn(Collections.emptyList());
+
+        Map<Long, ProductDTO> first = catalogPriceService.lookup(Arrays.asList(1L, 2L));
+        Map<Long, ProductDTO> second = catalogPriceService.lookup(Arrays.asList(1L, 2L, 3L));
+
+        assertEquals(2, first.size());
+        assertEquals(2, second.size());
+        assertFalse(second.containsKey(3L));
+        verify(productClient, times(1)).getProductsByIds(Arrays.asList(1L, 2L));
+        verify(productClient, times(1)).getProductsByIds(Collections.singletonList(3L));
+    }
+
+    @Test
+    void testLookup_RefetchesAfterTtl() {
+        ReflectionTestUtils.setField(catalogPriceService, "cacheTtl", Duration.ZERO);
+        when(productClient.getProductsByIds(anyList())).thenReturn(Collections.singletonList(laptop));
+
+        catalogPriceService.lookup(Collections.singletonList(1L));
+        catalogPriceService.lookup(Collections.singletonList(1L));
+
+        verify(productClient, times(2)).getProductsByIds(anyList());
+    }
+
+    @Test
+    void testFindPriceProblem() {
+        ProductDTO retired = new ProductDTO(3L, "Old Keyboard", new BigDecimal("19.99"), false);
+        Map<Long, ProductDTO> catalog = Map.of(1L, laptop, 3L, retired);
+
+        assertNull(catalogPriceService.findPriceProblem(catalog, 1L, new BigDecimal("999.990")));
+        assertTrue(catalogPriceService.findPriceProblem(catalog, 1L, new BigDecimal("1.00")).contains("changed"));
+        assertTrue(catalogPriceService.findPriceProblem(catalog, 3L, new BigDecimal("19.99")).contains("no longer available"));
+        assertTrue(catalogPriceService.findPriceProblem(catalog, 4L, new BigDecimal("5.00")).contains("not found"));
+    }
+
+    @Test
+    void testLookup_EvictsWhenFull() {
+        ReflectionTestUtils.setField(catalogPriceService, "maxCachedProducts", 1);
+        when(productClient.getProductsByIds(Collections.singletonList(1L))).thenReturn(List.of(laptop));
+        when(productClient.getProductsByIds(Collections.singletonList(2L))).thenReturn(List.of(mouse));
+
+        catalogPriceService.lookup(Collections.singletonList(1L));
+        catalogPriceService.lookup(Collections.singletonList(2L));
+        catalogPriceService.lookup(Collections.singletonList(1L));
+
+        verify(productClient, times(2)).getProductsByIds(Collections.singletonList(1L));
+    }
+}
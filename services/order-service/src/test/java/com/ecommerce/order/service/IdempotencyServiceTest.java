@@ -0,0 +1,266 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.entity.IdempotencyRecord;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.repository.IdempotencyRecordRepository;
+import com.ecommerce.order.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IdempotencyService
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(1, 1);
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    private final Long userId = 1L;
+
+    private OrderResponse orderResponse(Long id) {
+        OrderResponse response = new OrderResponse();
+        response.setId(id);
+        response.setUserId(userId);
+        response.setStatus("COMPLETED");
+        return response;
+    }
+
+    @Test
+    void testExecute_FirstRequestRunsActionAndStoresOrder() {
+        when(idempotencyRecordRepository.claim(eq("1:key-1"), eq(userId), anyString(), any(), any())).thenReturn(1);
+        when(idempotencyRecordRepository.attachOrder(eq("1:key-1"), anyString(), eq(42L))).thenReturn(1);
+        when(idempotencyRecordRepository.complete(eq("1:key-1"), anyString(), eq(42L))).thenReturn(1);
+
+        IdempotencyService.Result result = idempotencyService.execute(userId, "key-1", onOrderCreated -> {
+            onOrderCreated.accept(42L);
+            return orderResponse(42L);
+        });
+
+        assertFalse(result.isReplayed());
+        assertEquals(42L, result.getResponse().getId());
+        // The order is on the claim before the saga pays for it
+        InOrder inOrder = inOrder(idempotencyRecordRepository);
+        inOrder.verify(idempotencyRecordRepository).attachOrder(eq("1:key-1"), anyString(), eq(42L));
+        inOrder.verify(idempotencyRecordRepository).complete(eq("1:key-1"), anyString(), eq(42L));
+    }
+
+    @Test
+    void testExecute_LostClaimFailsTheSagaBeforePayment() {
+        when(idempotencyRecordRepository.claim(eq("1:key-1"), eq(userId), anyString(), any(), any())).thenReturn(1);
+        // A retry took the claim over while this request stalled
+        when(idempotencyRecordRepository.attachOrder(eq("1:key-1"), anyString(), eq(42L))).thenReturn(0);
+
+        AtomicInteger payments = new AtomicInteger();
+        assertThrows(RuntimeException.class, () ->
+            idempotencyService.execute(userId, "key-1", onOrderCreated -> {
+                onOrderCreated.accept(42L);
+                payments.incrementAndGet();
+                return orderResponse(42L);
+            }));
+
+        assertEquals(0, payments.get());
+        verify(idempotencyRecordRepository, never()).complete(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void testExecute_DuplicateOrderThatLostItsKeyIsHeldForRefund() {
+        when(idempotencyRecordRepository.claim(eq("1:key-1"), eq(userId), anyString(), any(), any())).thenReturn(1);
+        when(idempotencyRecordRepository.complete(eq("1:key-1"), anyString(), eq(42L))).thenReturn(0);
+        OrderResponse paid = orderResponse(42L);
+        paid.setPaymentId("PAY-42");
+
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute(userId, "key-1", onOrderCreated -> paid));
+
+        verify(orderService, times(1)).recordPaymentConflict(42L, Order.OrderStatus.COMPLETED, "PAY-42");
+    }
+
+    @Test
+    void testExecute_CompletedKeyReplaysStoredOrder() {
+        when(idempotencyRecordRepository.claim(eq("1:key-1"), eq(userId), anyString(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.deleteIfExpired(eq("1:key-1"), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("1:key-1")).thenReturn(Optional.of(new IdempotencyRecord(
+            "1:key-1", userId, IdempotencyRecord.Status.COMPLETED, 42L,
+            "claim-1", LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now().plusHours(1))));
+        when(orderService.getOrderById(42L)).thenReturn(orderResponse(42L));
+
+        AtomicInteger executions = new AtomicInteger();
+        IdempotencyService.Result result = idempotencyService.execute(userId, "key-1", onOrderCreated -> {
+            executions.incrementAndGet();
+            return orderResponse(99L);
+        });
+
+        assertTrue(result.isReplayed());
+        assertEquals(42L, result.getResponse().getId());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void testExecute_FailureReleasesKey() {
+        when(idempotencyRecordRepository.claim(eq("1:key-1"), eq(userId), anyString(), any(), any())).thenReturn(1);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            idempotencyService.execute(userId, "key-1", onOrderCreated -> {
+                throw new RuntimeException("Failed to create order: Payment failed");
+            }));
+
+        assertTrue(exception.getMessage().contains("Payment failed"));
+        verify(idempotencyRecordRepository, times(1)).release(eq("1:key-1"), anyString());
+        verify(idempotencyRecordRepository, never()).complete(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void testExecute_ConcurrentDuplicatesWaitForFirstExecution() throws Exception {
+        when(idempotencyRecordRepository.claim(eq("1:key-1"), eq(userId), anyString(), any(), any())).thenReturn(1, 0);
+        when(idempotencyRecordRepository.complete(eq("1:key-1"), anyString(), eq(42L))).thenReturn(1);
+        // Only reached if the duplicate arrives after the first execution has finished
+        lenient().when(idempotencyRecordRepository.findById("1:key-1")).thenReturn(Optional.of(new IdempotencyRecord(
+            "1:key-1", userId, IdempotencyRecord.Status.COMPLETED, 42L,
+            "claim-1", LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now().plusHours(1))));
+        lenient().when(orderService.getOrderById(42L)).thenReturn(orderResponse(42L));
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<IdempotencyService.Result> first = executor.submit(() ->
+                idempotencyService.execute(userId, "key-1", onOrderCreated -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return orderResponse(42L);
+                }));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<IdempotencyService.Result> duplicate = executor.submit(() ->
+                idempotencyService.execute(userId, "key-1", onOrderCreated -> {
+                    executions.incrementAndGet();
+                    return orderResponse(99L);
+                }));
+
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(42L, first.get(5, TimeUnit.SECONDS).getResponse().getId());
+            IdempotencyService.Result duplicateResult = duplicate.get(5, TimeUnit.SECONDS);
+            assertEquals(42L, duplicateResult.getResponse().getId());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testExecute_DuplicateTakesOverStaleClaim() {
+        LocalDateTime longAgo = LocalDateTime.now().minusHours(1);
+        when(idempotencyRecordRepository.claim(eq("1:key-1"), eq(userId), anyString(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.deleteIfExpired(eq("1:key-1"), any())).thenReturn(0);
+        when(idempotencyRecordRepository.takeOverStale(eq("1:key-1"), anyString(), any(), any(), any()))
+            .thenReturn(0, 1);
+        // The owner died mid-saga and stopped refreshing its claim
+        when(idempotencyRecordRepository.findById("1:key-1")).thenReturn(Optional.of(new IdempotencyRecord(
+            "1:key-1", userId, IdempotencyRecord.Status.IN_PROGRESS, null,
+            "dead-claim", longAgo, longAgo, LocalDateTime.now().plusHours(1))));
+
+        when(idempotencyRecordRepository.complete(eq("1:key-1"), anyString(), eq(43L))).thenReturn(1);
+
+        IdempotencyService.Result result = idempotencyService.execute(userId, "key-1", onOrderCreated -> orderResponse(43L));
+
+        assertFalse(result.isReplayed());
+        assertEquals(43L, result.getResponse().getId());
+        verify(idempotencyRecordRepository, times(1))
+            .complete(eq("1:key-1"), argThat(claimId -> !"dead-claim".equals(claimId)), eq(43L));
+    }
+
+    @Test
+    void testExecute_TakeoverReplaysOrderTheStalledOwnerCompleted() {
+        LocalDateTime longAgo = LocalDateTime.now().minusHours(1);
+        when(idempotencyRecordRepository.claim(eq("1:key-1"), eq(userId), anyString(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.deleteIfExpired(eq("1:key-1"), any())).thenReturn(0);
+        when(idempotencyRecordRepository.takeOverStale(eq("1:key-1"), anyString(), any(), any(), any())).thenReturn(1);
+        // The owner placed and paid order 42 but stopped refreshing its claim before completing the key
+        when(idempotencyRecordRepository.findById("1:key-1")).thenReturn(Optional.of(new IdempotencyRecord(
+            "1:key-1", userId, IdempotencyRecord.Status.IN_PROGRESS, 42L,
+            "stalled-claim", longAgo, longAgo, LocalDateTime.now().plusHours(1))));
+        when(orderService.getOrderById(42L)).thenReturn(orderResponse(42L));
+
+        AtomicInteger executions = new AtomicInteger();
+        IdempotencyService.Result result = idempotencyService.execute(userId, "key-1", onOrderCreated -> {
+            executions.incrementAndGet();
+            return orderResponse(43L);
+        });
+
+        assertTrue(result.isReplayed());
+        assertEquals(42L, result.getResponse().getId());
+        assertEquals(0, executions.get());
+        verify(idempotencyRecordRepository, times(1)).complete(eq("1:key-1"), anyString(), eq(42L));
+    }
+
+    @Test
+    void testExecute_TakeoverWaitsWhileAttachedOrderMayStillBePaid() {
+        LocalDateTime longAgo = LocalDateTime.now().minusHours(1);
+        when(idempotencyRecordRepository.claim(eq("1:key-1"), eq(userId), anyString(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.deleteIfExpired(eq("1:key-1"), any())).thenReturn(0);
+        when(idempotencyRecordRepository.takeOverStale(eq("1:key-1"), anyString(), any(), any(), any())).thenReturn(1);
+        when(idempotencyRecordRepository.findById("1:key-1")).thenReturn(Optional.of(new IdempotencyRecord(
+            "1:key-1", userId, IdempotencyRecord.Status.IN_PROGRESS, 42L,
+            "stalled-claim", longAgo, longAgo, LocalDateTime.now().plusHours(1))));
+        OrderResponse paying = orderResponse(42L);
+        paying.setStatus("PAYMENT_PROCESSING");
+        when(orderService.getOrderById(42L)).thenReturn(paying);
+
+        AtomicInteger executions = new AtomicInteger();
+        assertThrows(IdempotencyService.RequestInProgressException.class, () ->
+            idempotencyService.execute(userId, "key-1", onOrderCreated -> {
+                executions.incrementAndGet();
+                return orderResponse(43L);
+            }));
+
+        assertEquals(0, executions.get());
+        // The claim is kept, so no retry can start a second order meanwhile
+        verify(idempotencyRecordRepository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void testExecute_RejectsOversizedKey() {
+        String key = "k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1);
+
+        assertThrows(IllegalArgumentException.class, () ->
+            idempotencyService.execute(userId, key, onOrderCreated -> orderResponse(1L)));
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.sharding.ShardRouter;
+import com.ecommerce.order.sharding.ShardSchemaInitializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OrderExportService, against an embedded H2 database
+ */
+class OrderExportServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ShardRouter shardRouter = new ShardRouter(1, 1);
+    private JdbcTemplate jdbcTemplate;
+    private OrderExportService orderExportService;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:order_export_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        ShardSchemaInitializer.initialize(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        orderExportService = new OrderExportService(dataSource, new DataSourceTransactionManager(dataSource), 2);
+        ReflectionTestUtils.setField(orderExportService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(orderExportService, "shardRouter", shardRouter);
+
+        // Ids out of creation order, to show the export follows created_at
+        insertOrder(30, DAY.atTime(9, 0));
+        insertItem(301, 30, 7, "Laptop", "999.00", 1);
+        insertItem(302, 30, 8, "Cable, \"USB-C\"\n2m", "10.00", 2);
+        insertOrder(10, DAY.atTime(18, 30));
+        insertOrder(20, DAY.minusDays(1).atTime(23, 59));
+        insertOrder(40, DAY.plusDays(1).atStartOfDay());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        shardRouter.destroy();
+    }
+
+    private void insertOrder(long id, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, status, total_amount, payment_id, created_at, updated_at) "
+            + "VALUES (?, 5, 'COMPLETED', 1019.00, 'pay-" + id + "', ?, ?)", id, createdAt, createdAt);
+    }
+
+    private void insertItem(long id, long orderId, long productId, String name, String price, int quantity) {
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, product_name, price, quantity, subtotal) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)", id, orderId, productId, name, new BigDecimal(price), quantity,
+            new BigDecimal(price).multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    private String export(LocalDate from, LocalDate to, OrderExportService.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderExportService.exportOrders(from, to, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testNdjson_OneOrderPerLineWithItemsNested() throws IOException {
+        List<String> lines = export(DAY, DAY, OrderExportService.Format.NDJSON).lines().toList();
+
+        assertEquals(2, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("30", first.get("id").asText());
+        assertEquals("pay-30", first.get("paymentId").asText());
+        assertEquals("2024-03-15T09:00", first.get("createdAt").asText());
+        assertEquals(2, first.get("items").size());
+        Set<String> names = new HashSet<>();
+        first.get("items").forEach(item -> names.add(item.get("productName").asText()));
+        assertEquals(Set.of("Laptop", "Cable, \"USB-C\"\n2m"), names);
+
+        JsonNode second = objectMapper.readTree(lines.get(1));
+        assertEquals(10, second.get("id").asLong());
+        assertEquals(0, second.get("items").size());
+    }
+
+    @Test
+    void testCsv_OneLinePerItemWithEscaping() throws IOException {
+        String csv = export(DAY, DAY, OrderExportService.Format.CSV);
+
+        assertTrue(csv.startsWith("order_id,user_id,status,total_amount,payment_id,created_at,updated_at,"
+            + "product_id,product_name,price,quantity,subtotal\n"));
+        assertTrue(csv.contains("30,5,COMPLETED,1019.00,pay-30,2024-03-15T09:00,2024-03-15T09:00,7,Laptop,999.00,1,999.00\n"));
+        assertTrue(csv.contains(",8,\"Cable, \"\"USB-C\"\"\n2m\",10.00,2,20.00\n"));
+        // An order without items is written once, with empty item columns
+        assertTrue(csv.endsWith("10,5,COMPLETED,1019.00,pay-10,2024-03-15T18:30,2024-03-15T18:30,,,,,\n"));
+    }
+
+    @Test
+    void testExport_DateRangeIsInclusiveOfBothDays() throws IOException {
+        List<Long> ids = export(DAY.minusDays(1), DAY.plusDays(1), OrderExportService.Format.NDJSON).lines()
+            .map(line -> {
+                try {
+                    return objectMapper.readTree(line).get("id").asLong();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            })
+            .toList();
+
+        assertEquals(List.of(20L, 30L, 10L, 40L), ids);
+        assertEquals("", export(DAY.plusDays(2), DAY.plusDays(3), OrderExportService.Format.NDJSON));
+    }
+}
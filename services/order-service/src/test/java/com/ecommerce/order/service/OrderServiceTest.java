@@ -14,10 +14,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -49,6 +53,15 @@ class OrderServiceTest {
     @Mock
     private RabbitTemplate rabbitTemplate;
 
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private CatalogPriceService catalogPriceService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private OrderService orderService;
 
@@ -115,14 +128,18 @@ class OrderServiceTest {
         failedPaymentResponse.setMessage("Insufficient funds");
     }
 
+    private List<OrderReservationResult> reserved() {
+        return List.of(new OrderReservationResult(1L, true, null));
+    }
+
     @Test
     void testCreateOrder_Success() {
         // Arrange
         when(cartClient.getCart(anyString())).thenReturn(testCart);
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
-        doNothing().when(inventoryClient).reserveStock(any(ReserveStockRequest.class));
+        when(inventoryClient.reserveStockBatch(anyList())).thenReturn(reserved());
+        when(orderRepository.transitionStatus(eq(1L), any(), any(), any(), any())).thenReturn(1);
         when(paymentClient.processPayment(any(PaymentRequest.class))).thenReturn(successPaymentResponse);
-        doNothing().when(inventoryClient).confirmReservation(any(ReserveStockRequest.class));
         doNothing().when(cartClient).clearCart(anyString());
         doNothing().when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(OrderEvent.class));
 
@@ -132,16 +149,84 @@ class OrderServiceTest {
         // Assert
         assertNotNull(response);
         verify(cartClient, times(1)).getCart(userId.toString());
-        verify(orderRepository, atLeast(1)).save(any(Order.class));
-        verify(inventoryClient, times(2)).reserveStock(any(ReserveStockRequest.class));
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(inventoryClient, times(1)).reserveStockBatch(argThat(requests ->
+            requests.size() == 1 && requests.get(0).getOrderId() == 1L && requests.get(0).getItems().size() == 2));
         verify(paymentClient, times(1)).processPayment(any(PaymentRequest.class));
-        verify(inventoryClient, times(2)).confirmReservation(any(ReserveStockRequest.class));
+        verify(orderRepository, times(1)).transitionStatus(eq(1L), eq(Order.OrderStatus.PAYMENT_PROCESSING),
+            eq(Order.OrderStatus.COMPLETED), eq("PAY-123"), any(LocalDateTime.class));
+        verify(inventoryClient, times(1)).confirmOrders(List.of(1L));
         verify(cartClient, times(1)).clearCart(userId.toString());
         verify(rabbitTemplate, times(1)).convertAndSend(
             eq(RabbitMQConfig.ORDER_EXCHANGE),
             eq(RabbitMQConfig.ORDER_ROUTING_KEY),
             any(OrderEvent.class)
         );
+        verify(salesRollupService, times(1)).recordOrderOutcome(eq(testOrder), any(LocalDateTime.class));
+        // The COMPLETED status and its rollup entry commit together
+        verify(transactionTemplate, times(1)).execute(any());
+        assertEquals("COMPLETED", response.getStatus());
+    }
+
+    @Test
+    void testCreateOrder_SweeperCancelledDuringPaymentIsNotOverwritten() {
+        // Arrange
+        when(cartClient.getCart(anyString())).thenReturn(testCart);
+        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(inventoryClient.reserveStockBatch(anyList())).thenReturn(reserved());
+        when(orderRepository.transitionStatus(eq(1L), eq(Order.OrderStatus.PENDING), any(), any(), any())).thenReturn(1);
+        // The sweeper moved the order to CANCELLED while the payment was running
+        when(orderRepository.transitionStatus(eq(1L), eq(Order.OrderStatus.PAYMENT_PROCESSING), any(), any(), any()))
+            .thenReturn(0);
+        when(paymentClient.processPayment(any(PaymentRequest.class))).thenReturn(successPaymentResponse);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> orderService.createOrder(userId, userEmail));
+
+        verify(inventoryClient, never()).confirmOrders(anyList());
+        verify(inventoryClient, times(1)).releaseOrders(List.of(1L));
+        verify(cartClient, never()).clearCart(anyString());
+        // Neither the COMPLETED nor the saga's own CANCELLED is recorded on top of the sweeper's
+        verify(salesRollupService, never()).recordOrderOutcome(any(Order.class), any(LocalDateTime.class));
+        // The charged order is held for a refund instead of staying silently cancelled
+        verify(orderRepository, times(1)).transitionStatus(eq(1L), eq(Order.OrderStatus.CANCELLED),
+            eq(Order.OrderStatus.PAYMENT_CONFLICT), eq("PAY-123"), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testCreateOrder_FollowUpFailureKeepsOrderCompleted() {
+        // Arrange
+        when(cartClient.getCart(anyString())).thenReturn(testCart);
+        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(inventoryClient.reserveStockBatch(anyList())).thenReturn(reserved());
+        when(orderRepository.transitionStatus(eq(1L), any(), any(), any(), any())).thenReturn(1);
+        when(paymentClient.processPayment(any(PaymentRequest.class))).thenReturn(successPaymentResponse);
+        doThrow(new RuntimeException("Inventory service unavailable")).when(inventoryClient).confirmOrders(anyList());
+
+        // Act
+        OrderResponse response = orderService.createOrder(userId, userEmail);
+
+        // Assert
+        assertEquals("COMPLETED", response.getStatus());
+        verify(inventoryClient, never()).releaseOrders(anyList());
+        verify(orderRepository, never()).transitionStatus(any(), any(), eq(Order.OrderStatus.CANCELLED), any(), any());
+    }
+
+    @Test
+    void testCreateOrder_FailingOnOrderCreatedCancelsBeforePayment() {
+        // Arrange
+        when(cartClient.getCart(anyString())).thenReturn(testCart);
+        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(orderRepository.transitionStatus(eq(1L), eq(Order.OrderStatus.PENDING), eq(Order.OrderStatus.CANCELLED),
+            any(), any())).thenReturn(1);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> orderService.createOrder(userId, userEmail, orderId -> {
+            throw new RuntimeException("Request with this Idempotency-Key was taken over by a retry");
+        }));
+
+        verify(inventoryClient, never()).reserveStockBatch(anyList());
+        verify(paymentClient, never()).processPayment(any(PaymentRequest.class));
     }
 
     @Test
@@ -161,14 +246,32 @@ class OrderServiceTest {
         verify(orderRepository, never()).save(any(Order.class));
     }
 
+    @Test
+    void testCreateOrder_PriceChangedRejectsBeforeCreatingOrder() {
+        // Arrange
+        when(cartClient.getCart(anyString())).thenReturn(testCart);
+        when(catalogPriceService.findPriceProblem(any(), eq(101L), any()))
+            .thenReturn("Price of product 101 changed from 100.00 to 120.00, please refresh your cart");
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            orderService.createOrder(userId, userEmail);
+        });
+
+        assertTrue(exception.getMessage().contains("Price of product 101 changed"));
+        verify(catalogPriceService, times(1)).lookup(argThat(ids -> ids.containsAll(Arrays.asList(101L, 102L))));
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(inventoryClient, never()).reserveStockBatch(anyList());
+    }
+
     @Test
     void testCreateOrder_PaymentFailed() {
         // Arrange
         when(cartClient.getCart(anyString())).thenReturn(testCart);
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
-        doNothing().when(inventoryClient).reserveStock(any(ReserveStockRequest.class));
+        when(inventoryClient.reserveStockBatch(anyList())).thenReturn(reserved());
+        when(orderRepository.transitionStatus(eq(1L), any(), any(), any(), any())).thenReturn(1);
         when(paymentClient.processPayment(any(PaymentRequest.class))).thenReturn(failedPaymentResponse);
-        doNothing().when(inventoryClient).releaseStock(any(ReserveStockRequest.class));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -177,10 +280,11 @@ class OrderServiceTest {
 
         assertTrue(exception.getMessage().contains("Payment failed"));
         verify(cartClient, times(1)).getCart(userId.toString());
-        verify(inventoryClient, times(2)).reserveStock(any(ReserveStockRequest.class));
+        verify(inventoryClient, times(1)).reserveStockBatch(anyList());
         verify(paymentClient, times(1)).processPayment(any(PaymentRequest.class));
-        verify(inventoryClient, times(2)).releaseStock(any(ReserveStockRequest.class));
+        verify(inventoryClient, times(1)).releaseOrders(List.of(1L));
         verify(cartClient, never()).clearCart(anyString());
+        verify(salesRollupService, times(1)).recordOrderOutcome(any(Order.class), any(LocalDateTime.class));
     }
 
     @Test
@@ -188,7 +292,9 @@ class OrderServiceTest {
         // Arrange
         when(cartClient.getCart(anyString())).thenReturn(testCart);
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
-        doThrow(new RuntimeException("Insufficient stock")).when(inventoryClient).reserveStock(any(ReserveStockRequest.class));
+        when(inventoryClient.reserveStockBatch(anyList()))
+            .thenReturn(List.of(new OrderReservationResult(1L, false, "Insufficient stock for product 101")));
+        when(orderRepository.transitionStatus(eq(1L), any(), any(), any(), any())).thenReturn(1);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -197,8 +303,11 @@ class OrderServiceTest {
 
         assertTrue(exception.getMessage().contains("Failed to create order"));
         verify(cartClient, times(1)).getCart(userId.toString());
-        verify(inventoryClient, atLeastOnce()).reserveStock(any(ReserveStockRequest.class));
+        assertTrue(exception.getMessage().contains("Insufficient stock"));
+        verify(inventoryClient, times(1)).reserveStockBatch(anyList());
         verify(paymentClient, never()).processPayment(any(PaymentRequest.class));
+        verify(orderRepository, times(1)).transitionStatus(eq(1L), eq(Order.OrderStatus.PENDING),
+            eq(Order.OrderStatus.CANCELLED), isNull(), any(LocalDateTime.class));
     }
 
     @Test
@@ -273,15 +382,32 @@ class OrderServiceTest {
         // Arrange
         testOrder.setStatus(Order.OrderStatus.PENDING);
         when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
-        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(orderRepository.transitionStatus(eq(1L), eq(Order.OrderStatus.PENDING), eq(Order.OrderStatus.CANCELLED),
+            any(), any())).thenReturn(1);
 
         // Act
         OrderResponse response = orderService.cancelOrder(1L, userId);
 
         // Assert
         assertNotNull(response);
+        assertEquals("CANCELLED", response.getStatus());
         verify(orderRepository, times(1)).findById(1L);
-        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(inventoryClient, times(1)).releaseOrders(List.of(1L));
+        verify(salesRollupService, times(1)).recordOrderOutcome(eq(testOrder), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testCancelOrder_StatusChangedMeanwhile() {
+        // Arrange
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.transitionStatus(eq(1L), any(), any(), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> orderService.cancelOrder(1L, userId));
+
+        assertTrue(exception.getMessage().contains("Order status changed"));
+        verifyNoInteractions(salesRollupService);
+        verify(inventoryClient, never()).releaseOrders(anyList());
     }
 
     @Test
@@ -322,9 +448,9 @@ class OrderServiceTest {
         // Arrange
         when(cartClient.getCart(anyString())).thenReturn(testCart);
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
-        doNothing().when(inventoryClient).reserveStock(any(ReserveStockRequest.class));
+        when(inventoryClient.reserveStockBatch(anyList())).thenReturn(reserved());
+        when(orderRepository.transitionStatus(eq(1L), any(), any(), any(), any())).thenReturn(1);
         when(paymentClient.processPayment(any(PaymentRequest.class))).thenReturn(failedPaymentResponse);
-        doNothing().when(inventoryClient).releaseStock(any(ReserveStockRequest.class));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> {
@@ -332,6 +458,6 @@ class OrderServiceTest {
         });
 
         // Verify compensating transaction (inventory release) was called
-        verify(inventoryClient, times(2)).releaseStock(any(ReserveStockRequest.class));
+        verify(inventoryClient, times(1)).releaseOrders(List.of(1L));
     }
 }
@@ -0,0 +1,148 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.SalesRollupResponse;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatusRollup;
+import com.ecommerce.order.entity.RollupGranularity;
+import com.ecommerce.order.repository.OrderStatusRollupRepository;
+import com.ecommerce.order.repository.ProductSalesRollupRepository;
+import com.ecommerce.order.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SalesRollupService
+ */
+@ExtendWith(MockitoExtension.class)
+class SalesRollupServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private OrderStatusRollupRepository statusRollupRepository;
+
+    @Mock
+    private ProductSalesRollupRepository productRollupRepository;
+
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(1, 1);
+
+    @InjectMocks
+    private SalesRollupService salesRollupService;
+
+    private Order testOrder;
+    private final LocalDateTime outcomeTime = LocalDateTime.of(2024, 3, 15, 14, 37, 42);
+
+    @BeforeEach
+    void setUp() {
+        testOrder = new Order();
+        testOrder.setId(1L);
+        testOrder.setUserId(1L);
+        testOrder.setTotalAmount(new BigDecimal("250.00"));
+
+        OrderItem item1 = new OrderItem();
+        item1.setProductId(102L);
+        item1.setQuantity(1);
+        item1.setSubtotal(new BigDecimal("50.00"));
+        testOrder.addItem(item1);
+
+        OrderItem item2 = new OrderItem();
+        item2.setProductId(101L);
+        item2.setQuantity(2);
+        item2.setSubtotal(new BigDecimal("200.00"));
+        testOrder.addItem(item2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecordOrderOutcome_CompletedUpdatesStatusAndProductRollups() {
+        testOrder.setStatus(Order.OrderStatus.COMPLETED);
+
+        salesRollupService.recordOrderOutcome(testOrder, outcomeTime);
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), captor.capture());
+
+        List<Object[]> statusRows = captor.getAllValues().get(0);
+        assertEquals(3, statusRows.size());
+        assertEquals("MINUTE", statusRows.get(0)[0]);
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2024, 3, 15, 14, 37)), statusRows.get(0)[1]);
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2024, 3, 15, 14, 0)), statusRows.get(1)[1]);
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2024, 3, 15, 0, 0)), statusRows.get(2)[1]);
+        assertEquals("COMPLETED", statusRows.get(0)[2]);
+
+        // Two products x three granularities, lowest product id first
+        List<Object[]> productRows = captor.getAllValues().get(1);
+        assertEquals(6, productRows.size());
+        assertEquals(101L, productRows.get(0)[2]);
+        assertEquals(2, productRows.get(0)[3]);
+        assertEquals(102L, productRows.get(1)[2]);
+    }
+
+    @Test
+    void testRecordOrderOutcome_CancelledSkipsProductRollups() {
+        testOrder.setStatus(Order.OrderStatus.CANCELLED);
+
+        salesRollupService.recordOrderOutcome(testOrder, outcomeTime);
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void testRecordOrderOutcome_IgnoresNonFinalStatus() {
+        testOrder.setStatus(Order.OrderStatus.PAYMENT_PROCESSING);
+
+        salesRollupService.recordOrderOutcome(testOrder, outcomeTime);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testGetSalesRollup_MergesStatusesPerBucket() {
+        LocalDateTime bucket = LocalDateTime.of(2024, 3, 15, 14, 0);
+        when(statusRollupRepository
+            .findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                eq(RollupGranularity.HOUR), any(), any()))
+            .thenReturn(Arrays.asList(
+                new OrderStatusRollup(1L, RollupGranularity.HOUR, bucket, "COMPLETED", 3L, new BigDecimal("300.00")),
+                new OrderStatusRollup(2L, RollupGranularity.HOUR, bucket, "CANCELLED", 1L, new BigDecimal("40.00"))
+            ));
+
+        List<SalesRollupResponse> result = salesRollupService.getSalesRollup(
+            RollupGranularity.HOUR, bucket, bucket.plusHours(1));
+
+        assertEquals(1, result.size());
+        assertEquals(3L, result.get(0).getCompletedOrders());
+        assertEquals(1L, result.get(0).getCancelledOrders());
+        assertEquals(new BigDecimal("300.00"), result.get(0).getRevenue());
+        assertEquals(0.75, result.get(0).getSuccessRate(), 1e-9);
+    }
+
+    @Test
+    void testPurgeMinuteBuckets_DeletesOnlyMinuteRowsBeforeCutoff() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.of(2024, 3, 8, 14, 37));
+        when(jdbcTemplate.update(startsWith("DELETE FROM order_status_rollups"), eq("MINUTE"), eq(cutoff))).thenReturn(4);
+        when(jdbcTemplate.update(startsWith("DELETE FROM product_sales_rollups"), eq("MINUTE"), eq(cutoff))).thenReturn(9);
+
+        assertEquals(13, salesRollupService.purgeMinuteBucketsBefore(outcomeTime.minusDays(7)));
+    }
+}
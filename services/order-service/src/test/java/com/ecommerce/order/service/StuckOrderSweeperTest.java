@@ -0,0 +1,111 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.client.InventoryClient;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.repository.OrderRepository;
+import com.ecommerce.order.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StuckOrderSweeper
+ */
+@ExtendWith(MockitoExtension.class)
+class StuckOrderSweeperTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private InventoryClient inventoryClient;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(1, 1);
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private StuckOrderSweeper stuckOrderSweeper;
+
+    private final LocalDateTime cutoff = LocalDateTime.of(2024, 3, 15, 14, 0);
+
+    private Order stuckOrder(Long id, Order.OrderStatus status, Long... productIds) {
+        Order order = new Order();
+        order.setId(id);
+        order.setUserId(1L);
+        order.setStatus(status);
+        order.setTotalAmount(new BigDecimal("10.00"));
+        for (Long productId : productIds) {
+            OrderItem item = new OrderItem();
+            item.setProductId(productId);
+            item.setQuantity(2);
+            item.setSubtotal(new BigDecimal("5.00"));
+            order.addItem(item);
+        }
+        return order;
+    }
+
+    @Test
+    void testSweep_ReleasesBatchInventoryOnceAndCancelsOrders() {
+        Order pending = stuckOrder(1L, Order.OrderStatus.PENDING, 102L, 101L);
+        Order paying = stuckOrder(2L, Order.OrderStatus.PAYMENT_PROCESSING, 101L);
+        when(orderRepository.claimStuckOrders(eq(StuckOrderSweeper.STUCK_STATUSES), eq(cutoff), any()))
+            .thenReturn(Arrays.asList(pending, paying));
+
+        int cancelled = stuckOrderSweeper.sweep(cutoff);
+
+        assertEquals(2, cancelled);
+        assertEquals(Order.OrderStatus.CANCELLED, pending.getStatus());
+        assertEquals(Order.OrderStatus.CANCELLED, paying.getStatus());
+
+        // Only what inventory-service holds for these orders is released, in one call
+        verify(inventoryClient, times(1)).releaseOrders(List.of(1L, 2L));
+        verify(orderRepository, times(1)).saveAll(anyList());
+        verify(salesRollupService, times(2)).recordOrderOutcome(any(Order.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testSweep_NothingStuckDoesNothing() {
+        when(orderRepository.claimStuckOrders(any(), any(), any())).thenReturn(Collections.emptyList());
+
+        assertEquals(0, stuckOrderSweeper.sweep(cutoff));
+
+        verifyNoInteractions(inventoryClient, salesRollupService);
+        verify(orderRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testSweep_ReleaseFailureLeavesOrdersForNextRun() {
+        Order pending = stuckOrder(1L, Order.OrderStatus.PENDING, 101L);
+        when(orderRepository.claimStuckOrders(any(), any(), any())).thenReturn(Collections.singletonList(pending));
+        doThrow(new RuntimeException("Inventory service unavailable"))
+            .when(inventoryClient).releaseOrders(anyList());
+
+        assertEquals(0, stuckOrderSweeper.sweep(cutoff));
+
+        assertEquals(Order.OrderStatus.PENDING, pending.getStatus());
+        verify(orderRepository, never()).saveAll(anyList());
+        verifyNoInteractions(salesRollupService);
+    }
+}
@@ -0,0 +1,160 @@
+package com.ecommerce.order.sharding;
+
+import com.ecommerce.order.id.SnowflakeIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sharding tests against several embedded H2 databases, one per shard
+ */
+class ShardRoutingTest {
+
+    private static final int SHARDS = 3;
+
+    private final List<DataSource> shards = new ArrayList<>();
+    private ShardRouter shardRouter;
+    private JdbcTemplate routedJdbc;
+    private ShardRoutingDataSource routingDataSource;
+    private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1, 0);
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < SHARDS; i++) {
+            DataSource shard = new DriverManagerDataSource(
+                "jdbc:h2:mem:order_shard_" + i + "_" + run + ";DB_CLOSE_DELAY=-1", "sa", "");
+            ShardSchemaInitializer.initialize(shard);
+            shards.add(shard);
+            targets.put(i, shard);
+        }
+
+        routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(targets.get(0));
+        routingDataSource.afterPropertiesSet();
+
+        shardRouter = new ShardRouter(SHARDS, SHARDS);
+        routedJdbc = new JdbcTemplate(routingDataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardRouter.destroy();
+        for (DataSource shard : shards) {
+            new JdbcTemplate(shard).execute("SHUTDOWN");
+        }
+    }
+
+    private void insertOrder(long userId) {
+        int shard = shardRouter.shardForUser(userId);
+        shardRouter.onShard(shard, () -> routedJdbc.update(
+            "INSERT INTO orders (id, user_id, status, total_amount, created_at, updated_at) " +
+            "VALUES (?, ?, 'COMPLETED', 10.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", idGenerator.nextId(shard), userId));
+    }
+
+    @Test
+    void testOrdersLandOnOwningShard() {
+        for (long userId = 1; userId <= 30; userId++) {
+            insertOrder(userId);
+        }
+
+        int total = 0;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<Long> userIds = new JdbcTemplate(shards.get(shard))
+                .queryForList("SELECT user_id FROM orders", Long.class);
+            total += userIds.size();
+
+            for (Long userId : userIds) {
+                assertEquals(shard, shardRouter.shardForUser(userId));
+            }
+        }
+        assertEquals(30, total);
+    }
+
+    @Test
+    void testOrderIdNamesItsShard() {
+        for (long userId = 1; userId <= 30; userId++) {
+            insertOrder(userId);
+        }
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            for (Long orderId : new JdbcTemplate(shards.get(shard)).queryForList("SELECT id FROM orders", Long.class)) {
+                assertEquals(shard, shardRouter.shardForOrder(orderId));
+                assertEquals(1L, shardRouter.onShardForOrder(orderId, () -> routedJdbc.queryForObject(
+                    "SELECT COUNT(*) FROM orders WHERE id = ?", Long.class, orderId)));
+            }
+        }
+        assertThrows(RuntimeException.class, () -> shardRouter.shardForOrder(idGenerator.nextId(SHARDS)));
+    }
+
+    @Test
+    void testFanOutQueriesEveryShard() {
+        for (long userId = 1; userId <= 30; userId++) {
+            insertOrder(userId);
+        }
+
+        List<Long> counts = shardRouter.fanOut(shard ->
+            routedJdbc.queryForObject("SELECT COUNT(*) FROM orders", Long.class));
+
+        assertEquals(SHARDS, counts.size());
+        assertEquals(30L, counts.stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void testUsersSpreadEvenlyAcrossShards() {
+        int[] perShard = new int[SHARDS];
+        for (long userId = 1; userId <= 3000; userId++) {
+            perShard[shardRouter.shardForUser(userId)]++;
+        }
+
+        for (int count : perShard) {
+            assertTrue(count > 800 && count < 1200, "Unbalanced shard with " + count + " users");
+        }
+    }
+
+    @Test
+    void testCannotSwitchShardInsideTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(routingDataSource));
+
+        assertThrows(IllegalStateException.class, () -> shardRouter.onShard(0, () ->
+            transaction.execute(status -> shardRouter.onShard(1, () -> "unreachable"))));
+    }
+
+    @Test
+    void testCannotSwitchShardInsideTransactionStartedWithoutShard() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(routingDataSource));
+
+        // The transaction's connection went to the default shard
+        assertThrows(IllegalStateException.class, () ->
+            transaction.execute(status -> shardRouter.onShard(1, () -> "unreachable")));
+    }
+
+    @Test
+    void testReenteringBoundShardInsideTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(routingDataSource));
+
+        Long count = shardRouter.onShard(1, () -> transaction.execute(status -> shardRouter.onShard(1, () -> {
+            routedJdbc.update("INSERT INTO orders (id, user_id, status, total_amount, created_at, updated_at) " +
+                "VALUES (?, 7, 'COMPLETED', 10.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", idGenerator.nextId(1));
+            return routedJdbc.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+        })));
+
+        assertEquals(1L, count);
+        assertEquals(1L, new JdbcTemplate(shards.get(1)).queryForObject("SELECT COUNT(*) FROM orders", Long.class));
+    }
+}
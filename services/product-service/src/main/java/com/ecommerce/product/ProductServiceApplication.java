@@ -3,6 +3,7 @@ package com.ecommerce.product;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Product Service Application
@@ -11,7 +12,8 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  *
  * Key Features:
  * - Product CRUD operations
- * - Product search and filtering
+ * - Ranked full-text product search from an in-memory index
+ * - Product filtering and paged listings
  * - PostgreSQL database with Flyway migrations
  * - Service discovery with Eureka
  * - Distributed tracing with Zipkin
@@ -22,6 +24,7 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  */
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
 public class ProductServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,345 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.entity.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Product Cache
+ *
+ * Read-through cache of product lookups: a bounded in-process L1 (Caffeine) in
+ * front of an L2 in Redis that all replicas share, in front of the database.
+ * Entries are single products (id:{id}) and the active-product lists (all,
+ * category:{category}, brand:{brand}), kept in Redis under KEY_PREFIX. L1 is bounded
+ * by the number of products it holds (product.cache.l1-max-weight), so the
+ * full list counts as many entries as it has products.
+ *
+ * Writes evict exactly the entries they affect once their transaction has
+ * committed: from this instance's L1, from Redis, and, through a message on
+ * INVALIDATION_CHANNEL, from every other replica's L1. A load only fills the
+ * cache if no eviction arrived while it was in flight: L1 checks this
+ * instance's generation, and L2 is written by a script that compares the
+ * shared GENERATION_KEY, which every eviction bumps before deleting keys, so a
+ * replica that has not yet heard of an eviction cannot put a stale value back.
+ * Both levels also expire (l1-ttl, l2-ttl) in case an eviction is lost. Bulk writes such as catalog
+ * imports drop every entry once instead (evictAll, broadcast as EVICT_ALL).
+ * Redis errors never fail a read; the lookup falls through to the database.
+ *
+ * Cached responses are shared between callers and must not be modified.
+ *
+ * Metrics: cache.gets/cache.evictions/cache.load.duration (tag cache=product, L1),
+ * product.cache.hit.ratio (tag level=l1|l2), product.cache.load (tag
+ * source=redis|database) and product.cache.invalidations (tag origin=write|broadcast).
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.cache", name = "enabled", havingValue = "true")
+public class ProductCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCache.class);
+
+    public static final String INVALIDATION_CHANNEL = "product:cache:invalidations";
+
+    static final String KEY_PREFIX = "product:cache:";
+    // Outside KEY_PREFIX, so evictAll's scan does not delete it
+    static final String GENERATION_KEY = "product:cache-generation";
+    static final String ALL_KEY = "all";
+    // Invalidation message that drops every entry; no key is ever "*"
+    static final String EVICT_ALL = "*";
+    private static final int SCAN_BATCH = 1000;
+
+    private static final RedisScript<Long> SET_IF_GENERATION =
+        RedisScript.of(new ClassPathResource("scripts/product-cache-set.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration l2Ttl;
+    private final Cache<String, Object> l1;
+
+    private final JavaType productType;
+    private final JavaType productListType;
+
+    // Bumped on every eviction; a load that saw another value must not fill the cache
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final Timer redisLoads;
+    private final Timer databaseLoads;
+    private final Counter writeInvalidations;
+    private final Counter broadcastInvalidations;
+
+    public ProductCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                        @Value("${product.cache.l1-max-weight:100000}") long l1MaxWeight,
+                        @Value("${product.cache.l1-ttl:10m}") Duration l1Ttl,
+                        @Value("${product.cache.l2-ttl:1h}") Duration l2Ttl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.l2Ttl = l2Ttl;
+        this.l1 = Caffeine.newBuilder()
+            .maximumWeight(l1MaxWeight)
+            .weigher((String key, Object value) -> value instanceof List<?> list ? Math.max(1, list.size()) : 1)
+            .expireAfterWrite(l1Ttl)
+            .recordStats()
+            .build();
+
+        this.productType = objectMapper.constructType(ProductResponse.class);
+        this.productListType = objectMapper.getTypeFactory().constructCollectionType(List.class, ProductResponse.class);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, l1, "product");
+        Gauge.builder("product.cache.hit.ratio", l1, cache -> cache.stats().hitRate())
+            .tag("level", "l1")
+            .description("Share of product lookups served from the in-process cache")
+            .register(meterRegistry);
+        Gauge.builder("product.cache.hit.ratio", this, ProductCache::l2HitRatio)
+            .tag("level", "l2")
+            .description("Share of in-process cache misses served from Redis")
+            .register(meterRegistry);
+        this.redisLoads = loadTimer(meterRegistry, "redis");
+        this.databaseLoads = loadTimer(meterRegistry, "database");
+        this.writeInvalidations = invalidationCounter(meterRegistry, "write");
+        this.broadcastInvalidations = invalidationCounter(meterRegistry, "broadcast");
+    }
+
+    public ProductResponse getProduct(Long id, Supplier<ProductResponse> loader) {
+        return get(productKey(id), productType, loader);
+    }
+
+    public List<ProductResponse> getAllProducts(Supplier<List<ProductResponse>> loader) {
+        return get(ALL_KEY, productListType, () -> List.copyOf(loader.get()));
+    }
+
+    public List<ProductResponse> getProductsByCategory(String category, Supplier<List<ProductResponse>> loader) {
+        return get(categoryKey(category), productListType, () -> List.copyOf(loader.get()));
+    }
+
+    public List<ProductResponse> getProductsByBrand(String brand, Supplier<List<ProductResponse>> loader) {
+        return get(brandKey(brand), productListType, () -> List.copyOf(loader.get()));
+    }
+
+    /**
+     * Entries that show the product as it is now; collect them before and after
+     * a change to evict both the old and the new lists it appears in
+     */
+    public static Set<String> keysFor(Product product) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(productKey(product.getId()));
+        keys.add(ALL_KEY);
+        if (product.getCategory() != null) {
+            keys.add(categoryKey(product.getCategory()));
+        }
+        if (product.getBrand() != null) {
+            keys.add(brandKey(product.getBrand()));
+        }
+        return keys;
+    }
+
+    /**
+     * Evict the entries everywhere once the current transaction has committed
+     */
+    public void evictAfterCommit(Collection<String> keys) {
+        Set<String> evicted = Set.copyOf(keys);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(evicted);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(evicted);
+            }
+        });
+    }
+
+    void evict(Set<String> keys) {
+        evictLocal(keys);
+        writeInvalidations.increment();
+        try {
+            redisTemplate.opsForValue().increment(GENERATION_KEY);
+            redisTemplate.delete(keys.stream().map(key -> KEY_PREFIX + key).toList());
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.join("\n", keys));
+        } catch (DataAccessException e) {
+            logger.warn("Could not evict {} from Redis, other replicas may serve them for up to their TTL: {}",
+                keys, e.getMessage());
+        }
+    }
+
+    /**
+     * Drop every entry everywhere: from this instance's L1, from Redis and,
+     * through EVICT_ALL, from every other replica's L1
+     */
+    public void evictAll() {
+        invalidateAll();
+        writeInvalidations.increment();
+        try {
+            redisTemplate.opsForValue().increment(GENERATION_KEY);
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(SCAN_BATCH).build();
+            List<String> batch = new ArrayList<>(SCAN_BATCH);
+            try (Cursor<String> keys = redisTemplate.scan(options)) {
+                while (keys.hasNext()) {
+                    batch.add(keys.next());
+                    if (batch.size() == SCAN_BATCH) {
+                        redisTemplate.delete(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                redisTemplate.delete(batch);
+            }
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, EVICT_ALL);
+        } catch (DataAccessException e) {
+            logger.warn("Could not clear the product cache in Redis, other replicas may serve stale entries "
+                + "for up to their TTL: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Handle an eviction broadcast by any replica, this one included
+     */
+    public void onInvalidation(String message) {
+        if (EVICT_ALL.equals(message)) {
+            invalidateAll();
+        } else {
+            evictLocal(Set.of(message.split("\n")));
+        }
+        broadcastInvalidations.increment();
+    }
+
+    /**
+     * Drop every L1 entry, e.g. after the invalidation subscription was interrupted
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        l1.invalidateAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, JavaType type, Supplier<T> loader) {
+        long seen = generation.get();
+        T value = (T) l1.get(key, k -> load(k, type, loader, seen));
+        // An eviction may have slipped in while the value was loaded
+        if (generation.get() != seen) {
+            l1.invalidate(key);
+        }
+        return value;
+    }
+
+    private Object load(String key, JavaType type, Supplier<?> loader, long seen) {
+        L2Read read = redisLoads.record(() -> readL2(key, type));
+        if (read.value() != null) {
+            l2Hits.increment();
+            return read.value();
+        }
+        l2Misses.increment();
+
+        Object value = databaseLoads.record(loader);
+        if (read.generation() != null && generation.get() == seen) {
+            writeL2(key, value, read.generation());
+        }
+        return value;
+    }
+
+    /**
+     * The entry, if Redis has it, and the shared generation read with it before
+     * any database load; the generation is null if Redis could not be read
+     */
+    private record L2Read(Object value, String generation) {
+    }
+
+    private L2Read readL2(String key, JavaType type) {
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(List.of(KEY_PREFIX + key, GENERATION_KEY));
+            if (values == null || values.size() != 2) {
+                return new L2Read(null, null);
+            }
+            String json = values.get(0);
+            String seenGeneration = values.get(1) != null ? values.get(1) : "0";
+            return new L2Read(json != null ? objectMapper.readValue(json, type) : null, seenGeneration);
+        } catch (DataAccessException | JsonProcessingException e) {
+            logger.warn("Could not read {} from Redis: {}", key, e.getMessage());
+            return new L2Read(null, null);
+        }
+    }
+
+    private void writeL2(String key, Object value, String seenGeneration) {
+        try {
+            Long written = redisTemplate.execute(SET_IF_GENERATION, List.of(KEY_PREFIX + key, GENERATION_KEY),
+                seenGeneration, objectMapper.writeValueAsString(value), Long.toString(l2Ttl.toMillis()));
+            if (written == null || written == 0) {
+                logger.debug("Not caching {} in Redis, the cache was evicted while it loaded", key);
+            }
+        } catch (DataAccessException | JsonProcessingException e) {
+            logger.warn("Could not write {} to Redis: {}", key, e.getMessage());
+        }
+    }
+
+    private void evictLocal(Set<String> keys) {
+        generation.incrementAndGet();
+        l1.invalidateAll(keys);
+    }
+
+    private double l2HitRatio() {
+        long hits = l2Hits.sum();
+        long total = hits + l2Misses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    static String productKey(Long id) {
+        return "id:" + id;
+    }
+
+    static String categoryKey(String category) {
+        return "category:" + category;
+    }
+
+    static String brandKey(String brand) {
+        return "brand:" + brand;
+    }
+
+    private static Timer loadTimer(MeterRegistry meterRegistry, String source) {
+        return Timer.builder("product.cache.load")
+            .tag("source", source)
+            .description("Time to load a product cache entry on an in-process cache miss")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    private static Counter invalidationCounter(MeterRegistry meterRegistry, String origin) {
+        return Counter.builder("product.cache.invalidations")
+            .tag("origin", origin)
+            .description("Product cache evictions, made here or broadcast by a replica")
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.product.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP Cache Configuration
+ *
+ * Every replica tracks the catalog version itself (see CatalogVersion), so each
+ * one binds its own exclusive, auto-deleted queues to the product change events
+ * and the catalog reloads.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpCacheProperties.class)
+public class HttpCacheConfig {
+
+    /**
+     * This replica's queue of product changes
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "product.http-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public Queue catalogVersionQueue() {
+        return new AnonymousQueue();
+    }
+
+    /**
+     * Product changes binding
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "product.http-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public Binding catalogVersionBinding(TopicExchange productExchange) {
+        return BindingBuilder
+            .bind(catalogVersionQueue())
+            .to(productExchange)
+            .with(RabbitMQConfig.PRODUCT_CHANGED_ROUTING_KEY);
+    }
+
+    /**
+     * This replica's queue of catalog reloads
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "product.http-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public Queue catalogVersionReloadQueue() {
+        return new AnonymousQueue();
+    }
+
+    /**
+     * Catalog reloads binding
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "product.http-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public Binding catalogVersionReloadBinding(TopicExchange productExchange) {
+        return BindingBuilder
+            .bind(catalogVersionReloadQueue())
+            .to(productExchange)
+            .with(RabbitMQConfig.CATALOG_RELOADED_ROUTING_KEY);
+    }
+}
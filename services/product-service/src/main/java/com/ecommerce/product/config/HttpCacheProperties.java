@@ -0,0 +1,35 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP Cache Properties
+ *
+ * Validators and Cache-Control for the catalog endpoints (see ProductController).
+ */
+@Data
+@ConfigurationProperties(prefix = "product.http-cache")
+public class HttpCacheProperties {
+
+    /**
+     * Tag listings with the catalog version; products are tagged either way
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a catalog change waits before listing ETags move to it, so that
+     * every cache on this replica has dropped what the change made stale
+     */
+    private Duration settleDelay = Duration.ofSeconds(2);
+
+    /**
+     * Cache-Control per endpoint (product, listing, search, filter, suggest,
+     * prices); an endpoint without one gets no Cache-Control header
+     */
+    private Map<String, String> cacheControl = new HashMap<>();
+}
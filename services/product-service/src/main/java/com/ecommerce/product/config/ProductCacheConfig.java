@@ -0,0 +1,57 @@
+package com.ecommerce.product.config;
+
+import com.ecommerce.product.cache.ProductCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Product Cache Configuration
+ *
+ * Subscribes the in-process product cache to the evictions every replica
+ * broadcasts after a product write.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "product.cache", name = "enabled", havingValue = "true")
+public class ProductCacheConfig {
+
+    @Bean
+    public RedisMessageListenerContainer productCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       ProductCache productCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(new InvalidationListener(productCache), new ChannelTopic(ProductCache.INVALIDATION_CHANNEL));
+        return container;
+    }
+
+    /**
+     * Evicts on every broadcast, and drops the whole in-process cache whenever the
+     * subscription is (re)established, since broadcasts may have been missed
+     */
+    static class InvalidationListener implements MessageListener, SubscriptionListener {
+
+        private final ProductCache productCache;
+
+        InvalidationListener(ProductCache productCache) {
+            this.productCache = productCache;
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            productCache.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void onChannelSubscribed(byte[] channel, long count) {
+            productCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.product.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Product Search Configuration
+ *
+ * Every replica keeps its own search index, so each one binds its own exclusive,
+ * auto-deleted queues to the product change events, this replica's own included,
+ * and to the catalog reloads. Reloads have a queue of their own so that a
+ * rebuild does not hold up the changes queued behind it.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "product.search", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ProductSearchConfig {
+
+    /**
+     * This replica's queue of product changes
+     */
+    @Bean
+    public Queue productSearchQueue() {
+        return new AnonymousQueue();
+    }
+
+    /**
+     * Product changes binding
+     */
+    @Bean
+    public Binding productSearchBinding(TopicExchange productExchange) {
+        return BindingBuilder
+            .bind(productSearchQueue())
+            .to(productExchange)
+            .with(RabbitMQConfig.PRODUCT_CHANGED_ROUTING_KEY);
+    }
+
+    /**
+     * This replica's queue of catalog reloads
+     */
+    @Bean
+    public Queue productSearchReloadQueue() {
+        return new AnonymousQueue();
+    }
+
+    /**
+     * Catalog reloads binding
+     */
+    @Bean
+    public Binding productSearchReloadBinding(TopicExchange productExchange) {
+        return BindingBuilder
+            .bind(productSearchReloadQueue())
+            .to(productExchange)
+            .with(RabbitMQConfig.CATALOG_RELOADED_ROUTING_KEY);
+    }
+}
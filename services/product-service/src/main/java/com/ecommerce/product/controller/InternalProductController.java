@@ -0,0 +1,58 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.dto.ProductPriceResponse;
+import com.ecommerce.product.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Internal Product Controller
+ *
+ * Lookups for other services, which see inactive products too. The API Gateway
+ * only routes /api/**, so these are reachable on the service network alone.
+ */
+@RestController
+@RequestMapping("/internal/products")
+public class InternalProductController {
+
+    private static final int MAX_BATCH_IDS = 1000;
+
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Get many products by ID in one call (used by Order Service to verify prices)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getProductsByIds(@RequestBody List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            return ResponseEntity.badRequest()
+                .body(errorResponse("At most " + MAX_BATCH_IDS + " product IDs per request"));
+        }
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
+    /**
+     * Price and active flag of every product, including inactive ones (used by
+     * Cart Service to resync its local price snapshot)
+     */
+    @GetMapping("/prices")
+    public ResponseEntity<?> getAllPrices() {
+        List<ProductPriceResponse> prices = productService.getAllPrices();
+        return ResponseEntity.ok(prices);
+    }
+
+    private Map<String, String> errorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return error;
+    }
+}
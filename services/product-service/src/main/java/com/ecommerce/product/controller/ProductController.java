@@ -1,24 +1,75 @@
 package com.ecommerce.product.controller;
 
+import com.ecommerce.product.config.HttpCacheProperties;
+import com.ecommerce.product.dto.ProductFilter;
+import com.ecommerce.product.dto.ProductImportError;
+import com.ecommerce.product.dto.ProductImportProgress;
+import com.ecommerce.product.dto.ProductPriceResponse;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductSort;
+import com.ecommerce.product.dto.ProductSuggestion;
+import com.ecommerce.product.importer.ImportFormat;
+import com.ecommerce.product.importer.ImportListener;
+import com.ecommerce.product.importer.ImportRowReader;
+import com.ecommerce.product.importer.ProductImportService;
+import com.ecommerce.product.service.CatalogVersion;
 import com.ecommerce.product.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 /**
  * Product Controller
  *
  * REST API endpoints for product management.
+ *
+ * The listings (all, category, brand) are paged when any of sort, cursor, limit
+ * or includeTotal is given: sort is newest (default), price_asc, price_desc or
+ * name, and the nextCursor of a page fetches the one after it. Without those
+ * parameters they return the whole listing, as they did before paging.
+ *
+ * /filter combines any number of categories and brands with a price range
+ * (category=a&category=b&brand=c&minPrice=10&maxPrice=50) and returns a page
+ * of matches with facet counts.
+ *
+ * GET responses carry the Cache-Control configured for their endpoint under
+ * product.http-cache.cache-control. A product is tagged with its updatedAt and
+ * catalog-wide responses (listings, search, filter, prices) with the catalog
+ * revision and when it changed (see CatalogVersion), as a strong ETag and
+ * Last-Modified; a request whose If-None-Match or If-Modified-Since shows the
+ * copy is current gets 304 before any body is built.
+ *
+ * /import loads a catalog (NDJSON or CSV, see ProductImportService) and streams
+ * back NDJSON: a progress line after every chunk written, an error line for
+ * every row that was not, and a summary line at the end.
  */
 @RestController
 @RequestMapping("/api/products")
@@ -26,48 +77,173 @@ public class ProductController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_SEARCH_RESULTS = 50;
+    private static final int DEFAULT_SUGGESTIONS = 8;
+    private static final int MAX_SUGGESTIONS = 20;
+
+    // Endpoints, as keyed in product.http-cache.cache-control
+    private static final String PRODUCT = "product";
+    private static final String LISTING = "listing";
+    private static final String SEARCH = "search";
+    private static final String FILTER = "filter";
+    private static final String SUGGEST = "suggest";
+    private static final String PRICES = "prices";
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private HttpCacheProperties httpCacheProperties;
+
+    @Autowired(required = false)
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Get all products
      */
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts() {
-        List<ProductResponse> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<?> getAllProducts(
+        @RequestParam(required = false) String sort,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) Boolean includeTotal,
+        WebRequest request
+    ) {
+        return catalogConditional(request, LISTING, () -> {
+            if (isPaged(sort, cursor, limit, includeTotal)) {
+                return page(null, null, sort, cursor, limit, includeTotal);
+            }
+            List<ProductResponse> products = productService.getAllProducts();
+            return ResponseEntity.ok(products);
+        });
     }
 
     /**
      * Get product by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable Long id) {
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest request) {
         try {
             ProductResponse product = productService.getProductById(id);
-            return ResponseEntity.ok(product);
+            if (product.getUpdatedAt() == null) {
+                return ResponseEntity.ok().headers(cacheControl(PRODUCT)).body(product);
+            }
+            String etag = "\"" + product.getId() + "-" + epochMicros(product.getUpdatedAt()) + "\"";
+            return conditional(request, PRODUCT, etag, product.getUpdatedAt(), () -> ResponseEntity.ok(product));
         } catch (Exception e) {
             logger.error("Failed to get product: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse(e.getMessage()));
         }
     }
 
+    /**
+     * Price of every active product (services that also need inactive ones use
+     * InternalProductController)
+     */
+    @GetMapping("/prices")
+    public ResponseEntity<?> getActivePrices(WebRequest request) {
+        return catalogConditional(request, PRICES, () -> {
+            List<ProductPriceResponse> prices = productService.getActivePrices();
+            return ResponseEntity.ok(prices);
+        });
+    }
+
     /**
      * Get products by category
      */
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<ProductResponse>> getProductsByCategory(@PathVariable String category) {
-        List<ProductResponse> products = productService.getProductsByCategory(category);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<?> getProductsByCategory(
+        @PathVariable String category,
+        @RequestParam(required = false) String sort,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) Boolean includeTotal,
+        WebRequest request
+    ) {
+        return catalogConditional(request, LISTING, () -> {
+            if (isPaged(sort, cursor, limit, includeTotal)) {
+                return page(category, null, sort, cursor, limit, includeTotal);
+            }
+            List<ProductResponse> products = productService.getProductsByCategory(category);
+            return ResponseEntity.ok(products);
+        });
     }
 
     /**
-     * Search products
+     * Search products, best match first
      */
     @GetMapping("/search")
-    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String query) {
-        List<ProductResponse> products = productService.searchProducts(query);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<?> searchProducts(
+        @RequestParam String query,
+        @RequestParam(defaultValue = "" + DEFAULT_SEARCH_RESULTS) int limit,
+        WebRequest request
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                .body(errorResponse("Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        return catalogConditional(request, SEARCH, () -> {
+            List<ProductResponse> products = productService.searchProducts(query, limit);
+            return ResponseEntity.ok(products);
+        });
+    }
+
+    /**
+     * Filter products by any of several categories and brands and by price, with
+     * the number of products per category, brand and price range
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterProducts(
+        @RequestParam(required = false) Set<String> category,
+        @RequestParam(required = false) Set<String> brand,
+        @RequestParam(required = false) BigDecimal minPrice,
+        @RequestParam(required = false) BigDecimal maxPrice,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+        WebRequest request
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                .body(errorResponse("Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            return ResponseEntity.badRequest()
+                .body(errorResponse("minPrice must not be greater than maxPrice"));
+        }
+        ProductFilter filter = new ProductFilter(
+            category != null ? category : Set.of(), brand != null ? brand : Set.of(), minPrice, maxPrice);
+        return catalogConditional(request, FILTER, () -> {
+            try {
+                return ResponseEntity.ok(productService.filterProducts(filter, cursor, limit));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Typeahead suggestions of product names and brands for what has been typed so far
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestProducts(
+        @RequestParam String prefix,
+        @RequestParam(defaultValue = "" + DEFAULT_SUGGESTIONS) int limit
+    ) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            return ResponseEntity.badRequest()
+                .body(errorResponse("Limit must be between 1 and " + MAX_SUGGESTIONS));
+        }
+        // Suggestions follow popularity as well as the catalog, so they get no validators
+        List<ProductSuggestion> suggestions = productService.suggestProducts(prefix, limit);
+        return ResponseEntity.ok().headers(cacheControl(SUGGEST)).body(suggestions);
     }
 
     /**
@@ -93,6 +269,44 @@ public class ProductController {
         }
     }
 
+    /**
+     * Import a catalog, inserting or updating products by SKU (admin only)
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<?> importProducts(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+        @RequestHeader(value = "X-User-Role", required = false) String userRole,
+        HttpServletRequest request
+    ) {
+        if (userRole == null || !userRole.equals("ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(errorResponse("Only administrators can import products"));
+        }
+
+        ImportRowReader reader;
+        try {
+            ImportFormat format = ImportFormat.of(MediaType.parseMediaType(contentType))
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported content type: " + contentType));
+            reader = productImportService.open(request.getInputStream(), format);
+        } catch (IllegalArgumentException | IOException e) {
+            logger.error("Failed to start product import: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+
+        StreamingResponseBody body = output -> productImportService.importProducts(reader, new ImportListener() {
+            @Override
+            public void onProgress(ProductImportProgress progress) throws IOException {
+                writeLine(output, progress);
+            }
+
+            @Override
+            public void onError(ProductImportError error) throws IOException {
+                writeLine(output, error);
+            }
+        });
+        return ResponseEntity.ok().contentType(ImportFormat.NDJSON.getMediaType()).body(body);
+    }
+
     /**
      * Update a product (admin only)
      */
@@ -146,9 +360,21 @@ public class ProductController {
      * Get products by brand
      */
     @GetMapping("/brand/{brand}")
-    public ResponseEntity<List<ProductResponse>> getProductsByBrand(@PathVariable String brand) {
-        List<ProductResponse> products = productService.getProductsByBrand(brand);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<?> getProductsByBrand(
+        @PathVariable String brand,
+        @RequestParam(required = false) String sort,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) Boolean includeTotal,
+        WebRequest request
+    ) {
+        return catalogConditional(request, LISTING, () -> {
+            if (isPaged(sort, cursor, limit, includeTotal)) {
+                return page(null, brand, sort, cursor, limit, includeTotal);
+            }
+            List<ProductResponse> products = productService.getProductsByBrand(brand);
+            return ResponseEntity.ok(products);
+        });
     }
 
     /**
@@ -162,6 +388,136 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
 
+    private static boolean isPaged(String sort, String cursor, Integer limit, Boolean includeTotal) {
+        return sort != null || cursor != null || limit != null || includeTotal != null;
+    }
+
+    private ResponseEntity<?> page(String category, String brand, String sort, String cursor,
+                                   Integer limit, Boolean includeTotal) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                .body(errorResponse("Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        try {
+            return ResponseEntity.ok(productService.getProductPage(category, brand, ProductSort.fromParameter(sort),
+                cursor, pageSize, Boolean.TRUE.equals(includeTotal)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Answer a catalog-wide GET against the catalog version: 304 if the client's
+     * copy is current, otherwise the response built by the supplier. Without a
+     * version yet, the response only gets the endpoint's Cache-Control.
+     */
+    private ResponseEntity<?> catalogConditional(WebRequest request, String endpoint,
+                                                 Supplier<ResponseEntity<?>> response) {
+        Optional<CatalogVersion.Version> version = catalogVersion != null
+            ? catalogVersion.current()
+            : Optional.empty();
+        if (version.isEmpty()) {
+            return withCacheControl(endpoint, response.get());
+        }
+        return conditional(request, endpoint, catalogEtag(request, version.get().revision()),
+            version.get().changedAt(), response);
+    }
+
+    /**
+     * 304 if If-None-Match (or, without it, If-Modified-Since) shows the client
+     * has this version, without building the body; otherwise the response built
+     * by the supplier, with the validators if it succeeded
+     */
+    private ResponseEntity<?> conditional(WebRequest request, String endpoint, String etag,
+                                          LocalDateTime lastModified, Supplier<ResponseEntity<?>> response) {
+        long lastModifiedMillis = lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (isNotModified(request, etag, lastModifiedMillis)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .lastModified(lastModifiedMillis)
+                .headers(cacheControl(endpoint))
+                .build();
+        }
+
+        ResponseEntity<?> built = response.get();
+        if (!built.getStatusCode().is2xxSuccessful()) {
+            return built;
+        }
+        return ResponseEntity.status(built.getStatusCode())
+            .headers(built.getHeaders())
+            .eTag(etag)
+            .lastModified(lastModifiedMillis)
+            .headers(cacheControl(endpoint))
+            .body(built.getBody());
+    }
+
+    private static boolean isNotModified(WebRequest request, String etag, long lastModifiedMillis) {
+        HttpHeaders headers = new HttpHeaders();
+        String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            headers.put(HttpHeaders.IF_NONE_MATCH, List.of(ifNoneMatch));
+            // If-None-Match compares weakly, so a copy a proxy compressed still matches
+            return headers.getIfNoneMatch().stream()
+                .anyMatch(tag -> tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag));
+        }
+        String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        headers.set(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+        try {
+            // HTTP dates have whole seconds
+            return lastModifiedMillis / 1000 * 1000 <= headers.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Strong ETag of a catalog-wide response: the path and query parameters it
+     * was asked with, at the catalog revision
+     */
+    private static String catalogEtag(WebRequest request, long revision) {
+        StringBuilder key = new StringBuilder(request.getDescription(false));
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+            key.append('&').append(name).append('=').append(String.join(",", values)));
+        key.append('@').append(revision);
+        return "\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static long epochMicros(LocalDateTime timestamp) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, timestamp.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private ResponseEntity<?> withCacheControl(String endpoint, ResponseEntity<?> response) {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .headers(cacheControl(endpoint))
+            .body(response.getBody());
+    }
+
+    private HttpHeaders cacheControl(String endpoint) {
+        HttpHeaders headers = new HttpHeaders();
+        String directives = httpCacheProperties.getCacheControl().get(endpoint);
+        if (directives != null && !directives.isBlank()) {
+            headers.setCacheControl(directives);
+        }
+        return headers;
+    }
+
+    /**
+     * Write a value as one NDJSON line and send it to the client straight away
+     */
+    private void writeLine(OutputStream output, Object value) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(value));
+        output.write('\n');
+        output.flush();
+    }
+
     /**
      * Helper method to create error response
      */
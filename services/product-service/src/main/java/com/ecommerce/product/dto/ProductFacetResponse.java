@@ -0,0 +1,29 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product Facet Response DTO
+ *
+ * One page of a faceted query, in product id order, with the number of matches
+ * and, per facet (category, brand, price), how many products each value would
+ * match with the other facets' filters applied. nextCursor is null on the last
+ * page; facets is empty while the facet index is being built.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetResponse {
+
+    private List<ProductResponse> items = new ArrayList<>();
+    private String nextCursor;
+    private Long total;
+    private Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.product.dto;
+
+import com.ecommerce.product.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Product Filter DTO
+ *
+ * A faceted query: products in any of the categories, of any of the brands, and
+ * priced between minPrice and maxPrice (both inclusive). An empty set or a null
+ * bound leaves that facet unrestricted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilter {
+
+    private Set<String> categories = Set.of();
+    private Set<String> brands = Set.of();
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    public boolean matches(Product product) {
+        return Boolean.TRUE.equals(product.getActive())
+            && (categories.isEmpty() || categories.contains(product.getCategory()))
+            && (brands.isEmpty() || brands.contains(product.getBrand()))
+            && (minPrice == null || product.getPrice().compareTo(minPrice) >= 0)
+            && (maxPrice == null || product.getPrice().compareTo(maxPrice) <= 0);
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.product.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Product Import Error DTO
+ *
+ * A row of a catalog import that was not written, by its line in the upload.
+ */
+@Data
+@NoArgsConstructor
+public class ProductImportError {
+
+    private String type = "error";
+    private long line;
+    private String sku;
+    private String message;
+
+    public ProductImportError(long line, String sku, String message) {
+        this.line = line;
+        this.sku = sku;
+        this.message = message;
+    }
+}
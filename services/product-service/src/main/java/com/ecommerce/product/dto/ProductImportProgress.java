@@ -0,0 +1,29 @@
+package com.ecommerce.product.dto;
+
+import lombok.Data;
+
+/**
+ * Product Import Progress DTO
+ *
+ * Counts of a catalog import so far (type "progress") or once it has ended
+ * (type "summary"). Every row read is counted once as processed, and once more
+ * as inserted, updated, unchanged, superseded by a later row with the same SKU,
+ * or failed.
+ */
+@Data
+public class ProductImportProgress {
+
+    public static final String PROGRESS = "progress";
+    public static final String SUMMARY = "summary";
+
+    private String type = PROGRESS;
+    private long processed;
+    private long inserted;
+    private long updated;
+    private long unchanged;
+    private long superseded;
+    private long failed;
+    private boolean aborted;
+    private String message;
+    private long durationMs;
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.product.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Product Import Row DTO
+ *
+ * One product of a catalog import, matched to an existing product by sku. The
+ * limits are those of the products columns, so a row that passes them can be
+ * written as it is.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportRow {
+
+    @NotBlank(message = "SKU is required")
+    @Size(max = 64, message = "SKU must be at most 64 characters")
+    private String sku;
+
+    @NotBlank(message = "Product name is required")
+    @Size(max = 255, message = "Product name must be at most 255 characters")
+    private String name;
+
+    @Size(max = 1000, message = "Description must be at most 1000 characters")
+    private String description;
+
+    @NotNull(message = "Price is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0")
+    @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 digits before and 2 after the point")
+    private BigDecimal price;
+
+    @NotBlank(message = "Category is required")
+    @Size(max = 255, message = "Category must be at most 255 characters")
+    private String category;
+
+    @Size(max = 255, message = "Brand must be at most 255 characters")
+    private String brand;
+
+    @Size(max = 255, message = "Image URL must be at most 255 characters")
+    private String imageUrl;
+
+    /**
+     * False deactivates the product; rows without it are active
+     */
+    private Boolean active = true;
+}
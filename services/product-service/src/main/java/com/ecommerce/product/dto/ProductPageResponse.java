@@ -0,0 +1,24 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product Page Response DTO
+ *
+ * One page of a product listing. nextCursor is null on the last page; total is
+ * only counted when the request asks for it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+
+    private List<ProductResponse> items = new ArrayList<>();
+    private String nextCursor;
+    private Long total;
+}
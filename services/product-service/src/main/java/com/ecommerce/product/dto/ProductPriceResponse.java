@@ -0,0 +1,24 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Product Price Response DTO
+ *
+ * The fields of a product that other services keep a local copy of.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPriceResponse {
+
+    private Long id;
+    private BigDecimal price;
+    private Boolean active;
+    private LocalDateTime updatedAt;
+}
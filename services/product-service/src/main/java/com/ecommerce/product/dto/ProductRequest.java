@@ -3,6 +3,7 @@ package com.ecommerce.product.dto;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,6 +18,9 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class ProductRequest {
 
+    @Size(max = 64, message = "SKU must be at most 64 characters")
+    private String sku;
+
     @NotBlank(message = "Product name is required")
     private String name;
 
@@ -10,6 +10,8 @@ import java.time.LocalDateTime;
 
 /**
  * Product Response DTO
+ *
+ * updatedAt versions the product for HTTP conditional requests.
  */
 @Data
 @NoArgsConstructor
@@ -17,6 +19,7 @@ import java.time.LocalDateTime;
 public class ProductResponse {
 
     private Long id;
+    private String sku;
     private String name;
     private String description;
     private BigDecimal price;
@@ -25,10 +28,12 @@ public class ProductResponse {
     private String imageUrl;
     private Boolean active;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
 
     public static ProductResponse fromEntity(Product product) {
         return new ProductResponse(
             product.getId(),
+            product.getSku(),
             product.getName(),
             product.getDescription(),
             product.getPrice(),
@@ -36,7 +41,8 @@ public class ProductResponse {
             product.getBrand(),
             product.getImageUrl(),
             product.getActive(),
-            product.getCreatedAt()
+            product.getCreatedAt(),
+            product.getUpdatedAt()
         );
     }
 }
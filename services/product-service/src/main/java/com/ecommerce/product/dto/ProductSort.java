@@ -0,0 +1,49 @@
+package com.ecommerce.product.dto;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Locale;
+
+/**
+ * Product Sort Orders
+ *
+ * Orders for paged product listings. Each ends on the product id in the same
+ * direction, so the order is total and a page can resume after any product.
+ */
+public enum ProductSort {
+
+    NEWEST("createdAt", Sort.Direction.DESC),
+    PRICE_ASC("price", Sort.Direction.ASC),
+    PRICE_DESC("price", Sort.Direction.DESC),
+    NAME("name", Sort.Direction.ASC);
+
+    private final String property;
+    private final Sort.Direction direction;
+
+    ProductSort(String property, Sort.Direction direction) {
+        this.property = property;
+        this.direction = direction;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort toSort() {
+        return Sort.by(direction, property, "id");
+    }
+
+    /**
+     * Parse a sort request parameter such as "price_desc"; NEWEST when absent
+     */
+    public static ProductSort fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return NEWEST;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort '" + value + "', expected newest, price_asc, price_desc or name");
+        }
+    }
+}
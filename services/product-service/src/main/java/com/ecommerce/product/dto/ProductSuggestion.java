@@ -0,0 +1,24 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Product Suggestion DTO
+ *
+ * One typeahead suggestion: a product (type PRODUCT, with its productId) or a
+ * brand (type BRAND, productId null).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestion {
+
+    public static final String PRODUCT = "PRODUCT";
+    public static final String BRAND = "BRAND";
+
+    private String text;
+    private String type;
+    private Long productId;
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.product.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog Revision Entity
+ *
+ * The single row counting changes to the catalog. Every transaction that writes
+ * products bumps it before committing, so the row lock orders the bumps the same
+ * way as the commits and a higher revision always holds every earlier change.
+ * changedAt is when the catalog last changed, and never moves backwards.
+ */
+@Entity
+@Table(name = "catalog_revision")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogRevision {
+
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long revision;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -13,10 +13,23 @@ import java.time.LocalDateTime;
 /**
  * Product Entity
  *
- * Represents a product in the e-commerce catalog.
+ * Represents a product in the e-commerce catalog. The indexes serve the paged
+ * listings: one per filter (all active, category, brand) and sort (newest,
+ * price, name), ending on id to match the keyset order.
  */
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_active_created_at", columnList = "active, createdAt, id"),
+    @Index(name = "idx_products_active_price", columnList = "active, price, id"),
+    @Index(name = "idx_products_active_name", columnList = "active, name, id"),
+    @Index(name = "idx_products_category_created_at", columnList = "category, active, createdAt, id"),
+    @Index(name = "idx_products_category_price", columnList = "category, active, price, id"),
+    @Index(name = "idx_products_category_name", columnList = "category, active, name, id"),
+    @Index(name = "idx_products_brand_created_at", columnList = "brand, active, createdAt, id"),
+    @Index(name = "idx_products_brand_price", columnList = "brand, active, price, id"),
+    @Index(name = "idx_products_brand_name", columnList = "brand, active, name, id"),
+    @Index(name = "uk_products_sku", columnList = "sku", unique = true)
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,6 +39,9 @@ public class Product {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(length = 64)
+    private String sku;
+
     @Column(nullable = false)
     private String name;
 
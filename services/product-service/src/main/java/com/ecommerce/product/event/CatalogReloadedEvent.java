@@ -0,0 +1,27 @@
+package com.ecommerce.product.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Catalog Reloaded Event
+ *
+ * Event published to RabbitMQ once a catalog import has written its products,
+ * in place of a ProductChangedEvent per product. Consumers reload everything
+ * they keep from the catalog.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogReloadedEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private LocalDateTime startedAt;
+    private Long inserted;
+    private Long updated;
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.product.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Product Changed Event
+ *
+ * Event published to RabbitMQ after a product is created, updated or deleted,
+ * with the fields other services keep copies of. updatedAt orders events for
+ * the same product.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangedEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long productId;
+    private BigDecimal price;
+    private Boolean active;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.product.event;
+
+import com.ecommerce.product.config.RabbitMQConfig;
+import com.ecommerce.product.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Product Event Publisher
+ *
+ * Publishes a ProductChangedEvent once the transaction that changed the product
+ * has committed, so consumers never see a change that was rolled back, and a
+ * CatalogReloadedEvent after a catalog import. A failed publish is only logged:
+ * consumers also resync from GET /internal/products/prices.
+ */
+@Component
+public class ProductEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductEventPublisher.class);
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    public void publishChanged(Product product) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(product);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send(product);
+            }
+        });
+    }
+
+    /**
+     * Publish that a catalog import has committed its products
+     */
+    public void publishReloaded(CatalogReloadedEvent event) {
+        send(RabbitMQConfig.CATALOG_RELOADED_ROUTING_KEY, event, "catalog reload");
+    }
+
+    private void send(Product product) {
+        ProductChangedEvent event = new ProductChangedEvent(
+            product.getId(),
+            product.getPrice(),
+            product.getActive(),
+            product.getUpdatedAt()
+        );
+        send(RabbitMQConfig.PRODUCT_CHANGED_ROUTING_KEY, event, "change of product " + product.getId());
+    }
+
+    private void send(String routingKey, Object event, String description) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.PRODUCT_EXCHANGE, routingKey, event);
+        } catch (AmqpException e) {
+            logger.warn("Failed to publish {}: {}", description, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.ecommerce.product.importer;
+
+import com.ecommerce.product.dto.ProductImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Reads RFC 4180 CSV: a header naming the columns, then one product per record.
+ * Fields may be quoted, with "" for a quote, and quoted fields may span lines.
+ *
+ * Columns are matched to the row fields ignoring case, '_', '-' and spaces, so
+ * image_url and "Image URL" both fill imageUrl; other columns are ignored.
+ * Values are trimmed, and an empty value is the same as a missing one.
+ */
+class CsvRowReader implements ImportRowReader {
+
+    private static final Set<String> REQUIRED_COLUMNS = Set.of("sku", "name", "price", "category");
+
+    private final BufferedReader reader;
+    private final String[] columns;
+    // Lines read so far; a record starts on the line after them
+    private long line;
+    private boolean unterminated;
+
+    CsvRowReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = readRecord();
+        this.columns = header == null
+            ? new String[0]
+            : header.stream().map(CsvRowReader::column).toArray(String[]::new);
+        if (!List.of(columns).containsAll(REQUIRED_COLUMNS)) {
+            throw new IllegalArgumentException("CSV header must name the columns sku, name, price and category");
+        }
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        while (true) {
+            long start = line + 1;
+            List<String> fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            if (unterminated) {
+                return ImportRow.failed(start, null, "Quoted field is not closed");
+            }
+            if (fields.size() > columns.length) {
+                return ImportRow.failed(start, null,
+                    "Row has " + fields.size() + " fields but the header names " + columns.length);
+            }
+            return toRow(start, fields);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private ImportRow toRow(long start, List<String> fields) {
+        ProductImportRow product = new ProductImportRow();
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = fields.get(i).strip();
+            String present = value.isEmpty() ? null : value;
+            switch (columns[i]) {
+                case "sku" -> product.setSku(present);
+                case "name" -> product.setName(present);
+                case "description" -> product.setDescription(present);
+                case "category" -> product.setCategory(present);
+                case "brand" -> product.setBrand(present);
+                case "imageurl" -> product.setImageUrl(present);
+                case "price" -> {
+                    try {
+                        product.setPrice(present == null ? null : new BigDecimal(present));
+                    } catch (NumberFormatException e) {
+                        errors.add("Price is not a number: " + value);
+                    }
+                }
+                case "active" -> {
+                    if ("false".equalsIgnoreCase(value)) {
+                        product.setActive(false);
+                    } else if (present != null && !"true".equalsIgnoreCase(value)) {
+                        errors.add("Active must be true or false: " + value);
+                    }
+                }
+                default -> {
+                    // Not a product field
+                }
+            }
+        }
+        return errors.isEmpty()
+            ? new ImportRow(start, product, null)
+            : ImportRow.failed(start, product, String.join("; ", errors));
+    }
+
+    /**
+     * The fields of the next record, or null at the end of the upload
+     */
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                unterminated = false;
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        unterminated = quoted;
+        return fields;
+    }
+
+    private static String column(String name) {
+        return name.strip().toLowerCase(Locale.ROOT).replaceAll("[_\\- ]", "");
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.product.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Import Format
+ *
+ * The upload formats of a catalog import, by content type. Uploads are read as
+ * UTF-8; a leading byte order mark, as spreadsheet exports write, is skipped.
+ */
+public enum ImportFormat {
+
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final MediaType mediaType;
+
+    ImportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static Optional<ImportFormat> of(MediaType contentType) {
+        return Arrays.stream(values())
+            .filter(format -> format.mediaType.isCompatibleWith(contentType))
+            .findFirst();
+    }
+
+    /**
+     * Start reading an upload; a CSV header is read here, so a bad one fails
+     * before any row is imported
+     */
+    ImportRowReader open(InputStream input, ObjectMapper objectMapper) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+        return switch (this) {
+            case NDJSON -> new NdjsonRowReader(reader, objectMapper);
+            case CSV -> new CsvRowReader(reader);
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.product.importer;
+
+import com.ecommerce.product.dto.ProductImportError;
+import com.ecommerce.product.dto.ProductImportProgress;
+
+import java.io.IOException;
+
+/**
+ * Import Listener
+ *
+ * Follows a catalog import: the counts after every chunk written and once at the
+ * end, and every row that was not written. Throwing stops the import.
+ */
+public interface ImportListener {
+
+    void onProgress(ProductImportProgress progress) throws IOException;
+
+    void onError(ProductImportError error) throws IOException;
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.product.importer;
+
+import com.ecommerce.product.dto.ProductImportRow;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Import Row Reader
+ *
+ * Reads the rows of a catalog upload one at a time, so an upload of any size is
+ * imported in constant memory. A row that cannot be parsed is returned with its
+ * error rather than thrown, so the rest of the upload can still be read.
+ */
+public interface ImportRowReader extends Closeable {
+
+    /**
+     * The next row, or null once the upload has been read
+     */
+    ImportRow next() throws IOException;
+
+    /**
+     * A row and the line of the upload it starts on. product is null, or only
+     * partly read, when error is set.
+     */
+    record ImportRow(long line, ProductImportRow product, String error) {
+
+        static ImportRow failed(long line, ProductImportRow product, String error) {
+            return new ImportRow(line, product, error);
+        }
+
+        public String sku() {
+            return product != null ? product.getSku() : null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecommerce.product.importer;
+
+import com.ecommerce.product.dto.ProductImportRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads newline-delimited JSON: one product object per line, blank lines skipped
+ */
+class NdjsonRowReader implements ImportRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader rowReader;
+    private long line;
+
+    NdjsonRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.rowReader = objectMapper.readerFor(ProductImportRow.class);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                ProductImportRow product = rowReader.readValue(text);
+                return product != null
+                    ? new ImportRow(line, product, null)
+                    : ImportRow.failed(line, null, "Row is not a JSON object");
+            } catch (JsonProcessingException e) {
+                return ImportRow.failed(line, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,241 @@
+package com.ecommerce.product.importer;
+
+import com.ecommerce.product.cache.ProductCache;
+import com.ecommerce.product.dto.ProductImportError;
+import com.ecommerce.product.dto.ProductImportProgress;
+import com.ecommerce.product.dto.ProductImportRow;
+import com.ecommerce.product.event.CatalogReloadedEvent;
+import com.ecommerce.product.event.ProductEventPublisher;
+import com.ecommerce.product.importer.ImportRowReader.ImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Product Import Service
+ *
+ * Loads a supplier catalog (NDJSON or CSV, see ImportFormat) into the products
+ * table, matching products by sku. Rows are read and validated one at a time and
+ * written product.import.batch-size at a time, each chunk as one multi-row
+ * INSERT ... ON CONFLICT (sku) DO UPDATE that also bumps the catalog revision
+ * if it writes anything. A row whose fields are all unchanged is left alone, so
+ * re-importing a catalog only touches what changed. If the database rejects a
+ * chunk, its rows are retried one at a time so that only the bad ones fail. An
+ * import stops reading once more than product.import.max-errors rows have failed.
+ *
+ * Chunks are committed as they are written, and the rest of the service only
+ * hears of them at the end: the product cache is cleared once, then a single
+ * CatalogReloadedEvent is published, on which every replica rebuilds its search
+ * index and rereads the catalog version, and Cart Service resyncs its snapshot.
+ * Clearing the cache first means no replica tags a stale cached listing with the
+ * new catalog version. If the service stops mid-import, the consumers catch up on
+ * their own resyncs and the cache on its TTL.
+ *
+ * The upsert is PostgreSQL SQL.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String UPSERT = "WITH written AS (INSERT INTO products "
+        + "(sku, name, description, price, category, brand, image_url, active, created_at, updated_at) VALUES ";
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int UPSERT_COLUMNS = 10;
+    // PostgreSQL takes at most 32767 parameters per statement, one of which is the revision's changed_at
+    private static final int MAX_BATCH_SIZE = (Short.MAX_VALUE - 1) / UPSERT_COLUMNS;
+    private static final String UPSERT_CONFLICT = " ON CONFLICT (sku) DO UPDATE SET "
+        + "name = EXCLUDED.name, description = EXCLUDED.description, price = EXCLUDED.price, "
+        + "category = EXCLUDED.category, brand = EXCLUDED.brand, image_url = EXCLUDED.image_url, "
+        + "active = EXCLUDED.active, updated_at = EXCLUDED.updated_at "
+        + "WHERE (products.name, products.description, products.price, products.category, "
+        + "products.brand, products.image_url, products.active) IS DISTINCT FROM "
+        + "(EXCLUDED.name, EXCLUDED.description, EXCLUDED.price, EXCLUDED.category, "
+        + "EXCLUDED.brand, EXCLUDED.image_url, EXCLUDED.active) "
+        // xmax is 0 only for a row this statement inserted
+        + "RETURNING (xmax = 0) AS inserted), "
+        // Counted in the catalog revision in the same statement, so in the same transaction
+        + "bumped AS (UPDATE catalog_revision SET revision = revision + 1, changed_at = GREATEST(changed_at, ?) "
+        + "WHERE id = 1 AND EXISTS (SELECT 1 FROM written)) "
+        + "SELECT inserted FROM written";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductEventPublisher productEventPublisher;
+
+    @Autowired(required = false)
+    private ProductCache productCache;
+
+    @Value("${product.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${product.import.max-errors:1000}")
+    private int maxErrors = 1000;
+
+    /**
+     * Start reading an upload; throws IllegalArgumentException if it cannot be imported
+     */
+    public ImportRowReader open(InputStream input, ImportFormat format) throws IOException {
+        return format.open(input, objectMapper);
+    }
+
+    /**
+     * Import every row of the upload and close it
+     */
+    public ProductImportProgress importProducts(ImportRowReader reader, ImportListener listener) throws IOException {
+        long start = System.nanoTime();
+        LocalDateTime startedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        ProductImportProgress progress = new ProductImportProgress();
+        int chunkSize = Math.min(batchSize, MAX_BATCH_SIZE);
+        logger.info("Importing products");
+
+        try (reader) {
+            // Keyed by SKU: a row replaces an earlier one of the chunk with the same SKU
+            Map<String, ImportRow> chunk = new LinkedHashMap<>();
+            ImportRow row;
+            while (!progress.isAborted() && (row = reader.next()) != null) {
+                progress.setProcessed(progress.getProcessed() + 1);
+                String error = row.error() != null ? row.error() : validate(row.product());
+                if (error != null) {
+                    reject(row, error, progress, listener);
+                } else if (chunk.put(row.sku(), row) != null) {
+                    progress.setSuperseded(progress.getSuperseded() + 1);
+                }
+                if (chunk.size() >= chunkSize) {
+                    write(chunk, progress, listener);
+                    listener.onProgress(progress);
+                }
+            }
+            write(chunk, progress, listener);
+        } finally {
+            if (progress.getInserted() + progress.getUpdated() > 0) {
+                announceReload(startedAt, progress);
+            }
+        }
+
+        progress.setType(ProductImportProgress.SUMMARY);
+        progress.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Imported products: {} processed, {} inserted, {} updated, {} failed in {} ms",
+            progress.getProcessed(), progress.getInserted(), progress.getUpdated(), progress.getFailed(),
+            progress.getDurationMs());
+        listener.onProgress(progress);
+        return progress;
+    }
+
+    private String validate(ProductImportRow product) {
+        Set<ConstraintViolation<ProductImportRow>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(ConstraintViolation::getMessage)
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+
+    private void reject(ImportRow row, String error, ProductImportProgress progress, ImportListener listener)
+            throws IOException {
+        progress.setFailed(progress.getFailed() + 1);
+        listener.onError(new ProductImportError(row.line(), row.sku(), error));
+        if (progress.getFailed() > maxErrors && !progress.isAborted()) {
+            progress.setAborted(true);
+            progress.setMessage("Stopped after more than " + maxErrors + " rows failed");
+        }
+    }
+
+    private void write(Map<String, ImportRow> chunk, ProductImportProgress progress, ImportListener listener)
+            throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<ImportRow> rows = List.copyOf(chunk.values());
+        chunk.clear();
+        try {
+            count(rows.size(), upsert(rows), progress);
+        } catch (DataAccessException e) {
+            logger.warn("Import chunk of {} rows was rejected, writing them one at a time: {}",
+                rows.size(), e.getMostSpecificCause().getMessage());
+            for (ImportRow row : rows) {
+                try {
+                    count(1, upsert(List.of(row)), progress);
+                } catch (DataAccessException rowError) {
+                    reject(row, rowError.getMostSpecificCause().getMessage(), progress, listener);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the rows; one entry per row inserted (true) or updated (false)
+     */
+    private List<Boolean> upsert(List<ImportRow> rows) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Object> params = new ArrayList<>(rows.size() * UPSERT_COLUMNS);
+        for (ImportRow row : rows) {
+            ProductImportRow product = row.product();
+            params.add(product.getSku());
+            params.add(product.getName());
+            params.add(product.getDescription());
+            params.add(product.getPrice());
+            params.add(product.getCategory());
+            params.add(product.getBrand());
+            params.add(product.getImageUrl());
+            params.add(!Boolean.FALSE.equals(product.getActive()));
+            params.add(now);
+            params.add(now);
+        }
+        params.add(now);
+        String sql = UPSERT + String.join(", ", Collections.nCopies(rows.size(), UPSERT_ROW)) + UPSERT_CONFLICT;
+        return jdbcTemplate.query(sql, new ArgumentPreparedStatementSetter(params.toArray()),
+            (rs, rowNum) -> rs.getBoolean("inserted"));
+    }
+
+    private static void count(int rows, List<Boolean> written, ProductImportProgress progress) {
+        long inserted = written.stream().filter(Boolean::booleanValue).count();
+        progress.setInserted(progress.getInserted() + inserted);
+        progress.setUpdated(progress.getUpdated() + written.size() - inserted);
+        progress.setUnchanged(progress.getUnchanged() + rows - written.size());
+    }
+
+    /**
+     * Clear the product cache, then tell the consumers to reload the catalog
+     */
+    private void announceReload(LocalDateTime startedAt, ProductImportProgress progress) {
+        if (productCache != null) {
+            productCache.evictAll();
+        }
+        productEventPublisher.publishReloaded(
+            new CatalogReloadedEvent(startedAt, progress.getInserted(), progress.getUpdated()));
+        logger.info("Published catalog reload of {} inserted and {} updated products",
+            progress.getInserted(), progress.getUpdated());
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.entity.CatalogRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog Revision Repository
+ *
+ * Data access layer for the CatalogRevision row.
+ */
+@Repository
+public interface CatalogRevisionRepository extends JpaRepository<CatalogRevision, Long> {
+
+    /**
+     * Count a change to the catalog; must run in the transaction that made it.
+     * Pending product writes are flushed first, so product rows are always
+     * locked before the revision row, in the same order as the import takes them.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE catalog_revision SET revision = revision + 1, "
+        + "changed_at = GREATEST(changed_at, :changedAt) WHERE id = 1", nativeQuery = true)
+    int bump(@Param("changedAt") LocalDateTime changedAt);
+}
@@ -1,7 +1,10 @@
 package com.ecommerce.product.repository;
 
+import com.ecommerce.product.dto.ProductPriceResponse;
 import com.ecommerce.product.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,10 +12,11 @@ import java.util.List;
 /**
  * Product Repository
  *
- * Data access layer for Product entity.
+ * Data access layer for Product entity. Paged listings are keyset queries over
+ * ProductSpecifications filters (see ProductService.getProductPage).
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
 
     /**
      * Find all active products
@@ -33,4 +37,18 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * Find products by brand
      */
     List<Product> findByBrandAndActiveTrue(String brand);
+
+    /**
+     * Price and active flag of every product, including inactive ones
+     */
+    @Query("SELECT new com.ecommerce.product.dto.ProductPriceResponse(p.id, p.price, p.active, p.updatedAt) "
+        + "FROM Product p")
+    List<ProductPriceResponse> findAllPrices();
+
+    /**
+     * Price and active flag of every active product
+     */
+    @Query("SELECT new com.ecommerce.product.dto.ProductPriceResponse(p.id, p.price, p.active, p.updatedAt) "
+        + "FROM Product p WHERE p.active = true")
+    List<ProductPriceResponse> findActivePrices();
 }
@@ -0,0 +1,52 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.dto.ProductFilter;
+import com.ecommerce.product.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+
+/**
+ * Product Specifications
+ *
+ * Filters for product listings, combined with Specification.and.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> active() {
+        return (root, query, cb) -> cb.isTrue(root.get("active"));
+    }
+
+    public static Specification<Product> inCategory(String category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    public static Specification<Product> ofBrand(String brand) {
+        return (root, query, cb) -> cb.equal(root.get("brand"), brand);
+    }
+
+    /**
+     * Active products that pass a faceted filter
+     */
+    public static Specification<Product> matching(ProductFilter filter) {
+        Specification<Product> specification = active();
+        if (!filter.getCategories().isEmpty()) {
+            specification = specification.and((root, query, cb) -> root.get("category").in(filter.getCategories()));
+        }
+        if (!filter.getBrands().isEmpty()) {
+            specification = specification.and((root, query, cb) -> root.get("brand").in(filter.getBrands()));
+        }
+        if (filter.getMinPrice() != null) {
+            specification = specification.and((root, query, cb) ->
+                cb.greaterThanOrEqualTo(root.<BigDecimal>get("price"), filter.getMinPrice()));
+        }
+        if (filter.getMaxPrice() != null) {
+            specification = specification.and((root, query, cb) ->
+                cb.lessThanOrEqualTo(root.<BigDecimal>get("price"), filter.getMaxPrice()));
+        }
+        return specification;
+    }
+}
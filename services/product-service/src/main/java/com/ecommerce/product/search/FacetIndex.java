@@ -0,0 +1,253 @@
+package com.ecommerce.product.search;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bitmap indexes of products by category, brand and price bucket
+ *
+ * Each facet value maps to a compressed (Roaring) bitmap of the ids of the
+ * products that have it. A query ORs the bitmaps of the values chosen within a
+ * facet and ANDs the facets together. A price range ORs the buckets it covers
+ * whole and checks the prices of the products in the buckets it cuts through.
+ *
+ * Facet counts are cardinalities of ANDs: for each facet, the bitmaps of its
+ * values against the matches of the other facets' filters, so the counts show
+ * what choosing another value of that facet would give.
+ *
+ * Product ids are used as bitmap positions, so results come out in id order.
+ * A product whose id does not fit in an int is left out, and the index reports
+ * itself incomplete until that product is removed again, since queries would
+ * miss it. Not thread-safe; ProductSearchIndex keeps writes and queries apart.
+ */
+class FacetIndex {
+
+    static final String CATEGORY = "category";
+    static final String BRAND = "brand";
+    static final String PRICE = "price";
+
+    // Most values listed for a facet, by count
+    static final int MAX_FACET_VALUES = 50;
+
+    // Lower bounds of the price buckets, in cents
+    static final long[] PRICE_EDGES = {0, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000};
+
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<String, RoaringBitmap> byBrand = new HashMap<>();
+    private final RoaringBitmap[] byPrice = new RoaringBitmap[PRICE_EDGES.length];
+    private final Map<Integer, Facets> facetsByProduct = new HashMap<>();
+    private final Set<Long> leftOut = new HashSet<>();
+
+    FacetIndex() {
+        for (int bucket = 0; bucket < byPrice.length; bucket++) {
+            byPrice[bucket] = new RoaringBitmap();
+        }
+    }
+
+    int size() {
+        return all.getCardinality();
+    }
+
+    /**
+     * Whether every product put is indexed, so queries see all of them
+     */
+    boolean isComplete() {
+        return leftOut.isEmpty();
+    }
+
+    /**
+     * Index a product, replacing what was indexed for it before; returns false,
+     * leaving it out, if its id does not fit in an int
+     */
+    boolean put(long id, String category, String brand, BigDecimal price) {
+        if (!fits(id)) {
+            leftOut.add(id);
+            return false;
+        }
+        int productId = (int) id;
+        remove(productId);
+
+        long priceCents = price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        facetsByProduct.put(productId, new Facets(category, brand, priceCents));
+        all.add(productId);
+        if (category != null) {
+            byCategory.computeIfAbsent(category, value -> new RoaringBitmap()).add(productId);
+        }
+        if (brand != null) {
+            byBrand.computeIfAbsent(brand, value -> new RoaringBitmap()).add(productId);
+        }
+        byPrice[bucket(priceCents)].add(productId);
+        return true;
+    }
+
+    boolean remove(long id) {
+        if (!fits(id)) {
+            return leftOut.remove(id);
+        }
+        int productId = (int) id;
+        Facets facets = facetsByProduct.remove(productId);
+        if (facets == null) {
+            return false;
+        }
+        all.remove(productId);
+        removeFrom(byCategory, facets.category, productId);
+        removeFrom(byBrand, facets.brand, productId);
+        byPrice[bucket(facets.priceCents)].remove(productId);
+        return true;
+    }
+
+    /**
+     * Up to limit matching products with an id above after (if given), with the
+     * number of matches and the facet counts
+     */
+    FacetResult query(Set<String> categories, Set<String> brands, Long minCents, Long maxCents,
+                      Integer after, int limit) {
+        RoaringBitmap categoryFilter = categories.isEmpty() ? null : union(byCategory, categories);
+        RoaringBitmap brandFilter = brands.isEmpty() ? null : union(byBrand, brands);
+        RoaringBitmap priceFilter = minCents == null && maxCents == null ? null : priceRange(minCents, maxCents);
+
+        RoaringBitmap matches = intersect(all, categoryFilter, brandFilter, priceFilter);
+        List<Long> page = new ArrayList<>(Math.min(limit, 128));
+        PeekableIntIterator ids = matches.getIntIterator();
+        if (after != null) {
+            ids.advanceIfNeeded(after + 1);
+        }
+        while (ids.hasNext() && page.size() < limit) {
+            page.add((long) ids.next());
+        }
+
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        facets.put(CATEGORY, counts(byCategory, intersect(all, brandFilter, priceFilter)));
+        facets.put(BRAND, counts(byBrand, intersect(all, categoryFilter, priceFilter)));
+        facets.put(PRICE, priceCounts(intersect(all, categoryFilter, brandFilter)));
+        return new FacetResult(page, ids.hasNext(), matches.getLongCardinality(), facets);
+    }
+
+    /**
+     * Products priced from minCents to maxCents, both inclusive; a null bound is open
+     */
+    private RoaringBitmap priceRange(Long minCents, Long maxCents) {
+        long low = minCents != null ? minCents : Long.MIN_VALUE;
+        long high = maxCents != null ? maxCents : Long.MAX_VALUE;
+
+        RoaringBitmap range = new RoaringBitmap();
+        for (int bucket = 0; bucket < byPrice.length; bucket++) {
+            long from = bucket == 0 ? Long.MIN_VALUE : PRICE_EDGES[bucket];
+            long to = bucket + 1 < PRICE_EDGES.length ? PRICE_EDGES[bucket + 1] - 1 : Long.MAX_VALUE;
+            if (to < low || from > high) {
+                continue;
+            }
+            if (from >= low && to <= high) {
+                range.or(byPrice[bucket]);
+                continue;
+            }
+            IntIterator ids = byPrice[bucket].getIntIterator();
+            while (ids.hasNext()) {
+                int productId = ids.next();
+                long priceCents = facetsByProduct.get(productId).priceCents;
+                if (priceCents >= low && priceCents <= high) {
+                    range.add(productId);
+                }
+            }
+        }
+        return range;
+    }
+
+    private static Map<String, Long> counts(Map<String, RoaringBitmap> bitmaps, RoaringBitmap base) {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        bitmaps.forEach((value, bitmap) -> {
+            long count = RoaringBitmap.andCardinality(base, bitmap);
+            if (count > 0) {
+                counts.add(Map.entry(value, count));
+            }
+        });
+        counts.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        counts.stream().limit(MAX_FACET_VALUES).forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    private Map<String, Long> priceCounts(RoaringBitmap base) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < byPrice.length; bucket++) {
+            long count = RoaringBitmap.andCardinality(base, byPrice[bucket]);
+            if (count > 0) {
+                counts.put(priceLabel(bucket), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * "25-50" for the bucket from 25.00 up to 49.99, "2500+" for the last one
+     */
+    static String priceLabel(int bucket) {
+        String from = BigDecimal.valueOf(PRICE_EDGES[bucket], 2).stripTrailingZeros().toPlainString();
+        if (bucket + 1 == PRICE_EDGES.length) {
+            return from + "+";
+        }
+        return from + "-" + BigDecimal.valueOf(PRICE_EDGES[bucket + 1], 2).stripTrailingZeros().toPlainString();
+    }
+
+    static boolean fits(long productId) {
+        return productId >= 0 && productId <= Integer.MAX_VALUE;
+    }
+
+    static int bucket(long priceCents) {
+        int bucket = 0;
+        while (bucket + 1 < PRICE_EDGES.length && priceCents >= PRICE_EDGES[bucket + 1]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static RoaringBitmap union(Map<String, RoaringBitmap> bitmaps, Set<String> values) {
+        return FastAggregation.or(values.stream()
+            .map(bitmaps::get)
+            .filter(bitmap -> bitmap != null)
+            .toArray(RoaringBitmap[]::new));
+    }
+
+    /**
+     * The base ANDed with every filter given; the base itself if none is
+     */
+    private static RoaringBitmap intersect(RoaringBitmap base, RoaringBitmap... filters) {
+        RoaringBitmap result = base;
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result = RoaringBitmap.and(result, filter);
+            }
+        }
+        return result;
+    }
+
+    private static void removeFrom(Map<String, RoaringBitmap> bitmaps, String value, int productId) {
+        if (value == null) {
+            return;
+        }
+        RoaringBitmap bitmap = bitmaps.get(value);
+        if (bitmap != null) {
+            bitmap.remove(productId);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(value);
+            }
+        }
+    }
+
+    private record Facets(String category, String brand, long priceCents) {
+    }
+}
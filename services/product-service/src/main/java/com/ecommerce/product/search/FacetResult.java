@@ -0,0 +1,12 @@
+package com.ecommerce.product.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The products on one page of a faceted query, whether there are more after
+ * them, the number of matches and the facet counts (see ProductFacetResponse)
+ */
+public record FacetResult(List<Long> productIds, boolean hasMore, long total,
+                          Map<String, Map<String, Long>> facets) {
+}
@@ -0,0 +1,385 @@
+package com.ecommerce.product.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Inverted index over product text with BM25 ranking
+ *
+ * Each product is one document, a weighted bag of the terms in its name, brand,
+ * category and description: a name term counts NAME_WEIGHT times as much as a
+ * description term, and document length is measured the same way. Each term maps
+ * to a postings list of (document, weighted term frequency) in document order.
+ * Documents are numbered densely so that scoring can work on arrays.
+ *
+ * A query matches products that contain every query term. The last term also
+ * matches as a prefix (up to MAX_PREFIX_EXPANSIONS of the most common terms
+ * starting with it), at PREFIX_WEIGHT, so results keep up while a shopper types.
+ *
+ * Replacing or removing a product only marks its old document dead. Postings are
+ * rewritten without dead documents once those make up a quarter of the index.
+ *
+ * Not thread-safe for writes; ProductSearchIndex keeps writes and searches apart.
+ * Concurrent searches are bounded by the number of score accumulators.
+ */
+class InvertedIndex {
+
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+
+    static final float NAME_WEIGHT = 3f;
+    static final float BRAND_WEIGHT = 2f;
+    static final float CATEGORY_WEIGHT = 1.5f;
+    static final float DESCRIPTION_WEIGHT = 1f;
+
+    static final float PREFIX_WEIGHT = 0.7f;
+    static final int MIN_PREFIX_LENGTH = 2;
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    private final NavigableMap<String, Postings> postingsByTerm = new TreeMap<>();
+    private final Map<Long, Integer> documentByProduct = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private long[] productIds = new long[1024];
+    private float[] lengths = new float[1024];
+
+    // Documents numbered so far, live or dead
+    private int documentCount;
+    private int liveCount;
+    private double liveLength;
+
+    private final BlockingQueue<Accumulator> accumulators;
+
+    record Hit(long productId, float score) {
+    }
+
+    InvertedIndex(int maxConcurrentSearches) {
+        this.accumulators = new ArrayBlockingQueue<>(maxConcurrentSearches);
+        for (int i = 0; i < maxConcurrentSearches; i++) {
+            accumulators.add(new Accumulator());
+        }
+    }
+
+    int size() {
+        return liveCount;
+    }
+
+    int termCount() {
+        return postingsByTerm.size();
+    }
+
+    /**
+     * Index a product, replacing what was indexed for it before
+     */
+    void put(long productId, String name, String brand, String category, String description) {
+        remove(productId);
+
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = addTerms(frequencies, name, NAME_WEIGHT)
+            + addTerms(frequencies, brand, BRAND_WEIGHT)
+            + addTerms(frequencies, category, CATEGORY_WEIGHT)
+            + addTerms(frequencies, description, DESCRIPTION_WEIGHT);
+        if (frequencies.isEmpty()) {
+            return;
+        }
+
+        int document = documentCount++;
+        if (document == productIds.length) {
+            productIds = Arrays.copyOf(productIds, document * 2);
+            lengths = Arrays.copyOf(lengths, document * 2);
+        }
+        productIds[document] = productId;
+        lengths[document] = length;
+        live.set(document);
+        liveCount++;
+        liveLength += length;
+        documentByProduct.put(productId, document);
+
+        frequencies.forEach((term, frequency) ->
+            postingsByTerm.computeIfAbsent(term, t -> new Postings()).add(document, frequency));
+    }
+
+    boolean remove(long productId) {
+        Integer document = documentByProduct.remove(productId);
+        if (document == null) {
+            return false;
+        }
+
+        live.clear(document);
+        liveCount--;
+        liveLength -= lengths[document];
+
+        int dead = documentCount - liveCount;
+        if (dead >= MIN_DEAD_TO_COMPACT && dead * 4 > documentCount) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Renumber the live documents densely and drop dead ones from every postings list
+     */
+    void compact() {
+        int[] renumbered = new int[documentCount];
+        int next = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (live.get(document)) {
+                renumbered[document] = next;
+                productIds[next] = productIds[document];
+                lengths[next] = lengths[document];
+                next++;
+            } else {
+                renumbered[document] = -1;
+            }
+        }
+
+        Iterator<Postings> postings = postingsByTerm.values().iterator();
+        while (postings.hasNext()) {
+            Postings list = postings.next();
+            list.renumber(renumbered);
+            if (list.size == 0) {
+                postings.remove();
+            }
+        }
+        documentByProduct.replaceAll((productId, document) -> renumbered[document]);
+
+        live.clear();
+        live.set(0, next);
+        documentCount = next;
+    }
+
+    /**
+     * Products containing every query term, best BM25 score first
+     */
+    List<Hit> search(List<String> queryTerms, int limit) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(queryTerms));
+        if (distinct.isEmpty() || liveCount == 0 || limit < 1) {
+            return List.of();
+        }
+
+        List<List<Expansion>> expansions = new ArrayList<>(distinct.size());
+        for (int i = 0; i < distinct.size(); i++) {
+            List<Expansion> termExpansions = expand(distinct.get(i), i == distinct.size() - 1);
+            if (termExpansions.isEmpty()) {
+                return List.of();
+            }
+            expansions.add(termExpansions);
+        }
+        // Rare terms first keeps the set of candidates small from the start
+        expansions.sort(Comparator.comparingLong(InvertedIndex::postingsCount));
+
+        Accumulator accumulator = takeAccumulator();
+        try {
+            accumulator.ensureCapacity(documentCount);
+            for (int i = 0; i < expansions.size(); i++) {
+                score(accumulator, expansions.get(i), i);
+            }
+            return topHits(accumulator, expansions.size(), limit);
+        } finally {
+            accumulator.reset();
+            accumulators.add(accumulator);
+        }
+    }
+
+    private List<Expansion> expand(String term, boolean prefix) {
+        List<Expansion> expansions = new ArrayList<>();
+        Postings exact = postingsByTerm.get(term);
+        if (exact != null) {
+            expansions.add(new Expansion(exact, 1f));
+        }
+        if (!prefix || term.length() < MIN_PREFIX_LENGTH) {
+            return expansions;
+        }
+
+        PriorityQueue<Postings> mostCommon = new PriorityQueue<>(Comparator.comparingInt((Postings list) -> list.size));
+        for (Map.Entry<String, Postings> entry
+                : postingsByTerm.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+            mostCommon.add(entry.getValue());
+            if (mostCommon.size() > MAX_PREFIX_EXPANSIONS) {
+                mostCommon.poll();
+            }
+        }
+        mostCommon.forEach(list -> expansions.add(new Expansion(list, PREFIX_WEIGHT)));
+        return expansions;
+    }
+
+    /**
+     * Add the score of one query term to every document that matched all the
+     * terms before it; a document matching several expansions of the term gets
+     * the best of their scores
+     */
+    private void score(Accumulator accumulator, List<Expansion> expansions, int termIndex) {
+        float averageLength = (float) (liveLength / liveCount);
+        for (Expansion expansion : expansions) {
+            Postings list = expansion.postings;
+            float idf = idf(list.size);
+            for (int j = 0; j < list.size; j++) {
+                int document = list.documents[j];
+                if (accumulator.matched[document] != termIndex || !live.get(document)) {
+                    continue;
+                }
+                float frequency = list.frequencies[j];
+                float norm = K1 * (1 - B + B * lengths[document] / averageLength);
+                float score = expansion.weight * idf * frequency * (K1 + 1) / (frequency + norm);
+
+                if (accumulator.termScores[document] == 0) {
+                    accumulator.termDocuments[accumulator.termDocumentCount++] = document;
+                }
+                accumulator.termScores[document] = Math.max(accumulator.termScores[document], score);
+            }
+        }
+
+        for (int k = 0; k < accumulator.termDocumentCount; k++) {
+            int document = accumulator.termDocuments[k];
+            accumulator.scores[document] += accumulator.termScores[document];
+            accumulator.termScores[document] = 0;
+            accumulator.matched[document] = termIndex + 1;
+            if (termIndex == 0) {
+                accumulator.candidates[accumulator.candidateCount++] = document;
+            }
+        }
+        accumulator.termDocumentCount = 0;
+    }
+
+    private List<Hit> topHits(Accumulator accumulator, int termCount, int limit) {
+        Comparator<Hit> worstFirst = Comparator.comparingDouble(Hit::score)
+            .thenComparing(Comparator.comparingLong(Hit::productId).reversed());
+        PriorityQueue<Hit> best = new PriorityQueue<>(worstFirst);
+        for (int k = 0; k < accumulator.candidateCount; k++) {
+            int document = accumulator.candidates[k];
+            if (accumulator.matched[document] != termCount) {
+                continue;
+            }
+            best.add(new Hit(productIds[document], accumulator.scores[document]));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(worstFirst.reversed());
+        return hits;
+    }
+
+    /**
+     * BM25 inverse document frequency. Dead documents still count towards a term's
+     * document frequency until the next compaction, so it is kept above zero.
+     */
+    private float idf(int documentFrequency) {
+        double idf = Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        return (float) Math.max(idf, 1e-3);
+    }
+
+    private static float addTerms(Map<String, Float> frequencies, String text, float weight) {
+        List<String> terms = TextAnalyzer.terms(text);
+        for (String term : terms) {
+            frequencies.merge(term, weight, Float::sum);
+        }
+        return terms.size() * weight;
+    }
+
+    private static long postingsCount(List<Expansion> expansions) {
+        long count = 0;
+        for (Expansion expansion : expansions) {
+            count += expansion.postings.size;
+        }
+        return count;
+    }
+
+    private Accumulator takeAccumulator() {
+        try {
+            return accumulators.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search interrupted", e);
+        }
+    }
+
+    private record Expansion(Postings postings, float weight) {
+    }
+
+    /**
+     * Documents containing a term, in ascending order, with the term's weighted frequency in each
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+
+        void add(int document, float frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int j = 0; j < size; j++) {
+                int document = renumbered[documents[j]];
+                if (document >= 0) {
+                    documents[kept] = document;
+                    frequencies[kept] = frequencies[j];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    /**
+     * Per-search scratch space, indexed by document and reused between searches;
+     * only the entries a search touched are cleared afterwards
+     */
+    private static final class Accumulator {
+
+        private float[] scores = new float[0];
+        private float[] termScores = new float[0];
+        private int[] matched = new int[0];
+        private int[] candidates = new int[0];
+        private int candidateCount;
+        private int[] termDocuments = new int[0];
+        private int termDocumentCount;
+
+        void ensureCapacity(int documents) {
+            if (scores.length < documents) {
+                int capacity = Math.max(documents, scores.length * 3 / 2);
+                scores = new float[capacity];
+                termScores = new float[capacity];
+                matched = new int[capacity];
+                candidates = new int[capacity];
+                termDocuments = new int[capacity];
+            }
+        }
+
+        void reset() {
+            for (int k = 0; k < candidateCount; k++) {
+                int document = candidates[k];
+                scores[document] = 0;
+                matched[document] = 0;
+            }
+            for (int k = 0; k < termDocumentCount; k++) {
+                termScores[termDocuments[k]] = 0;
+            }
+            candidateCount = 0;
+            termDocumentCount = 0;
+        }
+    }
+}
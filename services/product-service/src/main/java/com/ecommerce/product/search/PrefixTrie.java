@@ -0,0 +1,304 @@
+package com.ecommerce.product.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Weighted completions under string keys, for typeahead
+ *
+ * A radix trie: each edge holds a run of characters, so a node exists only where
+ * keys branch or end, and children are kept in sorted arrays rather than maps.
+ * Every node also records the highest weight below it, which lets top() visit
+ * the best completions for a prefix first and stop after the limit, however
+ * many keys share the prefix.
+ *
+ * One completion may be stored under several keys. Its weight can be changed in
+ * place, followed by reweight() for each of its keys.
+ *
+ * Not thread-safe; ProductSearchIndex keeps writes and lookups apart.
+ */
+class PrefixTrie {
+
+    /**
+     * Something to suggest: a product (productId set) or a brand (productId null)
+     */
+    static final class Completion {
+
+        final String text;
+        final Long productId;
+        float weight;
+
+        Completion(String text, Long productId, float weight) {
+            this.text = text;
+            this.productId = productId;
+            this.weight = weight;
+        }
+    }
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+        .comparingDouble((Candidate candidate) -> candidate.weight).reversed()
+        // On a tie, a completion comes before the nodes that may hold more of them
+        .thenComparing(candidate -> candidate.completion == null)
+        .thenComparing(candidate -> candidate.completion != null ? candidate.completion.text : "");
+
+    private final Node root = new Node("");
+    private int nodeCount = 1;
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    void insert(String key, Completion completion) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.addChild(child);
+                nodeCount++;
+                i = key.length();
+            } else {
+                int common = commonPrefix(child.label, key, i);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+                i += common;
+            }
+            node = child;
+            path.add(node);
+        }
+
+        node.addCompletion(completion);
+        for (Node onPath : path) {
+            onPath.best = Math.max(onPath.best, completion.weight);
+        }
+    }
+
+    boolean remove(String key, Completion completion) {
+        List<Node> path = path(key);
+        if (path == null || !path.get(path.size() - 1).removeCompletion(completion)) {
+            return false;
+        }
+
+        // Prune nodes left empty and merge those left with a single child, bottom up
+        for (int j = path.size() - 1; j > 0; j--) {
+            Node node = path.get(j);
+            Node parent = path.get(j - 1);
+            if (node.completionCount == 0 && node.childCount == 0) {
+                parent.removeChild(node);
+                nodeCount--;
+            } else if (node.completionCount == 0 && node.childCount == 1) {
+                Node only = node.children[0];
+                only.label = node.label + only.label;
+                parent.replaceChild(node, only);
+                nodeCount--;
+            } else {
+                node.updateBest();
+            }
+        }
+        root.updateBest();
+        return true;
+    }
+
+    /**
+     * Propagate a change to the weight of a completion stored under the key
+     */
+    void reweight(String key) {
+        List<Node> path = path(key);
+        if (path == null) {
+            return;
+        }
+        for (int j = path.size() - 1; j >= 0; j--) {
+            path.get(j).updateBest();
+        }
+    }
+
+    /**
+     * The highest-weighted completions stored under keys starting with the prefix
+     */
+    List<Completion> top(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.child(prefix.charAt(i));
+            if (child == null) {
+                return List.of();
+            }
+            int common = commonPrefix(child.label, prefix, i);
+            if (common < child.label.length() && i + common < prefix.length()) {
+                return List.of();
+            }
+            node = child;
+            i += common;
+        }
+
+        List<Completion> found = new ArrayList<>(Math.min(limit, 16));
+        Set<Completion> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+        queue.add(new Candidate(node, null, node.best));
+        while (!queue.isEmpty() && found.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.completion != null) {
+                // A completion can be stored under more than one key with this prefix
+                if (seen.add(candidate.completion)) {
+                    found.add(candidate.completion);
+                }
+                continue;
+            }
+            Node next = candidate.node;
+            for (int k = 0; k < next.completionCount; k++) {
+                Completion completion = next.completions[k];
+                queue.add(new Candidate(null, completion, completion.weight));
+            }
+            for (int k = 0; k < next.childCount; k++) {
+                Node child = next.children[k];
+                queue.add(new Candidate(child, null, child.best));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Nodes from the root to the one where the key ends, or null if no key ends there
+     */
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            if (node == null || !key.startsWith(node.label, i)) {
+                return null;
+            }
+            i += node.label.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Put a new node for the first characters of the child's label between it and its parent
+     */
+    private Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.label.substring(0, at));
+        child.label = child.label.substring(at);
+        middle.addChild(child);
+        middle.best = child.best;
+        parent.replaceChild(child, middle);
+        nodeCount++;
+        return middle;
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int max = Math.min(label.length(), key.length() - from);
+        int common = 0;
+        while (common < max && label.charAt(common) == key.charAt(from + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private record Candidate(Node node, Completion completion, float weight) {
+    }
+
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Completion[] NO_COMPLETIONS = new Completion[0];
+
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+        private Completion[] completions = NO_COMPLETIONS;
+        private int completionCount;
+        private float best;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int index = indexOf(first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        void addChild(Node child) {
+            int index = -indexOf(child.label.charAt(0)) - 1;
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            }
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            children[index] = child;
+            childCount++;
+        }
+
+        void removeChild(Node child) {
+            int index = indexOf(child.label.charAt(0));
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            children[--childCount] = null;
+        }
+
+        /**
+         * Swap in a node whose label starts with the same character
+         */
+        void replaceChild(Node child, Node replacement) {
+            children[indexOf(child.label.charAt(0))] = replacement;
+        }
+
+        void addCompletion(Completion completion) {
+            if (completionCount == completions.length) {
+                completions = Arrays.copyOf(completions, Math.max(1, completionCount * 2));
+            }
+            completions[completionCount++] = completion;
+        }
+
+        boolean removeCompletion(Completion completion) {
+            for (int k = 0; k < completionCount; k++) {
+                if (completions[k] == completion) {
+                    completions[k] = completions[--completionCount];
+                    completions[completionCount] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void updateBest() {
+            float max = 0;
+            for (int k = 0; k < completionCount; k++) {
+                max = Math.max(max, completions[k].weight);
+            }
+            for (int k = 0; k < childCount; k++) {
+                max = Math.max(max, children[k].best);
+            }
+            best = max;
+        }
+
+        private int indexOf(char first) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char candidate = children[middle].label.charAt(0);
+                if (candidate < first) {
+                    low = middle + 1;
+                } else if (candidate > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
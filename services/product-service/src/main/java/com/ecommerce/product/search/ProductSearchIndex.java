@@ -0,0 +1,389 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.dto.ProductFilter;
+import com.ecommerce.product.dto.ProductSuggestion;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.CatalogReloadedEvent;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.ProductSpecifications;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Product Search Index
+ *
+ * Keeps an InvertedIndex of all active products in memory for ranked full-text
+ * search, a SuggestionIndex of their names and brands for typeahead, and a
+ * FacetIndex of their categories, brands and prices for faceted filtering. All
+ * three are built from the database in the background at startup, and
+ * rebuilt every product.search.rebuild-interval-ms in case a change was missed.
+ * Between rebuilds every replica applies each product.changed event by reading
+ * the product again, so changes made on any replica become searchable within
+ * moments. Changes that arrive during a rebuild are applied again once the new
+ * index has replaced the old one. A catalog import is announced with a single
+ * catalog reload event instead, on which every replica rebuilds once; rebuilds
+ * never overlap, so a reload waits for any rebuild already running.
+ *
+ * Suggestions are weighted by popularity: the product views this replica has
+ * served (recordView), each worth twice as much as one a popularity-half-life
+ * earlier. Views are applied to the suggestion weights every
+ * popularity-interval-ms, and rescaled at every rebuild so weights stay small.
+ *
+ * Until the first build completes, search() and filter() return empty and
+ * ProductService falls back to the database; suggest() returns no suggestions.
+ * filter() also returns empty while a product is left out of the FacetIndex.
+ *
+ * Metrics: product.search.documents, product.search.terms,
+ * product.search.latency, product.suggest.nodes, product.suggest.latency and
+ * product.filter.latency.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.search", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    // Popularity below this after rescaling is forgotten
+    private static final float MIN_POPULARITY = 0.01f;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${product.search.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${product.search.max-concurrent-searches:0}")
+    private int maxConcurrentSearches = 0;
+
+    @Value("${product.search.popularity-half-life:24h}")
+    private Duration popularityHalfLife = Duration.ofHours(24);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    // Views since they were last applied, and the decayed views applied so far
+    private final Map<Long, Integer> pendingViews = new ConcurrentHashMap<>();
+    private final Map<Long, Float> popularity = new ConcurrentHashMap<>();
+    private volatile long popularityEpoch = System.currentTimeMillis();
+
+    private volatile InvertedIndex index;
+    private volatile SuggestionIndex suggestions;
+    private volatile FacetIndex facets;
+    private volatile boolean rebuilding;
+    private Timer searchLatency;
+    private Timer suggestLatency;
+    private Timer filterLatency;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("product.search.documents", this, search -> search.indexStat(InvertedIndex::size))
+            .description("Products in the search index")
+            .register(meterRegistry);
+        Gauge.builder("product.search.terms", this, search -> search.indexStat(InvertedIndex::termCount))
+            .description("Distinct terms in the search index")
+            .register(meterRegistry);
+        searchLatency = Timer.builder("product.search.latency")
+            .description("Time to rank the products matching a search query")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        Gauge.builder("product.suggest.nodes", this, search -> search.suggestionStat(SuggestionIndex::nodeCount))
+            .description("Nodes in the typeahead prefix trie")
+            .register(meterRegistry);
+        suggestLatency = Timer.builder("product.suggest.latency")
+            .description("Time to find the typeahead suggestions for a prefix")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        filterLatency = Timer.builder("product.filter.latency")
+            .description("Time to match a faceted query and count its facets")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * IDs of the active products matching every term of the query, best match
+     * first; empty until the index has been built
+     */
+    public Optional<List<Long>> search(String query, int limit) {
+        List<String> terms = TextAnalyzer.terms(query);
+        lock.readLock().lock();
+        try {
+            InvertedIndex current = index;
+            if (current == null) {
+                return Optional.empty();
+            }
+            List<InvertedIndex.Hit> hits = searchLatency.record(() -> current.search(terms, limit));
+            return Optional.of(hits.stream().map(InvertedIndex.Hit::productId).toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Product names and brands with a word starting with the prefix, most popular
+     * first; none until the index has been built
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            SuggestionIndex current = suggestions;
+            if (current == null) {
+                return List.of();
+            }
+            return suggestLatency.record(() -> current.suggest(prefix, limit)).stream()
+                .map(ProductSearchIndex::toSuggestion)
+                .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit IDs of the active products matching the filter, in id order and
+     * after the given id, with the facet counts; empty until the index has been built
+     */
+    public Optional<FacetResult> filter(ProductFilter filter, Long after, int limit) {
+        Long minCents = filter.getMinPrice() != null ? cents(filter.getMinPrice(), RoundingMode.CEILING) : null;
+        Long maxCents = filter.getMaxPrice() != null ? cents(filter.getMaxPrice(), RoundingMode.FLOOR) : null;
+        Integer afterId = after != null ? (int) Math.min(after, Integer.MAX_VALUE) : null;
+        lock.readLock().lock();
+        try {
+            FacetIndex current = facets;
+            if (current == null || !current.isComplete()) {
+                return Optional.empty();
+            }
+            return Optional.of(filterLatency.record(() -> current.query(filter.getCategories(), filter.getBrands(),
+                minCents, maxCents, afterId, limit)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count a view of a product towards its popularity
+     */
+    public void recordView(Long productId) {
+        if (productId != null) {
+            pendingViews.merge(productId, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Add the views counted since the last run to the suggestion weights
+     */
+    @Scheduled(fixedDelayString = "${product.search.popularity-interval-ms:60000}")
+    public void applyViews() {
+        if (pendingViews.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            float worth = (float) Math.pow(2, (double) (System.currentTimeMillis() - popularityEpoch)
+                / popularityHalfLife.toMillis());
+            for (Long productId : pendingViews.keySet()) {
+                Integer views = pendingViews.remove(productId);
+                if (views == null) {
+                    continue;
+                }
+                popularity.merge(productId, views * worth, Float::sum);
+                if (suggestions != null) {
+                    suggestions.reweight(productId, weight(productId));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @RabbitListener(queues = "#{productSearchQueue.name}")
+    public void onProductChanged(ProductChangedEvent event) {
+        refresh(event.getProductId());
+    }
+
+    @RabbitListener(queues = "#{productSearchReloadQueue.name}")
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        logger.info("Rebuilding search index after a catalog import started at {}", event.getStartedAt());
+        rebuild();
+    }
+
+    /**
+     * Re-read a product and index it as it is now, or drop it if it is inactive or gone
+     */
+    public void refresh(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        Optional<Product> product = productRepository.findById(productId);
+
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                changedDuringRebuild.add(productId);
+            }
+            if (index != null) {
+                apply(index, suggestions, facets, productId, product.orElse(null));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.search.rebuild-interval-ms:21600000}",
+               initialDelayString = "${product.search.initial-delay-ms:0}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        changedDuringRebuild.clear();
+        rebuilding = true;
+        try {
+            rescalePopularity();
+            InvertedIndex fresh = new InvertedIndex(concurrency());
+            SuggestionIndex freshSuggestions = new SuggestionIndex();
+            FacetIndex freshFacets = new FacetIndex();
+            build(fresh, freshSuggestions, freshFacets);
+
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+                suggestions = freshSuggestions;
+                facets = freshFacets;
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Set<Long> missed = Set.copyOf(changedDuringRebuild);
+            changedDuringRebuild.clear();
+            missed.forEach(this::refresh);
+
+            logger.info("Search index rebuilt: {} products, {} terms in {} ms",
+                fresh.size(), fresh.termCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Keep searching the current index; the next run tries again
+            logger.error("Search index rebuild failed: {}", e.getMessage());
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    /**
+     * Index every active product, reading them in id order a batch at a time
+     */
+    private void build(InvertedIndex fresh, SuggestionIndex freshSuggestions, FacetIndex freshFacets) {
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<Product> batch;
+        do {
+            ScrollPosition from = position;
+            batch = productRepository.findBy(ProductSpecifications.active(),
+                query -> query.sortBy(Sort.by("id")).limit(batchSize).scroll(from));
+            batch.forEach(product -> apply(fresh, freshSuggestions, freshFacets, product.getId(), product));
+            if (!batch.isEmpty()) {
+                position = batch.positionAt(batch.size() - 1);
+            }
+        } while (batch.hasNext());
+    }
+
+    private void apply(InvertedIndex target, SuggestionIndex targetSuggestions, FacetIndex targetFacets,
+                       Long productId, Product product) {
+        if (product == null || !Boolean.TRUE.equals(product.getActive())) {
+            target.remove(productId);
+            targetSuggestions.remove(productId);
+            targetFacets.remove(productId);
+            return;
+        }
+        target.put(productId, product.getName(), product.getBrand(), product.getCategory(), product.getDescription());
+        targetSuggestions.put(productId, product.getName(), product.getBrand(), weight(productId));
+        if (!targetFacets.put(productId, product.getCategory(), product.getBrand(), product.getPrice())) {
+            logger.warn("Product {} is left out of the facet index, its id does not fit in an int; "
+                + "filtering is done in the database instead", productId);
+        }
+    }
+
+    /**
+     * Make the start of the popularity clock now, so view worths start again from one
+     */
+    private void rescalePopularity() {
+        lock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            float scale = (float) Math.pow(2, -(double) (now - popularityEpoch) / popularityHalfLife.toMillis());
+            popularity.replaceAll((productId, views) -> views * scale);
+            popularity.values().removeIf(views -> views < MIN_POPULARITY);
+            popularityEpoch = now;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Every product starts at one, so those never viewed can still be suggested
+     */
+    private float weight(Long productId) {
+        return 1 + popularity.getOrDefault(productId, 0f);
+    }
+
+    private static long cents(BigDecimal amount, RoundingMode rounding) {
+        return amount.movePointRight(2).setScale(0, rounding).longValue();
+    }
+
+    private int concurrency() {
+        return maxConcurrentSearches > 0 ? maxConcurrentSearches : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static ProductSuggestion toSuggestion(PrefixTrie.Completion completion) {
+        return completion.productId != null
+            ? new ProductSuggestion(completion.text, ProductSuggestion.PRODUCT, completion.productId)
+            : new ProductSuggestion(completion.text, ProductSuggestion.BRAND, null);
+    }
+
+    private double indexStat(ToIntFunction<InvertedIndex> stat) {
+        lock.readLock().lock();
+        try {
+            InvertedIndex current = index;
+            return current != null ? stat.applyAsInt(current) : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double suggestionStat(ToIntFunction<SuggestionIndex> stat) {
+        lock.readLock().lock();
+        try {
+            SuggestionIndex current = suggestions;
+            return current != null ? stat.applyAsInt(current) : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
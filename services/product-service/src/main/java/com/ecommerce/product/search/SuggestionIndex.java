@@ -0,0 +1,162 @@
+package com.ecommerce.product.search;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typeahead suggestions of product names and brands
+ *
+ * Names and brands are normalized (see TextAnalyzer.normalize) and stored in a
+ * PrefixTrie under the text from each of their first MAX_WORD_STARTS words, so
+ * "iph" suggests "Apple iPhone 15". Keys are cut to MAX_KEY_LENGTH characters,
+ * which is as far as a prefix is compared.
+ *
+ * A product is weighted by its popularity, as given by ProductSearchIndex; a
+ * brand by the total weight of its products, so a brand matching the prefix
+ * usually comes before its individual products.
+ *
+ * Not thread-safe; ProductSearchIndex keeps writes and lookups apart.
+ */
+class SuggestionIndex {
+
+    static final int MAX_WORD_STARTS = 4;
+    static final int MAX_KEY_LENGTH = 48;
+
+    private final PrefixTrie trie = new PrefixTrie();
+    private final Map<Long, ProductEntry> products = new HashMap<>();
+    private final Map<String, BrandEntry> brands = new HashMap<>();
+
+    int size() {
+        return products.size();
+    }
+
+    int nodeCount() {
+        return trie.nodeCount();
+    }
+
+    /**
+     * Suggest a product, replacing what was suggested for it before
+     */
+    void put(long productId, String name, String brand, float weight) {
+        remove(productId);
+
+        List<String> keys = keys(name);
+        if (keys.isEmpty()) {
+            return;
+        }
+        PrefixTrie.Completion completion = new PrefixTrie.Completion(name.strip(), productId, weight);
+        keys.forEach(key -> trie.insert(key, completion));
+
+        String brandKey = TextAnalyzer.normalize(brand);
+        products.put(productId, new ProductEntry(completion, keys, brandKey));
+        if (!brandKey.isEmpty()) {
+            addToBrand(brandKey, brand.strip(), weight);
+        }
+    }
+
+    boolean remove(long productId) {
+        ProductEntry entry = products.remove(productId);
+        if (entry == null) {
+            return false;
+        }
+        entry.keys.forEach(key -> trie.remove(key, entry.completion));
+        if (!entry.brandKey.isEmpty()) {
+            removeFromBrand(entry.brandKey, entry.completion.weight);
+        }
+        return true;
+    }
+
+    /**
+     * Change the weight of a product, and with it that of its brand
+     */
+    void reweight(long productId, float weight) {
+        ProductEntry entry = products.get(productId);
+        if (entry == null || entry.completion.weight == weight) {
+            return;
+        }
+        float change = weight - entry.completion.weight;
+        entry.completion.weight = weight;
+        entry.keys.forEach(trie::reweight);
+
+        BrandEntry brand = brands.get(entry.brandKey);
+        if (brand != null) {
+            brand.completion.weight = Math.max(0, brand.completion.weight + change);
+            brand.keys.forEach(trie::reweight);
+        }
+    }
+
+    /**
+     * Products and brands with a word starting with the prefix, highest weight first
+     */
+    List<PrefixTrie.Completion> suggest(String prefix, int limit) {
+        String key = TextAnalyzer.normalize(prefix);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        return trie.top(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key, limit);
+    }
+
+    private void addToBrand(String brandKey, String brand, float weight) {
+        BrandEntry entry = brands.get(brandKey);
+        if (entry == null) {
+            entry = new BrandEntry(new PrefixTrie.Completion(brand, null, weight), keys(brand));
+            brands.put(brandKey, entry);
+            PrefixTrie.Completion completion = entry.completion;
+            entry.keys.forEach(key -> trie.insert(key, completion));
+        } else {
+            entry.completion.weight += weight;
+            entry.keys.forEach(trie::reweight);
+        }
+        entry.products++;
+    }
+
+    private void removeFromBrand(String brandKey, float weight) {
+        BrandEntry entry = brands.get(brandKey);
+        if (entry == null) {
+            return;
+        }
+        if (--entry.products == 0) {
+            brands.remove(brandKey);
+            entry.keys.forEach(key -> trie.remove(key, entry.completion));
+        } else {
+            entry.completion.weight = Math.max(0, entry.completion.weight - weight);
+            entry.keys.forEach(trie::reweight);
+        }
+    }
+
+    /**
+     * The normalized text from the start of each of its first words
+     */
+    static List<String> keys(String text) {
+        String normalized = TextAnalyzer.normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        int start = 0;
+        while (start < normalized.length() && keys.size() < MAX_WORD_STARTS) {
+            keys.add(normalized.substring(start, Math.min(normalized.length(), start + MAX_KEY_LENGTH)));
+            int space = normalized.indexOf(' ', start);
+            if (space < 0) {
+                break;
+            }
+            start = space + 1;
+        }
+        return List.copyOf(keys);
+    }
+
+    private record ProductEntry(PrefixTrie.Completion completion, List<String> keys, String brandKey) {
+    }
+
+    private static final class BrandEntry {
+
+        private final PrefixTrie.Completion completion;
+        private final List<String> keys;
+        private int products;
+
+        BrandEntry(PrefixTrie.Completion completion, List<String> keys) {
+            this.completion = completion;
+            this.keys = keys;
+        }
+    }
+}
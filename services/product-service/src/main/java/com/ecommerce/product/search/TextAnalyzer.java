@@ -0,0 +1,57 @@
+package com.ecommerce.product.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits product text and queries into index terms: accents are stripped, text
+ * is lower-cased and split on anything that is not a letter or digit, and common
+ * English words that carry no meaning in a product search are dropped.
+ */
+final class TextAnalyzer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_TERM_LENGTH = 40;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "by", "for", "from", "in", "is", "it",
+        "of", "on", "or", "the", "to", "with");
+
+    private TextAnalyzer() {
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+
+        for (String term : SEPARATORS.split(fold(text))) {
+            if (!term.isEmpty() && term.length() <= MAX_TERM_LENGTH && !STOP_WORDS.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * The text folded like terms, with its words separated by single spaces and
+     * stop words kept, for matching as typed
+     */
+    static String normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        return SEPARATORS.matcher(fold(text)).replaceAll(" ").strip();
+    }
+
+    private static String fold(String text) {
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        return folded.toLowerCase(Locale.ROOT);
+    }
+}
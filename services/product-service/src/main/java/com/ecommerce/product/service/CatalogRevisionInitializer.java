@@ -0,0 +1,40 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.entity.CatalogRevision;
+import com.ecommerce.product.repository.CatalogRevisionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog Revision Initializer
+ *
+ * Creates the CatalogRevision row at startup if the database has none yet, so
+ * that product writes always have a revision to bump.
+ */
+@Component
+public class CatalogRevisionInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogRevisionInitializer.class);
+
+    @Autowired
+    private CatalogRevisionRepository catalogRevisionRepository;
+
+    @PostConstruct
+    void createRevision() {
+        if (catalogRevisionRepository.existsById(CatalogRevision.ID)) {
+            return;
+        }
+        try {
+            catalogRevisionRepository.save(new CatalogRevision(CatalogRevision.ID, 0L, LocalDateTime.now()));
+            logger.info("Created the catalog revision");
+        } catch (DataIntegrityViolationException e) {
+            // Another replica starting at the same time created it first
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.HttpCacheProperties;
+import com.ecommerce.product.entity.CatalogRevision;
+import com.ecommerce.product.event.CatalogReloadedEvent;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.repository.CatalogRevisionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catalog Version
+ *
+ * The catalog revision (see CatalogRevision) and when it last changed. Every
+ * product write bumps the revision in its own transaction, so a higher revision
+ * always includes every change committed before it, whatever the clocks of the
+ * writers said. Listing ETags are derived from the revision and Last-Modified
+ * from its changedAt, so they are the same on every replica.
+ *
+ * Each replica reads the revision again whenever a product change or catalog
+ * reload event arrives, and every product.http-cache.resync-interval-ms in case an event was
+ * missed. A revision only becomes the current version once it has settled for
+ * product.http-cache.settle-delay: by then the product cache and search index
+ * of this replica have caught up with it, so a response built from them is
+ * never tagged with a version newer than its content.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.http-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogVersion {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogVersion.class);
+
+    @Autowired
+    private CatalogRevisionRepository catalogRevisionRepository;
+
+    @Autowired
+    private HttpCacheProperties httpCacheProperties;
+
+    // Revisions seen but not yet settled, in the order they were seen
+    private final Queue<Change> unsettled = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Version> current = new AtomicReference<>();
+
+    /**
+     * The current catalog version; empty until the first one has settled
+     */
+    public Optional<Version> current() {
+        return Optional.ofNullable(current.get());
+    }
+
+    /**
+     * The event is sent after its change committed, so the revision read now includes it
+     */
+    @RabbitListener(queues = "#{catalogVersionQueue.name}")
+    public void onProductChanged(ProductChangedEvent event) {
+        resync();
+    }
+
+    @RabbitListener(queues = "#{catalogVersionReloadQueue.name}")
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        resync();
+    }
+
+    @Scheduled(fixedDelayString = "${product.http-cache.resync-interval-ms:60000}")
+    public void resync() {
+        try {
+            catalogRevisionRepository.findById(CatalogRevision.ID)
+                .ifPresent(row -> observe(new Version(row.getRevision(), row.getChangedAt())));
+        } catch (DataAccessException e) {
+            logger.warn("Could not read the catalog version: {}", e.getMessage());
+        }
+    }
+
+    public void observe(Version version) {
+        unsettled.add(new Change(version, System.nanoTime()));
+    }
+
+    /**
+     * Make the highest of the revisions that have settled the current version
+     */
+    @Scheduled(fixedDelayString = "${product.http-cache.settle-interval-ms:250}")
+    public void settle() {
+        long settledBefore = System.nanoTime() - httpCacheProperties.getSettleDelay().toNanos();
+        Change change;
+        while ((change = unsettled.peek()) != null && change.observedAt - settledBefore <= 0) {
+            unsettled.poll();
+            current.accumulateAndGet(change.version,
+                (version, seen) -> version == null || seen.revision() > version.revision() ? seen : version);
+        }
+    }
+
+    /**
+     * A catalog revision and when the catalog changed to it
+     */
+    public record Version(long revision, LocalDateTime changedAt) {
+    }
+
+    private record Change(Version version, long observedAt) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductSort;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque page cursors for product listings
+ *
+ * A cursor holds the sort it was made for and the sort key and id of the last
+ * product on the page, so the next page is a keyset query starting after them
+ * rather than an OFFSET that re-reads every earlier row.
+ */
+final class ProductCursor {
+
+    private static final String VERSION = "1";
+
+    private ProductCursor() {
+    }
+
+    static String after(ProductSort sort, ProductResponse last) {
+        String cursor = String.join("|", VERSION, sort.name(), String.valueOf(last.getId()), sortKey(sort, last));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Position to resume a listing in the given sort from; the start when cursor is null
+     */
+    static KeysetScrollPosition position(ProductSort sort, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != 4 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!sort.name().equals(parts[1])) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            keys.put(sort.getProperty(), parseSortKey(sort, parts[3]));
+            keys.put("id", Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private static String sortKey(ProductSort sort, ProductResponse product) {
+        return switch (sort) {
+            case NEWEST -> product.getCreatedAt().toString();
+            case PRICE_ASC, PRICE_DESC -> product.getPrice().toPlainString();
+            case NAME -> product.getName();
+        };
+    }
+
+    private static Object parseSortKey(ProductSort sort, String key) {
+        return switch (sort) {
+            case NEWEST -> LocalDateTime.parse(key);
+            case PRICE_ASC, PRICE_DESC -> new BigDecimal(key);
+            case NAME -> key;
+        };
+    }
+}
@@ -1,22 +1,56 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.product.cache.ProductCache;
+import com.ecommerce.product.dto.ProductFacetResponse;
+import com.ecommerce.product.dto.ProductFilter;
+import com.ecommerce.product.dto.ProductPageResponse;
+import com.ecommerce.product.dto.ProductPriceResponse;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductSort;
+import com.ecommerce.product.dto.ProductSuggestion;
 import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductEventPublisher;
+import com.ecommerce.product.repository.CatalogRevisionRepository;
 import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.ProductSpecifications;
+import com.ecommerce.product.search.FacetResult;
+import com.ecommerce.product.search.ProductSearchIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Product Service
  *
- * Business logic for product management.
+ * Business logic for product management. Every change bumps the catalog
+ * revision right before its transaction commits and is announced with a
+ * ProductChangedEvent once it has committed. The bump serializes the commits of
+ * concurrent writes, so bulk changes belong in ProductImportService, which
+ * bumps once per chunk. When the optional ProductCache is
+ * enabled, lookups by ID, category and brand and the full listing go through it,
+ * and every change evicts the entries showing the product before and after it.
  */
 @Service
 public class ProductService {
@@ -26,33 +60,130 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CatalogRevisionRepository catalogRevisionRepository;
+
+    @Autowired
+    private ProductEventPublisher productEventPublisher;
+
+    @Autowired(required = false)
+    private ProductCache productCache;
+
+    @Autowired(required = false)
+    private ProductSearchIndex productSearchIndex;
+
     /**
      * Get all active products
      */
     public List<ProductResponse> getAllProducts() {
         logger.info("Fetching all active products from catalog");
+        if (productCache != null) {
+            return productCache.getAllProducts(this::loadAllProducts);
+        }
+        return loadAllProducts();
+    }
+
+    private List<ProductResponse> loadAllProducts() {
         return productRepository.findByActiveTrue()
             .stream()
             .map(ProductResponse::fromEntity)
             .collect(Collectors.toList());
     }
 
+    /**
+     * One page of active products, optionally only those in a category or of a
+     * brand. Each page is an index range scan that starts after the cursor, so
+     * deep pages cost the same as the first; the matches are only counted when
+     * includeTotal is set.
+     */
+    @Transactional(readOnly = true)
+    public ProductPageResponse getProductPage(String category, String brand, ProductSort sort,
+                                              String cursor, int limit, boolean includeTotal) {
+        logger.info("Fetching page of {} products (category: {}, brand: {}, sort: {})", limit, category, brand, sort);
+        KeysetScrollPosition position = ProductCursor.position(sort, cursor);
+
+        Specification<Product> filter = ProductSpecifications.active();
+        if (category != null) {
+            filter = filter.and(ProductSpecifications.inCategory(category));
+        }
+        if (brand != null) {
+            filter = filter.and(ProductSpecifications.ofBrand(brand));
+        }
+
+        Window<Product> window = productRepository.findBy(filter,
+            query -> query.sortBy(sort.toSort()).limit(limit).scroll(position));
+        List<ProductResponse> items = window.stream()
+            .map(ProductResponse::fromEntity)
+            .collect(Collectors.toList());
+
+        String nextCursor = window.hasNext() && !items.isEmpty()
+            ? ProductCursor.after(sort, items.get(items.size() - 1))
+            : null;
+        Long total = includeTotal ? productRepository.count(filter) : null;
+        return new ProductPageResponse(items, nextCursor, total);
+    }
+
     /**
      * Get product by ID
      */
     public ProductResponse getProductById(Long id) {
         logger.info("Fetching product with ID: {}", id);
+        ProductResponse product = productCache != null
+            ? productCache.getProduct(id, () -> loadProductById(id))
+            : loadProductById(id);
+        if (productSearchIndex != null) {
+            productSearchIndex.recordView(id);
+        }
+        return product;
+    }
+
+    private ProductResponse loadProductById(Long id) {
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
 
         return ProductResponse.fromEntity(product);
     }
 
+    /**
+     * Get many products by ID in one query, including inactive ones
+     * Unknown IDs are simply absent from the result
+     */
+    public List<ProductResponse> getProductsByIds(Collection<Long> ids) {
+        logger.info("Fetching {} products by ID", ids.size());
+        return productRepository.findAllById(new LinkedHashSet<>(ids))
+            .stream()
+            .map(ProductResponse::fromEntity)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Price and active flag of every product, for services that keep a local copy
+     */
+    public List<ProductPriceResponse> getAllPrices() {
+        logger.info("Fetching prices of all products");
+        return productRepository.findAllPrices();
+    }
+
+    /**
+     * Price of every active product, for anonymous callers
+     */
+    public List<ProductPriceResponse> getActivePrices() {
+        logger.info("Fetching prices of active products");
+        return productRepository.findActivePrices();
+    }
+
     /**
      * Get products by category
      */
     public List<ProductResponse> getProductsByCategory(String category) {
         logger.info("Fetching products in category: {}", category);
+        if (productCache != null) {
+            return productCache.getProductsByCategory(category, () -> loadProductsByCategory(category));
+        }
+        return loadProductsByCategory(category);
+    }
+
+    private List<ProductResponse> loadProductsByCategory(String category) {
         return productRepository.findByCategoryAndActiveTrue(category)
             .stream()
             .map(ProductResponse::fromEntity)
@@ -63,9 +194,105 @@ public class ProductService {
      * Search products by name
      */
     public List<ProductResponse> searchProducts(String query) {
+        return searchProducts(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Search products by name, brand, category and description, best match first
+     * The in-memory ProductSearchIndex ranks the matches; until it is ready (or
+     * when it is disabled) products whose name contains the query are listed
+     * from the database instead.
+     */
+    public List<ProductResponse> searchProducts(String query, int limit) {
         logger.info("Searching products with query: {}", query);
+        Optional<List<Long>> ranked = productSearchIndex != null
+            ? productSearchIndex.search(query, limit)
+            : Optional.empty();
+        if (ranked.isPresent()) {
+            return loadInOrder(ranked.get(), product -> Boolean.TRUE.equals(product.getActive()));
+        }
+
         return productRepository.findByNameContainingIgnoreCaseAndActiveTrue(query)
             .stream()
+            .limit(limit)
+            .map(ProductResponse::fromEntity)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Typeahead suggestions of product names and brands, most popular first
+     * Served from memory by ProductSearchIndex only, so there are none while it
+     * is being built for the first time or when it is disabled.
+     */
+    public List<ProductSuggestion> suggestProducts(String prefix, int limit) {
+        if (productSearchIndex == null) {
+            return List.of();
+        }
+        return productSearchIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * One page of active products matching a faceted filter, in id order, with
+     * the number of matches and the facet counts
+     * The in-memory facet index matches and counts; the page is then loaded by ID,
+     * dropping any product changed so that it no longer matches. Until the index
+     * is ready (or when it is disabled) the page is read from the database, with
+     * no facet counts.
+     */
+    @Transactional(readOnly = true)
+    public ProductFacetResponse filterProducts(ProductFilter filter, String cursor, int limit) {
+        logger.info("Filtering {} products (categories: {}, brands: {}, price: {} - {})", limit,
+            filter.getCategories(), filter.getBrands(), filter.getMinPrice(), filter.getMaxPrice());
+        Long after = filterCursor(cursor);
+
+        Optional<FacetResult> indexed = productSearchIndex != null
+            ? productSearchIndex.filter(filter, after, limit)
+            : Optional.empty();
+        if (indexed.isPresent()) {
+            FacetResult result = indexed.get();
+            List<Long> ids = result.productIds();
+            String nextCursor = result.hasMore() && !ids.isEmpty() ? String.valueOf(ids.get(ids.size() - 1)) : null;
+            return new ProductFacetResponse(loadInOrder(ids, filter::matches), nextCursor, result.total(),
+                result.facets());
+        }
+
+        Specification<Product> specification = ProductSpecifications.matching(filter);
+        ScrollPosition position = after != null ? ScrollPosition.forward(Map.of("id", after)) : ScrollPosition.keyset();
+        Window<Product> window = productRepository.findBy(specification,
+            query -> query.sortBy(Sort.by("id")).limit(limit).scroll(position));
+        List<ProductResponse> items = window.stream()
+            .map(ProductResponse::fromEntity)
+            .collect(Collectors.toList());
+        String nextCursor = window.hasNext() && !items.isEmpty()
+            ? String.valueOf(items.get(items.size() - 1).getId())
+            : null;
+        return new ProductFacetResponse(items, nextCursor, productRepository.count(specification), new LinkedHashMap<>());
+    }
+
+    private static Long filterCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Load products in the order given, skipping any that no longer pass the check
+     * because they changed since they were indexed
+     */
+    private List<ProductResponse> loadInOrder(List<Long> ids, Predicate<Product> check) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+            .map(products::get)
+            .filter(product -> product != null && check.test(product))
             .map(ProductResponse::fromEntity)
             .collect(Collectors.toList());
     }
@@ -78,6 +305,7 @@ public class ProductService {
         logger.info("Creating new product: {}", request.getName());
 
         Product product = new Product();
+        product.setSku(request.getSku());
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
@@ -87,6 +315,8 @@ public class ProductService {
         product.setActive(true);
 
         product = productRepository.save(product);
+        announceChange(product);
+        evictAfterCommit(ProductCache.keysFor(product));
         logger.info("Product created successfully with ID: {}", product.getId());
 
         return ProductResponse.fromEntity(product);
@@ -101,7 +331,12 @@ public class ProductService {
 
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
+        Set<String> staleKeys = ProductCache.keysFor(product);
 
+        // Imports match on the SKU, so an update that leaves it out keeps it
+        if (request.getSku() != null) {
+            product.setSku(request.getSku());
+        }
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
@@ -110,6 +345,9 @@ public class ProductService {
         product.setImageUrl(request.getImageUrl());
 
         product = productRepository.save(product);
+        announceChange(product);
+        staleKeys.addAll(ProductCache.keysFor(product));
+        evictAfterCommit(staleKeys);
         logger.info("Product updated successfully: {}", product.getId());
 
         return ProductResponse.fromEntity(product);
@@ -126,7 +364,9 @@ public class ProductService {
             .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
 
         product.setActive(false);
-        productRepository.save(product);
+        product = productRepository.save(product);
+        announceChange(product);
+        evictAfterCommit(ProductCache.keysFor(product));
 
         logger.info("Product deleted successfully: {}", id);
     }
@@ -136,9 +376,54 @@ public class ProductService {
      */
     public List<ProductResponse> getProductsByBrand(String brand) {
         logger.info("Fetching products for brand: {}", brand);
+        if (productCache != null) {
+            return productCache.getProductsByBrand(brand, () -> loadProductsByBrand(brand));
+        }
+        return loadProductsByBrand(brand);
+    }
+
+    private List<ProductResponse> loadProductsByBrand(String brand) {
         return productRepository.findByBrandAndActiveTrue(brand)
             .stream()
             .map(ProductResponse::fromEntity)
             .collect(Collectors.toList());
     }
+
+    /**
+     * Count the change in the catalog revision, and publish it after commit
+     */
+    private void announceChange(Product product) {
+        bumpRevisionBeforeCommit();
+        productEventPublisher.publishChanged(product);
+    }
+
+    /**
+     * Bump the catalog revision once per transaction, as its last statement before
+     * commit. Every catalog write locks the one revision row until it commits, so
+     * bumping last keeps that lock to the commit itself instead of the whole write.
+     */
+    private void bumpRevisionBeforeCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            catalogRevisionRepository.bump(LocalDateTime.now());
+            return;
+        }
+        if (TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(RevisionBump.class::isInstance)) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new RevisionBump());
+    }
+
+    private class RevisionBump implements TransactionSynchronization {
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            catalogRevisionRepository.bump(LocalDateTime.now());
+        }
+    }
+
+    private void evictAfterCommit(Set<String> keys) {
+        if (productCache != null) {
+            productCache.evictAfterCommit(keys);
+        }
+    }
 }
@@ -0,0 +1,16 @@
+-- Fill a product cache entry, unless an eviction happened since the value was
+-- read from the database. Every eviction bumps the generation before deleting
+-- its keys, so a load that saw an older generation may hold a stale value.
+--
+-- KEYS[1] cache entry
+-- KEYS[2] cache generation
+-- ARGV[1] generation seen before the database read ('0' if it was unset)
+-- ARGV[2] serialized value
+-- ARGV[3] TTL in milliseconds
+--
+-- Returns 1 if the entry was written, 0 if it was left alone.
+if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then
+    return 0
+end
+redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+return 1
@@ -0,0 +1,177 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ProductCache
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductCacheTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ProductCache productCache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        productCache = new ProductCache(redisTemplate, objectMapper, meterRegistry,
+            1000, Duration.ofMinutes(10), Duration.ofHours(1));
+    }
+
+    private ProductResponse product(Long id) {
+        loads.incrementAndGet();
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 12, 0);
+        return new ProductResponse(id, null, "Product " + id, "Description", new BigDecimal("9.99"),
+            "Electronics", "Acme", null, true, timestamp, timestamp);
+    }
+
+    private void stubL2(String key, String json, String generation) {
+        when(valueOperations.multiGet(List.of(ProductCache.KEY_PREFIX + key, ProductCache.GENERATION_KEY)))
+            .thenReturn(Arrays.asList(json, generation));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyL2Write(String key, String generation) {
+        verify(redisTemplate).execute(any(RedisScript.class),
+            eq(List.of(ProductCache.KEY_PREFIX + key, ProductCache.GENERATION_KEY)),
+            eq(generation), anyString(), eq(Long.toString(Duration.ofHours(1).toMillis())));
+    }
+
+    @Test
+    void testGetProduct_LoadsOnceThenServesLocally() {
+        stubL2("id:1", null, null);
+
+        ProductResponse first = productCache.getProduct(1L, () -> product(1L));
+        ProductResponse second = productCache.getProduct(1L, () -> product(1L));
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        // Written only if no replica evicted since the generation was read
+        verifyL2Write("id:1", "0");
+        assertEquals(0.5, meterRegistry.get("product.cache.hit.ratio").tag("level", "l1").gauge().value(), 0.001);
+    }
+
+    @Test
+    void testGetProduct_RedisWriteExpectsTheGenerationReadBeforeLoading() {
+        // The script skips the write if an eviction bumped the generation past 7 meanwhile
+        stubL2("id:1", null, "7");
+
+        productCache.getProduct(1L, () -> product(1L));
+
+        verifyL2Write("id:1", "7");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetProduct_RedisReadFailureSkipsRedisWrite() {
+        when(valueOperations.multiGet(anyList())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertNotNull(productCache.getProduct(1L, () -> product(1L)));
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(), any(), any());
+    }
+
+    @Test
+    void testGetProducts_ServedFromRedisWithoutLoading() throws Exception {
+        String json = objectMapper.writeValueAsString(List.of(product(1L), product(2L)));
+        loads.set(0);
+        stubL2("category:Electronics", json, "3");
+
+        List<ProductResponse> products = productCache.getProductsByCategory("Electronics", () -> List.of(product(3L)));
+
+        assertEquals(0, loads.get());
+        assertEquals(List.of(1L, 2L), products.stream().map(ProductResponse::getId).toList());
+        assertEquals(1.0, meterRegistry.get("product.cache.hit.ratio").tag("level", "l2").gauge().value(), 0.001);
+    }
+
+    @Test
+    void testGet_FallsThroughToDatabaseWhenRedisIsDown() {
+        when(valueOperations.multiGet(anyList())).thenThrow(new RedisConnectionFailureException("down"));
+
+        List<ProductResponse> products = productCache.getAllProducts(() -> List.of(product(1L)));
+
+        assertEquals(1, products.size());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEvict_DropsLocalAndSharedEntriesAndBroadcasts() {
+        productCache.getProduct(1L, () -> product(1L));
+
+        productCache.evict(Set.of("id:1", "all"));
+        productCache.getProduct(1L, () -> product(1L));
+
+        assertEquals(2, loads.get());
+        verify(valueOperations).increment(ProductCache.GENERATION_KEY);
+        verify(redisTemplate).delete(argThat((List<String> keys) ->
+            Set.copyOf(keys).equals(Set.of("product:cache:id:1", "product:cache:all"))));
+        verify(redisTemplate).convertAndSend(eq(ProductCache.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    void testOnInvalidation_DropsOnlyTheNamedEntries() {
+        productCache.getProduct(1L, () -> product(1L));
+        productCache.getProduct(2L, () -> product(2L));
+
+        productCache.onInvalidation("id:1\nall");
+        productCache.getProduct(1L, () -> product(1L));
+        productCache.getProduct(2L, () -> product(2L));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testOnInvalidation_EvictAllDropsEveryEntry() {
+        productCache.getProduct(1L, () -> product(1L));
+        productCache.getProduct(2L, () -> product(2L));
+
+        productCache.onInvalidation(ProductCache.EVICT_ALL);
+        productCache.getProduct(1L, () -> product(1L));
+        productCache.getProduct(2L, () -> product(2L));
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testKeysFor() {
+        Product product = new Product();
+        product.setId(7L);
+        product.setCategory("Audio");
+        product.setBrand("Acme");
+
+        assertEquals(Set.of("id:7", "all", "category:Audio", "brand:Acme"), ProductCache.keysFor(product));
+    }
+}
@@ -0,0 +1,222 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.config.HttpCacheProperties;
+import com.ecommerce.product.dto.ProductPriceResponse;
+import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.importer.ProductImportService;
+import com.ecommerce.product.service.CatalogVersion;
+import com.ecommerce.product.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit tests for the conditional GETs of ProductController
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductControllerTest {
+
+    private static final LocalDateTime CHANGED_AT = LocalDateTime.of(2024, 1, 15, 12, 0, 0, 250_000_000);
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private ProductImportService productImportService;
+
+    @Spy
+    private HttpCacheProperties httpCacheProperties = new HttpCacheProperties();
+
+    @InjectMocks
+    private ProductController productController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        httpCacheProperties.getCacheControl().put("product", "max-age=30");
+        httpCacheProperties.getCacheControl().put("listing", "max-age=60");
+        ReflectionTestUtils.setField(productController, "objectMapper", new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+    }
+
+    private static String httpDate(LocalDateTime timestamp) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+            timestamp.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC));
+    }
+
+    private static ProductResponse product(LocalDateTime updatedAt) {
+        return new ProductResponse(1L, "A-1", "Laptop", "Fast", new BigDecimal("999.00"), "Electronics",
+            "Acme", null, true, updatedAt, updatedAt);
+    }
+
+    private void atRevision(long revision) {
+        when(catalogVersion.current()).thenReturn(Optional.of(new CatalogVersion.Version(revision, CHANGED_AT)));
+    }
+
+    private String listingEtag() throws Exception {
+        return mockMvc.perform(get("/api/products"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void testListing_TaggedWithCatalogVersion() throws Exception {
+        atRevision(5);
+        when(productService.getAllProducts()).thenReturn(List.of(product(CHANGED_AT)));
+
+        mockMvc.perform(get("/api/products"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(header().string(HttpHeaders.LAST_MODIFIED, httpDate(CHANGED_AT)))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60"))
+            .andExpect(jsonPath("$[0].name").value("Laptop"));
+    }
+
+    @Test
+    void testIfNoneMatch_CurrentEtagIsNotModifiedWithoutBuildingBody() throws Exception {
+        atRevision(5);
+        when(productService.getAllProducts()).thenReturn(List.of());
+        String etag = listingEtag();
+
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60"))
+            .andExpect(content().string(""));
+
+        verify(productService, times(1)).getAllProducts();
+    }
+
+    @Test
+    void testIfNoneMatch_WeakMatchIsNotModified() throws Exception {
+        atRevision(5);
+        when(productService.getAllProducts()).thenReturn(List.of());
+        String etag = listingEtag();
+
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testIfNoneMatch_StarIsNotModified() throws Exception {
+        atRevision(5);
+
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, "*"))
+            .andExpect(status().isNotModified());
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void testIfNoneMatch_NewRevisionBuildsBody() throws Exception {
+        atRevision(5);
+        when(productService.getAllProducts()).thenReturn(List.of());
+        String etag = listingEtag();
+        atRevision(6);
+
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testIfNoneMatch_TakesPrecedenceOverIfModifiedSince() throws Exception {
+        atRevision(5);
+        when(productService.getAllProducts()).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/products")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\"")
+                .header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(CHANGED_AT.plusDays(1))))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testIfModifiedSince_SameSecondIsNotModified() throws Exception {
+        // Last-Modified has whole seconds, so the 250 ms past it are still that second
+        atRevision(5);
+
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(CHANGED_AT)))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.LAST_MODIFIED, httpDate(CHANGED_AT)));
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void testIfModifiedSince_EarlierOrMalformedBuildsBody() throws Exception {
+        atRevision(5);
+        when(productService.getAllProducts()).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/products")
+                .header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(CHANGED_AT.minusSeconds(1))))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_MODIFIED_SINCE, "yesterday"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testConditional_ErrorPassesThroughWithoutValidators() throws Exception {
+        atRevision(5);
+
+        mockMvc.perform(get("/api/products").param("limit", "500"))
+            .andExpect(status().isBadRequest())
+            .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+            .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+            .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL))
+            .andExpect(jsonPath("$.error").value("Limit must be between 1 and 100"));
+    }
+
+    @Test
+    void testGetPrices_OnlyActiveProductsArePublic() throws Exception {
+        when(productService.getActivePrices()).thenReturn(List.of(
+            new ProductPriceResponse(1L, new BigDecimal("999.00"), true, CHANGED_AT)));
+
+        mockMvc.perform(get("/api/products/prices"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].active").value(true));
+
+        verify(productService, never()).getAllPrices();
+    }
+
+    @Test
+    void testGetProduct_TaggedWithUpdatedAt() throws Exception {
+        when(productService.getProductById(1L)).thenReturn(product(CHANGED_AT));
+        String etag = mockMvc.perform(get("/api/products/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=30"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+
+        when(productService.getProductById(1L)).thenReturn(product(CHANGED_AT.plusNanos(1_000)));
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,210 @@
+package com.ecommerce.product.importer;
+
+import com.ecommerce.product.cache.ProductCache;
+import com.ecommerce.product.dto.ProductImportError;
+import com.ecommerce.product.dto.ProductImportProgress;
+import com.ecommerce.product.dto.ProductImportRow;
+import com.ecommerce.product.event.ProductEventPublisher;
+import com.ecommerce.product.importer.ImportRowReader.ImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ProductImportService
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ProductEventPublisher productEventPublisher;
+
+    @Mock
+    private ProductCache productCache;
+
+    @InjectMocks
+    private ProductImportService productImportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ProductImportProgress> progress = new ArrayList<>();
+    private final List<ProductImportError> errors = new ArrayList<>();
+
+    private final ImportListener listener = new ImportListener() {
+        @Override
+        public void onProgress(ProductImportProgress update) {
+            progress.add(update);
+        }
+
+        @Override
+        public void onError(ProductImportError error) {
+            errors.add(error);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productImportService, "validator",
+            Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(productImportService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(productImportService, "batchSize", 2);
+    }
+
+    private static ByteArrayInputStream upload(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String ndjson(String sku, String price) {
+        return "{\"sku\":\"" + sku + "\",\"name\":\"Product " + sku + "\",\"price\":" + price
+            + ",\"category\":\"Electronics\"}";
+    }
+
+    private ProductImportProgress importNdjson(String... lines) throws IOException {
+        return productImportService.importProducts(
+            productImportService.open(upload(lines), ImportFormat.NDJSON), listener);
+    }
+
+    private void upsertReturns(List<Boolean> first, List<Boolean> second) {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), ArgumentMatchers.<RowMapper<Boolean>>any()))
+            .thenReturn(first, second);
+    }
+
+    @Test
+    void testImportProducts_UpsertsInChunksAndReportsBadRows() throws IOException {
+        upsertReturns(List.of(true, false), List.of(true));
+
+        ProductImportProgress summary = importNdjson(
+            ndjson("A-1", "9.99"),
+            "{\"sku\":\"A-2\",\"name\":\"No price\",\"category\":\"Electronics\"}",
+            "{not json",
+            ndjson("A-3", "19.99"),
+            "",
+            ndjson("A-4", "29.99"));
+
+        // Each chunk bumps the catalog revision in the statement that writes it
+        verify(jdbcTemplate, times(2)).query(contains("UPDATE catalog_revision"), any(PreparedStatementSetter.class),
+            ArgumentMatchers.<RowMapper<Boolean>>any());
+        assertEquals(5, summary.getProcessed());
+        assertEquals(2, summary.getInserted());
+        assertEquals(1, summary.getUpdated());
+        assertEquals(2, summary.getFailed());
+        assertEquals(ProductImportProgress.SUMMARY, summary.getType());
+
+        assertEquals(List.of(2L, 3L), errors.stream().map(ProductImportError::getLine).toList());
+        assertEquals("A-2", errors.get(0).getSku());
+        assertEquals("Price is required", errors.get(0).getMessage());
+        assertTrue(errors.get(1).getMessage().startsWith("Malformed JSON"));
+        assertEquals(2, progress.size());
+
+        // One reload for the whole import, not an event per product
+        verify(productCache).evictAll();
+        verify(productEventPublisher, times(1)).publishReloaded(
+            argThat(event -> event.getInserted() == 2 && event.getUpdated() == 1));
+        verifyNoMoreInteractions(productEventPublisher);
+    }
+
+    @Test
+    void testImportProducts_LaterRowWithSameSkuWins() throws IOException {
+        upsertReturns(List.of(false), List.of());
+
+        ProductImportProgress summary = importNdjson(ndjson("A-1", "9.99"), ndjson("A-1", "8.99"));
+
+        assertEquals(1, summary.getSuperseded());
+        assertEquals(1, summary.getUpdated());
+    }
+
+    @Test
+    void testImportProducts_RejectedChunkIsRetriedRowByRow() throws IOException {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), ArgumentMatchers.<RowMapper<Boolean>>any()))
+            .thenThrow(new DataIntegrityViolationException("chunk"))
+            .thenReturn(List.of(true))
+            .thenThrow(new DataIntegrityViolationException("value too long"));
+
+        ProductImportProgress summary = importNdjson(ndjson("A-1", "9.99"), ndjson("A-2", "19.99"));
+
+        assertEquals(1, summary.getInserted());
+        assertEquals(1, summary.getFailed());
+        assertEquals("A-2", errors.get(0).getSku());
+        assertEquals("value too long", errors.get(0).getMessage());
+    }
+
+    @Test
+    void testImportProducts_UnchangedCatalogLeavesCacheAlone() throws IOException {
+        upsertReturns(List.of(), List.of());
+
+        ProductImportProgress summary = importNdjson(ndjson("A-1", "9.99"), ndjson("A-2", "19.99"));
+
+        assertEquals(2, summary.getUnchanged());
+        verifyNoInteractions(productCache, productEventPublisher);
+    }
+
+    @Test
+    void testImportProducts_StopsAfterTooManyErrors() throws IOException {
+        ReflectionTestUtils.setField(productImportService, "maxErrors", 1);
+
+        ProductImportProgress summary = importNdjson("{}", "{}", "{}");
+
+        assertTrue(summary.isAborted());
+        assertEquals(2, summary.getProcessed());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testCsv_ReadsQuotedFieldsAndHeaderAliases() throws IOException {
+        ImportRowReader reader = ImportFormat.CSV.open(upload(
+            "\uFEFFSKU,Name,Price,Category,image_url,active,notes",
+            "A-1,\"Cable, 2m\",9.99,Electronics,http://img/1.png,,x",
+            "A-2,\"Says \"\"hi\"\"",
+            "on two lines\",abc,Electronics,,FALSE"), objectMapper);
+
+        ImportRow first = reader.next();
+        ProductImportRow product = first.product();
+        assertEquals(2, first.line());
+        assertEquals("Cable, 2m", product.getName());
+        assertEquals(new BigDecimal("9.99"), product.getPrice());
+        assertEquals("http://img/1.png", product.getImageUrl());
+        assertTrue(product.getActive());
+
+        ImportRow second = reader.next();
+        assertEquals(3, second.line());
+        assertEquals("A-2", second.sku());
+        assertEquals("Says \"hi\"\non two lines", second.product().getName());
+        assertFalse(second.product().getActive());
+        assertEquals("Price is not a number: abc", second.error());
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testCsv_HeaderMustNameRequiredColumns() {
+        assertThrows(IllegalArgumentException.class,
+            () -> ImportFormat.CSV.open(upload("sku,name,price", "A-1,Cable,9.99"), objectMapper));
+    }
+}
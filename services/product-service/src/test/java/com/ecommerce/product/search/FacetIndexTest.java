@@ -0,0 +1,103 @@
+package com.ecommerce.product.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FacetIndex
+ */
+class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        index.put(1, "Laptops", "Apple", new BigDecimal("2499.99"));
+        index.put(2, "Laptops", "Dell", new BigDecimal("999.00"));
+        index.put(3, "Phones", "Apple", new BigDecimal("999.00"));
+        index.put(4, "Phones", "Samsung", new BigDecimal("49.99"));
+        index.put(5, "Accessories", "Apple", new BigDecimal("19.00"));
+    }
+
+    private FacetResult query(Set<String> categories, Set<String> brands, Long minCents, Long maxCents) {
+        return index.query(categories, brands, minCents, maxCents, null, 10);
+    }
+
+    @Test
+    void testQuery_OrWithinFacetAndAcrossFacets() {
+        assertEquals(List.of(1L, 3L), query(Set.of("Laptops", "Phones"), Set.of("Apple"), null, null).productIds());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), query(Set.of(), Set.of(), null, null).productIds());
+        assertEquals(List.of(), query(Set.of("Unknown"), Set.of(), null, null).productIds());
+    }
+
+    @Test
+    void testQuery_PriceRangeCutsThroughBuckets() {
+        assertEquals(List.of(2L, 3L, 4L), query(Set.of(), Set.of(), 4_999L, 99_900L).productIds());
+        assertEquals(List.of(4L, 5L), query(Set.of(), Set.of(), null, 5_000L).productIds());
+        assertEquals(List.of(1L), query(Set.of(), Set.of(), 100_000L, null).productIds());
+    }
+
+    @Test
+    void testQuery_FacetCountsIgnoreTheirOwnFilter() {
+        FacetResult result = query(Set.of("Phones"), Set.of("Apple"), null, null);
+
+        assertEquals(1, result.total());
+        assertEquals(Map.of("Laptops", 1L, "Phones", 1L, "Accessories", 1L), result.facets().get(FacetIndex.CATEGORY));
+        assertEquals(Map.of("Apple", 1L, "Samsung", 1L), result.facets().get(FacetIndex.BRAND));
+        assertEquals(Map.of("500-1000", 1L), result.facets().get(FacetIndex.PRICE));
+        assertEquals(List.of("Apple", "Samsung"), List.copyOf(result.facets().get(FacetIndex.BRAND).keySet()));
+    }
+
+    @Test
+    void testQuery_PagesAfterCursor() {
+        FacetResult first = index.query(Set.of(), Set.of(), null, null, null, 2);
+        assertEquals(List.of(1L, 2L), first.productIds());
+        assertTrue(first.hasMore());
+        assertEquals(5, first.total());
+
+        FacetResult last = index.query(Set.of(), Set.of(), null, null, 4, 2);
+        assertEquals(List.of(5L), last.productIds());
+        assertFalse(last.hasMore());
+    }
+
+    @Test
+    void testPutAndRemove_UpdateBitmaps() {
+        index.put(4, "Tablets", "Samsung", new BigDecimal("299.00"));
+        assertEquals(List.of(3L), query(Set.of("Phones"), Set.of(), null, null).productIds());
+        assertEquals(List.of(4L), query(Set.of(), Set.of(), 25_000L, 49_999L).productIds());
+
+        assertTrue(index.remove(5));
+        assertFalse(index.remove(5));
+        assertEquals(4, index.size());
+        assertFalse(query(Set.of(), Set.of(), null, null).facets().get(FacetIndex.CATEGORY).containsKey("Accessories"));
+    }
+
+    @Test
+    void testPut_IdBeyondIntIsLeftOutUntilRemoved() {
+        long bigId = Integer.MAX_VALUE + 1L;
+
+        assertTrue(index.isComplete());
+        assertFalse(index.put(bigId, "Laptops", "Apple", new BigDecimal("10.00")));
+        assertFalse(index.isComplete());
+        assertEquals(5, index.size());
+        assertEquals(List.of(1L, 2L), query(Set.of("Laptops"), Set.of(), null, null).productIds());
+
+        assertTrue(index.remove(bigId));
+        assertTrue(index.isComplete());
+    }
+
+    @Test
+    void testPriceLabel() {
+        assertEquals("0-25", FacetIndex.priceLabel(0));
+        assertEquals("2500+", FacetIndex.priceLabel(FacetIndex.PRICE_EDGES.length - 1));
+        assertEquals(3, FacetIndex.bucket(10_000));
+    }
+}
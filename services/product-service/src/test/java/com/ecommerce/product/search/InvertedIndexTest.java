@@ -0,0 +1,82 @@
+package com.ecommerce.product.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InvertedIndex and TextAnalyzer
+ */
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex(2);
+        index.put(1L, "Wireless Mouse", "Logitech", "Accessories", "Ergonomic mouse with a USB receiver");
+        index.put(2L, "Mechanical Keyboard", "Logitech", "Accessories", "Keyboard with a wireless receiver");
+        index.put(3L, "MacBook Pro", "Apple", "Laptops", "Laptop with a Retina display");
+        index.put(4L, "Magic Mouse", "Apple", "Accessories", "Multi-touch mouse");
+    }
+
+    private List<Long> search(String query) {
+        return index.search(TextAnalyzer.terms(query), 10).stream().map(InvertedIndex.Hit::productId).toList();
+    }
+
+    @Test
+    void testSearch_NameMatchRanksAboveDescriptionMatch() {
+        assertEquals(List.of(1L, 2L), search("wireless"));
+    }
+
+    @Test
+    void testSearch_RequiresEveryTerm() {
+        assertEquals(List.of(4L), search("apple mouse"));
+        assertEquals(List.of(), search("apple keyboard"));
+    }
+
+    @Test
+    void testSearch_LastTermMatchesAsPrefix() {
+        assertEquals(List.of(3L), search("mac"));
+        assertEquals(List.of(2L), search("logitech keyb"));
+        assertEquals(List.of(), search("keyb logitech"));
+    }
+
+    @Test
+    void testSearch_ExactMatchRanksAbovePrefixMatch() {
+        index.put(5L, "Laptop Stand", "Acme", "Accessories", null);
+
+        assertEquals(List.of(5L, 3L), search("laptop"));
+    }
+
+    @Test
+    void testPutAndRemove_UpdateResults() {
+        index.put(4L, "Magic Trackpad", "Apple", "Accessories", "Multi-touch trackpad");
+        assertEquals(List.of(1L), search("mouse"));
+        assertEquals(List.of(4L), search("trackpad"));
+
+        assertTrue(index.remove(1L));
+        assertFalse(index.remove(1L));
+        assertEquals(List.of(), search("mouse"));
+        assertEquals(3, index.size());
+
+        index.compact();
+        assertEquals(List.of(4L), search("trackpad"));
+        assertEquals(List.of(3L), search("retina"));
+    }
+
+    @Test
+    void testSearch_LimitsResults() {
+        assertEquals(1, index.search(TextAnalyzer.terms("accessories"), 1).size());
+        assertEquals(3, index.search(TextAnalyzer.terms("accessories"), 10).size());
+    }
+
+    @Test
+    void testTerms_FoldsCaseAndAccentsAndDropsStopWords() {
+        assertEquals(List.of("cafe", "creme", "usb", "c"), TextAnalyzer.terms("Café & Crème for the USB-C"));
+        assertEquals(List.of(), TextAnalyzer.terms("  "));
+    }
+}
@@ -0,0 +1,88 @@
+package com.ecommerce.product.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SuggestionIndex and PrefixTrie
+ */
+class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestionIndex();
+        index.put(1L, "iPhone 15 Pro", "Apple", 5f);
+        index.put(2L, "iPad Air", "Apple", 2f);
+        index.put(3L, "Galaxy S24", "Samsung", 3f);
+        index.put(4L, "Galaxy Tab", "Samsung", 1f);
+    }
+
+    private List<String> suggest(String prefix) {
+        return index.suggest(prefix, 10).stream().map(completion -> completion.text).toList();
+    }
+
+    @Test
+    void testSuggest_MostPopularFirst() {
+        assertEquals(List.of("iPhone 15 Pro", "iPad Air"), suggest("ip"));
+        assertEquals(List.of("Galaxy S24", "Galaxy Tab"), suggest("gal"));
+    }
+
+    @Test
+    void testSuggest_MatchesLaterWordsAndBrands() {
+        assertEquals(List.of("iPhone 15 Pro"), suggest("pro"));
+        // The brand weighs as much as its products together
+        assertEquals(List.of("Apple"), suggest("APP"));
+        assertEquals(List.of("Samsung"), suggest("sams"));
+    }
+
+    @Test
+    void testSuggest_PrefixEndingInsideAnEdge() {
+        assertEquals(List.of("Galaxy S24"), suggest("galaxy s"));
+        assertEquals(List.of(), suggest("galaxy x"));
+        assertEquals(List.of(), suggest("  "));
+    }
+
+    @Test
+    void testSuggest_LimitsResults() {
+        assertEquals(1, index.suggest("i", 1).size());
+    }
+
+    @Test
+    void testReweight_ReordersSuggestions() {
+        index.reweight(2L, 10f);
+
+        assertEquals(List.of("iPad Air", "iPhone 15 Pro"), suggest("ip"));
+    }
+
+    @Test
+    void testPutAndRemove_UpdateSuggestions() {
+        index.put(1L, "iPhone 16", "Apple", 5f);
+        assertEquals(List.of("iPhone 16", "iPad Air"), suggest("ip"));
+        assertEquals(List.of(), suggest("pro"));
+
+        assertTrue(index.remove(1L));
+        assertTrue(index.remove(2L));
+        assertFalse(index.remove(2L));
+        assertEquals(List.of(), suggest("ip"));
+        assertEquals(List.of(), suggest("apple"));
+        assertEquals(2, index.size());
+
+        // Removing keys merges the trie back to the nodes the remaining ones need
+        SuggestionIndex rebuilt = new SuggestionIndex();
+        rebuilt.put(3L, "Galaxy S24", "Samsung", 3f);
+        rebuilt.put(4L, "Galaxy Tab", "Samsung", 1f);
+        assertEquals(rebuilt.nodeCount(), index.nodeCount());
+    }
+
+    @Test
+    void testKeys_StartAtEachWord() {
+        assertEquals(List.of("cafe creme usb c", "creme usb c", "usb c", "c"), SuggestionIndex.keys("Café Crème USB-C"));
+        assertEquals(List.of(), SuggestionIndex.keys(null));
+    }
+}
@@ -0,0 +1,117 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.HttpCacheProperties;
+import com.ecommerce.product.entity.CatalogRevision;
+import com.ecommerce.product.event.CatalogReloadedEvent;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.repository.CatalogRevisionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CatalogVersion
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogVersionTest {
+
+    private static final LocalDateTime EARLIER = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final LocalDateTime LATER = EARLIER.plusMinutes(5);
+
+    @Mock
+    private CatalogRevisionRepository catalogRevisionRepository;
+
+    @InjectMocks
+    private CatalogVersion catalogVersion;
+
+    private final HttpCacheProperties properties = new HttpCacheProperties();
+
+    @BeforeEach
+    void setUp() {
+        properties.setSettleDelay(Duration.ZERO);
+        ReflectionTestUtils.setField(catalogVersion, "httpCacheProperties", properties);
+    }
+
+    private static Optional<CatalogRevision> revision(long revision, LocalDateTime changedAt) {
+        return Optional.of(new CatalogRevision(CatalogRevision.ID, revision, changedAt));
+    }
+
+    private static ProductChangedEvent changed(LocalDateTime updatedAt) {
+        return new ProductChangedEvent(1L, new BigDecimal("9.99"), true, updatedAt);
+    }
+
+    @Test
+    void testSettle_KeepsHighestRevision() {
+        catalogVersion.observe(new CatalogVersion.Version(8, LATER));
+        catalogVersion.observe(new CatalogVersion.Version(7, EARLIER));
+        catalogVersion.settle();
+
+        assertEquals(Optional.of(new CatalogVersion.Version(8, LATER)), catalogVersion.current());
+    }
+
+    @Test
+    void testSettle_RevisionOutranksTimestamp() {
+        // A writer with a clock ahead committed first; the later commit still wins
+        catalogVersion.observe(new CatalogVersion.Version(7, LATER));
+        catalogVersion.observe(new CatalogVersion.Version(8, LATER));
+        catalogVersion.settle();
+
+        assertEquals(8, catalogVersion.current().orElseThrow().revision());
+    }
+
+    @Test
+    void testSettle_WaitsForSettleDelay() {
+        properties.setSettleDelay(Duration.ofHours(1));
+        catalogVersion.observe(new CatalogVersion.Version(8, LATER));
+        catalogVersion.settle();
+
+        assertEquals(Optional.empty(), catalogVersion.current());
+    }
+
+    @Test
+    void testOnProductChanged_ReadsRevisionFromDatabase() {
+        // The event's updatedAt plays no part in the version
+        when(catalogRevisionRepository.findById(CatalogRevision.ID)).thenReturn(revision(3, EARLIER));
+
+        catalogVersion.onProductChanged(changed(LATER));
+        catalogVersion.settle();
+
+        assertEquals(Optional.of(new CatalogVersion.Version(3, EARLIER)), catalogVersion.current());
+    }
+
+    @Test
+    void testOnCatalogReloaded_ReadsRevisionFromDatabase() {
+        when(catalogRevisionRepository.findById(CatalogRevision.ID)).thenReturn(revision(40, LATER));
+
+        catalogVersion.onCatalogReloaded(new CatalogReloadedEvent(EARLIER, 10L, 30L));
+        catalogVersion.settle();
+
+        assertEquals(Optional.of(new CatalogVersion.Version(40, LATER)), catalogVersion.current());
+    }
+
+    @Test
+    void testResync_DatabaseErrorKeepsVersion() {
+        catalogVersion.observe(new CatalogVersion.Version(3, EARLIER));
+        catalogVersion.settle();
+        when(catalogRevisionRepository.findById(CatalogRevision.ID))
+            .thenThrow(new QueryTimeoutException("timeout"));
+
+        catalogVersion.resync();
+        catalogVersion.settle();
+
+        assertEquals(Optional.of(new CatalogVersion.Version(3, EARLIER)), catalogVersion.current());
+    }
+}
@@ -1,25 +1,43 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.product.dto.ProductFacetResponse;
+import com.ecommerce.product.dto.ProductFilter;
+import com.ecommerce.product.dto.ProductPageResponse;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductSort;
 import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductEventPublisher;
+import com.ecommerce.product.repository.CatalogRevisionRepository;
 import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.search.FacetResult;
+import com.ecommerce.product.search.ProductSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -31,6 +49,12 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private CatalogRevisionRepository catalogRevisionRepository;
+
+    @Mock
+    private ProductEventPublisher productEventPublisher;
+
     @InjectMocks
     private ProductService productService;
 
@@ -164,6 +188,55 @@ class ProductServiceTest {
         verify(productRepository, times(1)).findByNameContainingIgnoreCaseAndActiveTrue("Test");
     }
 
+    @Test
+    void testSearchProducts_RankedByIndexWhenReady() {
+        // Arrange
+        ProductSearchIndex productSearchIndex = mock(ProductSearchIndex.class);
+        ReflectionTestUtils.setField(productService, "productSearchIndex", productSearchIndex);
+        Product inactive = createProduct(3L, "Product 3");
+        inactive.setActive(false);
+        when(productSearchIndex.search("test", 10)).thenReturn(Optional.of(List.of(2L, 3L, 1L)));
+        when(productRepository.findAllById(List.of(2L, 3L, 1L)))
+            .thenReturn(List.of(testProduct, inactive, createProduct(2L, "Product 2")));
+
+        // Act
+        List<ProductResponse> response = productService.searchProducts("test", 10);
+
+        // Assert
+        assertEquals(List.of(2L, 1L), response.stream().map(ProductResponse::getId).toList());
+        verify(productRepository, never()).findByNameContainingIgnoreCaseAndActiveTrue(any());
+    }
+
+    @Test
+    void testFilterProducts_DropsProductsChangedSinceIndexed() {
+        // Arrange
+        ProductSearchIndex productSearchIndex = mock(ProductSearchIndex.class);
+        ReflectionTestUtils.setField(productService, "productSearchIndex", productSearchIndex);
+        ProductFilter filter = new ProductFilter(Set.of("Electronics"), Set.of(), null, null);
+        Product moved = createProduct(2L, "Product 2");
+        moved.setCategory("Books");
+        Map<String, Map<String, Long>> facets = Map.of("category", Map.of("Electronics", 5L));
+        when(productSearchIndex.filter(filter, null, 2))
+            .thenReturn(Optional.of(new FacetResult(List.of(1L, 2L), true, 5, facets)));
+        when(productRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(moved, testProduct));
+
+        // Act
+        ProductFacetResponse response = productService.filterProducts(filter, null, 2);
+
+        // Assert
+        assertEquals(List.of(1L), response.getItems().stream().map(ProductResponse::getId).toList());
+        assertEquals("2", response.getNextCursor());
+        assertEquals(5L, response.getTotal());
+        assertEquals(facets, response.getFacets());
+    }
+
+    @Test
+    void testFilterProducts_InvalidCursor() {
+        ProductFilter filter = new ProductFilter(Set.of(), Set.of(), null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> productService.filterProducts(filter, "abc", 20));
+    }
+
     @Test
     void testSearchProducts_NoResults() {
         // Arrange
@@ -191,6 +264,8 @@ class ProductServiceTest {
         assertEquals(testProduct.getName(), response.getName());
         assertEquals(testProduct.getPrice(), response.getPrice());
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(productEventPublisher).publishChanged(testProduct);
+        verify(catalogRevisionRepository, times(1)).bump(any(LocalDateTime.class));
     }
 
     @Test
@@ -209,6 +284,8 @@ class ProductServiceTest {
         assertNotNull(response);
         verify(productRepository, times(1)).findById(1L);
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(productEventPublisher).publishChanged(testProduct);
+        verify(catalogRevisionRepository, times(1)).bump(any(LocalDateTime.class));
     }
 
     @Test
@@ -224,6 +301,7 @@ class ProductServiceTest {
         assertTrue(exception.getMessage().contains("Product not found"));
         verify(productRepository, times(1)).findById(999L);
         verify(productRepository, never()).save(any(Product.class));
+        verifyNoInteractions(catalogRevisionRepository);
     }
 
     @Test
@@ -238,6 +316,30 @@ class ProductServiceTest {
         // Assert
         verify(productRepository, times(1)).findById(1L);
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(productEventPublisher).publishChanged(argThat(product -> !product.getActive()));
+        verify(catalogRevisionRepository, times(1)).bump(any(LocalDateTime.class));
+    }
+
+    @Test
+    void testUpdateProduct_BumpsRevisionOnceRightBeforeCommit() {
+        // Arrange
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act: two writes in one transaction
+            productService.updateProduct(1L, productRequest);
+            productService.deleteProduct(1L);
+
+            // Assert
+            verify(catalogRevisionRepository, never()).bump(any(LocalDateTime.class));
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.beforeCommit(false));
+            verify(catalogRevisionRepository, times(1)).bump(any(LocalDateTime.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -253,6 +355,7 @@ class ProductServiceTest {
         assertTrue(exception.getMessage().contains("Product not found"));
         verify(productRepository, times(1)).findById(999L);
         verify(productRepository, never()).save(any(Product.class));
+        verifyNoInteractions(catalogRevisionRepository);
     }
 
     @Test
@@ -285,6 +388,68 @@ class ProductServiceTest {
         verify(productRepository, times(1)).findByBrandAndActiveTrue("UnknownBrand");
     }
 
+    @Test
+    void testGetProductsByIds_DeduplicatesIdsIntoOneQuery() {
+        // Arrange
+        when(productRepository.findAllById(any())).thenReturn(Arrays.asList(testProduct, createProduct(2L, "Product 2")));
+
+        // Act
+        List<ProductResponse> response = productService.getProductsByIds(Arrays.asList(1L, 2L, 1L));
+
+        // Assert
+        assertEquals(2, response.size());
+        verify(productRepository, times(1)).findAllById(argThat(ids -> ((Collection<?>) ids).size() == 2));
+    }
+
+    @Test
+    void testGetProductPage_CursorResumesAfterLastItem() {
+        // Arrange
+        Product second = createProduct(2L, "Product 2");
+        doReturn(Window.from(List.of(testProduct, second), ScrollPosition::offset, true))
+            .when(productRepository).findBy(any(Specification.class), any());
+
+        // Act
+        ProductPageResponse page = productService.getProductPage(null, null, ProductSort.PRICE_ASC, null, 2, false);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        assertNull(page.getTotal());
+        assertEquals(ScrollPosition.forward(Map.of("price", new BigDecimal("79.99"), "id", 2L)),
+            ProductCursor.position(ProductSort.PRICE_ASC, page.getNextCursor()));
+        verify(productRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testGetProductPage_LastPageHasNoCursorAndCountsWhenAsked() {
+        // Arrange
+        testProduct.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        doReturn(Window.from(List.of(testProduct), ScrollPosition::offset, false))
+            .when(productRepository).findBy(any(Specification.class), any());
+        when(productRepository.count(any(Specification.class))).thenReturn(21L);
+
+        // Act
+        ProductPageResponse page = productService.getProductPage("Electronics", null, ProductSort.NEWEST, null, 20, true);
+
+        // Assert
+        assertNull(page.getNextCursor());
+        assertEquals(21L, page.getTotal());
+    }
+
+    @Test
+    void testGetProductPage_RejectsCursorOfAnotherSort() {
+        // Arrange
+        testProduct.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        String cursor = ProductCursor.after(ProductSort.NEWEST, ProductResponse.fromEntity(testProduct));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> productService.getProductPage(null, null, ProductSort.NAME, cursor, 20, false));
+        assertThrows(IllegalArgumentException.class,
+            () -> productService.getProductPage(null, null, ProductSort.NAME, "not-a-cursor", 20, false));
+        verifyNoInteractions(productRepository);
+    }
+
     // Helper method to create test products
     private Product createProduct(Long id, String name) {
         Product product = new Product();
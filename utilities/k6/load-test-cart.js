@@ -0,0 +1,72 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Rate } from 'k6/metrics';
+
+// Servlet vs reactive cart-service comparison.
+//
+// Hits cart-service directly (no gateway, X-User-Id set here) so that only the
+// web stack differs between runs. Start each mode with the same CPU limit and
+// Redis, run this script against it, and compare http_reqs/s and p(99):
+//
+//   docker compose --profile databases up -d redis
+//   docker build -t cart-service services/cart-service
+//   docker run --rm --cpus=2 --network ecommerce-network -p 8084:8084 \
+//     -e SPRING_PROFILES_ACTIVE=docker -e EUREKA_CLIENT_ENABLED=false cart-service
+//   k6 run utilities/k6/load-test-cart.js
+//
+// then again with SPRING_PROFILES_ACTIVE=docker,reactive.
+
+// Custom metrics
+const errorRate = new Rate('errors');
+
+export const options = {
+  scenarios: {
+    cart: {
+      executor: 'ramping-vus',
+      stages: [
+        { duration: '30s', target: 200 },  // Ramp up to 200 users
+        { duration: '2m', target: 200 },   // Stay at 200 users for 2 minutes
+        { duration: '15s', target: 0 },    // Ramp down to 0 users
+      ],
+    },
+  },
+  summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    errors: ['rate<0.01'],             // Error rate should be below 1%
+  },
+};
+
+const BASE_URL = __ENV.CART_URL || 'http://localhost:8084';
+const USERS = parseInt(__ENV.USERS || '10000');
+
+export default function () {
+  // Spread users so that carts stay small, as in production
+  const userId = Math.floor(Math.random() * USERS) + 1;
+  const params = { headers: { 'X-User-Id': `${userId}`, 'Content-Type': 'application/json' } };
+  const productId = Math.floor(Math.random() * 50) + 1;
+
+  // Reads dominate cart traffic: three views per add
+  for (let i = 0; i < 3; i++) {
+    const cartRes = http.get(`${BASE_URL}/api/cart`, params);
+    check(cartRes, {
+      'get cart status 200': (r) => r.status === 200,
+    }) || errorRate.add(1);
+  }
+
+  const addRes = http.post(`${BASE_URL}/api/cart/add`, JSON.stringify({
+    productId: productId,
+    productName: `Product ${productId}`,
+    price: 19.99,
+    quantity: 1,
+  }), params);
+  check(addRes, {
+    'add to cart status 200': (r) => r.status === 200,
+  }) || errorRate.add(1);
+
+  if (Math.random() < 0.2) {
+    const removeRes = http.del(`${BASE_URL}/api/cart/remove/${productId}`, null, params);
+    check(removeRes, {
+      'remove from cart status 200': (r) => r.status === 200,
+    }) || errorRate.add(1);
+  }
+}